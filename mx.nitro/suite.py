@@ -53,6 +53,23 @@ suite = {
       "license" : "GPLv3",
     },
 
+    "org.graalvm.vm.trcview.arch.arm.jmh" : {
+      "subDir" : "projects",
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "org.graalvm.vm.trcview.arch.arm",
+        "vmx86:VMX86_TRCVIEW",
+        "mx:JMH_1_21",
+      ],
+      "annotationProcessors" : [
+        "mx:JMH_1_21",
+      ],
+      "javaCompliance" : "1.8+",
+      "workingSets" : "vmx86",
+      "testProject" : "True",
+      "license" : "GPLv3",
+    },
+
   },
 
   "distributions" : {
@@ -85,6 +102,22 @@ suite = {
       "license" : "GPLv3",
     },
 
+    "TRCVIEW_ARM_PLUGIN_JMH" : {
+      "path" : "build/nitro_jmh.jar",
+      "sourcesPath" : "build/nitro_jmh.src.zip",
+      "subDir" : "nitro",
+      "dependencies" : [
+        "org.graalvm.vm.trcview.arch.arm.jmh",
+      ],
+      "exclude" : [
+        "mx:JMH_1_21"
+      ],
+      "distDependencies" : [
+        "vmx86:VMX86_TRCVIEW",
+      ],
+      "license" : "GPLv3",
+    },
+
     "TRCVIEW_ARM" : {
       "path" : "build/trcview.jar",
       "sourcesPath" : "build/trcview.src.zip",
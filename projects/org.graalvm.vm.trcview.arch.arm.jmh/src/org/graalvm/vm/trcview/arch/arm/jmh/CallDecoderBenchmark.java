@@ -0,0 +1,59 @@
+package org.graalvm.vm.trcview.arch.arm.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.vm.trcview.analysis.type.DataType;
+import org.graalvm.vm.trcview.analysis.type.Function;
+import org.graalvm.vm.trcview.analysis.type.Prototype;
+import org.graalvm.vm.trcview.analysis.type.Type;
+import org.graalvm.vm.trcview.arch.arm.decode.ARMCallDecoder;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuTinyTargetDeltaState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuZeroState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CallDecoderBenchmark {
+	private Function function;
+	private ARMCpuState state;
+	private ARMCpuState nextState;
+
+	@Setup
+	public void setup() {
+		// register arguments with integer types only; these are formatted without memory access, so no
+		// trace analyzer is needed
+		List<Type> args = new ArrayList<>();
+		for(int i = 0; i < 4; i++) {
+			args.add(new Type(DataType.S32));
+		}
+		function = new Function("memcpy", new Prototype(new Type(DataType.S32), args));
+
+		ARMCpuState s = new ARMCpuZeroState(0);
+		for(int i = 0; i < 4; i++) {
+			s = new ARMCpuTinyTargetDeltaState(s, 0x1F, 0, i + 1, (byte) i, 0x02000000 + i * 0x100);
+		}
+		state = s;
+		nextState = new ARMCpuTinyTargetDeltaState(state, 0x1F, 0, 5, (byte) 0, 42);
+	}
+
+	@Benchmark
+	public String decode() {
+		return ARMCallDecoder.decode(function, state, nextState, null);
+	}
+}
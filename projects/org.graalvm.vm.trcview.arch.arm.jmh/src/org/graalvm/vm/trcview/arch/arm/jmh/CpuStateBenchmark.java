@@ -0,0 +1,133 @@
+package org.graalvm.vm.trcview.arch.arm.jmh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuTinyTargetDeltaState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuZeroState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMStepStore;
+import org.graalvm.vm.trcview.arch.arm.io.ARMStoredCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CpuStateBenchmark {
+	@State(Scope.Thread)
+	public static class Chain {
+		// number of delta states between the looked up register and the state which stores it
+		@Param({"1", "8", "64", "512"})
+		public int depth;
+
+		ARMCpuState state;
+
+		@Setup
+		public void setup() {
+			state = new ARMCpuZeroState(0);
+			for(int i = 0; i < depth; i++) {
+				// only R1 is written, so looking up R0 walks the whole chain
+				state = new ARMCpuTinyTargetDeltaState(state, 0x1F, 0, i + 1, (byte) 1, i);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Stored {
+		ARMStoredCpuState view;
+		ARMCpuState[] decoded;
+		int position;
+
+		@Setup
+		public void setup() throws IOException {
+			Path trace = Files.createTempFile("trace", ".trc");
+			try {
+				try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(trace))) {
+					new ARMTraceGenerator(42).generate(out, 1 << 16);
+				}
+				ARMStepStore store = new ARMStepStore();
+				load(trace, store);
+				view = store.get(0);
+				decoded = load(trace, null);
+			} finally {
+				Files.delete(trace);
+			}
+		}
+
+		private static ARMCpuState[] load(Path trace, ARMStepStore store) throws IOException {
+			ARMCpuState[] result = new ARMCpuState[1 << 16];
+			try(InputStream in = new BufferedInputStream(Files.newInputStream(trace))) {
+				ARMTraceReader reader = new ARMTraceReader(in);
+				if(store != null) {
+					reader.setStepStore(store);
+				}
+				int n = 0;
+				Object evt;
+				while((evt = reader.read()) != null) {
+					if(evt instanceof ARMCpuState) {
+						// with a store, this is the same view for every step
+						result[n++] = (ARMCpuState) evt;
+					}
+				}
+			}
+			return result;
+		}
+
+		int next() {
+			position = (position + 7919) & 0xFFFF;
+			return position;
+		}
+	}
+
+	@Benchmark
+	public int chain(Chain chain) {
+		return chain.state.getGPR(0);
+	}
+
+	@Benchmark
+	public int chainWritten(Chain chain) {
+		return chain.state.getGPR(1);
+	}
+
+	// all 16 registers of a pseudo random step, decoded as bounded delta chain or as off-heap store view
+	@Benchmark
+	public int decoded(Stored stored) {
+		ARMCpuState state = stored.decoded[stored.next()];
+		int result = 0;
+		for(int i = 0; i < 16; i++) {
+			result += state.getGPR(i);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public int store(Stored stored) {
+		ARMStoredCpuState state = stored.view;
+		state.setIndex(stored.next());
+		int result = 0;
+		for(int i = 0; i < 16; i++) {
+			result += state.getGPR(i);
+		}
+		return result;
+	}
+}
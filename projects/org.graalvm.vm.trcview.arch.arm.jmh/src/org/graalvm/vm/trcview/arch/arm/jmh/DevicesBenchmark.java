@@ -0,0 +1,60 @@
+package org.graalvm.vm.trcview.arch.arm.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.vm.trcview.arch.arm.device.ARMDevices;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEventI32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DevicesBenchmark {
+	private static final int COUNT = 1024;
+
+	// percentage of accesses which go to the I/O area instead of main memory
+	@Param({"0", "10", "100"})
+	public int io;
+
+	private MemoryEvent[] events;
+
+	@Setup
+	public void setup() {
+		Random rng = new Random(42);
+		events = new MemoryEvent[COUNT];
+		for(int i = 0; i < COUNT; i++) {
+			long address;
+			if(rng.nextInt(100) < io) {
+				address = 0x04000000 + rng.nextInt(0x700);
+			} else {
+				address = 0x02000000 + rng.nextInt(0x100000) * 4;
+			}
+			events[i] = new MemoryEventI32(false, 0, address, rng.nextBoolean(), rng.nextInt());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void getEvent(Blackhole bh) {
+		for(int i = 0; i < COUNT; i++) {
+			bh.consume(ARMDevices.getEvent(events[i]));
+		}
+	}
+}
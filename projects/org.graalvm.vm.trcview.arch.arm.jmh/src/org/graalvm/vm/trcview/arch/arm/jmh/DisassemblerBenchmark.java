@@ -0,0 +1,82 @@
+package org.graalvm.vm.trcview.arch.arm.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
+import org.graalvm.vm.trcview.arch.arm.disasm.DisassemblyBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DisassemblerBenchmark {
+	private static final int COUNT = 1024;
+	private static final int THUMB = 0x20;
+
+	@Param({"arm", "thumb"})
+	public String mode;
+
+	private int[] opcodes;
+	private int cpsr;
+	private final DisassemblyBuffer buffer = new DisassemblyBuffer();
+
+	@Setup
+	public void setup() {
+		Random rng = new Random(42);
+		opcodes = new int[COUNT];
+		if(mode.equals("thumb")) {
+			cpsr = 0x1F | THUMB;
+			for(int i = 0; i < COUNT; i++) {
+				opcodes[i] = rng.nextInt(0x10000);
+			}
+		} else {
+			cpsr = 0x1F;
+			for(int i = 0; i < COUNT; i++) {
+				// mostly unconditional instructions like in real code
+				int cond = rng.nextInt(4) == 0 ? rng.nextInt(15) : 0xE;
+				opcodes[i] = cond << 28 | (rng.nextInt() & 0x0FFFFFFF);
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void disassemble(Blackhole bh) {
+		for(int i = 0; i < COUNT; i++) {
+			bh.consume(ARMv5Disassembler.disassemble(0x02000000 + i * 4, cpsr, opcodes[i]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void disassembleBuffer(Blackhole bh) {
+		for(int i = 0; i < COUNT; i++) {
+			ARMv5Disassembler.disassemble(0x02000000 + i * 4, cpsr, opcodes[i], buffer);
+			bh.consume(buffer.getComponentCount());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void getType(Blackhole bh) {
+		for(int i = 0; i < COUNT; i++) {
+			bh.consume(ARMv5Disassembler.getType(opcodes[i], cpsr));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package org.graalvm.vm.trcview.arch.arm.jmh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TraceReaderBenchmark {
+	@Param({"1000000"})
+	public int steps;
+
+	@Param({"stream", "mapped"})
+	public String input;
+
+	private Path trace;
+	private long size;
+
+	// reported per second next to the primary result
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long records;
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			records = 0;
+			bytes = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		trace = Files.createTempFile("trace", ".trc");
+		try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(trace))) {
+			new ARMTraceGenerator(42).generate(out, steps);
+		}
+		size = Files.size(trace);
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() throws IOException {
+		Files.deleteIfExists(trace);
+	}
+
+	@Benchmark
+	public long read(Counters counters) throws IOException {
+		long count = 0;
+		if(input.equals("mapped")) {
+			try(FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+				count = read(new ARMTraceReader(channel));
+			}
+		} else {
+			try(InputStream in = new BufferedInputStream(Files.newInputStream(trace))) {
+				count = read(new ARMTraceReader(in));
+			}
+		}
+		counters.records += count;
+		counters.bytes += size;
+		return count;
+	}
+
+	private static long read(ARMTraceReader reader) throws IOException {
+		long count = 0;
+		while(reader.read() != null) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,110 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuFullState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class BoundTest {
+	private static final int STEPS = 20000;
+
+	private static ARMCpuState nextState(ARMTraceReader reader) throws IOException {
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof ARMCpuState) {
+				return (ARMCpuState) evt;
+			}
+		}
+		return null;
+	}
+
+	private static int maxDepth(ARMCpuState state) {
+		int max = 0;
+		for(int i = 0; i < 16; i++) {
+			max = Math.max(max, state.getLookupDepth(i));
+		}
+		return max;
+	}
+
+	// compares a bounded decode against an unbounded one and returns the number of states which were materialized
+	// as full state and as wider delta state
+	private static int[] check(int maxRegisters) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(31);
+		gen.setMaxRegisters(maxRegisters);
+		// every context switch starts a new chain
+		gen.setContextSwitchProbability(0.001);
+		gen.setIRQProbability(0.001);
+		gen.generate(out, STEPS);
+		byte[] trace = out.toByteArray();
+
+		ARMTraceReader bounded = new ARMTraceReader(new ByteArrayInputStream(trace));
+		ARMTraceReader unbounded = new ARMTraceReader(new ByteArrayInputStream(trace));
+		unbounded.setBounded(false);
+
+		int steps = 0;
+		int full = 0;
+		int partial = 0;
+		int unboundedDepth = 0;
+		ARMCpuState expected;
+		while((expected = nextState(unbounded)) != null) {
+			ARMCpuState actual = nextState(bounded);
+			steps++;
+			assertEquals(expected.getStep(), actual.getStep());
+			assertEquals(expected.getTid(), actual.getTid());
+			assertEquals(expected.getCPSR(), actual.getCPSR());
+			assertEquals(expected.getCode(), actual.getCode());
+			assertEquals(expected.getChangedMask(), actual.getChangedMask());
+			for(int i = 0; i < 16; i++) {
+				assertEquals(expected.getGPR(i), actual.getGPR(i));
+			}
+
+			assertTrue(maxDepth(actual) <= ARMTraceReader.MAX_CHAIN_DEPTH);
+			unboundedDepth = Math.max(unboundedDepth, expected.getLookupDepth(0));
+
+			if(actual instanceof ARMCpuFullState && !(expected instanceof ARMCpuFullState)) {
+				full++;
+			} else if(actual instanceof ARMCpuDeltaState && !(expected instanceof ARMCpuDeltaState)) {
+				// stale registers were copied into a wider delta state
+				int local = 0;
+				for(int i = 0; i < 16; i++) {
+					if(actual.getLookupDepth(i) == 0) {
+						local++;
+					}
+				}
+				assertTrue(local <= ARMTraceReader.MAX_PARTIAL_REGISTERS);
+				partial++;
+			}
+		}
+		assertNull(nextState(bounded));
+
+		assertEquals(STEPS, steps);
+		assertTrue(unboundedDepth > 2 * ARMTraceReader.MAX_CHAIN_DEPTH);
+		return new int[] { full, partial };
+	}
+
+	@Test
+	public void unchanged() throws IOException {
+		// only the PC changes, so all other registers become stale at once
+		int[] result = check(0);
+		assertTrue(result[0] > 200);
+	}
+
+	@Test
+	public void few() throws IOException {
+		// at most one register besides the PC per step, so only some registers become stale at once
+		int[] result = check(1);
+		assertTrue(result[1] > 500);
+	}
+}
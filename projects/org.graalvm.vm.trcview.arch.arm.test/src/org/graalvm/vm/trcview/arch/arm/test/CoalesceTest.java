@@ -0,0 +1,139 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMBlockWriteEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMDeviceRegisterEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.junit.Test;
+
+public class CoalesceTest {
+	private static byte[] trace() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		r[15] = 0x02000000;
+		writer.writeStep(0xE8A0000F, 1, 0x1F, r); // STMIA R0!, {R0-R3}
+		for(int i = 0; i < 4; i++) {
+			writer.writeMemory(true, 4, 0x02000100 + 4 * i, 0x11111111 * (i + 1));
+		}
+		writer.writeMemory(true, 4, 0x02000200, 5);
+		r[15] += 4;
+		writer.writeStep(0xE5C01000, 2, 0x1F, r);
+		writer.writeMemory(true, 1, 0x02000300, 0xAA);
+		writer.writeMemory(true, 1, 0x02000301, 0xBB);
+		writer.writeMemory(false, 1, 0x02000302, 0xCC);
+		writer.writeMemory(true, 4, 0x04000000, 0x10003);
+		writer.writeMemory(true, 4, 0x04000004, 0);
+		r[15] += 4;
+		writer.writeStep(0xE5801000, 3, 0x1F, r);
+		writer.writeMemory(true, 4, 0x02000400, 1);
+		r[15] += 4;
+		writer.writeStep(0xE5801000, 4, 0x1F, r);
+		writer.writeMemory(true, 4, 0x02000404, 2);
+		writer.writeMemory(true, 4, 0x02000408, 3);
+		writer.close();
+		return out.toByteArray();
+	}
+
+	private static List<Event> read(byte[] trace, boolean coalesce) throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		reader.setCoalesce(coalesce);
+		List<Event> events = new ArrayList<>();
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof ARMCpuState || evt instanceof MemoryEvent || evt instanceof MemoryDumpEvent ||
+					evt instanceof ARMDeviceRegisterEvent) {
+				events.add(evt);
+			}
+		}
+		return events;
+	}
+
+	@Test
+	public void blocks() throws IOException {
+		List<Event> events = read(trace(), true);
+		assertEquals(19, read(trace(), false).size());
+		assertEquals(14, events.size());
+
+		assertTrue(events.get(0) instanceof ARMCpuState);
+		ARMBlockWriteEvent block = (ARMBlockWriteEvent) events.get(1);
+		assertEquals(0x02000100, block.getAddress());
+		assertEquals(4, block.getAccessSize());
+		assertEquals(4, block.getAccessCount());
+		assertEquals(0x02000108, block.getAccessAddress(2));
+		assertEquals(0x33333333, block.getAccessValue(2));
+		assertEquals(0x22, block.get(0x02000107));
+		assertEquals(-1, block.get(0x02000110));
+		assertEquals(0x02000200, ((MemoryEvent) events.get(2)).getAddress());
+
+		assertTrue(events.get(3) instanceof ARMCpuState);
+		block = (ARMBlockWriteEvent) events.get(4);
+		assertArrayEquals(new byte[] { (byte) 0xAA, (byte) 0xBB }, block.getData());
+		// reads end a run and I/O writes are not merged
+		assertEquals(0x02000302, ((MemoryEvent) events.get(5)).getAddress());
+		assertEquals(0x04000000, ((MemoryEvent) events.get(6)).getAddress());
+		assertTrue(events.get(7) instanceof ARMDeviceRegisterEvent);
+		assertEquals(0x04000004, ((MemoryEvent) events.get(8)).getAddress());
+		assertTrue(events.get(9) instanceof ARMDeviceRegisterEvent);
+
+		// writes of different steps stay separate
+		assertTrue(events.get(10) instanceof ARMCpuState);
+		assertEquals(0x02000400, ((MemoryEvent) events.get(11)).getAddress());
+		assertEquals(4, ((ARMCpuState) events.get(12)).getStep());
+		block = (ARMBlockWriteEvent) events.get(13);
+		assertEquals(0x02000404, block.getAddress());
+		assertEquals(2, block.getAccessCount());
+	}
+
+	@Test
+	public void offsets() throws IOException {
+		byte[] trace = trace();
+		long[] plain = offsets(trace, false);
+		long[] merged = offsets(trace, true);
+		// the record read ahead to end a run is not counted as consumed
+		assertEquals(trace.length, merged[merged.length - 1]);
+		for(int i = 0, j = 0; i < merged.length; i++) {
+			while(plain[j] != merged[i]) {
+				j++;
+			}
+		}
+	}
+
+	private static long[] offsets(byte[] trace, boolean coalesce) throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		reader.setCoalesce(coalesce);
+		Event[] events = new Event[64];
+		long[] offsets = new long[64];
+		int n = reader.readBatch(events, offsets, 0, events.length);
+		return Arrays.copyOf(offsets, n);
+	}
+
+	@Test
+	public void roundtrip() throws IOException {
+		byte[] trace = trace();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		for(Event evt : read(trace, true)) {
+			if(!(evt instanceof ARMDeviceRegisterEvent)) {
+				writer.writeEvent(evt);
+			}
+		}
+		writer.close();
+		assertArrayEquals(trace, out.toByteArray());
+	}
+}
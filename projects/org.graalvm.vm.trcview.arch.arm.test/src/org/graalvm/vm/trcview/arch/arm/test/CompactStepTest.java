@@ -0,0 +1,101 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceTranscoder;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class CompactStepTest {
+	private static byte[] transcode(byte[] trace, boolean compact) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		writer.setCompact(compact);
+		ARMTraceTranscoder.transcode(new ARMTraceReader(new ByteArrayInputStream(trace)), writer);
+		return out.toByteArray();
+	}
+
+	private static void assertSameEvents(byte[] expected, byte[] actual) throws IOException {
+		ARMTraceReader r1 = new ARMTraceReader(new ByteArrayInputStream(expected));
+		ARMTraceReader r2 = new ARMTraceReader(new ByteArrayInputStream(actual));
+		Event e1;
+		while((e1 = r1.read()) != null) {
+			Event e2 = r2.read();
+			assertEquals(e1.getTid(), e2.getTid());
+			if(e1 instanceof ARMCpuState) {
+				ARMCpuState s1 = (ARMCpuState) e1;
+				ARMCpuState s2 = (ARMCpuState) e2;
+				assertEquals(s1.getStep(), s2.getStep());
+				assertEquals(s1.getCode(), s2.getCode());
+				assertEquals(s1.getCPSR(), s2.getCPSR());
+				assertEquals(s1.getChangedMask(), s2.getChangedMask());
+				for(int i = 0; i < 16; i++) {
+					assertEquals(s1.getGPR(i), s2.getGPR(i));
+				}
+			} else {
+				assertSame(e1.getClass(), e2.getClass());
+			}
+		}
+		assertNull(r2.read());
+	}
+
+	@Test
+	public void generated() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(4);
+		gen.setContextSwitchProbability(0.001);
+		gen.setIRQProbability(0.001);
+		gen.setModeSwitchProbability(0.05);
+		gen.generate(out, 100000);
+		byte[] full = out.toByteArray();
+
+		byte[] compact = transcode(full, true);
+		assertTrue(compact.length * 2 < full.length);
+		assertSameEvents(full, compact);
+
+		// transcoding back restores the original file
+		assertArrayEquals(full, transcode(compact, false));
+	}
+
+	@Test
+	public void irregular() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		r[15] = 0x02000008;
+		writer.writeFullStep(0xE3A00001, 5, 0x1F, r);
+		// steps which are not consecutive
+		r[15] += 4;
+		writer.writeStep(0xE3A00002, 10, 0x1F, r);
+		r[15] += 4;
+		writer.writeStep(0xE3A00003, 7, 0x1F, r);
+		r[15] += 4;
+		writer.writeStep(0xE3A00004, Long.MAX_VALUE, 0x1F, r);
+		// branch, Thumb with a 32bit code word, register above R7
+		r[15] = 0x02001004;
+		writer.writeStep(0xE12FFF10, 0, 0x3F, r);
+		r[15] += 2;
+		r[9] = 42;
+		writer.writeStep(0xF000F800, 1, 0x3F, r);
+		// PC written with its previous value
+		writer.writeFullStep(0x4770, 2, 0x3F, r);
+		writer.close();
+
+		byte[] full = out.toByteArray();
+		byte[] compact = transcode(full, true);
+		assertSameEvents(full, compact);
+		assertArrayEquals(full, transcode(compact, false));
+	}
+}
@@ -0,0 +1,108 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameEvents;
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameState;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCompressedTrace;
+import org.graalvm.vm.trcview.arch.arm.io.ARMParallelTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMStepEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceCompressor;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceIndex;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CompressedTraceTest {
+	private static Path raw;
+	private static Path compressed;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		raw = Files.createTempFile("trace", ".trc");
+		compressed = Files.createTempFile("trace", ".trcz");
+		try(OutputStream out = Files.newOutputStream(raw)) {
+			ARMTraceGenerator gen = new ARMTraceGenerator(9);
+			gen.setContextSwitchProbability(0.001);
+			gen.setIRQProbability(0.001);
+			gen.generate(out, 200000);
+		}
+		ARMTraceCompressor compressor = new ARMTraceCompressor();
+		compressor.setBlockSize(16 * 1024);
+		compressor.compress(raw, compressed);
+	}
+
+	@AfterClass
+	public static void tearDown() throws IOException {
+		Files.delete(raw);
+		Files.delete(compressed);
+		Files.deleteIfExists(ARMTraceIndex.getPath(raw));
+	}
+
+	@Test
+	public void container() throws IOException {
+		assertFalse(ARMCompressedTrace.isCompressed(raw));
+		assertTrue(ARMCompressedTrace.isCompressed(compressed));
+		assertTrue(Files.size(compressed) < Files.size(raw));
+		try(ARMCompressedTrace trace = new ARMCompressedTrace(compressed)) {
+			assertEquals(Files.size(raw), trace.getSize());
+			assertTrue(trace.getBlockCount() > 16);
+			assertNull(trace.getCheckpoint(0));
+			for(int i = 1; i < trace.getBlockCount(); i++) {
+				assertEquals(trace.getBlockOffset(i), trace.getCheckpoint(i).getOffset());
+			}
+		}
+	}
+
+	@Test
+	public void sequential() throws IOException {
+		assertSameEvents(new ARMTraceReader(raw), new ARMTraceReader(compressed));
+	}
+
+	@Test
+	public void stream() throws IOException {
+		byte[] data = Files.readAllBytes(compressed);
+		ARMTraceReader reader = new ARMTraceReader(ARMCompressedTrace.decompress(new ByteArrayInputStream(data)));
+		assertSameEvents(new ARMTraceReader(raw), reader);
+
+		// raw traces pass through unchanged
+		data = Files.readAllBytes(raw);
+		reader = new ARMTraceReader(ARMCompressedTrace.decompress(new ByteArrayInputStream(data)));
+		assertSameEvents(new ARMTraceReader(raw), reader);
+	}
+
+	@Test
+	public void parallel() throws IOException {
+		assertSameEvents(new ARMTraceReader(raw), new ARMParallelTraceReader(compressed));
+	}
+
+	@Test
+	public void seek() throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(compressed);
+		assertTrue(reader.isSeekable());
+		for(long step : new long[] { 150000, 3, 199999, 77777, 77778, 0 }) {
+			ARMTraceReader expected = new ARMTraceReader(raw);
+			Event evt;
+			do {
+				evt = expected.read();
+			} while(!(evt instanceof ARMStepEvent) || ((ARMStepEvent) evt).getStep() < step);
+
+			ARMStepEvent actual = reader.seek(step);
+			assertSameState(((ARMStepEvent) evt).getState(), actual.getState());
+			assertEquals(expected.tell(), reader.tell());
+		}
+		assertNull(reader.seek(200000));
+	}
+}
@@ -0,0 +1,141 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMInstruction;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMInstruction.Access;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMOpcode;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Decoder;
+import org.graalvm.vm.trcview.arch.arm.disasm.Condition;
+import org.junit.Test;
+
+public class DecoderTest {
+	private final ARMInstruction insn = new ARMInstruction();
+
+	private ARMInstruction arm(int op) {
+		ARMv5Decoder.decodeARM(0x1008, op, insn);
+		return insn;
+	}
+
+	private ARMInstruction thumb(int op) {
+		ARMv5Decoder.decodeThumb(0x1004, op, insn);
+		return insn;
+	}
+
+	@Test
+	public void dataProcessing() {
+		arm(0x10811002); // ADDNE R1, R1, R2
+		assertEquals(ARMOpcode.ADD, insn.getOpcode());
+		assertEquals(Condition.NE, insn.getCondition());
+		assertEquals(1, insn.getRd());
+		assertEquals(1, insn.getRn());
+		assertEquals(2, insn.getRm());
+		assertEquals(0b110, insn.getReads());
+		assertEquals(0b10, insn.getWrites());
+		assertFalse(insn.isS());
+
+		arm(0xE3540C01); // CMP R4, #0x100
+		assertEquals(ARMOpcode.CMP, insn.getOpcode());
+		assertTrue(insn.isS());
+		assertTrue(insn.hasImmediate());
+		assertEquals(0x100, insn.getImmediate());
+		assertEquals(ARMInstruction.NONE, insn.getRd());
+		assertEquals(0, insn.getWrites());
+
+		arm(0xE1A00332); // MOV R0, R2, LSR R3
+		assertEquals(ARMOpcode.MOV, insn.getOpcode());
+		assertEquals(ARMInstruction.SHIFT_LSR, insn.getShift());
+		assertEquals(3, insn.getRs());
+		assertEquals(0b1100, insn.getReads());
+	}
+
+	@Test
+	public void loadStore() {
+		arm(0xE5913004); // LDR R3, [R1, #4]
+		assertEquals(ARMOpcode.LDR, insn.getOpcode());
+		assertEquals(Access.READ, insn.getAccess());
+		assertEquals(4, insn.getAccessSize());
+		assertEquals(4, insn.getImmediate());
+		assertFalse(insn.isWriteback());
+
+		arm(0xE52D4004); // STR R4, [SP, #-4]!
+		assertEquals(ARMOpcode.STR, insn.getOpcode());
+		assertEquals(Access.WRITE, insn.getAccess());
+		assertEquals(-4, insn.getImmediate());
+		assertTrue(insn.isWriteback());
+		assertEquals(1 << 13, insn.getWrites());
+
+		arm(0xE1C120D8); // LDRD R2, [R1, #8]
+		assertEquals(ARMOpcode.LDRD, insn.getOpcode());
+		assertEquals(8, insn.getAccessSize());
+		assertEquals(0b1100, insn.getWrites());
+
+		arm(0xE8BD8010); // LDMIA SP!, {R4, PC}
+		assertEquals(ARMOpcode.LDM, insn.getOpcode());
+		assertEquals(0x8010, insn.getRegisterList());
+		assertEquals(8, insn.getAccessSize());
+		assertTrue(insn.writesPC());
+
+		arm(0xE1013092); // SWP R3, R2, [R1]
+		assertEquals(ARMOpcode.SWP, insn.getOpcode());
+		assertEquals(Access.SWAP, insn.getAccess());
+	}
+
+	@Test
+	public void branches() {
+		arm(0xEB000010); // BL
+		assertEquals(ARMOpcode.BL, insn.getOpcode());
+		assertTrue(insn.hasTarget());
+		assertEquals(0x1008 + 0x40, insn.getTarget());
+		assertEquals(0xC000, insn.getWrites());
+
+		arm(0xEAFFFFFE); // B .
+		assertEquals(0x1000, insn.getTarget());
+
+		arm(0xFB000000); // BLX (1) with H
+		assertEquals(ARMOpcode.BLX, insn.getOpcode());
+		assertEquals(0x100A, insn.getTarget());
+
+		arm(0xE12FFF1E); // BX LR
+		assertEquals(ARMOpcode.BX, insn.getOpcode());
+		assertEquals(14, insn.getRm());
+	}
+
+	@Test
+	public void thumbInstructions() {
+		thumb(0xB510); // PUSH {R4, LR}
+		assertEquals(ARMOpcode.PUSH, insn.getOpcode());
+		assertEquals(0x4010, insn.getRegisterList());
+		assertEquals(Access.WRITE, insn.getAccess());
+
+		thumb(0xBD10); // POP {R4, PC}
+		assertEquals(ARMOpcode.POP, insn.getOpcode());
+		assertEquals(0x8010, insn.getRegisterList());
+		assertTrue(insn.writesPC());
+
+		thumb(0x4740); // BX R8
+		assertEquals(ARMOpcode.BX, insn.getOpcode());
+		assertEquals(8, insn.getRm());
+
+		thumb(0x6848); // LDR R0, [R1, #4]
+		assertEquals(ARMOpcode.LDR, insn.getOpcode());
+		assertEquals(1, insn.getRn());
+		assertEquals(4, insn.getImmediate());
+
+		thumb(0xD0FE); // BEQ .
+		assertEquals(ARMOpcode.B, insn.getOpcode());
+		assertEquals(Condition.EQ, insn.getCondition());
+		assertEquals(0x1000, insn.getTarget());
+
+		thumb(0xE7FE); // B .
+		assertEquals(Condition.AL, insn.getCondition());
+		assertEquals(0x1000, insn.getTarget());
+
+		thumb(0x4345); // MUL R5, R0
+		assertEquals(ARMOpcode.MUL, insn.getOpcode());
+		assertEquals(5, insn.getRd());
+		assertEquals(0b100001, insn.getReads());
+	}
+}
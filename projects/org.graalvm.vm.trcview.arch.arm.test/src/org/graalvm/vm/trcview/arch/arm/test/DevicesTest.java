@@ -0,0 +1,62 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.vm.trcview.arch.arm.device.ARMDevices;
+import org.graalvm.vm.trcview.arch.arm.device.event.ge.G3SwapBuffers;
+import org.graalvm.vm.trcview.arch.arm.device.event.ge.G3Viewport;
+import org.graalvm.vm.trcview.arch.arm.io.ARMDeviceRegisterEvent;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class DevicesTest {
+	private static void check(int addr, boolean write, int dev, int reg) {
+		Event evt = ARMDevices.getEvent(0, addr, 0x1234, write);
+		assertTrue(String.format("0x%08x", addr), evt instanceof ARMDeviceRegisterEvent);
+		ARMDeviceRegisterEvent e = (ARMDeviceRegisterEvent) evt;
+		assertEquals(dev, e.getDeviceId());
+		assertEquals(reg, e.getRegisterId());
+		assertEquals(write, e.isWrite());
+	}
+
+	@Test
+	public void memory() {
+		assertNull(ARMDevices.getEvent(0, 0x02000000, 0, true));
+		assertNull(ARMDevices.getEvent(0, 0x027FFFFC, 0, false));
+		assertNull(ARMDevices.getEvent(0, 0x05000000, 0, true));
+		assertNull(ARMDevices.getEvent(0, 0x04002000, 0, true));
+		// unassigned I/O address and the middle of a register
+		assertNull(ARMDevices.getEvent(0, 0x04000002, 0, true));
+		assertNull(ARMDevices.getEvent(0, 0x040000B1, 0, true));
+	}
+
+	@Test
+	public void registers() {
+		check(0x04000000, true, ARMDevices.VIDEO, ARMDevices.DISPCNT);
+		check(0x04001000, false, ARMDevices.VIDEO_B, ARMDevices.DISPCNT);
+		check(0x0400100C, true, ARMDevices.VIDEO_B, ARMDevices.BG2CNT);
+		check(0x04000249, true, ARMDevices.MEMCTL, ARMDevices.VRAMCNT_I);
+		check(0x040000D4 + 8, true, ARMDevices.DMA, ARMDevices.DMA3CNT);
+		check(0x0400010E, true, ARMDevices.TIMER, ARMDevices.TM3CNT_H);
+		check(0x04000214, false, ARMDevices.IRQ, ARMDevices.IF);
+		check(0x04100000, false, ARMDevices.IPC, ARMDevices.IPCFIFORECV);
+		check(0x040002BC, true, ARMDevices.MATH, ARMDevices.SQRT_PARAM_H);
+		check(0x04000610, true, ARMDevices.GE, ARMDevices.DISP_1DOT_DEPTH);
+		check(0x0400038A, true, ARMDevices.RE, ARMDevices.TOON_TABLE + 5);
+	}
+
+	@Test
+	public void geometryCommands() {
+		check(0x04000400, true, ARMDevices.GE, ARMDevices.GXFIFO);
+		check(0x0400043C, true, ARMDevices.GE, ARMDevices.GXFIFO);
+		check(0x04000440, true, ARMDevices.GE, ARMDevices.MTX_MODE);
+		assertNull(ARMDevices.getEvent(0, 0x04000440, 0, false));
+
+		assertTrue(ARMDevices.getEvent(0, 0x04000540, 1, true) instanceof G3SwapBuffers);
+		assertTrue(ARMDevices.getEvent(0, 0x04000580, 0, true) instanceof G3Viewport);
+		assertNull(ARMDevices.getEvent(0, 0x04000540, 0, false));
+		assertNull(ARMDevices.getEvent(0, 0x04000580, 0, false));
+	}
+}
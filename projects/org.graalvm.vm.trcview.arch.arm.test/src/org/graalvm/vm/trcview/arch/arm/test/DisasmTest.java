@@ -112,4 +112,14 @@ public class DisasmTest extends TestSupport {
 	public void loadStore3() {
 		disasm(0xE9E07FFC, "STMFA", "R0!", "{R2-R12,SP,LR}^");
 	}
+
+	@Test
+	public void thumbAddPC() {
+		disasmThumb(0xA101, "ADD", "R1", "PC", "#4");
+	}
+
+	@Test
+	public void thumbAddSP() {
+		disasmThumb(0xAA40, "ADD", "R2", "SP", "#0x100");
+	}
 }
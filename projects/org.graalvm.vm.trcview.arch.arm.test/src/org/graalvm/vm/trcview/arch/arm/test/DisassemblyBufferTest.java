@@ -0,0 +1,60 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
+import org.graalvm.vm.trcview.arch.arm.disasm.DisassemblyBuffer;
+import org.junit.Test;
+
+public class DisassemblyBufferTest {
+	@Test
+	public void format() {
+		DisassemblyBuffer buf = new DisassemblyBuffer();
+		ARMv5Disassembler.disassemble(0x02000000, 0x1F, 0xE187740C, buf);
+		assertEquals(5, buf.getComponentCount());
+		assertEquals("ORR", buf.getComponent(0));
+		assertEquals("LSL #8", buf.getComponent(4));
+		assertEquals("ORR\tR7, R7, R12, LSL #8", buf.toString());
+
+		// the buffer is reused
+		ARMv5Disassembler.disassemble(0x02000000, 0x1F, 0xE1A00000, buf);
+		assertArrayEquals(new String[] { "NOP" }, buf.getComponents());
+		assertEquals("NOP", buf.toString());
+
+		ARMv5Disassembler.disassemble(0x02000004, 0x3F, 0xBD10, buf);
+		assertEquals("POP\t{R4,PC}", buf.toString());
+	}
+
+	@Test
+	public void numbers() {
+		DisassemblyBuffer buf = new DisassemblyBuffer();
+		buf.next().append(0).append(' ').append(-42).append(' ').append(Long.MIN_VALUE).append(' ');
+		buf.appendHex(0).append(' ').appendHex(0xF).append(' ').appendHex(0x10).append(' ').appendHex(-1);
+		assertEquals("0 -42 -9223372036854775808 0 F 10 FFFFFFFFFFFFFFFF", buf.toString());
+	}
+
+	@Test
+	public void parallel() {
+		Random rng = new Random(42);
+		int[] ops = new int[100000];
+		for(int i = 0; i < ops.length; i++) {
+			// empty register lists are rejected by an assertion
+			ops[i] = rng.nextInt() | 1;
+		}
+		String[] expected = new String[ops.length];
+		for(int i = 0; i < ops.length; i++) {
+			expected[i] = String.join("|", ARMv5Disassembler.disassemble(i * 4, i % 2 == 0 ? 0x1F : 0x3F, ops[i]));
+		}
+		ThreadLocal<DisassemblyBuffer> buffers = ThreadLocal.withInitial(DisassemblyBuffer::new);
+		String[] actual = IntStream.range(0, ops.length).parallel().mapToObj(i -> {
+			DisassemblyBuffer buf = buffers.get();
+			ARMv5Disassembler.disassemble(i * 4, i % 2 == 0 ? 0x1F : 0x3F, ops[i], buf);
+			return String.join("|", buf.getComponents());
+		}).toArray(String[]::new);
+		assertArrayEquals(expected, actual);
+	}
+}
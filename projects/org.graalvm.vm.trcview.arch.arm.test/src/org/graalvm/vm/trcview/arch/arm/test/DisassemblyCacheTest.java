@@ -0,0 +1,91 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMDisassemblyCache;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
+import org.junit.Test;
+
+public class DisassemblyCacheTest {
+	private static final int ARM = 0x1F;
+	private static final int THUMB = 0x3F;
+
+	@Test
+	public void hits() {
+		ARMDisassemblyCache cache = new ARMDisassemblyCache(16);
+		String[] first = cache.disassemble(0x02000008, ARM, 0xE2855001);
+		assertArrayEquals(new String[] { "ADD", "R5", "R5", "#1" }, first);
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		String[] second = cache.disassemble(0x02000008, ARM, 0xE2855001);
+		assertArrayEquals(first, second);
+		assertNotSame(first, second);
+		assertEquals("ADD", cache.getMnemonic(0x02000008, ARM, 0xE2855001));
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		// same code word in the other mode, at another PC
+		cache.disassemble(0x02000008, THUMB, 0xE2855001);
+		cache.disassemble(0x0200000C, ARM, 0xE2855001);
+		assertEquals(3, cache.getMisses());
+		assertEquals(3, cache.size());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+	}
+
+	@Test
+	public void lru() {
+		ARMDisassemblyCache cache = new ARMDisassemblyCache(4);
+		for(int i = 0; i < 4; i++) {
+			cache.getMnemonic(i * 4, ARM, 0xE2855001);
+		}
+		// touch the oldest entry, then add a fifth one which evicts the second
+		cache.getMnemonic(0, ARM, 0xE2855001);
+		cache.getMnemonic(16, ARM, 0xE2855001);
+		assertEquals(4, cache.size());
+		cache.getMnemonic(0, ARM, 0xE2855001);
+		assertEquals(2, cache.getHits());
+		cache.getMnemonic(4, ARM, 0xE2855001);
+		assertEquals(2, cache.getHits());
+		assertEquals(6, cache.getMisses());
+	}
+
+	@Test
+	public void disabled() {
+		ARMDisassemblyCache cache = new ARMDisassemblyCache(0);
+		cache.getMnemonic(0, ARM, 0xE2855001);
+		cache.getMnemonic(0, ARM, 0xE2855001);
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void concurrent() {
+		ARMDisassemblyCache cache = new ARMDisassemblyCache(2048);
+		Random rng = new Random(42);
+		// a loop of 256 instructions executed over and over again
+		int[] loop = new int[256];
+		for(int i = 0; i < loop.length; i++) {
+			loop[i] = rng.nextInt() | 1;
+		}
+		IntStream.range(0, 100000).parallel().forEach(i -> {
+			int pc = (i % loop.length) * 2;
+			int cpsr = (i % loop.length) < 128 ? ARM : THUMB;
+			assertArrayEquals(ARMv5Disassembler.disassemble(pc, cpsr, loop[i % loop.length]),
+					cache.disassemble(pc, cpsr, loop[i % loop.length]));
+		});
+		assertEquals(100000, cache.getHits() + cache.getMisses());
+		assertTrue(cache.getMisses() < 1000);
+		assertTrue(cache.size() <= 256);
+	}
+}
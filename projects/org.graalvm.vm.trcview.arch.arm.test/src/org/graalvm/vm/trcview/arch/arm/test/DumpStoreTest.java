@@ -0,0 +1,100 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMDumpStore;
+import org.graalvm.vm.trcview.arch.arm.io.ARMEventFilter;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.junit.Test;
+
+public class DumpStoreTest {
+	private static byte[] data(int seed, int length) {
+		byte[] data = new byte[length];
+		for(int i = 0; i < length; i++) {
+			data[i] = (byte) (seed + i * 7);
+		}
+		return data;
+	}
+
+	@Test
+	public void intern() {
+		ARMDumpStore store = new ARMDumpStore();
+		byte[] buf = data(1, 64);
+		byte[] a = store.intern(buf, 32);
+		assertNotSame(buf, a);
+		assertArrayEquals(data(1, 32), a);
+
+		// the buffer may be reused by the caller
+		buf[0] = 42;
+		byte[] b = store.intern(data(1, 40), 32);
+		assertSame(a, b);
+		assertEquals(1, a[0]);
+
+		byte[] c = data(2, 32);
+		assertSame(c, store.intern(c));
+		assertSame(c, store.intern(data(2, 32)));
+		assertNotSame(a, store.intern(data(1, 33)));
+
+		assertEquals(2, store.getHits());
+		assertEquals(3, store.getMisses());
+		assertEquals(64, store.getSharedBytes());
+	}
+
+	private static List<MemoryDumpEvent> read(ARMDumpStore store, ARMEventFilter filter) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		for(int i = 0; i < 4; i++) {
+			writer.writeStep(0xE1A00000, i, 0x1F, r);
+			writer.writeDump(0x05000000, data(0, 512));
+			writer.writeDump(0x06000000, data(i, 256));
+			writer.writeDump(0x06800000, new byte[0]);
+		}
+		writer.close();
+
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(out.toByteArray()));
+		reader.setDumpStore(store);
+		reader.setFilter(filter);
+		List<MemoryDumpEvent> dumps = new ArrayList<>();
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof MemoryDumpEvent) {
+				dumps.add((MemoryDumpEvent) evt);
+			}
+		}
+		return dumps;
+	}
+
+	@Test
+	public void reader() throws IOException {
+		ARMDumpStore store = new ARMDumpStore();
+		List<MemoryDumpEvent> dumps = read(store, null);
+		assertEquals(12, dumps.size());
+		for(int i = 0; i < 4; i++) {
+			assertSame(dumps.get(0).getData(), dumps.get(3 * i).getData());
+			assertArrayEquals(data(i, 256), dumps.get(3 * i + 1).getData());
+			assertEquals(0, dumps.get(3 * i + 2).getData().length);
+		}
+		assertNotSame(dumps.get(1).getData(), dumps.get(4).getData());
+		assertEquals(6, store.getHits());
+
+		// dumps rejected by the filter are not stored
+		store = new ARMDumpStore();
+		dumps = read(store, ARMEventFilter.parse("5000000-50003FF"));
+		assertEquals(4, dumps.size());
+		assertEquals(3, store.getHits());
+		assertEquals(1, store.getMisses());
+	}
+}
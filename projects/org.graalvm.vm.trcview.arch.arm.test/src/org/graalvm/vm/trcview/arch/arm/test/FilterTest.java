@@ -0,0 +1,122 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMDeviceRegisterEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMEventFilter;
+import org.graalvm.vm.trcview.arch.arm.io.ARMExceptionEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.junit.Test;
+
+public class FilterTest {
+	private static byte[] trace() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		r[15] = 0x02000000;
+		writer.writeStep(0xE5801000, 1, 0x1F, r);
+		writer.writeMemory(true, 4, 0x02000100, 0x11111111);
+		writer.writeMemory(false, 2, 0x02000200, 0x2222);
+		writer.writeMemory(true, 4, 0x04000000, 0x00010003);
+		r[15] += 4;
+		writer.writeStep(0xE5801000, 2, 0x1F, r);
+		writer.writeDump(0x02001000, new byte[100]);
+		writer.writeMemory(true, 1, 0x04000240, 0x81);
+		writer.writeIRQ();
+		r[15] += 4;
+		writer.writeStep(0xE3A00001, 3, 0x1F, r);
+		writer.writeMemory(false, 1, 0x02000300, 0x33);
+		writer.close();
+		return out.toByteArray();
+	}
+
+	private static List<Event> read(ARMEventFilter filter) throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace()));
+		reader.setFilter(filter);
+		List<Event> events = new ArrayList<>();
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof ARMCpuState || evt instanceof MemoryEvent || evt instanceof MemoryDumpEvent ||
+					evt instanceof ARMDeviceRegisterEvent || evt instanceof ARMExceptionEvent) {
+				events.add(evt);
+			}
+		}
+		return events;
+	}
+
+	private static int count(List<Event> events, Class<?> type) {
+		int n = 0;
+		for(Event evt : events) {
+			if(type.isInstance(evt)) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	@Test
+	public void unfiltered() throws IOException {
+		List<Event> events = read(null);
+		assertEquals(3, count(events, ARMCpuState.class));
+		assertEquals(5, count(events, MemoryEvent.class));
+		assertEquals(1, count(events, MemoryDumpEvent.class));
+		assertEquals(2, count(events, ARMDeviceRegisterEvent.class));
+		assertEquals(1, count(events, ARMExceptionEvent.class));
+	}
+
+	@Test
+	public void writes() throws IOException {
+		ARMEventFilter filter = new ARMEventFilter();
+		filter.setReads(false);
+		filter.setDumps(false);
+		filter.setIRQs(false);
+		List<Event> events = read(filter);
+		assertEquals(3, count(events, ARMCpuState.class));
+		assertEquals(3, count(events, MemoryEvent.class));
+		for(Event evt : events) {
+			if(evt instanceof MemoryEvent) {
+				assertTrue(((MemoryEvent) evt).isWrite());
+			}
+		}
+		assertEquals(0, count(events, MemoryDumpEvent.class));
+		assertEquals(2, count(events, ARMDeviceRegisterEvent.class));
+		assertEquals(0, count(events, ARMExceptionEvent.class));
+		// the steps after the skipped dump are still decoded
+		assertEquals(3, ((ARMCpuState) events.get(events.size() - 1)).getStep());
+	}
+
+	@Test
+	public void ranges() throws IOException {
+		List<Event> events = read(ARMEventFilter.parse("writes, dumps, 2001000-20010FF, 2000100"));
+		assertEquals(1, count(events, MemoryEvent.class));
+		assertEquals(0x02000100, ((MemoryEvent) events.get(1)).getAddress());
+		assertEquals(1, count(events, MemoryDumpEvent.class));
+		// rejected accesses to I/O registers still produce device events
+		assertEquals(2, count(events, ARMDeviceRegisterEvent.class));
+
+		events = read(ARMEventFilter.parse("2001063"));
+		assertEquals(0, count(events, MemoryEvent.class));
+		assertEquals(1, count(events, MemoryDumpEvent.class));
+		assertEquals(1, count(events, ARMExceptionEvent.class));
+	}
+
+	@Test
+	public void threads() throws IOException {
+		List<Event> events = read(ARMEventFilter.parse("tid=1"));
+		assertEquals(3, count(events, ARMCpuState.class));
+		assertEquals(0, count(events, MemoryEvent.class));
+		assertEquals(0, count(events, ARMDeviceRegisterEvent.class));
+	}
+}
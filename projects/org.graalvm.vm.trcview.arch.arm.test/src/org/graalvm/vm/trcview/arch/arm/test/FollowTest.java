@@ -0,0 +1,77 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.FollowInputStream;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class FollowTest {
+	private static final int STEPS = 10000;
+
+	@Test
+	public void follow() throws Exception {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		new ARMTraceGenerator(11).generate(buf, STEPS + 1);
+		byte[] trace = buf.toByteArray();
+
+		// find the start of the last step record by generating one step less
+		buf.reset();
+		new ARMTraceGenerator(11).generate(buf, STEPS);
+		int complete = buf.size();
+		while(trace[complete] != ARMTraceReader.TYPE_STEP9) {
+			complete++;
+		}
+
+		Path path = Files.createTempFile("follow", ".trc");
+		try {
+			// first half, then the rest with the last record cut in the middle
+			Files.write(path, Arrays.copyOf(trace, complete / 2));
+
+			FollowInputStream in = new FollowInputStream(path, 0);
+			ARMTraceReader reader = ARMTraceReader.follow(in);
+			AtomicInteger steps = new AtomicInteger();
+			AtomicReference<Throwable> error = new AtomicReference<>();
+			Thread thread = new Thread(() -> {
+				try {
+					Event evt;
+					while((evt = reader.read()) != null) {
+						if(evt instanceof ARMCpuState) {
+							steps.incrementAndGet();
+						}
+					}
+				} catch(Throwable t) {
+					error.set(t);
+				}
+			});
+			thread.start();
+
+			Thread.sleep(300);
+			try(OutputStream out = Files.newOutputStream(path, StandardOpenOption.APPEND)) {
+				out.write(trace, complete / 2, complete + 5 - complete / 2);
+			}
+			Thread.sleep(300);
+			in.stop();
+			thread.join(10000);
+
+			assertNull(error.get());
+			assertEquals(STEPS, steps.get());
+			in.close();
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
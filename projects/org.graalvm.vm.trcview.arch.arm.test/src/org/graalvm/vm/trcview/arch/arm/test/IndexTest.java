@@ -0,0 +1,230 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameState;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.trcview.arch.arm.ARM;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMParallelTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceIndex;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class IndexTest {
+	private static final int STEPS = 100000;
+
+	private static void generate(Path path, long seed, int steps) throws IOException {
+		try(OutputStream out = Files.newOutputStream(path)) {
+			new ARMTraceGenerator(seed).generate(out, steps);
+		}
+	}
+
+	private static void readAll(ArchTraceReader reader) throws IOException {
+		while(reader.read() != null) {
+			// decode everything
+		}
+	}
+
+	private static List<Path> list(Path dir) throws IOException {
+		List<Path> result = new ArrayList<>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for(Path file : files) {
+				result.add(file);
+			}
+		}
+		return result;
+	}
+
+	private static ARMTraceReader open(Path path) throws IOException {
+		// the same route trcview takes for trace files
+		return (ARMTraceReader) new ARM().getTraceReader(new FileInputStream(path.toFile()));
+	}
+
+	@Test
+	public void sidecar() throws IOException {
+		Path trace = Files.createTempFile("trace", ".trc");
+		Path idx = ARMTraceIndex.getPath(trace);
+		try {
+			generate(trace, 3, STEPS);
+			ARMTraceReader reader = new ARMTraceReader(trace);
+			assertEquals(0, reader.getIndex().size());
+			assertFalse(Files.exists(idx));
+			readAll(reader);
+			assertTrue(Files.exists(idx));
+			int checkpoints = reader.getIndex().size();
+			assertTrue(checkpoints > 10);
+
+			// a second reader starts out with all checkpoints
+			reader = new ARMTraceReader(trace);
+			assertEquals(checkpoints, reader.getIndex().size());
+			assertEquals(STEPS / 2, reader.seek(STEPS / 2).getStep());
+
+			// a changed trace invalidates the index, which is then rebuilt
+			generate(trace, 3, STEPS * 2);
+			reader = new ARMTraceReader(trace);
+			assertEquals(0, reader.getIndex().size());
+			readAll(reader);
+			assertTrue(reader.getIndex().size() > checkpoints);
+			ARMTraceIndex stored = ARMTraceIndex.read(idx);
+			assertTrue(stored.matches(0, Files.size(trace), ARMTraceIndex.getStamp(trace)));
+			assertEquals(reader.getIndex().size(), stored.size());
+		} finally {
+			Files.delete(trace);
+			Files.deleteIfExists(idx);
+		}
+	}
+
+	@Test
+	public void channel() throws IOException {
+		Path dir = Files.createTempDirectory("index");
+		Path trace = Files.createTempFile("trace", ".trc");
+		System.setProperty("trcview.arm.indexdir", dir.toString());
+		try {
+			generate(trace, 5, STEPS);
+			ARMTraceReader reader = open(trace);
+			assertEquals(0, reader.getIndex().size());
+			assertEquals(0, list(dir).size());
+			readAll(reader);
+			assertEquals(1, list(dir).size());
+			int checkpoints = reader.getIndex().size();
+			assertTrue(checkpoints > 10);
+
+			reader = open(trace);
+			assertEquals(checkpoints, reader.getIndex().size());
+			assertEquals(STEPS / 2, reader.seek(STEPS / 2).getStep());
+
+			// same number of steps, different contents
+			generate(trace, 6, STEPS);
+			reader = open(trace);
+			assertEquals(0, reader.getIndex().size());
+			readAll(reader);
+			assertEquals(2, list(dir).size());
+			checkpoints = reader.getIndex().size();
+
+			reader = open(trace);
+			assertEquals(checkpoints, reader.getIndex().size());
+		} finally {
+			System.clearProperty("trcview.arm.indexdir");
+			for(Path file : list(dir)) {
+				Files.delete(file);
+			}
+			Files.delete(dir);
+			Files.delete(trace);
+			Files.deleteIfExists(ARMTraceIndex.getPath(trace));
+		}
+	}
+
+	private static ARMCpuState decode(Path path, long step) throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(path);
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof ARMCpuState && ((ARMCpuState) evt).getStep() >= step) {
+				return (ARMCpuState) evt;
+			}
+		}
+		return null;
+	}
+
+	private static void checkSeek(ARMTraceReader reader, Path path, long step) throws IOException {
+		ARMCpuState expected = decode(path, step);
+		assertSameState(expected, reader.seek(step).getState());
+	}
+
+	// stores the index of one trace as the index of another trace of the same size and age
+	private static void forge(Path from, Path to) throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(ARMTraceIndex.getPath(from)));
+		data.order(ByteOrder.LITTLE_ENDIAN);
+		// magic, version and start precede the size and stamp
+		data.putLong(20, Files.size(to));
+		data.putLong(28, ARMTraceIndex.getStamp(to));
+		Files.write(ARMTraceIndex.getPath(to), data.array());
+	}
+
+	@Test
+	public void foreign() throws IOException {
+		Path trace = Files.createTempFile("trace", ".trc");
+		Path other = Files.createTempFile("trace", ".trc");
+		Path idx = ARMTraceIndex.getPath(trace);
+		try {
+			generate(trace, 7, STEPS);
+			generate(other, 8, STEPS);
+			readAll(new ARMTraceReader(other));
+			forge(other, trace);
+
+			// the checkpoint does not match the trace, so the reader decodes from the start instead
+			ARMTraceReader reader = new ARMTraceReader(trace);
+			assertTrue(reader.getIndex().size() > 10);
+			checkSeek(reader, trace, STEPS / 2);
+			assertFalse(Files.exists(idx));
+			readAll(reader);
+
+			// the pass after the seek built the right index
+			assertTrue(Files.exists(idx));
+			reader = new ARMTraceReader(trace);
+			assertTrue(reader.getIndex().size() > 10);
+			checkSeek(reader, trace, STEPS / 3);
+			checkSeek(reader, trace, STEPS / 2);
+
+			// the parallel reader checks its partition boundaries
+			forge(other, trace);
+			ARMParallelTraceReader parallel = new ARMParallelTraceReader(trace);
+			assertEquals(0, parallel.getPartitionCount());
+			assertFalse(Files.exists(idx));
+			readAll(parallel);
+			assertTrue(new ARMParallelTraceReader(trace).getPartitionCount() > 0);
+		} finally {
+			Files.delete(trace);
+			Files.delete(other);
+			Files.deleteIfExists(idx);
+			Files.deleteIfExists(ARMTraceIndex.getPath(other));
+		}
+	}
+
+	@Test
+	public void prune() throws IOException {
+		Path dir = Files.createTempDirectory("index");
+		Path trace = Files.createTempFile("trace", ".trc");
+		System.setProperty("trcview.arm.indexdir", dir.toString());
+		try {
+			for(int i = 0; i < ARMTraceIndex.MAX_CACHED + 10; i++) {
+				Path file = dir.resolve("old" + i + ".idx");
+				Files.write(file, new byte[1]);
+				Files.setLastModifiedTime(file, FileTime.fromMillis(1000 * i));
+			}
+			generate(trace, 9, STEPS);
+			readAll(open(trace));
+			List<Path> files = list(dir);
+			assertEquals(ARMTraceIndex.MAX_CACHED, files.size());
+			// the new index and the most recent old ones survive
+			for(int i = 0; i < 11; i++) {
+				assertFalse(files.contains(dir.resolve("old" + i + ".idx")));
+			}
+			assertTrue(files.contains(dir.resolve("old" + (ARMTraceIndex.MAX_CACHED + 9) + ".idx")));
+			assertTrue(open(trace).getIndex().size() > 10);
+		} finally {
+			System.clearProperty("trcview.arm.indexdir");
+			for(Path file : list(dir)) {
+				Files.delete(file);
+			}
+			Files.delete(dir);
+			Files.delete(trace);
+		}
+	}
+}
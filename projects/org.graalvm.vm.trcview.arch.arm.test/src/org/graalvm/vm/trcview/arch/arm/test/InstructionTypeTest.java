@@ -16,4 +16,43 @@ public class InstructionTypeTest {
 	public void testSubsPCLR() {
 		type(0xE25EF004, 0, InstructionType.RTI);
 	}
+
+	@Test
+	public void testARM() {
+		int z = 1 << 30;
+		type(0xEF000001, 0, InstructionType.SYSCALL); // SWI 1
+		type(0xEF000001, z, InstructionType.SYSCALL);
+		type(0x0F000001, 0, InstructionType.JCC); // SWIEQ 1
+		type(0x0F000001, z, InstructionType.SYSCALL);
+		type(0xE12FFF1E, 0, InstructionType.RET); // BX LR
+		type(0xE1A0F00E, 0, InstructionType.RET); // MOV PC, LR
+		type(0xE1A0F10E, 0, InstructionType.JMP_INDIRECT); // MOV PC, LR, LSL #2
+		type(0xE8BD8010, 0, InstructionType.JMP_INDIRECT); // LDMIA SP!, {R4, PC}
+		type(0xEB000010, 0, InstructionType.CALL); // BL
+		type(0x1B000010, z, InstructionType.JCC); // BLNE
+		type(0xFA000010, 0, InstructionType.CALL); // BLX (1)
+		type(0xE12FFF33, 0, InstructionType.CALL); // BLX R3
+		// LDRH PC, [LR], #-4 shares bits 27-20 with SUB
+		type(0xE05EF0B4, 0, InstructionType.OTHER);
+	}
+
+	@Test
+	public void testThumb() {
+		int thumb = 1 << 5;
+		type(0x4770, thumb, InstructionType.RET); // BX LR
+		type(0x4718, thumb, InstructionType.JMP_INDIRECT); // BX R3
+		type(0x4798, thumb, InstructionType.CALL); // BLX R3
+		type(0xBD10, thumb, InstructionType.RET); // POP {R4, PC}
+		type(0xBC10, thumb, InstructionType.OTHER); // POP {R4}
+		type(0xD003, thumb, InstructionType.JCC); // BEQ
+		type(0xDE03, thumb, InstructionType.JMP); // B (1) with AL
+		type(0xDF01, thumb, InstructionType.SYSCALL); // SWI 1
+		type(0xBE01, thumb, InstructionType.SYSCALL); // BKPT 1
+		type(0xE7FE, thumb, InstructionType.JMP); // B (2)
+		type(0xF800, thumb, InstructionType.CALL); // BL
+		type(0xE800, thumb, InstructionType.CALL); // BLX
+		type(0x2001, thumb, InstructionType.OTHER); // MOV R0, #1
+		// upper bits are ignored
+		type(0xFFFF4770, thumb, InstructionType.RET);
+	}
 }
@@ -0,0 +1,184 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.graalvm.vm.trcview.arch.arm.io.MappedLEInputStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MappedInputStreamTest {
+	private static final int SIZE = 97;
+	private static final int[] WIDTHS = { 2, 4, 8, 1, 8, 2, 4 };
+
+	private static Path file;
+	private static byte[] data;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		data = new byte[SIZE];
+		for(int i = 0; i < SIZE; i++) {
+			data[i] = (byte) (i * 37 + 0x81);
+		}
+		file = Files.createTempFile("mapped", ".bin");
+		Files.write(file, data);
+	}
+
+	@AfterClass
+	public static void tearDown() throws IOException {
+		Files.delete(file);
+	}
+
+	private static MappedLEInputStream open(long start, long window) throws IOException {
+		return new MappedLEInputStream(FileChannel.open(file, StandardOpenOption.READ), start, window);
+	}
+
+	private static long read(MappedLEInputStream in, int width) throws IOException {
+		switch(width) {
+		case 1:
+			return in.read8bit();
+		case 2:
+			return in.read16bit();
+		case 4:
+			return in.read32bit();
+		default:
+			return in.read64bit();
+		}
+	}
+
+	private static long get(ByteBuffer ref, int width) {
+		switch(width) {
+		case 1:
+			return Byte.toUnsignedInt(ref.get());
+		case 2:
+			return ref.getShort();
+		case 4:
+			return ref.getInt();
+		default:
+			return ref.getLong();
+		}
+	}
+
+	@Test
+	public void values() throws IOException {
+		// every start offset shifts the values against the window boundaries
+		for(int window = 1; window <= 9; window++) {
+			for(int start = 0; start < 16; start++) {
+				ByteBuffer ref = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+				ref.position(start);
+				try(MappedLEInputStream in = open(start, window)) {
+					for(int i = 0; ref.remaining() >= WIDTHS[i % WIDTHS.length]; i++) {
+						int width = WIDTHS[i % WIDTHS.length];
+						assertEquals(ref.position() - start, in.tell());
+						assertEquals(get(ref, width), read(in, width));
+					}
+					assertEquals(ref.position() - start, in.tell());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void eof() throws IOException {
+		try(MappedLEInputStream in = open(SIZE - 3, 2)) {
+			assertEquals(3, in.available());
+			try {
+				in.read32bit();
+				fail();
+			} catch(EOFException e) {
+				// expected
+			}
+		}
+		try(MappedLEInputStream in = open(SIZE - 1, 4)) {
+			assertEquals(Byte.toUnsignedInt(data[SIZE - 1]), in.read());
+			assertEquals(-1, in.read());
+			assertEquals(-1, in.read(new byte[4], 0, 4));
+			assertEquals(0, in.available());
+		}
+	}
+
+	@Test
+	public void bytes() throws IOException {
+		for(int window = 1; window <= 9; window++) {
+			try(MappedLEInputStream in = open(0, window)) {
+				int pos = 0;
+				for(int len = 1; pos < SIZE; len++) {
+					byte[] buf = new byte[len + 2];
+					int n = in.read(buf, 1, len);
+					int expected = Math.min(len, SIZE - pos);
+					assertEquals(expected, n);
+					assertArrayEquals(Arrays.copyOfRange(data, pos, pos + n), Arrays.copyOfRange(buf, 1, 1 + n));
+					assertEquals(0, buf[0]);
+					assertEquals(0, buf[len + 1]);
+					pos += n;
+					assertEquals(pos, in.tell());
+				}
+				assertEquals(-1, in.read(new byte[1], 0, 1));
+			}
+		}
+	}
+
+	@Test
+	public void skip() throws IOException {
+		for(int window = 1; window <= 9; window++) {
+			try(MappedLEInputStream in = open(0, window)) {
+				int pos = 0;
+				for(int n = 0; pos < SIZE; n++) {
+					assertEquals(Math.min(n, SIZE - pos), in.skip(n));
+					pos = Math.min(pos + n, SIZE);
+					assertEquals(pos, in.tell());
+					if(pos < SIZE) {
+						assertEquals(Byte.toUnsignedInt(data[pos]), in.read8bit());
+						pos++;
+					}
+				}
+				assertEquals(0, in.skip(5));
+				assertEquals(SIZE, in.tell());
+			}
+		}
+	}
+
+	@Test
+	public void seek() throws IOException {
+		ByteBuffer ref = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		int start = 5;
+		for(int window = 1; window <= 9; window++) {
+			try(MappedLEInputStream in = open(start, window)) {
+				// backwards, within the current window and forwards past it
+				for(int offset : new int[] { 40, 3, 4, 0, 77, 76, 17, 83, 1, SIZE - start - 8 }) {
+					in.seek(offset);
+					assertEquals(offset, in.tell());
+					assertEquals(ref.getLong(start + offset), in.read64bit());
+					assertEquals(offset + 8, in.tell());
+				}
+				in.seek(SIZE - start);
+				assertEquals(SIZE - start, in.tell());
+				assertEquals(-1, in.read());
+				try {
+					in.seek(SIZE - start + 1);
+					fail();
+				} catch(IOException e) {
+					assertTrue(e.getMessage().startsWith("invalid offset"));
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void window() throws IOException {
+		open(0, 0);
+	}
+}
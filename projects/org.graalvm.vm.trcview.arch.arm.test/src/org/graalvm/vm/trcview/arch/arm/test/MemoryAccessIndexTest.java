@@ -0,0 +1,95 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMEventFilter;
+import org.graalvm.vm.trcview.arch.arm.io.ARMMemoryAccessIndex;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.junit.Test;
+
+public class MemoryAccessIndexTest {
+	private static ARMMemoryAccessIndex index(boolean coalesce, ARMEventFilter filter) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		writer.writeMemory(false, 4, 0x02000000, 7);
+		for(int step = 10; step < 200000; step++) {
+			writer.writeStep(0xE1A00000, step, 0x1F, r);
+			// step n performs n % 4 stores to consecutive addresses and a byte load every 3rd step
+			for(int i = 0; i < step % 4; i++) {
+				writer.writeMemory(true, 4, 0x02100000 + 4 * i, step + i);
+			}
+			if(step % 3 == 0) {
+				writer.writeMemory(false, 1, 0x02200000 + (step & 0xFF), 0x80);
+			}
+		}
+		writer.close();
+
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(out.toByteArray()));
+		reader.setCoalesce(coalesce);
+		reader.setFilter(filter);
+		ARMMemoryAccessIndex index = new ARMMemoryAccessIndex();
+		reader.setMemoryAccessIndex(index);
+		while(reader.read() != null) {
+			// decode everything
+		}
+		return index;
+	}
+
+	private static void check(ARMMemoryAccessIndex index) {
+		assertEquals(200000 - 10, index.getStepCount());
+		assertEquals(-1, index.getAccessStep(0));
+		assertEquals(7, index.getValue(0));
+
+		long i = index.getStepIndex(123459);
+		assertEquals(123459 - 10, i);
+		assertEquals(123459, index.getStep(i));
+		assertEquals(3 + 1, index.getStepAccessCount(i));
+		long k = index.getFirstAccess(i);
+		for(int n = 0; n < 3; n++) {
+			assertEquals(i, index.getAccessStep(k + n));
+			assertEquals(0x02100000 + 4 * n, index.getAddress(k + n));
+			assertEquals(123459 + n, index.getValue(k + n));
+			assertEquals(4, index.getSize(k + n));
+			assertTrue(index.isWrite(k + n));
+		}
+		assertEquals(i, index.getAccessStep(k + 3));
+		assertEquals(0x80, index.getValue(k + 3));
+		assertEquals(1, index.getSize(k + 3));
+		assertFalse(index.isWrite(k + 3));
+
+		i = index.getStepIndex(123460);
+		assertEquals(0, index.getStepAccessCount(i));
+		assertEquals(k + 4, index.getFirstAccess(i));
+		assertEquals(-1, index.getStepIndex(5));
+		assertEquals(-1, index.getStepIndex(200000));
+		assertEquals(index.getStepCount() - 1, index.getAccessStep(index.getAccessCount() - 1));
+	}
+
+	@Test
+	public void accesses() throws IOException {
+		check(index(false, null));
+	}
+
+	@Test
+	public void coalesced() throws IOException {
+		// the accesses merged into block events are still recorded one by one
+		check(index(true, null));
+	}
+
+	@Test
+	public void filtered() throws IOException {
+		// accesses rejected by the filter are still recorded
+		ARMEventFilter filter = new ARMEventFilter();
+		filter.setReads(false);
+		filter.addRange(0x02100000, 0x02100007);
+		check(index(true, filter));
+	}
+}
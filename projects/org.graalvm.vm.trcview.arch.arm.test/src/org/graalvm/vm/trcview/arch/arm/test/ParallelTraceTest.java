@@ -0,0 +1,125 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameEvents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMDumpStore;
+import org.graalvm.vm.trcview.arch.arm.io.ARMParallelTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceIndex;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelTraceTest {
+	// enough for several partitions of 16 checkpoints
+	private static final int STEPS = 300000;
+
+	private static Path raw;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		raw = Files.createTempFile("trace", ".trc");
+		try(OutputStream out = Files.newOutputStream(raw)) {
+			ARMTraceGenerator gen = new ARMTraceGenerator(17);
+			gen.setContextSwitchProbability(0.002);
+			gen.setIRQProbability(0.001);
+			gen.setDumpProbability(0.005);
+			gen.generate(out, STEPS);
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() throws IOException {
+		Files.delete(raw);
+		Files.deleteIfExists(ARMTraceIndex.getPath(raw));
+	}
+
+	private static ARMTraceReader sequential() throws IOException {
+		InputStream in = new BufferedInputStream(Files.newInputStream(raw));
+		return new ARMTraceReader(in);
+	}
+
+	private static void index() throws IOException {
+		Files.deleteIfExists(ARMTraceIndex.getPath(raw));
+		ARMTraceReader reader = new ARMTraceReader(raw);
+		while(reader.read() != null) {
+			// decode everything
+		}
+	}
+
+	@Test
+	public void partitions() throws IOException {
+		index();
+		ARMParallelTraceReader reader = new ARMParallelTraceReader(raw);
+		// every partition after the first starts at a checkpoint and ends at the next partition's offset
+		assertTrue(reader.getPartitionCount() > 3);
+		long switches = assertSameEvents(sequential(), reader);
+		assertTrue(switches > 100);
+	}
+
+	@Test
+	public void options() throws IOException {
+		index();
+		ARMDumpStore dumps = new ARMDumpStore();
+		ARMTraceReader expected = sequential();
+		expected.setCoalesce(true);
+		expected.setDumpStore(new ARMDumpStore());
+		ARMParallelTraceReader reader = new ARMParallelTraceReader(raw);
+		reader.setCoalesce(true);
+		reader.setDumpStore(dumps);
+		assertTrue(reader.getPartitionCount() > 3);
+		assertSameEvents(expected, reader);
+		assertTrue(dumps.getMisses() > 0);
+	}
+
+	@Test
+	public void fallback() throws IOException {
+		Path idx = ARMTraceIndex.getPath(raw);
+		Files.deleteIfExists(idx);
+		ARMParallelTraceReader reader = new ARMParallelTraceReader(raw);
+		assertEquals(0, reader.getPartitionCount());
+		assertSameEvents(sequential(), reader);
+
+		// the sequential pass built the index, so the next load is parallel
+		assertTrue(Files.exists(idx));
+		reader = new ARMParallelTraceReader(raw);
+		assertTrue(reader.getPartitionCount() > 3);
+		assertSameEvents(sequential(), reader);
+	}
+
+	@Test
+	public void channel() throws IOException {
+		Path dir = Files.createTempDirectory("index");
+		System.setProperty("trcview.arm.indexdir", dir.toString());
+		try {
+			ARMParallelTraceReader reader = new ARMParallelTraceReader(FileChannel.open(raw, StandardOpenOption.READ));
+			assertEquals(0, reader.getPartitionCount());
+			assertSameEvents(sequential(), reader);
+
+			reader = new ARMParallelTraceReader(FileChannel.open(raw, StandardOpenOption.READ));
+			assertTrue(reader.getPartitionCount() > 3);
+			assertSameEvents(sequential(), reader);
+		} finally {
+			System.clearProperty("trcview.arm.indexdir");
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+				for(Path file : files) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(dir);
+		}
+	}
+}
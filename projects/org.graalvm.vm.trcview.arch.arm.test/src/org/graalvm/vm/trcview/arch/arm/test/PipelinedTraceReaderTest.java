@@ -0,0 +1,187 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMContextSwitchEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMPipelinedTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class PipelinedTraceReaderTest {
+	private static byte[] generate() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(5);
+		gen.setContextSwitchProbability(0.001);
+		gen.setIRQProbability(0.001);
+		gen.generate(out, 200000);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void batch() throws IOException {
+		byte[] trace = generate();
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		ARMTraceReader batchReader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		Event[] events = new Event[100];
+		long[] offsets = new long[100];
+		int n;
+		while((n = batchReader.readBatch(events, offsets, 3, 97)) != -1) {
+			assertTrue(n > 0);
+			for(int i = 3; i < 3 + n; i++) {
+				Event expected = reader.read();
+				assertSame(expected.getClass(), events[i].getClass());
+				assertEquals(reader.tell(), offsets[i]);
+			}
+		}
+		assertNull(reader.read());
+	}
+
+	@Test
+	public void sameEvents() throws IOException {
+		byte[] trace = generate();
+
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		List<ARMContextSwitchEvent> switches = new ArrayList<>();
+		List<String> messages = new ArrayList<>();
+		try(ARMPipelinedTraceReader pipeline = new ARMPipelinedTraceReader(new ByteArrayInputStream(trace))) {
+			Event expected;
+			while((expected = reader.read()) != null) {
+				Event actual = pipeline.read();
+				assertSame(expected.getClass(), actual.getClass());
+				assertEquals(expected.getTid(), actual.getTid());
+				assertEquals(reader.tell(), pipeline.tell());
+				if(expected instanceof ARMContextSwitchEvent) {
+					// the sequential reader only resolves the thread later, the pipeline has to hand it out resolved
+					switches.add((ARMContextSwitchEvent) expected);
+					messages.add(((ARMContextSwitchEvent) actual).getMessage());
+				} else if(expected instanceof ARMCpuState) {
+					ARMCpuState s1 = (ARMCpuState) expected;
+					ARMCpuState s2 = (ARMCpuState) actual;
+					assertEquals(s1.getStep(), s2.getStep());
+					assertEquals(s1.getCPSR(), s2.getCPSR());
+					for(int i = 0; i < 16; i++) {
+						assertEquals(s1.getGPR(i), s2.getGPR(i));
+					}
+				}
+			}
+			assertNull(pipeline.read());
+		}
+		assertTrue(switches.size() > 50);
+		for(int i = 0; i < switches.size(); i++) {
+			assertEquals(switches.get(i).getMessage(), messages.get(i));
+		}
+	}
+
+	private static List<Thread> decoders() {
+		List<Thread> result = new ArrayList<>();
+		for(Thread thread : Thread.getAllStackTraces().keySet()) {
+			if(thread.getName().equals("trace decoder")) {
+				result.add(thread);
+			}
+		}
+		return result;
+	}
+
+	private static Thread start(byte[] trace) throws IOException {
+		List<Thread> before = decoders();
+		ARMPipelinedTraceReader pipeline = new ARMPipelinedTraceReader(new ByteArrayInputStream(trace));
+		pipeline.read();
+		List<Thread> threads = decoders();
+		threads.removeAll(before);
+		assertEquals(1, threads.size());
+		return threads.get(0);
+	}
+
+	@Test
+	public void abandoned() throws IOException, InterruptedException {
+		// the trace has more events than fit into the ring, so the decoder blocks until the reader is collected
+		Thread decoder = start(generate());
+		for(int i = 0; i < 100 && decoder.isAlive(); i++) {
+			System.gc();
+			decoder.join(100);
+		}
+		assertFalse(decoder.isAlive());
+	}
+
+	private static class CountingInputStream extends ByteArrayInputStream {
+		CountingInputStream(byte[] data) {
+			super(data);
+		}
+
+		synchronized int position() {
+			return pos;
+		}
+	}
+
+	// a context switch in IRQ mode followed by a long time in IRQ mode, optionally returning to user mode after it
+	private static byte[] switchTrace(int resume) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		for(int step = 0; step < 500000; step++) {
+			r[15] += 4;
+			if(step == 1000) {
+				writer.writeStep(0xE9F17FFF, step, 0x600000D2, r);
+			} else if(step > 1000 && step < resume) {
+				writer.writeStep(0xE1A00000, step, 0x600000D2, r);
+			} else {
+				// the stack pointer identifies the thread
+				r[13] = step < 1000 ? 0x02001000 : 0x02002000;
+				writer.writeStep(0xE1A00000, step, 0x60000010, r);
+			}
+		}
+		writer.close();
+		return out.toByteArray();
+	}
+
+	private static void checkSwitch(byte[] trace) throws IOException, InterruptedException {
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		CountingInputStream in = new CountingInputStream(trace);
+		try(ARMPipelinedTraceReader pipeline = new ARMPipelinedTraceReader(new ARMTraceReader(in))) {
+			ARMContextSwitchEvent expectedSwitch = null;
+			ARMContextSwitchEvent actualSwitch = null;
+			Event expected;
+			while((expected = reader.read()) != null) {
+				Event actual = pipeline.read();
+				assertSame(expected.getClass(), actual.getClass());
+				assertEquals(expected.getTid(), actual.getTid());
+				assertEquals(reader.tell(), pipeline.tell());
+				if(expected instanceof ARMContextSwitchEvent) {
+					expectedSwitch = (ARMContextSwitchEvent) expected;
+					actualSwitch = (ARMContextSwitchEvent) actual;
+					// the decoder published the switch without decoding the rest of the trace first
+					Thread.sleep(200);
+					assertTrue(in.position() < trace.length / 4);
+				}
+			}
+			assertNull(pipeline.read());
+			assertEquals(expectedSwitch.getMessage(), actualSwitch.getMessage());
+		}
+	}
+
+	@Test
+	public void unresolved() throws IOException, InterruptedException {
+		checkSwitch(switchTrace(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void resolvedLate() throws IOException, InterruptedException {
+		// resolved long after the switch was handed out
+		checkSwitch(switchTrace(400000));
+	}
+}
@@ -0,0 +1,177 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameEvents;
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameState;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMStepEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceIndex;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceSlicer;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.arm.io.MappedLEInputStream;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SeekTest {
+	private static final int STEPS = 120000;
+	private static final int EVENTS = 2000;
+
+	private static Path trace;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		trace = Files.createTempFile("trace", ".trc");
+		try(OutputStream out = Files.newOutputStream(trace)) {
+			ARMTraceGenerator gen = new ARMTraceGenerator(21);
+			gen.setContextSwitchProbability(0.001);
+			gen.setIRQProbability(0.001);
+			gen.setDumpProbability(0.01);
+			gen.generate(out, STEPS);
+		}
+		// build the sidecar index
+		ARMTraceReader reader = new ARMTraceReader(trace);
+		while(reader.read() != null) {
+			// decode everything
+		}
+		assertTrue(Files.exists(ARMTraceIndex.getPath(trace)));
+	}
+
+	@AfterClass
+	public static void tearDown() throws IOException {
+		Files.delete(trace);
+		Files.deleteIfExists(ARMTraceIndex.getPath(trace));
+	}
+
+	private static ARMTraceReader unindexed() throws IOException {
+		return new ARMTraceReader(new MappedLEInputStream(FileChannel.open(trace, StandardOpenOption.READ)));
+	}
+
+	private static List<Event> read(ARMTraceReader reader, List<Long> offsets) throws IOException {
+		List<Event> events = new ArrayList<>();
+		Event evt;
+		while(events.size() < EVENTS && (evt = reader.read()) != null) {
+			events.add(evt);
+			offsets.add(reader.tell());
+		}
+		return events;
+	}
+
+	// compares the step returned by seek and the events after it against a sequential decode
+	private static void check(ARMTraceReader reader, long step) throws IOException {
+		ARMStepEvent actual = reader.seek(step);
+		long position = reader.tell();
+
+		Event evt;
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(trace))) {
+			ARMTraceReader expected = new ARMTraceReader(in);
+			do {
+				evt = expected.read();
+			} while(!(evt instanceof ARMStepEvent) || ((ARMStepEvent) evt).getStep() < step);
+			assertNotNull(actual);
+			assertSameState(((ARMStepEvent) evt).getState(), actual.getState());
+			assertEquals(expected.tell(), position);
+
+			List<Long> expectedOffsets = new ArrayList<>();
+			List<Long> actualOffsets = new ArrayList<>();
+			List<Event> expectedEvents = read(expected, expectedOffsets);
+			List<Event> actualEvents = read(reader, actualOffsets);
+			assertEquals(expectedOffsets, actualOffsets);
+			assertSameEvents(expectedEvents, actualEvents);
+		}
+	}
+
+	@Test
+	public void forward() throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(trace);
+		assertTrue(reader.getIndex().size() > 10);
+		// close by: decodes forward without a checkpoint
+		check(reader, 1000);
+		check(reader, 4000);
+		// far ahead: restores the last checkpoint before the target
+		check(reader, 61234);
+		check(reader, STEPS - 1);
+	}
+
+	@Test
+	public void backward() throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(trace);
+		check(reader, 100000);
+		assertTrue(reader.getIndex().find(52345) >= 0);
+		check(reader, 52345);
+		// exactly at a checkpoint and right after it
+		long step = reader.getIndex().get(3).getStep();
+		check(reader, step + 1);
+		check(reader, step);
+	}
+
+	@Test
+	public void noIndex() throws IOException {
+		ARMTraceReader reader = unindexed();
+		assertTrue(reader.isSeekable());
+		assertNull(reader.getIndex());
+		check(reader, 30000);
+		check(reader, 90000);
+		check(reader, 45000);
+		assertNull(reader.seek(STEPS));
+		check(reader, 7);
+	}
+
+	@Test
+	public void rewind() throws IOException {
+		// targets before the first checkpoint start over from the beginning of the trace
+		ARMTraceReader reader = new ARMTraceReader(trace);
+		assertEquals(-1, reader.getIndex().find(100));
+		check(reader, 80000);
+		check(reader, 100);
+		check(reader, 0);
+
+		reader = unindexed();
+		check(reader, 3000);
+		check(reader, 2999);
+	}
+
+	private static byte[] slice(ARMTraceReader reader, long first, long last) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long steps = new ARMTraceSlicer().slice(reader, new ARMTraceWriter(out), first, last);
+		assertEquals(last - first + 1, steps);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void slice() throws IOException {
+		byte[] expected;
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(trace))) {
+			ARMTraceReader reader = new ARMTraceReader(in);
+			assertFalse(reader.isSeekable());
+			expected = slice(reader, 70000, 75000);
+		}
+
+		// jumps to the first step through the index instead of scanning the trace
+		ARMTraceReader reader = new ARMTraceReader(trace);
+		assertTrue(reader.isSeekable());
+		assertArrayEquals(expected, slice(reader, 70000, 75000));
+
+		assertArrayEquals(expected, slice(unindexed(), 70000, 75000));
+	}
+}
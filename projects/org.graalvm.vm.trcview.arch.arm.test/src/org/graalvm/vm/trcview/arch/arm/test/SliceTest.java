@@ -0,0 +1,120 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceSlicer;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.junit.Test;
+
+public class SliceTest {
+	private static byte[] generate() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(12);
+		gen.setContextSwitchProbability(0.001);
+		gen.setIRQProbability(0.001);
+		gen.setDumpProbability(0.01);
+		gen.generate(out, 50000);
+		return out.toByteArray();
+	}
+
+	private static byte[] slice(byte[] trace, long first, long last, boolean memory) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceSlicer slicer = new ARMTraceSlicer();
+		slicer.setMemory(memory);
+		long steps = slicer.slice(new ARMTraceReader(new ByteArrayInputStream(trace)), new ARMTraceWriter(out),
+				first, last);
+		assertEquals(last - first + 1, steps);
+		return out.toByteArray();
+	}
+
+	private static void put(Map<Long, Byte> memory, Event evt) {
+		if(evt instanceof MemoryEvent) {
+			MemoryEvent mem = (MemoryEvent) evt;
+			for(int i = 0; i < mem.getSize(); i++) {
+				memory.put(mem.getAddress() + i, (byte) (mem.getValue() >>> (i * 8)));
+			}
+		} else if(evt instanceof MemoryDumpEvent) {
+			MemoryDumpEvent dump = (MemoryDumpEvent) evt;
+			for(int i = 0; i < dump.getData().length; i++) {
+				memory.put(dump.getAddress() + i, dump.getData()[i]);
+			}
+		}
+	}
+
+	@Test
+	public void registers() throws IOException {
+		byte[] trace = generate();
+		byte[] slice = slice(trace, 20000, 30000, false);
+		assertTrue(slice.length * 4 < trace.length);
+
+		ARMTraceReader original = new ARMTraceReader(new ByteArrayInputStream(trace));
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(slice));
+		Event evt;
+		long step = 20000;
+		while((evt = reader.read()) != null) {
+			if(!(evt instanceof ARMCpuState)) {
+				continue;
+			}
+			ARMCpuState state = (ARMCpuState) evt;
+			Event e;
+			do {
+				e = original.read();
+			} while(!(e instanceof ARMCpuState) || ((ARMCpuState) e).getStep() < state.getStep());
+			ARMCpuState expected = (ARMCpuState) e;
+			assertEquals(step++, state.getStep());
+			assertEquals(expected.getCode(), state.getCode());
+			assertEquals(expected.getCPSR(), state.getCPSR());
+			for(int i = 0; i < 16; i++) {
+				assertEquals(expected.getGPR(i), state.getGPR(i));
+			}
+		}
+		assertEquals(30001, step);
+	}
+
+	@Test
+	public void memory() throws IOException {
+		byte[] trace = generate();
+		byte[] slice = slice(trace, 25000, 25100, true);
+
+		// everything known before the first step of the slice
+		Map<Long, Byte> expected = new HashMap<>();
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		Event evt;
+		while(!((evt = reader.read()) instanceof ARMCpuState) || ((ARMCpuState) evt).getStep() < 25000) {
+			put(expected, evt);
+		}
+
+		Map<Long, Byte> actual = new HashMap<>();
+		reader = new ARMTraceReader(new ByteArrayInputStream(slice));
+		while(!((evt = reader.read()) instanceof ARMCpuState)) {
+			assertFalse(evt instanceof MemoryEvent);
+			put(actual, evt);
+		}
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void outside() throws IOException {
+		byte[] trace = generate();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long steps = new ARMTraceSlicer().slice(new ARMTraceReader(new ByteArrayInputStream(trace)),
+				new ARMTraceWriter(out), 60000, 70000);
+		assertEquals(0, steps);
+		assertEquals(0, out.size());
+	}
+}
@@ -0,0 +1,201 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.graalvm.vm.trcview.arch.arm.test.TestSupport.assertSameState;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMExceptionEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMStepStore;
+import org.graalvm.vm.trcview.arch.arm.io.ARMStoredCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.junit.Test;
+
+public class StepStoreTest {
+	private static class FakeARMCpuState extends ARMCpuState {
+		public final int[] gpr = new int[16];
+		public int cpsr;
+		public int code;
+		public long step;
+		public int changed;
+
+		protected FakeARMCpuState(int tid) {
+			super(tid);
+		}
+
+		@Override
+		public int getGPR(int reg) {
+			return gpr[reg];
+		}
+
+		@Override
+		public int getCPSR() {
+			return cpsr;
+		}
+
+		@Override
+		public int getSPSR() {
+			return 0;
+		}
+
+		@Override
+		public int getCode() {
+			return code;
+		}
+
+		@Override
+		public long getStep() {
+			return step;
+		}
+
+		@Override
+		public int getChangedMask() {
+			return changed;
+		}
+	}
+
+	private static FakeARMCpuState[] generate(int count) {
+		Random rng = new Random(42);
+		FakeARMCpuState[] states = new FakeARMCpuState[count];
+		int[] gpr = new int[16];
+		for(int i = 0; i < count; i++) {
+			FakeARMCpuState state = new FakeARMCpuState(i / 1000);
+			gpr[15] += 4;
+			if(rng.nextInt(4) == 0) {
+				gpr[rng.nextInt(15)] = rng.nextInt();
+			}
+			System.arraycopy(gpr, 0, state.gpr, 0, 16);
+			state.cpsr = rng.nextInt(8) == 0 ? 0x60000013 : 0x6000001F;
+			state.code = rng.nextInt();
+			state.step = i;
+			if(i == 0) {
+				state.changed = 0xFFFF | ARMCpuState.CHANGED_CPSR;
+			} else {
+				for(int r = 0; r < 16; r++) {
+					if(state.gpr[r] != states[i - 1].gpr[r]) {
+						state.changed |= 1 << r;
+					}
+				}
+				if(state.cpsr != states[i - 1].cpsr) {
+					state.changed |= ARMCpuState.CHANGED_CPSR;
+				}
+			}
+			states[i] = state;
+		}
+		return states;
+	}
+
+	@Test
+	public void roundtrip() {
+		// spans more than one chunk
+		FakeARMCpuState[] states = generate(70000);
+		ARMStepStore store = new ARMStepStore();
+		for(int i = 0; i < states.length; i++) {
+			assertEquals(i, store.add(states[i]));
+			assertSameState(states[i], store.get(i));
+		}
+		assertEquals(states.length, store.size());
+		for(int i = 0; i < states.length; i++) {
+			assertSameState(states[i], store.get(i));
+		}
+	}
+
+	@Test
+	public void types() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(7);
+		gen.setContextSwitchProbability(0.01);
+		gen.generate(out, 20000);
+		byte[] trace = out.toByteArray();
+
+		// the types determined while reading, including the RET overrides, are kept by the store
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		ARMTraceReader stored = new ARMTraceReader(new ByteArrayInputStream(trace));
+		stored.setStepStore(new ARMStepStore());
+		Event evt;
+		while((evt = reader.read()) != null) {
+			Event e = stored.read();
+			if(evt instanceof ARMCpuState) {
+				assertEquals(((ARMCpuState) evt).getType(), ((ARMCpuState) e).getType());
+			}
+		}
+		assertNull(stored.read());
+	}
+
+	@Test
+	public void view() {
+		FakeARMCpuState[] states = generate(1000);
+		ARMStepStore store = new ARMStepStore();
+		for(FakeARMCpuState state : states) {
+			store.add(state);
+		}
+		ARMStoredCpuState view = store.get(0);
+		for(int i = states.length - 1; i >= 0; i -= 7) {
+			view.setIndex(i);
+			assertEquals(i, view.getIndex());
+			assertSameState(states[i], view);
+		}
+	}
+
+	@Test
+	public void reader() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(8);
+		gen.setContextSwitchProbability(0.001);
+		gen.setIRQProbability(0.001);
+		// whole chunks, so the memory size is not dominated by the spare room of the last one
+		gen.generate(out, 4 * 65536);
+		byte[] trace = out.toByteArray();
+
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(trace));
+		ARMTraceReader stored = new ARMTraceReader(new ByteArrayInputStream(trace));
+		ARMStepStore store = new ARMStepStore();
+		stored.setStepStore(store);
+
+		List<ARMCpuState> expected = new ArrayList<>();
+		List<ARMCpuState> actual = new ArrayList<>();
+		Event evt;
+		while((evt = reader.read()) != null) {
+			Event e = stored.read();
+			assertEquals(evt.getTid(), e.getTid());
+			if(evt instanceof ARMCpuState) {
+				assertSameState((ARMCpuState) evt, (ARMCpuState) e);
+				expected.add((ARMCpuState) evt);
+				actual.add((ARMCpuState) e);
+			} else if(evt instanceof ARMExceptionEvent) {
+				assertSameState((ARMCpuState) ((ARMExceptionEvent) evt).getStep().getState(),
+						(ARMCpuState) ((ARMExceptionEvent) e).getStep().getState());
+			}
+		}
+		assertNull(stored.read());
+
+		// the step events handed out stay valid while later steps are decoded
+		assertEquals(expected.size(), store.size());
+		assertTrue(actual.get(0).getStep() != actual.get(1).getStep());
+		assertTrue(actual.get(0).getPC() != actual.get(1).getPC());
+		for(int i = 0; i < expected.size(); i++) {
+			assertSameState(expected.get(i), actual.get(i));
+			assertSameState(expected.get(i), store.get(i));
+		}
+
+		// 500M steps have to fit into 16GB
+		assertTrue(store.getMemorySize() < store.size() * 20);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void outOfRange() {
+		ARMStepStore store = new ARMStepStore();
+		store.add(generate(1)[0]);
+		store.get(1);
+	}
+}
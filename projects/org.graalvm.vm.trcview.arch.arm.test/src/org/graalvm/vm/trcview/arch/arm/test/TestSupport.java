@@ -1,8 +1,24 @@
 package org.graalvm.vm.trcview.arch.arm.test;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
+import org.graalvm.vm.trcview.arch.arm.io.ARMBlockWriteEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMContextSwitchEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
+import org.graalvm.vm.trcview.arch.io.DeviceEvent;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
 
 public class TestSupport {
 	private static String str(String[] ref) {
@@ -14,8 +30,95 @@ public class TestSupport {
 		assertArrayEquals("ref=" + str(ref) + " act=" + str(act), ref, act);
 	}
 
+	protected void disasmThumb(int op, String... ref) {
+		String[] act = ARMv5Disassembler.disassemble(0x02000004, 0x3F, op);
+		assertArrayEquals("ref=" + str(ref) + " act=" + str(act), ref, act);
+	}
+
 	protected void disasm(int op, String... ref) {
 		String[] act = ARMv5Disassembler.disassemble(0x02000000, 0, op);
 		assertArrayEquals("ref=" + str(ref) + " act=" + str(act), ref, act);
 	}
+
+	// compares what a step looks like to trcview; the state classes depend on where decoding started
+	public static void assertSameState(ARMCpuState expected, ARMCpuState actual) {
+		assertEquals(expected.getStep(), actual.getStep());
+		assertEquals(expected.getTid(), actual.getTid());
+		for(int r = 0; r < 16; r++) {
+			assertEquals("R" + r, expected.getGPR(r), actual.getGPR(r));
+		}
+		assertEquals(expected.getCPSR(), actual.getCPSR());
+		assertEquals(expected.getCode(), actual.getCode());
+		assertEquals(expected.getChangedMask(), actual.getChangedMask());
+		assertEquals(expected.getType(), actual.getType());
+	}
+
+	// compares everything but the message of device events, which context switches only get once the step after
+	// them was decoded
+	public static void assertSameEvent(Event expected, Event actual) {
+		assertEquals(expected.getTid(), actual.getTid());
+		if(expected instanceof ARMCpuState) {
+			assertTrue(actual instanceof ARMCpuState);
+			assertSameState((ARMCpuState) expected, (ARMCpuState) actual);
+			return;
+		}
+		assertSame(expected.getClass(), actual.getClass());
+		if(expected instanceof MemoryEvent) {
+			MemoryEvent m1 = (MemoryEvent) expected;
+			MemoryEvent m2 = (MemoryEvent) actual;
+			assertEquals(m1.getAddress(), m2.getAddress());
+			assertEquals(m1.getValue(), m2.getValue());
+			assertEquals(m1.getSize(), m2.getSize());
+			assertEquals(m1.isWrite(), m2.isWrite());
+		} else if(expected instanceof MemoryDumpEvent) {
+			assertEquals(((MemoryDumpEvent) expected).getAddress(), ((MemoryDumpEvent) actual).getAddress());
+			assertArrayEquals(((MemoryDumpEvent) expected).getData(), ((MemoryDumpEvent) actual).getData());
+			if(expected instanceof ARMBlockWriteEvent) {
+				assertEquals(((ARMBlockWriteEvent) expected).getAccessSize(),
+						((ARMBlockWriteEvent) actual).getAccessSize());
+			}
+		}
+	}
+
+	// compares the messages of pairs of expected and actual device events and returns the number of context switches
+	private static long assertSameMessages(List<DeviceEvent> devices) {
+		long switches = 0;
+		for(int i = 0; i < devices.size(); i += 2) {
+			assertEquals(devices.get(i).getMessage(), devices.get(i + 1).getMessage());
+			if(devices.get(i) instanceof ARMContextSwitchEvent) {
+				switches++;
+			}
+		}
+		return switches;
+	}
+
+	public static long assertSameEvents(List<Event> expected, List<Event> actual) {
+		assertEquals(expected.size(), actual.size());
+		List<DeviceEvent> devices = new ArrayList<>();
+		for(int i = 0; i < expected.size(); i++) {
+			assertSameEvent(expected.get(i), actual.get(i));
+			if(expected.get(i) instanceof DeviceEvent) {
+				devices.add((DeviceEvent) expected.get(i));
+				devices.add((DeviceEvent) actual.get(i));
+			}
+		}
+		return assertSameMessages(devices);
+	}
+
+	// Both readers have to produce the same events at the same offsets. Returns the number of context switches.
+	public static long assertSameEvents(ArchTraceReader expected, ArchTraceReader actual) throws IOException {
+		List<DeviceEvent> devices = new ArrayList<>();
+		Event e1;
+		while((e1 = expected.read()) != null) {
+			Event e2 = actual.read();
+			assertSameEvent(e1, e2);
+			assertEquals(expected.tell(), actual.tell());
+			if(e1 instanceof DeviceEvent) {
+				devices.add((DeviceEvent) e1);
+				devices.add((DeviceEvent) e2);
+			}
+		}
+		assertNull(actual.read());
+		return assertSameMessages(devices);
+	}
 }
@@ -0,0 +1,132 @@
+package org.graalvm.vm.trcview.arch.arm.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.graalvm.vm.trcview.arch.arm.io.ARMContextSwitchEvent;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceGenerator;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMTraceWriter;
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.junit.Test;
+
+public class TraceWriterTest {
+	private static ARMTraceReader reader(ByteArrayOutputStream out) {
+		return new ARMTraceReader(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	// skips the memory map and device definitions emitted before the first record
+	private static Event next(ARMTraceReader reader) throws IOException {
+		Event evt;
+		do {
+			evt = reader.read();
+		} while(evt != null && !(evt instanceof ARMCpuState) && !(evt instanceof MemoryEvent) &&
+				!(evt instanceof MemoryDumpEvent));
+		return evt;
+	}
+
+	@Test
+	public void roundtrip() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceWriter writer = new ARMTraceWriter(out);
+		int[] r = new int[16];
+		for(int i = 0; i < 16; i++) {
+			r[i] = i * 0x11111111;
+		}
+		writer.writeStep(0xE3A00001, 1, 0x1F, r);
+		r[0] = 1;
+		r[15] += 4;
+		writer.writeStep(0xE5801000, 2, 0x1F, r);
+		writer.writeMemory(true, 4, 0x02000000, 0x12345678);
+		writer.writeMemory(false, 1, 0x02000004, 0xAB);
+		r[15] += 2;
+		writer.writeStep(0x4770, 3, 0x3F, r);
+		writer.writeDump(0x02001000, new byte[] { 1, 2, 3 });
+		writer.close();
+
+		ARMTraceReader reader = reader(out);
+		ARMCpuState state = (ARMCpuState) next(reader);
+		assertEquals(1, state.getStep());
+		assertEquals(0x1F, state.getCPSR());
+		assertEquals(0xE3A00001, state.getCode());
+		assertEquals(0x33333333, state.getGPR(3));
+
+		state = (ARMCpuState) next(reader);
+		assertEquals(2, state.getStep());
+		assertEquals(1, state.getGPR(0));
+		assertEquals(0x22222222, state.getGPR(2));
+		assertEquals(1 | 1 << 15, state.getChangedMask());
+
+		MemoryEvent mem = (MemoryEvent) next(reader);
+		assertTrue(mem.isWrite());
+		assertEquals(0x02000000, mem.getAddress());
+		assertEquals(0x12345678, mem.getValue());
+
+		mem = (MemoryEvent) next(reader);
+		assertFalse(mem.isWrite());
+		assertEquals(1, mem.getSize());
+		assertEquals(0x02000004, mem.getAddress());
+		assertEquals(0xAB, mem.getValue() & 0xFF);
+
+		state = (ARMCpuState) next(reader);
+		assertEquals(3, state.getStep());
+		assertEquals(0x3F, state.getCPSR());
+		assertEquals(1 << 15 | ARMCpuState.CHANGED_CPSR, state.getChangedMask());
+		assertEquals(0x4770, state.getCode());
+
+		MemoryDumpEvent dump = (MemoryDumpEvent) next(reader);
+		assertEquals(0x02001000, dump.getAddress());
+		assertArrayEquals(new byte[] { 1, 2, 3 }, dump.getData());
+
+		assertNull(next(reader));
+	}
+
+	private static byte[] generate(long seed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ARMTraceGenerator gen = new ARMTraceGenerator(seed);
+		gen.setContextSwitchProbability(0.01);
+		gen.setIRQProbability(0.005);
+		gen.generate(out, 20000);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void deterministic() throws IOException {
+		assertArrayEquals(generate(1), generate(1));
+		assertFalse(Arrays.equals(generate(1), generate(2)));
+	}
+
+	@Test
+	public void generated() throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(new ByteArrayInputStream(generate(3)));
+		int steps = 0;
+		int switches = 0;
+		Set<Integer> threads = new HashSet<>();
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof ARMCpuState) {
+				assertEquals(steps, ((ARMCpuState) evt).getStep());
+				threads.add(evt.getTid());
+				steps++;
+			} else if(evt instanceof ARMContextSwitchEvent) {
+				switches++;
+			}
+		}
+		assertEquals(20000, steps);
+		assertTrue(switches > 0);
+		assertTrue(threads.size() > 1);
+	}
+}
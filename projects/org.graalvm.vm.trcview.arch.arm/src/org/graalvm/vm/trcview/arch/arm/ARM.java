@@ -1,5 +1,7 @@
 package org.graalvm.vm.trcview.arch.arm;
 
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 
 import org.graalvm.vm.posix.elf.Elf;
@@ -7,7 +9,14 @@ import org.graalvm.vm.trcview.analysis.type.ArchitectureTypeInfo;
 import org.graalvm.vm.trcview.arch.Architecture;
 import org.graalvm.vm.trcview.arch.arm.decode.ARMCallDecoder;
 import org.graalvm.vm.trcview.arch.arm.decode.ARMSyscallDecoder;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCompressedTrace;
+import org.graalvm.vm.trcview.arch.arm.io.ARMDumpStore;
+import org.graalvm.vm.trcview.arch.arm.io.ARMEventFilter;
+import org.graalvm.vm.trcview.arch.arm.io.ARMParallelTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMPipelinedTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.ARMStepStore;
 import org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader;
+import org.graalvm.vm.trcview.arch.arm.io.FollowInputStream;
 import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
 import org.graalvm.vm.trcview.arch.io.StepFormat;
 import org.graalvm.vm.trcview.decode.CallDecoder;
@@ -20,6 +29,58 @@ public class ARM extends Architecture {
 	private static final SyscallDecoder syscallDecoder = new ARMSyscallDecoder();
 	private static final CallDecoder callDecoder = new ARMCallDecoder();
 
+	// decode on a separate thread while the analysis consumes events
+	private static final boolean PIPELINE = Boolean.getBoolean("trcview.arm.pipeline");
+
+	// decode partitions between index checkpoints concurrently; traces without an index are indexed on first load
+	private static final boolean PARALLEL = Boolean.getBoolean("trcview.arm.parallel");
+
+	// keep decoded steps in an off-heap ARMStepStore; not combined with the pipeline, the store is not thread safe
+	private static final boolean STEPSTORE = Boolean.getBoolean("trcview.arm.stepstore");
+
+	// keep reading a trace file which is still being written until it did not grow for this many seconds
+	private static final Long FOLLOW = Long.getLong("trcview.arm.follow");
+
+	// only decode the records selected by -Dtrcview.arm.filter=<spec>, see ARMEventFilter
+	private static final ARMEventFilter FILTER = getFilter();
+
+	// merge the contiguous writes of one instruction into block events
+	private static final boolean COALESCE = Boolean.getBoolean("trcview.arm.coalesce");
+
+	// identical memory dumps share one array unless disabled with -Dtrcview.arm.dumpdedup=false
+	private static final ARMDumpStore DUMPS = getDumpStore();
+
+	private static ARMEventFilter getFilter() {
+		String spec = System.getProperty("trcview.arm.filter");
+		if(spec == null) {
+			return null;
+		} else {
+			return ARMEventFilter.parse(spec);
+		}
+	}
+
+	private static ARMDumpStore getDumpStore() {
+		if("false".equals(System.getProperty("trcview.arm.dumpdedup"))) {
+			return null;
+		} else {
+			return new ARMDumpStore();
+		}
+	}
+
+	private static ArchTraceReader wrap(ARMTraceReader reader) {
+		reader.setFilter(FILTER);
+		reader.setCoalesce(COALESCE);
+		reader.setDumpStore(DUMPS);
+		if(PIPELINE) {
+			return new ARMPipelinedTraceReader(reader);
+		} else {
+			if(STEPSTORE) {
+				reader.setStepStore(new ARMStepStore());
+			}
+			return reader;
+		}
+	}
+
 	@Override
 	public short getId() {
 		return ID;
@@ -37,7 +98,34 @@ public class ARM extends Architecture {
 
 	@Override
 	public ArchTraceReader getTraceReader(InputStream in) {
-		return new ARMTraceReader(in);
+		if(in instanceof FileInputStream && FOLLOW != null) {
+			FollowInputStream follow = new FollowInputStream(((FileInputStream) in).getChannel(), FOLLOW * 1000);
+			return wrap(ARMTraceReader.follow(follow));
+		} else if(in instanceof FileInputStream && PARALLEL) {
+			try {
+				ARMParallelTraceReader reader = new ARMParallelTraceReader(((FileInputStream) in).getChannel());
+				reader.setFilter(FILTER);
+				reader.setCoalesce(COALESCE);
+				reader.setDumpStore(DUMPS);
+				return reader;
+			} catch(IOException e) {
+				// mapping failed, fall back to plain stream
+			}
+		} else if(in instanceof FileInputStream) {
+			// decode directly from the page cache instead of copying through the stream
+			try {
+				return wrap(new ARMTraceReader(((FileInputStream) in).getChannel()));
+			} catch(IOException e) {
+				// mapping failed, fall back to plain stream
+			}
+		}
+		// compressed traces are recognized by their magic
+		InputStream raw = ARMCompressedTrace.decompress(in);
+		if(PIPELINE) {
+			return new ARMPipelinedTraceReader(raw, FILTER, COALESCE, DUMPS);
+		} else {
+			return wrap(new ARMTraceReader(raw));
+		}
 	}
 
 	@Override
@@ -1,5 +1,8 @@
 package org.graalvm.vm.trcview.arch.arm.device;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.graalvm.vm.trcview.analysis.device.Device;
 import org.graalvm.vm.trcview.analysis.device.DeviceRegister;
 import org.graalvm.vm.trcview.analysis.device.DeviceType;
@@ -22,6 +25,15 @@ public class ARMDevices {
 	public static final int VIDEO_CAPTURE = 3;
 	public static final int RE = 4;
 	public static final int GE = 5;
+	public static final int VIDEO_B = 6;
+	public static final int DMA = 7;
+	public static final int TIMER = 8;
+	public static final int IRQ = 9;
+	public static final int IPC = 10;
+	public static final int MATH = 11;
+
+	// CPU
+	public static final int POSTFLG = 0;
 
 	// MEMCTL
 	public static final int EXMEMCNT = 0;
@@ -40,6 +52,43 @@ public class ARMDevices {
 	// VIDEO
 	public static final int MASTER_BRIGHT = 0;
 	public static final int DISPCNT = 1;
+	public static final int DISPSTAT = 2;
+	public static final int VCOUNT = 3;
+	public static final int BG0CNT = 4;
+	public static final int BG1CNT = 5;
+	public static final int BG2CNT = 6;
+	public static final int BG3CNT = 7;
+	public static final int BG0HOFS = 8;
+	public static final int BG0VOFS = 9;
+	public static final int BG1HOFS = 10;
+	public static final int BG1VOFS = 11;
+	public static final int BG2HOFS = 12;
+	public static final int BG2VOFS = 13;
+	public static final int BG3HOFS = 14;
+	public static final int BG3VOFS = 15;
+	public static final int BG2PA = 16;
+	public static final int BG2PB = 17;
+	public static final int BG2PC = 18;
+	public static final int BG2PD = 19;
+	public static final int BG2X = 20;
+	public static final int BG2Y = 21;
+	public static final int BG3PA = 22;
+	public static final int BG3PB = 23;
+	public static final int BG3PC = 24;
+	public static final int BG3PD = 25;
+	public static final int BG3X = 26;
+	public static final int BG3Y = 27;
+	public static final int WIN0H = 28;
+	public static final int WIN1H = 29;
+	public static final int WIN0V = 30;
+	public static final int WIN1V = 31;
+	public static final int WININ = 32;
+	public static final int WINOUT = 33;
+	public static final int MOSAIC = 34;
+	public static final int BLDCNT = 35;
+	public static final int BLDALPHA = 36;
+	public static final int BLDY = 37;
+	public static final int POWCNT1 = 38;
 
 	// VIDEO_CAPTURE
 	public static final int DISPCAPCNT = 0;
@@ -107,13 +156,162 @@ public class ARMDevices {
 	public static final int POS_TEST = 38;
 	public static final int VEC_TEST = 39;
 	public static final int GXFIFO = 40;
+	public static final int LIGHT_COLOR = 41;
+	public static final int POS_RESULT = 42;
+	public static final int VEC_RESULT = POS_RESULT + 4;
+	public static final int CLIPMTX_RESULT = VEC_RESULT + 3;
+	public static final int VECMTX_RESULT = CLIPMTX_RESULT + 16;
+
+	// DMA
+	public static final int DMA0SAD = 0;
+	public static final int DMA0DAD = 1;
+	public static final int DMA0CNT = 2;
+	public static final int DMA1SAD = 3;
+	public static final int DMA1DAD = 4;
+	public static final int DMA1CNT = 5;
+	public static final int DMA2SAD = 6;
+	public static final int DMA2DAD = 7;
+	public static final int DMA2CNT = 8;
+	public static final int DMA3SAD = 9;
+	public static final int DMA3DAD = 10;
+	public static final int DMA3CNT = 11;
+	public static final int DMA0FILL = 12;
+	public static final int DMA1FILL = 13;
+	public static final int DMA2FILL = 14;
+	public static final int DMA3FILL = 15;
+
+	// TIMER
+	public static final int TM0CNT_L = 0;
+	public static final int TM0CNT_H = 1;
+	public static final int TM1CNT_L = 2;
+	public static final int TM1CNT_H = 3;
+	public static final int TM2CNT_L = 4;
+	public static final int TM2CNT_H = 5;
+	public static final int TM3CNT_L = 6;
+	public static final int TM3CNT_H = 7;
+
+	// IRQ
+	public static final int IME = 0;
+	public static final int IE = 1;
+	public static final int IF = 2;
+
+	// IPC
+	public static final int IPCSYNC = 0;
+	public static final int IPCFIFOCNT = 1;
+	public static final int IPCFIFOSEND = 2;
+	public static final int IPCFIFORECV = 3;
+
+	// MATH
+	public static final int DIVCNT = 0;
+	public static final int DIV_NUMER_L = 1;
+	public static final int DIV_NUMER_H = 2;
+	public static final int DIV_DENOM_L = 3;
+	public static final int DIV_DENOM_H = 4;
+	public static final int DIV_RESULT_L = 5;
+	public static final int DIV_RESULT_H = 6;
+	public static final int DIVREM_RESULT_L = 7;
+	public static final int DIVREM_RESULT_H = 8;
+	public static final int SQRTCNT = 9;
+	public static final int SQRT_RESULT = 10;
+	public static final int SQRT_PARAM_L = 11;
+	public static final int SQRT_PARAM_H = 12;
+
+	private static final int IO_BASE = 0x4000000;
+	// the I/O page of engine A and the registers of engine B at 0x4001000
+	private static final int IO_SIZE = 0x2000;
+	private static final int IPCFIFORECV_ADDRESS = 0x4100000;
+
+	// reads of the geometry command ports have no effect and are not reported
+	private static final int WRITE_ONLY = 1 << 31;
+
+	// (device + 1) << 16 | register for every address at which a register starts, or 0
+	private static final int[] IO_REGISTERS = new int[IO_SIZE];
+	private static final List<Register> REGISTERS = new ArrayList<>();
+
+	private static class Register {
+		final int device;
+		final int id;
+		final String name;
+		final int address;
+		final FieldFormat[] fields;
+
+		Register(int device, int id, String name, int address, FieldFormat[] fields) {
+			this.device = device;
+			this.id = id;
+			this.name = name;
+			this.address = address;
+			this.fields = fields;
+		}
+	}
+
+	static {
+		defineRegisters();
+	}
 
 	public static DeviceDefinitionEvent createDevices() {
+		Device[] devices = {
+				new Device(CPU, "ARM946E-S", DeviceType.PROCESSOR),
+				new Device(MEMCTL, "Memory Control", DeviceType.MEMORY),
+				new Device(VIDEO, "Video", DeviceType.DISPLAY),
+				new Device(VIDEO_CAPTURE, "Video Capture", DeviceType.DISPLAY),
+				new Device(RE, "Rendering Engine", DeviceType.GRAPHICS),
+				new Device(GE, "Geometry Engine", DeviceType.GRAPHICS),
+				new Device(VIDEO_B, "Video B", DeviceType.DISPLAY),
+				new Device(DMA, "DMA", DeviceType.MEMORY),
+				new Device(TIMER, "Timers", DeviceType.PROCESSOR),
+				new Device(IRQ, "Interrupt Controller", DeviceType.PROCESSOR),
+				new Device(IPC, "IPC", DeviceType.PROCESSOR),
+				new Device(MATH, "Math", DeviceType.PROCESSOR) };
+		for(Register reg : REGISTERS) {
+			devices[reg.device].add(new DeviceRegister(reg.id, reg.name, reg.address, reg.fields));
+		}
+
 		DeviceDefinitionEvent evt = new DeviceDefinitionEvent();
-		Device cpu = new Device(CPU, "ARM946E-S", DeviceType.PROCESSOR);
+		for(Device device : devices) {
+			evt.addDevice(device);
+		}
+		return evt;
+	}
+
+	public static Event getEvent(MemoryEvent mem) {
+		return getEvent(mem.getTid(), (int) mem.getAddress(), (int) mem.getValue(), mem.isWrite());
+	}
 
-		Device memctl = new Device(MEMCTL, "Memory Control", DeviceType.MEMORY);
-		memctl.add(reg(EXMEMCNT, "EXMEMCNT", 0x4000204,
+	public static Event getEvent(int tid, int addr, int value, boolean write) {
+		// almost all accesses go to RAM, so reject them before looking at the register table
+		if((addr >>> 24) != 0x04) {
+			return null;
+		}
+
+		int offset = addr - IO_BASE;
+		int entry;
+		if(offset < IO_SIZE) {
+			entry = IO_REGISTERS[offset];
+		} else if(addr == IPCFIFORECV_ADDRESS) {
+			entry = (IPC + 1) << 16 | IPCFIFORECV;
+		} else {
+			return null;
+		}
+
+		if(entry == 0 || (entry < 0 && !write)) {
+			return null;
+		}
+
+		int dev = ((entry & ~WRITE_ONLY) >>> 16) - 1;
+		int reg = entry & 0xFFFF;
+		if(dev == GE) {
+			switch(reg) {
+			case SWAP_BUFFERS:
+				return new G3SwapBuffers(tid, value);
+			case VIEWPORT:
+				return new G3Viewport(tid, value);
+			}
+		}
+		return new ARMDeviceRegisterEvent(tid, dev, reg, value, write);
+	}
+
+	private static void defineRegisters() {
+		reg(MEMCTL, EXMEMCNT, "EXMEMCNT", 0x4000204,
 				enumf("GBA Slot SRAM Access Time", 1, 0, "10 cycles", "8 cycles", "6 cycles",
 						"18 cycles"),
 				enumf("GBA Slot ROM 1st Access Time", 3, 2, "10 cycles", "8 cycles", "6 cycles",
@@ -123,32 +321,30 @@ public class ARMDevices {
 				enumf("GBA Slot Access Rights", 7, "ARM9", "ARM7"),
 				enumf("NDS Slot Access Rights", 11, "ARM9", "ARM7"),
 				enumf("Main Memory Interface Mode Switch", 14, "Async/GBA/Reserved", "Synchronous"),
-				enumf("Main Memory Access Priority", 15, "ARM9 Priority", "ARM7 Priority")));
-		memctl.add(reg(WRAMCNT, "WRAMCNT", 0x4000247,
-				enumf("ARM9/ARM7", 1, 0, "32K/0K", "2nd 16K/1st 16K", "1st 16K/2nd 16K", "0/32K")));
-		memctl.add(reg(VRAMCNT_A, "VRAMCNT_A", 0x4000240, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_B, "VRAMCNT_B", 0x4000241, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_C, "VRAMCNT_C", 0x4000242, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_D, "VRAMCNT_D", 0x4000243, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_E, "VRAMCNT_E", 0x4000244, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_F, "VRAMCNT_F", 0x4000245, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_G, "VRAMCNT_G", 0x4000246, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_H, "VRAMCNT_H", 0x4000248, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-		memctl.add(reg(VRAMCNT_I, "VRAMCNT_I", 0x4000249, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
-				intf("VRAM Enable", 7)));
-
-		Device video = new Device(VIDEO, "Video", DeviceType.DISPLAY);
-		video.add(reg(MASTER_BRIGHT, "MASTER_BRIGHT", 0x400006C, intf("Factor", 4, 0),
-				enumf("Mode", 15, 14, "Disable", "Up", "Down", "Reserved")));
-		video.add(reg(DISPCNT, "DISPCNT", 0x4000000, intf("BG Mode", 2, 0),
+				enumf("Main Memory Access Priority", 15, "ARM9 Priority", "ARM7 Priority"));
+		reg(MEMCTL, WRAMCNT, "WRAMCNT", 0x4000247,
+				enumf("ARM9/ARM7", 1, 0, "32K/0K", "2nd 16K/1st 16K", "1st 16K/2nd 16K", "0/32K"));
+		reg(MEMCTL, VRAMCNT_A, "VRAMCNT_A", 0x4000240, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_B, "VRAMCNT_B", 0x4000241, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_C, "VRAMCNT_C", 0x4000242, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_D, "VRAMCNT_D", 0x4000243, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_E, "VRAMCNT_E", 0x4000244, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_F, "VRAMCNT_F", 0x4000245, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_G, "VRAMCNT_G", 0x4000246, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_H, "VRAMCNT_H", 0x4000248, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		reg(MEMCTL, VRAMCNT_I, "VRAMCNT_I", 0x4000249, intf("VRAM MST", 2, 0), intf("VRAM Offset", 4, 3),
+				intf("VRAM Enable", 7));
+		FieldFormat[] masterBright = { intf("Factor", 4, 0),
+				enumf("Mode", 15, 14, "Disable", "Up", "Down", "Reserved") };
+		FieldFormat[] dispcnt = { intf("BG Mode", 2, 0),
 				enumf("BG0 2D/3D Selection", 3, "2D", "3D"),
 				enumf("Tile OBJ Mapping", 4, "2D [max 32KB]", "1D [max 32KB..256KB]"),
 				enumf("Bitmap OBJ 2D-Dimension", 5, "128x512 dots", "256x256 dots"),
@@ -171,10 +367,33 @@ public class ARMDevices {
 				intf("Character Base [64K steps]", 26, 24),
 				intf("Screen Base [64K steps]", 29, 27),
 				intf("BG Extended Palettes", 30),
-				intf("OBJ Extended Palettes", 31)));
+				intf("OBJ Extended Palettes", 31) };
+		reg(VIDEO, MASTER_BRIGHT, "MASTER_BRIGHT", 0x400006C, masterBright);
+		reg(VIDEO, DISPCNT, "DISPCNT", 0x4000000, dispcnt);
+		reg(VIDEO, DISPSTAT, "DISPSTAT", 0x4000004,
+				intf("V-Blank flag", 0),
+				intf("H-Blank flag", 1),
+				intf("V-Counter flag", 2),
+				intf("V-Blank IRQ Enable", 3),
+				intf("H-Blank IRQ Enable", 4),
+				intf("V-Counter IRQ Enable", 5),
+				intf("V-Count Setting Bit 8", 7),
+				intf("V-Count Setting Bits 0-7", 15, 8));
+		reg(VIDEO, VCOUNT, "VCOUNT", 0x4000006, intf("Current Scanline", 8, 0));
+		reg(VIDEO, POWCNT1, "POWCNT1", 0x4000304,
+				intf("Enable Flag for both LCDs", 0),
+				intf("2D Graphics Engine A", 1),
+				intf("3D Rendering Engine", 2),
+				intf("3D Geometry Engine", 3),
+				intf("2D Graphics Engine B", 9),
+				enumf("Display Swap", 15, "Engine A on lower screen", "Engine A on upper screen"));
+		engine2D(VIDEO, 0x4000000, "");
 
-		Device videoCapture = new Device(VIDEO_CAPTURE, "Video Capture", DeviceType.DISPLAY);
-		videoCapture.add(reg(DISPCAPCNT, "DISPCAPCNT", 0x4000064,
+		reg(VIDEO_B, MASTER_BRIGHT, "DB_MASTER_BRIGHT", 0x400106C, masterBright);
+		reg(VIDEO_B, DISPCNT, "DB_DISPCNT", 0x4001000, dispcnt);
+		engine2D(VIDEO_B, 0x4001000, "DB_");
+
+		reg(VIDEO_CAPTURE, DISPCAPCNT, "DISPCAPCNT", 0x4000064,
 				intf("EVA", 4, 0),
 				intf("EVB", 12, 8),
 				enumf("VRAM Write Block", 17, 16, "VRAM A", "VRAM B", "VRAM C", "VRAM D"),
@@ -186,11 +405,9 @@ public class ARMDevices {
 				enumf("VRAM Read Offset", 27, 26, "0x00000", "0x08000", "0x10000", "0x18000"),
 				enumf("Capture Source", 30, 29, "Source A", "Source B", "Source A+B blended",
 						"Source A+B blended"),
-				enumf("Capture Enable", 31, "Disable/Ready", "Enable/Busy")));
-		videoCapture.add(reg(DISP_MMEM_FIFO, "DISP_MMEM_FIFO", 0x4000068));
-
-		Device re = new Device(RE, "Rendering Engine", DeviceType.GRAPHICS);
-		re.add(reg(DISP3DCNT, "DISP3DCNT", 0x4000060, enumf("Texture Mapping", 0, "Disable", "Enable"),
+				enumf("Capture Enable", 31, "Disable/Ready", "Enable/Busy"));
+		reg(VIDEO_CAPTURE, DISP_MMEM_FIFO, "DISP_MMEM_FIFO", 0x4000068);
+		reg(RE, DISP3DCNT, "DISP3DCNT", 0x4000060, enumf("Texture Mapping", 0, "Disable", "Enable"),
 				enumf("PolygonAttr Shading", 1, "Toon Shading", "Highlight Shading"),
 				enumf("Alpha-Test", 2, "Disable", "Enable"),
 				enumf("Alpha-Blending", 3, "Disable", "Enable"),
@@ -201,79 +418,262 @@ public class ARMDevices {
 				intf("Fog Depth Shift", 11, 8),
 				enumf("Color Buffer RDLINES Underflow", 12, "None", "Underflow/Acknowledge"),
 				enumf("Polygon/Vertex RAM Overflow", 13, "None", "Overflow/Acknowledge"),
-				enumf("Rear-Plane Mode", 14, "Blank", "Bitmap")));
-		re.add(reg(DISP_1DOT_DEPTH, "DISP_1DOT_DEPTH", 0x4000610, new FXFieldFormat("W-Coordinate", 14, 0, 3)));
-		re.add(reg(ALPHA_TEST_REF, "ALPHA_TEST_REF", 0x4000340, intf("Alpha-Test Comparison Value", 4, 0)));
+				enumf("Rear-Plane Mode", 14, "Blank", "Bitmap"));
+		reg(RE, ALPHA_TEST_REF, "ALPHA_TEST_REF", 0x4000340, intf("Alpha-Test Comparison Value", 4, 0));
+		for(int i = 0; i < 8; i++) {
+			reg(RE, EDGE_COLOR0 + i, "EDGE_COLOR" + i, 0x4000330 + 2 * i, rgb());
+		}
+		reg(RE, RDLINES_COUNT, "RDLINES_COUNT", 0x4000320, intf("Minimum Number of Buffered Lines", 5, 0));
+		reg(RE, CLEAR_COLOR, "CLEAR_COLOR", 0x4000350, intf("Red", 4, 0), intf("Green", 9, 5),
+				intf("Blue", 14, 10), intf("Fog", 15), intf("Alpha", 20, 16), intf("Clear Polygon ID", 29, 24));
+		reg(RE, CLEAR_DEPTH, "CLEAR_DEPTH", 0x4000354, intf("Clear Depth", 14, 0));
+		reg(RE, CLRIMAGE_OFFSET, "CLRIMAGE_OFFSET", 0x4000356, intf("X-Offset", 7, 0), intf("Y-Offset", 15, 8));
+		reg(RE, FOG_COLOR, "FOG_COLOR", 0x4000358, intf("Red", 4, 0), intf("Green", 9, 5), intf("Blue", 14, 10),
+				intf("Alpha", 20, 16));
+		reg(RE, FOG_OFFSET, "FOG_OFFSET", 0x400035C, intf("Fog Offset", 14, 0));
+		for(int i = 0; i < 32; i++) {
+			reg(RE, FOG_TABLE + i, "FOG_TABLE_" + i, 0x4000360 + i, intf("Fog Density", 6, 0));
+		}
+		for(int i = 0; i < 32; i++) {
+			reg(RE, TOON_TABLE + i, "TOON_TABLE_" + i, 0x4000380 + 2 * i, rgb());
+		}
 
-		Device ge = new Device(GE, "Geometry Engine", DeviceType.GRAPHICS);
-		ge.add(reg(GXFIFO, "GXFIFO", 0x4000400));
-		ge.add(reg(SWAP_BUFFERS, "SWAP_BUFFERS", 0x4000540,
+		reg(GE, GXFIFO, "GXFIFO", 0x4000400);
+		port(GE, SWAP_BUFFERS, "SWAP_BUFFERS", 0x4000540,
 				enumf("Translucent polygon Y-sorting", 0, "Auto-sort", "Manual-sort"),
-				enumf("Depth Buffering", 1, "With Z-value", "With W-value")));
-		ge.add(reg(VIEWPORT, "VIEWPORT", 0x4000580, intf("X1", 7, 0), intf("Y1", 15, 8), intf("X2", 23, 16),
-				intf("Y2", 31, 24)));
-
-		evt.addDevice(cpu);
-		evt.addDevice(memctl);
-		evt.addDevice(video);
-		evt.addDevice(videoCapture);
-		evt.addDevice(re);
-		evt.addDevice(ge);
-		return evt;
-	}
+				enumf("Depth Buffering", 1, "With Z-value", "With W-value"));
+		port(GE, VIEWPORT, "VIEWPORT", 0x4000580, intf("X1", 7, 0), intf("Y1", 15, 8), intf("X2", 23, 16),
+				intf("Y2", 31, 24));
+		// GXFIFO accepts writes to the whole range 0x4000400-0x400043F
+		for(int addr = 0x4000404; addr < 0x4000440; addr += 4) {
+			alias(GE, GXFIFO, addr);
+		}
+		port(GE, MTX_MODE, "MTX_MODE", 0x4000440,
+				enumf("Matrix Mode", 1, 0, "Projection", "Position", "Position & Vector", "Texture"));
+		port(GE, MTX_PUSH, "MTX_PUSH", 0x4000444);
+		port(GE, MTX_POP, "MTX_POP", 0x4000448, intf("Stack Offset", 5, 0));
+		port(GE, MTX_STORE, "MTX_STORE", 0x400044C, intf("Stack Address", 4, 0));
+		port(GE, MTX_RESTORE, "MTX_RESTORE", 0x4000450, intf("Stack Address", 4, 0));
+		port(GE, MTX_IDENTITY, "MTX_IDENTITY", 0x4000454);
+		port(GE, MTX_LOAD_4x4, "MTX_LOAD_4x4", 0x4000458);
+		port(GE, MTX_LOAD_4x3, "MTX_LOAD_4x3", 0x400045C);
+		port(GE, MTX_MULT_4x4, "MTX_MULT_4x4", 0x4000460);
+		port(GE, MTX_MULT_4x3, "MTX_MULT_4x3", 0x4000464);
+		port(GE, MTX_MULT_3x3, "MTX_MULT_3x3", 0x4000468);
+		port(GE, MTX_SCALE, "MTX_SCALE", 0x400046C);
+		port(GE, MTX_TRANS, "MTX_TRANS", 0x4000470);
+		port(GE, COLOR, "COLOR", 0x4000480, rgb());
+		port(GE, NORMAL, "NORMAL", 0x4000484);
+		port(GE, TEXCOORD, "TEXCOORD", 0x4000488);
+		port(GE, VTX_16, "VTX_16", 0x400048C);
+		port(GE, VTX_10, "VTX_10", 0x4000490);
+		port(GE, VTX_XY, "VTX_XY", 0x4000494);
+		port(GE, VTX_XZ, "VTX_XZ", 0x4000498);
+		port(GE, VTX_YZ, "VTX_YZ", 0x400049C);
+		port(GE, VTX_DIFF, "VTX_DIFF", 0x40004A0);
+		port(GE, POLYGON_ATTR, "POLYGON_ATTR", 0x40004A4,
+				intf("Light Enable", 3, 0),
+				enumf("Polygon Mode", 5, 4, "Modulation", "Decal", "Toon/Highlight", "Shadow"),
+				intf("Render Back Surface", 6),
+				intf("Render Front Surface", 7),
+				intf("Depth-value for Translucent", 11),
+				intf("Far-plane intersecting", 12),
+				intf("1-Dot polygons behind DISP_1DOT_DEPTH", 13),
+				enumf("Depth Test", 14, "Less", "Equal"),
+				intf("Fog Enable", 15),
+				intf("Alpha", 20, 16),
+				intf("Polygon ID", 29, 24));
+		port(GE, TEXIMAGE_PARAM, "TEXIMAGE_PARAM", 0x40004A8,
+				intf("Texture VRAM Offset", 15, 0),
+				intf("Repeat in S Direction", 16),
+				intf("Repeat in T Direction", 17),
+				intf("Flip in S Direction", 18),
+				intf("Flip in T Direction", 19),
+				intf("Texture S-Size", 22, 20),
+				intf("Texture T-Size", 25, 23),
+				enumf("Texture Format", 28, 26, "No Texture", "A3I5", "4-Color", "16-Color", "256-Color",
+						"4x4-Texel", "A5I3", "Direct"),
+				intf("Color 0 Transparent", 29),
+				enumf("Texture Coordinates Transformation Mode", 31, 30, "Do not Transform", "TexCoord source",
+						"Normal source", "Vertex source"));
+		port(GE, PLTT_BASE, "PLTT_BASE", 0x40004AC, intf("Palette Base Address", 12, 0));
+		port(GE, DIF_AMB, "DIF_AMB", 0x40004C0);
+		port(GE, SPE_EMI, "SPE_EMI", 0x40004C4);
+		port(GE, LIGHT_VECTOR, "LIGHT_VECTOR", 0x40004C8);
+		port(GE, LIGHT_COLOR, "LIGHT_COLOR", 0x40004CC, intf("Red", 4, 0), intf("Green", 9, 5),
+				intf("Blue", 14, 10), intf("Light Number", 31, 30));
+		port(GE, SHININESS, "SHININESS", 0x40004D0);
+		port(GE, BEGIN_VTXS, "BEGIN_VTXS", 0x4000500, enumf("Primitive Type", 1, 0, "Separate Triangles",
+				"Separate Quadliterals", "Triangle Strips", "Quadliteral Strips"));
+		port(GE, END_VTXS, "END_VTXS", 0x4000504);
+		port(GE, BOX_TEST, "BOX_TEST", 0x40005C0);
+		port(GE, POS_TEST, "POS_TEST", 0x40005C4);
+		port(GE, VEC_TEST, "VEC_TEST", 0x40005C8);
+		reg(GE, GXSTAT, "GXSTAT", 0x4000600,
+				intf("Test Busy", 0),
+				intf("BoxTest Result", 1),
+				intf("Position & Vector Matrix Stack Level", 12, 8),
+				intf("Projection Matrix Stack Level", 13),
+				intf("Matrix Stack Busy", 14),
+				intf("Matrix Stack Overflow/Underflow Error", 15),
+				intf("Command FIFO Entries", 24, 16),
+				intf("Command FIFO Less Than Half Full", 25),
+				intf("Command FIFO Empty", 26),
+				intf("Geometry Engine Busy", 27),
+				enumf("Command FIFO IRQ", 31, 30, "Never", "Less than half full", "Empty", "Reserved"));
+		reg(GE, RAM_COUNT, "RAM_COUNT", 0x4000604, intf("Polygon Count", 11, 0), intf("Vertex Count", 28, 16));
+		reg(GE, DISP_1DOT_DEPTH, "DISP_1DOT_DEPTH", 0x4000610, new FXFieldFormat("W-Coordinate", 14, 0, 3));
+		for(int i = 0; i < 4; i++) {
+			reg(GE, POS_RESULT + i, "POS_RESULT_" + i, 0x4000620 + 4 * i);
+		}
+		for(int i = 0; i < 3; i++) {
+			reg(GE, VEC_RESULT + i, "VEC_RESULT_" + i, 0x4000630 + 2 * i);
+		}
+		for(int i = 0; i < 16; i++) {
+			reg(GE, CLIPMTX_RESULT + i, "CLIPMTX_RESULT_" + i, 0x4000640 + 4 * i);
+		}
+		for(int i = 0; i < 9; i++) {
+			reg(GE, VECMTX_RESULT + i, "VECMTX_RESULT_" + i, 0x4000680 + 4 * i);
+		}
 
-	public static Event getEvent(MemoryEvent mem) {
-		int addr = (int) mem.getAddress();
-		int value = (int) mem.getValue();
-		boolean write = mem.isWrite();
-		switch(addr) {
-		case 0x4000204:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, EXMEMCNT, value, write);
-		case 0x4000247:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, WRAMCNT, value, write);
-		case 0x4000240:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_A, value, write);
-		case 0x4000241:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_B, value, write);
-		case 0x4000242:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_C, value, write);
-		case 0x4000243:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_D, value, write);
-		case 0x4000244:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_E, value, write);
-		case 0x4000245:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_F, value, write);
-		case 0x4000246:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_G, value, write);
-		case 0x4000248:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_H, value, write);
-		case 0x4000249:
-			return new ARMDeviceRegisterEvent(mem.getTid(), MEMCTL, VRAMCNT_I, value, write);
-		case 0x400006C:
-			return new ARMDeviceRegisterEvent(mem.getTid(), VIDEO, MASTER_BRIGHT, value, write);
-		case 0x4000000:
-			return new ARMDeviceRegisterEvent(mem.getTid(), VIDEO, DISPCNT, value, write);
-		case 0x4000060:
-			return new ARMDeviceRegisterEvent(mem.getTid(), RE, DISP3DCNT, value, write);
-		case 0x4000064:
-			return new ARMDeviceRegisterEvent(mem.getTid(), VIDEO_CAPTURE, DISPCAPCNT, value, write);
-		case 0x4000068:
-			return new ARMDeviceRegisterEvent(mem.getTid(), VIDEO_CAPTURE, DISP_MMEM_FIFO, value, write);
-		case 0x4000400:
-			return new ARMDeviceRegisterEvent(mem.getTid(), GE, GXFIFO, value, write);
+		reg(CPU, POSTFLG, "POSTFLG", 0x4000300, intf("First Boot", 0));
+
+		FieldFormat[] dmacnt = {
+				intf("Word Count", 20, 0),
+				enumf("Dest Address Control", 22, 21, "Increment", "Decrement", "Fixed", "Increment/Reload"),
+				enumf("Source Address Control", 24, 23, "Increment", "Decrement", "Fixed", "Prohibited"),
+				intf("DMA Repeat", 25),
+				enumf("DMA Transfer Type", 26, "16bit", "32bit"),
+				enumf("DMA Start Timing", 29, 27, "Immediately", "V-Blank", "H-Blank", "Start of Display",
+						"Main Memory Display", "DS Cartridge Slot", "GBA Cartridge Slot", "Geometry Command FIFO"),
+				intf("IRQ upon end of Word Count", 30),
+				intf("DMA Enable", 31) };
+		for(int i = 0; i < 4; i++) {
+			int addr = 0x40000B0 + 12 * i;
+			reg(DMA, DMA0SAD + 3 * i, "DMA" + i + "SAD", addr);
+			reg(DMA, DMA0DAD + 3 * i, "DMA" + i + "DAD", addr + 4);
+			reg(DMA, DMA0CNT + 3 * i, "DMA" + i + "CNT", addr + 8, dmacnt);
+		}
+		for(int i = 0; i < 4; i++) {
+			reg(DMA, DMA0FILL + i, "DMA" + i + "FILL", 0x40000E0 + 4 * i);
 		}
 
-		// write to IO reg
-		if(write) {
-			switch(addr) {
-			case 0x4000540:
-				return new G3SwapBuffers(mem.getTid(), value);
-			case 0x4000580:
-				return new G3Viewport(mem.getTid(), value);
-			}
+		for(int i = 0; i < 4; i++) {
+			reg(TIMER, TM0CNT_L + 2 * i, "TM" + i + "CNT_L", 0x4000100 + 4 * i, intf("Counter/Reload", 15, 0));
+			reg(TIMER, TM0CNT_H + 2 * i, "TM" + i + "CNT_H", 0x4000102 + 4 * i,
+					enumf("Prescaler Selection", 1, 0, "F/1", "F/64", "F/256", "F/1024"),
+					intf("Count-up Timing", 2),
+					intf("Timer IRQ Enable", 6),
+					intf("Timer Start/Stop", 7));
 		}
 
-		return null;
+		FieldFormat[] irq = {
+				intf("LCD V-Blank", 0),
+				intf("LCD H-Blank", 1),
+				intf("LCD V-Counter Match", 2),
+				intf("Timer 0 Overflow", 3),
+				intf("Timer 1 Overflow", 4),
+				intf("Timer 2 Overflow", 5),
+				intf("Timer 3 Overflow", 6),
+				intf("DMA 0", 8),
+				intf("DMA 1", 9),
+				intf("DMA 2", 10),
+				intf("DMA 3", 11),
+				intf("Keypad", 12),
+				intf("GBA-Slot", 13),
+				intf("IPC Sync", 16),
+				intf("IPC Send FIFO Empty", 17),
+				intf("IPC Recv FIFO Not Empty", 18),
+				intf("NDS-Slot Game Card Data Transfer Completion", 19),
+				intf("NDS-Slot Game Card IREQ_MC", 20),
+				intf("Geometry Command FIFO", 21) };
+		reg(IRQ, IME, "IME", 0x4000208, intf("Interrupt Master Enable", 0));
+		reg(IRQ, IE, "IE", 0x4000210, irq);
+		reg(IRQ, IF, "IF", 0x4000214, irq);
+
+		reg(IPC, IPCSYNC, "IPCSYNC", 0x4000180,
+				intf("Data input from remote IPCSYNC", 3, 0),
+				intf("Data output to remote IPCSYNC", 11, 8),
+				intf("Send IRQ to remote CPU", 13),
+				intf("Enable IRQ from remote CPU", 14));
+		reg(IPC, IPCFIFOCNT, "IPCFIFOCNT", 0x4000184,
+				intf("Send FIFO Empty", 0),
+				intf("Send FIFO Full", 1),
+				intf("Send FIFO Empty IRQ", 2),
+				intf("Send FIFO Clear", 3),
+				intf("Receive FIFO Empty", 8),
+				intf("Receive FIFO Full", 9),
+				intf("Receive FIFO Not Empty IRQ", 10),
+				intf("Error", 14),
+				intf("Enable Send/Receive FIFO", 15));
+		reg(IPC, IPCFIFOSEND, "IPCFIFOSEND", 0x4000188);
+		reg(IPC, IPCFIFORECV, "IPCFIFORECV", IPCFIFORECV_ADDRESS);
+
+		reg(MATH, DIVCNT, "DIVCNT", 0x4000280,
+				enumf("Division Mode", 1, 0, "32bit/32bit", "64bit/32bit", "64bit/64bit", "Reserved"),
+				intf("Division by zero", 14),
+				intf("Busy", 15));
+		reg(MATH, DIV_NUMER_L, "DIV_NUMER_L", 0x4000290);
+		reg(MATH, DIV_NUMER_H, "DIV_NUMER_H", 0x4000294);
+		reg(MATH, DIV_DENOM_L, "DIV_DENOM_L", 0x4000298);
+		reg(MATH, DIV_DENOM_H, "DIV_DENOM_H", 0x400029C);
+		reg(MATH, DIV_RESULT_L, "DIV_RESULT_L", 0x40002A0);
+		reg(MATH, DIV_RESULT_H, "DIV_RESULT_H", 0x40002A4);
+		reg(MATH, DIVREM_RESULT_L, "DIVREM_RESULT_L", 0x40002A8);
+		reg(MATH, DIVREM_RESULT_H, "DIVREM_RESULT_H", 0x40002AC);
+		reg(MATH, SQRTCNT, "SQRTCNT", 0x40002B0, enumf("Mode", 0, "32bit input", "64bit input"), intf("Busy", 15));
+		reg(MATH, SQRT_RESULT, "SQRT_RESULT", 0x40002B4);
+		reg(MATH, SQRT_PARAM_L, "SQRT_PARAM_L", 0x40002B8);
+		reg(MATH, SQRT_PARAM_H, "SQRT_PARAM_H", 0x40002BC);
+	}
+
+	private static void engine2D(int dev, int base, String prefix) {
+		for(int i = 0; i < 4; i++) {
+			reg(dev, BG0CNT + i, prefix + "BG" + i + "CNT", base + 0x08 + 2 * i,
+					intf("BG Priority", 1, 0),
+					intf("Character Base Block", 5, 2),
+					intf("Mosaic", 6),
+					enumf("Colors/Palettes", 7, "16/16", "256/1"),
+					intf("Screen Base Block", 12, 8),
+					intf("Ext Palette Slot/Display Area Overflow", 13),
+					intf("Screen Size", 15, 14));
+			reg(dev, BG0HOFS + 2 * i, prefix + "BG" + i + "HOFS", base + 0x10 + 4 * i, intf("Offset", 8, 0));
+			reg(dev, BG0VOFS + 2 * i, prefix + "BG" + i + "VOFS", base + 0x12 + 4 * i, intf("Offset", 8, 0));
+		}
+		for(int i = 0; i < 2; i++) {
+			int bg = i + 2;
+			int addr = base + 0x20 + 0x10 * i;
+			int id = BG2PA + (BG3PA - BG2PA) * i;
+			reg(dev, id, prefix + "BG" + bg + "PA", addr, new FXFieldFormat("dx", 15, 0, 8));
+			reg(dev, id + 1, prefix + "BG" + bg + "PB", addr + 2, new FXFieldFormat("dmx", 15, 0, 8));
+			reg(dev, id + 2, prefix + "BG" + bg + "PC", addr + 4, new FXFieldFormat("dy", 15, 0, 8));
+			reg(dev, id + 3, prefix + "BG" + bg + "PD", addr + 6, new FXFieldFormat("dmy", 15, 0, 8));
+			reg(dev, id + 4, prefix + "BG" + bg + "X", addr + 8, new FXFieldFormat("Reference Point", 27, 0, 8));
+			reg(dev, id + 5, prefix + "BG" + bg + "Y", addr + 12, new FXFieldFormat("Reference Point", 27, 0, 8));
+		}
+		reg(dev, WIN0H, prefix + "WIN0H", base + 0x40, intf("X2", 7, 0), intf("X1", 15, 8));
+		reg(dev, WIN1H, prefix + "WIN1H", base + 0x42, intf("X2", 7, 0), intf("X1", 15, 8));
+		reg(dev, WIN0V, prefix + "WIN0V", base + 0x44, intf("Y2", 7, 0), intf("Y1", 15, 8));
+		reg(dev, WIN1V, prefix + "WIN1V", base + 0x46, intf("Y2", 7, 0), intf("Y1", 15, 8));
+		reg(dev, WININ, prefix + "WININ", base + 0x48, intf("Window 0 BG0-BG3/OBJ Enable", 4, 0),
+				intf("Window 0 Color Special Effect", 5), intf("Window 1 BG0-BG3/OBJ Enable", 12, 8),
+				intf("Window 1 Color Special Effect", 13));
+		reg(dev, WINOUT, prefix + "WINOUT", base + 0x4A, intf("Outside BG0-BG3/OBJ Enable", 4, 0),
+				intf("Outside Color Special Effect", 5), intf("OBJ Window BG0-BG3/OBJ Enable", 12, 8),
+				intf("OBJ Window Color Special Effect", 13));
+		reg(dev, MOSAIC, prefix + "MOSAIC", base + 0x4C, intf("BG Mosaic H-Size", 3, 0),
+				intf("BG Mosaic V-Size", 7, 4), intf("OBJ Mosaic H-Size", 11, 8), intf("OBJ Mosaic V-Size", 15, 12));
+		reg(dev, BLDCNT, prefix + "BLDCNT", base + 0x50, intf("1st Target Pixel", 5, 0),
+				enumf("Color Special Effect", 7, 6, "None", "Alpha Blending", "Brightness Increase",
+						"Brightness Decrease"),
+				intf("2nd Target Pixel", 13, 8));
+		reg(dev, BLDALPHA, prefix + "BLDALPHA", base + 0x52, intf("EVA Coefficient", 4, 0),
+				intf("EVB Coefficient", 12, 8));
+		reg(dev, BLDY, prefix + "BLDY", base + 0x54, intf("EVY Coefficient", 4, 0));
+	}
+
+	private static FieldFormat[] rgb() {
+		return new FieldFormat[] { intf("Red", 4, 0), intf("Green", 9, 5), intf("Blue", 14, 10) };
 	}
 
 	private static FieldFormat intf(String name, int bit) {
@@ -292,8 +692,22 @@ public class ARMDevices {
 		return new EnumFieldFormat(name, bit, values);
 	}
 
-	private static DeviceRegister reg(int id, String name, long addr, FieldFormat... fmt) {
-		DeviceRegister reg = new DeviceRegister(id, name, addr, fmt);
-		return reg;
+	private static void reg(int dev, int id, String name, int addr, FieldFormat... fmt) {
+		REGISTERS.add(new Register(dev, id, name, addr, fmt));
+		alias(dev, id, addr);
+	}
+
+	// command port of the geometry engine, only writes are reported
+	private static void port(int dev, int id, String name, int addr, FieldFormat... fmt) {
+		reg(dev, id, name, addr, fmt);
+		IO_REGISTERS[addr - IO_BASE] |= WRITE_ONLY;
+	}
+
+	private static void alias(int dev, int id, int addr) {
+		int offset = addr - IO_BASE;
+		if(offset >= 0 && offset < IO_SIZE) {
+			assert IO_REGISTERS[offset] == 0 : String.format("register at 0x%08x defined twice", addr);
+			IO_REGISTERS[offset] = (dev + 1) << 16 | id;
+		}
 	}
 }
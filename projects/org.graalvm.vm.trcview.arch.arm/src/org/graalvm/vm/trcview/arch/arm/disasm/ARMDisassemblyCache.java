@@ -0,0 +1,148 @@
+package org.graalvm.vm.trcview.arch.arm.disasm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded cache of disassembled instructions keyed by PC, execution mode and code word. The entries are spread
+// over independently locked segments, each of which drops its least recently used entry when it is full. Small
+// caches use a single segment and are therefore exact LRU caches.
+public class ARMDisassemblyCache {
+	private static final int SEGMENTS = 16;
+	private static final int MIN_SEGMENT_SIZE = 64;
+
+	private static final ARMDisassemblyCache INSTANCE = new ARMDisassemblyCache(
+			Integer.getInteger("trcview.arm.disasmcache", 65536));
+
+	private final Segment[] segments;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	private static final class Key {
+		final int pc;
+		final int code;
+		final boolean thumb;
+
+		Key(int pc, int code, boolean thumb) {
+			this.pc = pc;
+			this.code = code;
+			this.thumb = thumb;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = pc * 31 + code;
+			if(thumb) {
+				h = ~h;
+			}
+			return h ^ (h >>> 16);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return k.pc == pc && k.code == code && k.thumb == thumb;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class Segment extends LinkedHashMap<Key, String[]> {
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, String[]> eldest) {
+			return size() > capacity;
+		}
+	}
+
+	// the cache shared by all ARM steps; its size is set with -Dtrcview.arm.disasmcache=<entries>, 0 disables it
+	public static ARMDisassemblyCache getInstance() {
+		return INSTANCE;
+	}
+
+	public ARMDisassemblyCache(int capacity) {
+		if(capacity <= 0) {
+			segments = new Segment[0];
+		} else if(capacity < SEGMENTS * MIN_SEGMENT_SIZE) {
+			segments = new Segment[] { new Segment(capacity) };
+		} else {
+			segments = new Segment[SEGMENTS];
+			for(int i = 0; i < SEGMENTS; i++) {
+				segments[i] = new Segment((capacity + SEGMENTS - 1) / SEGMENTS);
+			}
+		}
+	}
+
+	// the returned array is shared and must not be modified
+	private String[] lookup(int pc, int cpsr, int code) {
+		if(segments.length == 0) {
+			misses.increment();
+			return ARMv5Disassembler.disassemble(pc, cpsr, code);
+		}
+
+		boolean thumb = Cpsr.T.getBit(cpsr);
+		// only the low halfword of a Thumb code word is decoded
+		Key key = new Key(pc, thumb ? code & 0xFFFF : code, thumb);
+		Segment segment = segments[segments.length == 1 ? 0 : (key.hashCode() * 0x9E3779B9) >>> 28];
+		String[] asm;
+		synchronized(segment) {
+			asm = segment.get(key);
+		}
+		if(asm != null) {
+			hits.increment();
+			return asm;
+		}
+
+		// disassemble outside of the lock, a concurrent miss on the same key just stores an equal result
+		misses.increment();
+		asm = ARMv5Disassembler.disassemble(pc, cpsr, code);
+		synchronized(segment) {
+			segment.put(key, asm);
+		}
+		return asm;
+	}
+
+	public String[] disassemble(int pc, int cpsr, int code) {
+		return lookup(pc, cpsr, code).clone();
+	}
+
+	public String getMnemonic(int pc, int cpsr, int code) {
+		return lookup(pc, cpsr, code)[0];
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public int size() {
+		int size = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public void clear() {
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				segment.clear();
+			}
+		}
+		hits.reset();
+		misses.reset();
+	}
+}
@@ -0,0 +1,166 @@
+package org.graalvm.vm.trcview.arch.arm.disasm;
+
+// Decoded form of an ARM or Thumb instruction as produced by ARMv5Decoder. An instance is overwritten by every
+// decode, so analyses can keep one per thread and work on register numbers and masks instead of disassembly text.
+public final class ARMInstruction {
+	public static final int NONE = -1;
+
+	public static final int SHIFT_LSL = 0;
+	public static final int SHIFT_LSR = 1;
+	public static final int SHIFT_ASR = 2;
+	public static final int SHIFT_ROR = 3;
+	public static final int SHIFT_RRX = 4;
+
+	public enum Access {
+		NONE,
+		READ,
+		WRITE,
+		SWAP
+	}
+
+	ARMOpcode opcode;
+	int code;
+	boolean thumb;
+	int cond;
+	boolean s;
+	boolean writeback;
+	int rd;
+	int rn;
+	int rm;
+	int rs;
+	int shift;
+	int shiftAmount;
+	int reads;
+	int writes;
+	Access access;
+	int accessSize;
+	int registerList;
+	boolean hasImmediate;
+	int immediate;
+	boolean hasTarget;
+	int target;
+
+	public ARMInstruction() {
+		clear(0, false);
+	}
+
+	void clear(int op, boolean isThumb) {
+		opcode = ARMOpcode.UNKNOWN;
+		code = op;
+		thumb = isThumb;
+		cond = isThumb ? Condition.AL : (op >>> 28);
+		s = false;
+		writeback = false;
+		rd = NONE;
+		rn = NONE;
+		rm = NONE;
+		rs = NONE;
+		shift = SHIFT_LSL;
+		shiftAmount = 0;
+		reads = 0;
+		writes = 0;
+		access = Access.NONE;
+		accessSize = 0;
+		registerList = 0;
+		hasImmediate = false;
+		immediate = 0;
+		hasTarget = false;
+		target = 0;
+	}
+
+	public ARMOpcode getOpcode() {
+		return opcode;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public boolean isThumb() {
+		return thumb;
+	}
+
+	public int getCondition() {
+		return cond;
+	}
+
+	// S bit: updates the flags, for LDM/STM uses the user mode registers or restores the CPSR
+	public boolean isS() {
+		return s;
+	}
+
+	public boolean isWriteback() {
+		return writeback;
+	}
+
+	// destination register; RdLo of long multiplies
+	public int getRd() {
+		return rd;
+	}
+
+	// first operand or base register; RdHi of long multiplies
+	public int getRn() {
+		return rn;
+	}
+
+	public int getRm() {
+		return rm;
+	}
+
+	// register holding the shift amount or the second multiply operand
+	public int getRs() {
+		return rs;
+	}
+
+	public int getShift() {
+		return shift;
+	}
+
+	public int getShiftAmount() {
+		return shiftAmount;
+	}
+
+	// bit mask of the general purpose registers used as input
+	public int getReads() {
+		return reads;
+	}
+
+	// bit mask of the general purpose registers written, including R15 for branches
+	public int getWrites() {
+		return writes;
+	}
+
+	public boolean writesPC() {
+		return (writes & 0x8000) != 0;
+	}
+
+	public Access getAccess() {
+		return access;
+	}
+
+	// number of bytes accessed or 0 if unknown
+	public int getAccessSize() {
+		return accessSize;
+	}
+
+	public int getRegisterList() {
+		return registerList;
+	}
+
+	public boolean hasImmediate() {
+		return hasImmediate;
+	}
+
+	// operand, offset or comment field; address offsets are already signed
+	public int getImmediate() {
+		return immediate;
+	}
+
+	public boolean hasTarget() {
+		return hasTarget;
+	}
+
+	public int getTarget() {
+		return target;
+	}
+}
@@ -0,0 +1,112 @@
+package org.graalvm.vm.trcview.arch.arm.disasm;
+
+public enum ARMOpcode {
+	// data processing, in the order of the opcode field
+	AND,
+	EOR,
+	SUB,
+	RSB,
+	ADD,
+	ADC,
+	SBC,
+	RSC,
+	TST,
+	TEQ,
+	CMP,
+	CMN,
+	ORR,
+	MOV,
+	BIC,
+	MVN,
+
+	// Thumb only data processing
+	NEG,
+	LSL,
+	LSR,
+	ASR,
+	ROR,
+	CPY,
+
+	// multiply
+	MUL,
+	MLA,
+	UMULL,
+	UMLAL,
+	SMULL,
+	SMLAL,
+	SMLABB,
+	SMLATB,
+	SMLABT,
+	SMLATT,
+	SMLAWB,
+	SMLAWT,
+	SMLALBB,
+	SMLALTB,
+	SMLALBT,
+	SMLALTT,
+	SMULBB,
+	SMULTB,
+	SMULBT,
+	SMULTT,
+	SMULWB,
+	SMULWT,
+
+	// saturating arithmetic and CLZ
+	QADD,
+	QSUB,
+	QDADD,
+	QDSUB,
+	CLZ,
+
+	// status register access
+	MRS,
+	MSR,
+
+	// branches; a Thumb BL or BLX consists of a BL_HI followed by a BL_LO or BLX_LO
+	B,
+	BL,
+	BLX,
+	BX,
+	BXJ,
+	BL_HI,
+	BL_LO,
+	BLX_LO,
+
+	// loads and stores
+	LDR,
+	LDRB,
+	LDRT,
+	LDRBT,
+	LDRH,
+	LDRSB,
+	LDRSH,
+	LDRD,
+	STR,
+	STRB,
+	STRT,
+	STRBT,
+	STRH,
+	STRD,
+	LDM,
+	STM,
+	PUSH,
+	POP,
+	SWP,
+	SWPB,
+	PLD,
+
+	// coprocessor
+	CDP,
+	LDC,
+	STC,
+	MCR,
+	MRC,
+	MCRR,
+	MRRC,
+
+	// exception generating
+	SWI,
+	BKPT,
+
+	UNKNOWN
+}
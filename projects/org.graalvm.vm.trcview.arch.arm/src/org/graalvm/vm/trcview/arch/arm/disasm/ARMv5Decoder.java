@@ -0,0 +1,1033 @@
+package org.graalvm.vm.trcview.arch.arm.disasm;
+
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMInstruction.Access;
+import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
+import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.util.BitTest;
+
+// Table driven decoder for ARMv5TE and Thumb instructions. The decoder of an ARM instruction is selected by bits
+// 27-20 and 7-4 of the opcode, the one of a Thumb instruction by bits 15-6. The tables only hold stateless
+// functions, so any thread can decode as long as it uses its own ARMInstruction.
+public class ARMv5Decoder {
+	private static final ARMOpcode[] OPCODES = ARMOpcode.values();
+
+	// in the order of the opcode field of Thumb data processing
+	private static final ARMOpcode[] THUMB_ALU = {
+			ARMOpcode.AND, ARMOpcode.EOR, ARMOpcode.LSL, ARMOpcode.LSR,
+			ARMOpcode.ASR, ARMOpcode.ADC, ARMOpcode.SBC, ARMOpcode.ROR,
+			ARMOpcode.TST, ARMOpcode.NEG, ARMOpcode.CMP, ARMOpcode.CMN,
+			ARMOpcode.ORR, ARMOpcode.MUL, ARMOpcode.BIC, ARMOpcode.MVN
+	};
+
+	// in the order of bits 11-9 of the register offset form
+	private static final ARMOpcode[] THUMB_LOADSTORE = {
+			ARMOpcode.STR, ARMOpcode.STRH, ARMOpcode.STRB, ARMOpcode.LDRSB,
+			ARMOpcode.LDR, ARMOpcode.LDRH, ARMOpcode.LDRB, ARMOpcode.LDRSH
+	};
+	private static final int[] THUMB_LOADSTORE_SIZE = { 4, 2, 1, 1, 4, 2, 1, 2 };
+
+	// MOV, CMP, ADD, SUB with an 8 bit immediate
+	private static final ARMOpcode[] THUMB_IMMEDIATE = { ARMOpcode.MOV, ARMOpcode.CMP, ARMOpcode.ADD, ARMOpcode.SUB };
+
+	private interface Decoder {
+		void decode(ARMInstruction insn, int op, int pc);
+	}
+
+	private static final Decoder[] ARM = new Decoder[0x1000];
+	// instructions with condition 0b1111
+	private static final Decoder[] ARM_UNCONDITIONAL = new Decoder[0x1000];
+	private static final Decoder[] THUMB = new Decoder[0x400];
+
+	static {
+		for(int i = 0; i < ARM.length; i++) {
+			int op = (i & 0xFF0) << 16 | (i & 0xF) << 4;
+			ARM[i] = getDecoderARM(op);
+			ARM_UNCONDITIONAL[i] = getDecoderUnconditional(op);
+		}
+		for(int i = 0; i < THUMB.length; i++) {
+			THUMB[i] = getDecoderThumb(i << 6);
+		}
+	}
+
+	public static void decode(ARMCpuState state, ARMInstruction insn) {
+		decode(state.getGPR(15), state.getCPSR(), state.getCode(), insn);
+	}
+
+	// pc is the value of R15 as seen by the instruction, the same value the disassembler expects
+	public static void decode(int pc, int cpsr, int op, ARMInstruction insn) {
+		if(Cpsr.T.getBit(cpsr)) {
+			decodeThumb(pc, op, insn);
+		} else {
+			decodeARM(pc, op, insn);
+		}
+	}
+
+	public static void decodeARM(int pc, int op, ARMInstruction insn) {
+		insn.clear(op, false);
+		int key = (op >>> 16 & 0xFF0) | (op >>> 4 & 0xF);
+		if(op >>> 28 == 0b1111) {
+			ARM_UNCONDITIONAL[key].decode(insn, op, pc);
+		} else {
+			ARM[key].decode(insn, op, pc);
+		}
+	}
+
+	public static void decodeThumb(int pc, int op, ARMInstruction insn) {
+		int code = op & 0xFFFF;
+		insn.clear(code, true);
+		THUMB[code >>> 6].decode(insn, code, pc);
+	}
+
+	// see ARMv5Disassembler.getType for the patterns which are treated as call or return
+	public static InstructionType getType(ARMInstruction insn, int cpsr) {
+		boolean passed = ARMv5Disassembler.conditionPassedOp(insn.cond, cpsr);
+		switch(insn.opcode) {
+		case SWI:
+			return passed ? InstructionType.SYSCALL : InstructionType.JCC;
+		case BKPT:
+			return InstructionType.SYSCALL;
+		case LDM:
+			// TODO: this might be a RET
+			if(BitTest.test(insn.registerList, 1 << 15)) {
+				return passed ? InstructionType.JMP_INDIRECT : InstructionType.JCC;
+			}
+			return InstructionType.OTHER;
+		case POP:
+			return BitTest.test(insn.registerList, 1 << 15) ? InstructionType.RET : InstructionType.OTHER;
+		case B:
+		case BL:
+			if(insn.opcode == ARMOpcode.BL && passed) {
+				return InstructionType.CALL;
+			}
+			return insn.cond == Condition.AL ? InstructionType.JMP : InstructionType.JCC;
+		case BLX:
+			// BLX (1) is unconditional
+			return insn.hasTarget || passed ? InstructionType.CALL : InstructionType.OTHER;
+		case BL_LO:
+		case BLX_LO:
+			return InstructionType.CALL;
+		case BX:
+		case BXJ:
+			if(insn.thumb) {
+				return insn.rm == 14 ? InstructionType.RET : InstructionType.JMP_INDIRECT;
+			} else if(passed && insn.rm == 14) {
+				return InstructionType.RET;
+			}
+			return insn.cond == Condition.AL ? InstructionType.JMP : InstructionType.JCC;
+		case SUB:
+			if(insn.rd != 15) {
+				return InstructionType.OTHER;
+			} else if(!passed) {
+				return InstructionType.JCC;
+			}
+			return insn.rn == 14 ? InstructionType.RTI : InstructionType.JMP_INDIRECT;
+		case MOV:
+			if(insn.rd != 15 || insn.hasImmediate) {
+				return InstructionType.OTHER;
+			} else if(!passed) {
+				return InstructionType.JCC;
+			} else if(insn.rm == 14 && insn.rs == ARMInstruction.NONE && insn.shift == ARMInstruction.SHIFT_LSL &&
+					insn.shiftAmount == 0) {
+				return InstructionType.RET;
+			}
+			return InstructionType.JMP_INDIRECT;
+		default:
+			return InstructionType.OTHER;
+		}
+	}
+
+	private static boolean bit(int op, int n) {
+		return BitTest.test(op, 1 << n);
+	}
+
+	private static int reg(int op, int lsb) {
+		return (op >>> lsb) & 0xF;
+	}
+
+	private static void read(ARMInstruction insn, int r) {
+		insn.reads |= 1 << r;
+	}
+
+	private static void write(ARMInstruction insn, int r) {
+		insn.writes |= 1 << r;
+	}
+
+	private static ARMOpcode opcode(ARMOpcode first, int offset) {
+		return OPCODES[first.ordinal() + offset];
+	}
+
+	// ARM MODE
+	private static Decoder getDecoderARM(int op) {
+		switch((op >>> 25) & 0b111) {
+		case 0b000:
+			if(bit(op, 7) && bit(op, 4)) {
+				if((op & 0x60) == 0) {
+					return getMultiplyDecoder(op);
+				} else {
+					return ARMv5Decoder::extraLoadStore;
+				}
+			} else if((op & 0x01900000) == 0x01000000) {
+				return getMiscDecoder(op);
+			} else {
+				return ARMv5Decoder::dataProcessing;
+			}
+		case 0b001:
+			if((op & 0x01900000) == 0x01000000) {
+				return bit(op, 21) ? ARMv5Decoder::msrImmediate : ARMv5Decoder::unknown;
+			} else {
+				return ARMv5Decoder::dataProcessing;
+			}
+		case 0b010:
+			return ARMv5Decoder::loadStore;
+		case 0b011:
+			return bit(op, 4) ? ARMv5Decoder::unknown : ARMv5Decoder::loadStore;
+		case 0b100:
+			return ARMv5Decoder::loadStoreMultiple;
+		case 0b101:
+			return ARMv5Decoder::branch;
+		case 0b110:
+			return getCoprocessorLoadStoreDecoder(op);
+		default:
+			if(bit(op, 24)) {
+				return ARMv5Decoder::swi;
+			} else {
+				return getCoprocessorDecoder(op);
+			}
+		}
+	}
+
+	private static Decoder getDecoderUnconditional(int op) {
+		switch((op >>> 25) & 0b111) {
+		case 0b010:
+		case 0b011:
+			if((op & 0x01700000) == 0x01500000 && !(bit(op, 25) && bit(op, 4))) {
+				return ARMv5Decoder::pld;
+			}
+			break;
+		case 0b101:
+			return ARMv5Decoder::blxImmediate;
+		case 0b110:
+			return getCoprocessorLoadStoreDecoder(op);
+		case 0b111:
+			// undefined, but disassembled as SWI
+			if(bit(op, 24)) {
+				return ARMv5Decoder::swi;
+			} else {
+				return getCoprocessorDecoder(op);
+			}
+		}
+		return ARMv5Decoder::unknown;
+	}
+
+	private static Decoder getMultiplyDecoder(int op) {
+		switch((op >>> 21) & 0b1111) {
+		case 0b0000:
+			return (insn, o, pc) -> multiply(insn, o, ARMOpcode.MUL, false);
+		case 0b0001:
+			return (insn, o, pc) -> multiply(insn, o, ARMOpcode.MLA, true);
+		case 0b0100:
+			return (insn, o, pc) -> multiplyLong(insn, o, ARMOpcode.UMULL, false);
+		case 0b0101:
+			return (insn, o, pc) -> multiplyLong(insn, o, ARMOpcode.UMLAL, true);
+		case 0b0110:
+			return (insn, o, pc) -> multiplyLong(insn, o, ARMOpcode.SMULL, false);
+		case 0b0111:
+			return (insn, o, pc) -> multiplyLong(insn, o, ARMOpcode.SMLAL, true);
+		case 0b1000:
+			if(!bit(op, 20)) {
+				return (insn, o, pc) -> swap(insn, o, ARMOpcode.SWP, 4);
+			}
+			break;
+		case 0b1010:
+			if(!bit(op, 20)) {
+				return (insn, o, pc) -> swap(insn, o, ARMOpcode.SWPB, 1);
+			}
+			break;
+		}
+		return ARMv5Decoder::unknown;
+	}
+
+	private static Decoder getMiscDecoder(int op) {
+		int op2221 = (op >>> 21) & 0b11;
+		switch((op >>> 4) & 0xF) {
+		case 0b0000:
+			return bit(op, 21) ? ARMv5Decoder::msrRegister : ARMv5Decoder::mrs;
+		case 0b0001:
+			if(op2221 == 0b01) {
+				return (insn, o, pc) -> branchExchange(insn, o, ARMOpcode.BX);
+			} else if(op2221 == 0b11) {
+				return ARMv5Decoder::clz;
+			}
+			break;
+		case 0b0010:
+			if(op2221 == 0b01) {
+				return (insn, o, pc) -> branchExchange(insn, o, ARMOpcode.BXJ);
+			}
+			break;
+		case 0b0011:
+			if(op2221 == 0b01) {
+				return (insn, o, pc) -> branchExchange(insn, o, ARMOpcode.BLX);
+			}
+			break;
+		case 0b0101:
+			return (insn, o, pc) -> saturating(insn, o, opcode(ARMOpcode.QADD, op2221));
+		case 0b0111:
+			if(op2221 == 0b01) {
+				return ARMv5Decoder::bkpt;
+			}
+			break;
+		case 0b1000:
+		case 0b1010:
+		case 0b1100:
+		case 0b1110: {
+			// x selects the half of Rm, y the half of Rs
+			int xy = (op >>> 5) & 0b11;
+			switch(op2221) {
+			case 0b00:
+				return (insn, o, pc) -> multiply(insn, o, opcode(ARMOpcode.SMLABB, xy), true);
+			case 0b01:
+				if(bit(op, 5)) {
+					return (insn, o, pc) -> multiply(insn, o, opcode(ARMOpcode.SMULWB, xy >> 1), false);
+				} else {
+					return (insn, o, pc) -> multiply(insn, o, opcode(ARMOpcode.SMLAWB, xy >> 1), true);
+				}
+			case 0b10:
+				return (insn, o, pc) -> multiplyLong(insn, o, opcode(ARMOpcode.SMLALBB, xy), true);
+			default:
+				return (insn, o, pc) -> multiply(insn, o, opcode(ARMOpcode.SMULBB, xy), false);
+			}
+		}
+		}
+		return ARMv5Decoder::unknown;
+	}
+
+	private static Decoder getCoprocessorLoadStoreDecoder(int op) {
+		if((op & 0x01E00000) == 0x00400000) {
+			return ARMv5Decoder::coprocessorRegisterPair;
+		} else {
+			return ARMv5Decoder::coprocessorLoadStore;
+		}
+	}
+
+	private static Decoder getCoprocessorDecoder(int op) {
+		if(bit(op, 4)) {
+			return ARMv5Decoder::coprocessorRegister;
+		} else {
+			return (insn, o, pc) -> insn.opcode = ARMOpcode.CDP;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void unknown(ARMInstruction insn, int op, int pc) {
+		// nothing to decode
+	}
+
+	private static void immediateShift(ARMInstruction insn, int amount) {
+		if(amount == 0 && insn.shift == ARMInstruction.SHIFT_ROR) {
+			insn.shift = ARMInstruction.SHIFT_RRX;
+			insn.shiftAmount = 1;
+		} else if(amount == 0 && insn.shift != ARMInstruction.SHIFT_LSL) {
+			insn.shiftAmount = 32;
+		} else {
+			insn.shiftAmount = amount;
+		}
+	}
+
+	// Rm, shifted by an immediate or by Rs
+	private static void shifterRegister(ARMInstruction insn, int op) {
+		insn.rm = op & 0xF;
+		read(insn, insn.rm);
+		insn.shift = (op >>> 5) & 0b11;
+		if(bit(op, 4)) {
+			insn.rs = reg(op, 8);
+			read(insn, insn.rs);
+		} else {
+			immediateShift(insn, (op >>> 7) & 0x1F);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void dataProcessing(ARMInstruction insn, int op, int pc) {
+		int opcd = (op >>> 21) & 0xF;
+		insn.opcode = OPCODES[opcd];
+		insn.s = bit(op, 20);
+		if(insn.opcode != ARMOpcode.MOV && insn.opcode != ARMOpcode.MVN) {
+			insn.rn = reg(op, 16);
+			read(insn, insn.rn);
+		}
+		if(opcd < 0b1000 || opcd > 0b1011) {
+			// everything except TST, TEQ, CMP, CMN
+			insn.rd = reg(op, 12);
+			write(insn, insn.rd);
+		}
+		if(bit(op, 25)) {
+			insn.hasImmediate = true;
+			insn.immediate = Integer.rotateRight(op & 0xFF, reg(op, 8) * 2);
+		} else {
+			shifterRegister(insn, op);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void msrImmediate(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.MSR;
+		insn.hasImmediate = true;
+		insn.immediate = Integer.rotateRight(op & 0xFF, reg(op, 8) * 2);
+	}
+
+	@SuppressWarnings("unused")
+	private static void msrRegister(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.MSR;
+		insn.rm = op & 0xF;
+		read(insn, insn.rm);
+	}
+
+	@SuppressWarnings("unused")
+	private static void mrs(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.MRS;
+		insn.rd = reg(op, 12);
+		write(insn, insn.rd);
+	}
+
+	@SuppressWarnings("unused")
+	private static void clz(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.CLZ;
+		insn.rd = reg(op, 12);
+		insn.rm = op & 0xF;
+		read(insn, insn.rm);
+		write(insn, insn.rd);
+	}
+
+	private static void saturating(ARMInstruction insn, int op, ARMOpcode opcode) {
+		insn.opcode = opcode;
+		insn.rd = reg(op, 12);
+		insn.rn = reg(op, 16);
+		insn.rm = op & 0xF;
+		read(insn, insn.rn);
+		read(insn, insn.rm);
+		write(insn, insn.rd);
+	}
+
+	@SuppressWarnings("unused")
+	private static void bkpt(ARMInstruction insn, int op, int pc) {
+		// BKPT is unpredictable with any other condition
+		if(insn.cond == Condition.AL) {
+			insn.opcode = ARMOpcode.BKPT;
+			insn.hasImmediate = true;
+			insn.immediate = (op >>> 4 & 0xFFF0) | (op & 0xF);
+		}
+	}
+
+	// Rd = Rm * Rs (+ Rn)
+	private static void multiply(ARMInstruction insn, int op, ARMOpcode opcode, boolean accumulate) {
+		insn.opcode = opcode;
+		insn.s = opcode.ordinal() <= ARMOpcode.MLA.ordinal() && bit(op, 20);
+		insn.rd = reg(op, 16);
+		insn.rm = op & 0xF;
+		insn.rs = reg(op, 8);
+		read(insn, insn.rm);
+		read(insn, insn.rs);
+		if(accumulate) {
+			insn.rn = reg(op, 12);
+			read(insn, insn.rn);
+		}
+		write(insn, insn.rd);
+	}
+
+	// RdHi:RdLo = Rm * Rs (+ RdHi:RdLo)
+	private static void multiplyLong(ARMInstruction insn, int op, ARMOpcode opcode, boolean accumulate) {
+		insn.opcode = opcode;
+		insn.s = opcode.ordinal() <= ARMOpcode.SMLAL.ordinal() && bit(op, 20);
+		insn.rd = reg(op, 12);
+		insn.rn = reg(op, 16);
+		insn.rm = op & 0xF;
+		insn.rs = reg(op, 8);
+		read(insn, insn.rm);
+		read(insn, insn.rs);
+		if(accumulate) {
+			read(insn, insn.rd);
+			read(insn, insn.rn);
+		}
+		write(insn, insn.rd);
+		write(insn, insn.rn);
+	}
+
+	private static void swap(ARMInstruction insn, int op, ARMOpcode opcode, int size) {
+		insn.opcode = opcode;
+		insn.rd = reg(op, 12);
+		insn.rn = reg(op, 16);
+		insn.rm = op & 0xF;
+		read(insn, insn.rn);
+		read(insn, insn.rm);
+		write(insn, insn.rd);
+		insn.access = Access.SWAP;
+		insn.accessSize = size;
+	}
+
+	private static void transfer(ARMInstruction insn, boolean load, int size, boolean writeback) {
+		insn.access = load ? Access.READ : Access.WRITE;
+		insn.accessSize = size;
+		if(load) {
+			write(insn, insn.rd);
+		} else {
+			read(insn, insn.rd);
+		}
+		if(writeback) {
+			insn.writeback = true;
+			write(insn, insn.rn);
+		}
+	}
+
+	private static void offset(ARMInstruction insn, int op, int offset) {
+		insn.hasImmediate = true;
+		insn.immediate = bit(op, 23) ? offset : -offset;
+	}
+
+	@SuppressWarnings("unused")
+	private static void loadStore(ARMInstruction insn, int op, int pc) {
+		boolean l = bit(op, 20);
+		boolean b = bit(op, 22);
+		// post-indexed with W set accesses memory with user mode permissions
+		boolean t = !bit(op, 24) && bit(op, 21);
+		if(l) {
+			insn.opcode = b ? (t ? ARMOpcode.LDRBT : ARMOpcode.LDRB) : (t ? ARMOpcode.LDRT : ARMOpcode.LDR);
+		} else {
+			insn.opcode = b ? (t ? ARMOpcode.STRBT : ARMOpcode.STRB) : (t ? ARMOpcode.STRT : ARMOpcode.STR);
+		}
+		insn.rd = reg(op, 12);
+		insn.rn = reg(op, 16);
+		read(insn, insn.rn);
+		if(bit(op, 25)) {
+			insn.rm = op & 0xF;
+			read(insn, insn.rm);
+			insn.shift = (op >>> 5) & 0b11;
+			immediateShift(insn, (op >>> 7) & 0x1F);
+		} else {
+			offset(insn, op, op & 0xFFF);
+		}
+		transfer(insn, l, b ? 1 : 4, !bit(op, 24) || bit(op, 21));
+	}
+
+	@SuppressWarnings("unused")
+	private static void extraLoadStore(ARMInstruction insn, int op, int pc) {
+		boolean l = bit(op, 20);
+		int size;
+		switch((op >>> 5) & 0b11) {
+		case 0b01:
+			insn.opcode = l ? ARMOpcode.LDRH : ARMOpcode.STRH;
+			size = 2;
+			break;
+		case 0b10:
+			insn.opcode = l ? ARMOpcode.LDRSB : ARMOpcode.LDRD;
+			size = l ? 1 : 8;
+			break;
+		default:
+			insn.opcode = l ? ARMOpcode.LDRSH : ARMOpcode.STRD;
+			size = l ? 2 : 8;
+			break;
+		}
+		insn.rd = reg(op, 12);
+		insn.rn = reg(op, 16);
+		read(insn, insn.rn);
+		if(bit(op, 22)) {
+			offset(insn, op, (op >>> 4 & 0xF0) | (op & 0xF));
+		} else {
+			insn.rm = op & 0xF;
+			read(insn, insn.rm);
+		}
+		boolean load = l || insn.opcode == ARMOpcode.LDRD;
+		if(size == 8) {
+			// doubleword transfers use Rd and Rd+1
+			int rd2 = (insn.rd + 1) & 0xF;
+			if(load) {
+				write(insn, rd2);
+			} else {
+				read(insn, rd2);
+			}
+		}
+		transfer(insn, load, size, !bit(op, 24) || bit(op, 21));
+	}
+
+	@SuppressWarnings("unused")
+	private static void loadStoreMultiple(ARMInstruction insn, int op, int pc) {
+		boolean l = bit(op, 20);
+		insn.opcode = l ? ARMOpcode.LDM : ARMOpcode.STM;
+		insn.s = bit(op, 22);
+		insn.rn = reg(op, 16);
+		read(insn, insn.rn);
+		insn.registerList = op & 0xFFFF;
+		insn.access = l ? Access.READ : Access.WRITE;
+		insn.accessSize = 4 * Integer.bitCount(insn.registerList);
+		if(l) {
+			insn.writes |= insn.registerList;
+		} else {
+			insn.reads |= insn.registerList;
+		}
+		if(bit(op, 21)) {
+			insn.writeback = true;
+			write(insn, insn.rn);
+		}
+	}
+
+	private static void branch(ARMInstruction insn, int op, int pc) {
+		boolean l = bit(op, 24);
+		insn.opcode = l ? ARMOpcode.BL : ARMOpcode.B;
+		insn.hasTarget = true;
+		insn.target = pc + ((op << 8) >> 6);
+		write(insn, 15);
+		if(l) {
+			write(insn, 14);
+		}
+	}
+
+	private static void blxImmediate(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.BLX;
+		insn.hasTarget = true;
+		insn.target = pc + ((op << 8) >> 6) + (bit(op, 24) ? 2 : 0);
+		write(insn, 15);
+		write(insn, 14);
+	}
+
+	private static void branchExchange(ARMInstruction insn, int op, ARMOpcode opcode) {
+		insn.opcode = opcode;
+		insn.rm = op & 0xF;
+		read(insn, insn.rm);
+		write(insn, 15);
+		if(opcode == ARMOpcode.BLX) {
+			write(insn, 14);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void pld(ARMInstruction insn, int op, int pc) {
+		if(reg(op, 12) != 0b1111) {
+			return;
+		}
+		insn.opcode = ARMOpcode.PLD;
+		insn.rn = reg(op, 16);
+		read(insn, insn.rn);
+		if(bit(op, 25)) {
+			insn.rm = op & 0xF;
+			read(insn, insn.rm);
+			insn.shift = (op >>> 5) & 0b11;
+			immediateShift(insn, (op >>> 7) & 0x1F);
+		} else {
+			offset(insn, op, op & 0xFFF);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void swi(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.SWI;
+		insn.hasImmediate = true;
+		insn.immediate = op & 0xFFFFFF;
+	}
+
+	@SuppressWarnings("unused")
+	private static void coprocessorLoadStore(ARMInstruction insn, int op, int pc) {
+		boolean l = bit(op, 20);
+		insn.opcode = l ? ARMOpcode.LDC : ARMOpcode.STC;
+		insn.rn = reg(op, 16);
+		read(insn, insn.rn);
+		if(bit(op, 24) || bit(op, 21)) {
+			offset(insn, op, (op & 0xFF) * 4);
+		}
+		if(bit(op, 21)) {
+			insn.writeback = true;
+			write(insn, insn.rn);
+		}
+		insn.access = l ? Access.READ : Access.WRITE;
+	}
+
+	@SuppressWarnings("unused")
+	private static void coprocessorRegisterPair(ARMInstruction insn, int op, int pc) {
+		insn.rd = reg(op, 12);
+		insn.rn = reg(op, 16);
+		if(bit(op, 20)) {
+			insn.opcode = ARMOpcode.MRRC;
+			write(insn, insn.rd);
+			write(insn, insn.rn);
+		} else {
+			insn.opcode = ARMOpcode.MCRR;
+			read(insn, insn.rd);
+			read(insn, insn.rn);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void coprocessorRegister(ARMInstruction insn, int op, int pc) {
+		insn.rd = reg(op, 12);
+		if(bit(op, 20)) {
+			insn.opcode = ARMOpcode.MRC;
+			// MRC to R15 sets the flags
+			if(insn.rd != 15) {
+				write(insn, insn.rd);
+			}
+		} else {
+			insn.opcode = ARMOpcode.MCR;
+			read(insn, insn.rd);
+		}
+	}
+
+	// THUMB MODE
+	private static Decoder getDecoderThumb(int op) {
+		switch(op >>> 11) {
+		case 0b00000:
+			return (insn, o, pc) -> thumbShiftImmediate(insn, o, ARMOpcode.LSL);
+		case 0b00001:
+			return (insn, o, pc) -> thumbShiftImmediate(insn, o, ARMOpcode.LSR);
+		case 0b00010:
+			return (insn, o, pc) -> thumbShiftImmediate(insn, o, ARMOpcode.ASR);
+		case 0b00011: {
+			// ADD/SUB with a register or a 3 bit immediate
+			ARMOpcode opcode = bit(op, 9) ? ARMOpcode.SUB : ARMOpcode.ADD;
+			boolean immediate = bit(op, 10);
+			return (insn, o, pc) -> thumbAddSub(insn, o, opcode, immediate);
+		}
+		case 0b00100:
+		case 0b00101:
+		case 0b00110:
+		case 0b00111: {
+			ARMOpcode opcode = THUMB_IMMEDIATE[(op >>> 11) & 0b11];
+			return (insn, o, pc) -> thumbImmediate(insn, o, opcode);
+		}
+		case 0b01000:
+			if(bit(op, 10)) {
+				return getDecoderThumbHighRegister(op);
+			} else {
+				ARMOpcode opcode = THUMB_ALU[(op >>> 6) & 0xF];
+				return (insn, o, pc) -> thumbALU(insn, o, opcode);
+			}
+		case 0b01001:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.LDR, 15, (o & 0xFF) * 4, 4);
+		case 0b01010:
+		case 0b01011: {
+			int idx = (op >>> 9) & 0b111;
+			return (insn, o, pc) -> thumbLoadStoreRegister(insn, o, THUMB_LOADSTORE[idx], THUMB_LOADSTORE_SIZE[idx]);
+		}
+		case 0b01100:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.STR, -1, (o >>> 6 & 0x1F) * 4, 4);
+		case 0b01101:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.LDR, -1, (o >>> 6 & 0x1F) * 4, 4);
+		case 0b01110:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.STRB, -1, o >>> 6 & 0x1F, 1);
+		case 0b01111:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.LDRB, -1, o >>> 6 & 0x1F, 1);
+		case 0b10000:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.STRH, -1, (o >>> 6 & 0x1F) * 2, 2);
+		case 0b10001:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.LDRH, -1, (o >>> 6 & 0x1F) * 2, 2);
+		case 0b10010:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.STR, 13, (o & 0xFF) * 4, 4);
+		case 0b10011:
+			return (insn, o, pc) -> thumbLoadStoreImmediate(insn, o, ARMOpcode.LDR, 13, (o & 0xFF) * 4, 4);
+		case 0b10100:
+			return (insn, o, pc) -> thumbAddAddress(insn, o, 15);
+		case 0b10101:
+			return (insn, o, pc) -> thumbAddAddress(insn, o, 13);
+		case 0b10110:
+		case 0b10111:
+			return getDecoderThumbMisc(op);
+		case 0b11000:
+			return (insn, o, pc) -> thumbLoadStoreMultiple(insn, o, ARMOpcode.STM);
+		case 0b11001:
+			return (insn, o, pc) -> thumbLoadStoreMultiple(insn, o, ARMOpcode.LDM);
+		case 0b11010:
+		case 0b11011:
+			if(((op >>> 8) & 0xF) == 0b1111) {
+				return ARMv5Decoder::thumbSwi;
+			} else {
+				return ARMv5Decoder::thumbConditionalBranch;
+			}
+		case 0b11100:
+			return ARMv5Decoder::thumbBranch;
+		case 0b11101:
+			return (insn, o, pc) -> thumbBranchLink(insn, o, ARMOpcode.BLX_LO);
+		case 0b11110:
+			return ARMv5Decoder::thumbBranchLinkHigh;
+		default:
+			return (insn, o, pc) -> thumbBranchLink(insn, o, ARMOpcode.BL_LO);
+		}
+	}
+
+	private static Decoder getDecoderThumbHighRegister(int op) {
+		switch((op >>> 8) & 0b11) {
+		case 0b00:
+			return (insn, o, pc) -> thumbHighRegister(insn, o, ARMOpcode.ADD);
+		case 0b01:
+			return (insn, o, pc) -> thumbHighRegister(insn, o, ARMOpcode.CMP);
+		case 0b10:
+			return (insn, o, pc) -> thumbHighRegister(insn, o, ARMOpcode.CPY);
+		default:
+			if(bit(op, 7)) {
+				return (insn, o, pc) -> thumbBranchExchange(insn, o, ARMOpcode.BLX);
+			} else {
+				return (insn, o, pc) -> thumbBranchExchange(insn, o, ARMOpcode.BX);
+			}
+		}
+	}
+
+	private static Decoder getDecoderThumbMisc(int op) {
+		switch((op >>> 8) & 0xF) {
+		case 0b0000:
+			return ARMv5Decoder::thumbAdjustStack;
+		case 0b0100:
+		case 0b0101:
+			return (insn, o, pc) -> thumbPushPop(insn, o, ARMOpcode.PUSH);
+		case 0b1100:
+		case 0b1101:
+			return (insn, o, pc) -> thumbPushPop(insn, o, ARMOpcode.POP);
+		case 0b1110:
+			return ARMv5Decoder::thumbBkpt;
+		default:
+			return ARMv5Decoder::unknown;
+		}
+	}
+
+	private static void thumbShiftImmediate(ARMInstruction insn, int op, ARMOpcode opcode) {
+		insn.opcode = opcode;
+		insn.s = true;
+		insn.rd = op & 0b111;
+		insn.rm = (op >>> 3) & 0b111;
+		insn.shift = opcode.ordinal() - ARMOpcode.LSL.ordinal();
+		immediateShift(insn, (op >>> 6) & 0x1F);
+		insn.hasImmediate = true;
+		insn.immediate = insn.shiftAmount;
+		read(insn, insn.rm);
+		write(insn, insn.rd);
+	}
+
+	private static void thumbAddSub(ARMInstruction insn, int op, ARMOpcode opcode, boolean immediate) {
+		insn.opcode = opcode;
+		insn.s = true;
+		insn.rd = op & 0b111;
+		insn.rn = (op >>> 3) & 0b111;
+		read(insn, insn.rn);
+		if(immediate) {
+			insn.hasImmediate = true;
+			insn.immediate = (op >>> 6) & 0b111;
+		} else {
+			insn.rm = (op >>> 6) & 0b111;
+			read(insn, insn.rm);
+		}
+		write(insn, insn.rd);
+	}
+
+	private static void thumbImmediate(ARMInstruction insn, int op, ARMOpcode opcode) {
+		int r = (op >>> 8) & 0b111;
+		insn.opcode = opcode;
+		insn.s = true;
+		insn.hasImmediate = true;
+		insn.immediate = op & 0xFF;
+		if(opcode != ARMOpcode.MOV) {
+			insn.rn = r;
+			read(insn, r);
+		}
+		if(opcode != ARMOpcode.CMP) {
+			insn.rd = r;
+			write(insn, r);
+		}
+	}
+
+	private static void thumbALU(ARMInstruction insn, int op, ARMOpcode opcode) {
+		int rd = op & 0b111;
+		int rm = (op >>> 3) & 0b111;
+		insn.opcode = opcode;
+		insn.s = true;
+		insn.rm = rm;
+		read(insn, rm);
+		switch(opcode) {
+		case TST:
+		case CMP:
+		case CMN:
+			insn.rn = rd;
+			read(insn, rd);
+			return;
+		case NEG:
+		case MVN:
+			break;
+		case LSL:
+		case LSR:
+		case ASR:
+		case ROR:
+			// Rd = Rd shifted by Rs
+			insn.rm = rd;
+			insn.rs = rm;
+			insn.shift = opcode.ordinal() - ARMOpcode.LSL.ordinal();
+			read(insn, rd);
+			break;
+		case MUL:
+			insn.rs = rd;
+			read(insn, rd);
+			break;
+		default:
+			insn.rn = rd;
+			read(insn, rd);
+			break;
+		}
+		insn.rd = rd;
+		write(insn, rd);
+	}
+
+	private static void thumbHighRegister(ARMInstruction insn, int op, ARMOpcode opcode) {
+		int rd = (op & 0b111) | (bit(op, 7) ? 8 : 0);
+		insn.opcode = opcode;
+		insn.rm = ((op >>> 3) & 0b111) | (bit(op, 6) ? 8 : 0);
+		read(insn, insn.rm);
+		if(opcode != ARMOpcode.CPY) {
+			insn.rn = rd;
+			read(insn, rd);
+		}
+		if(opcode == ARMOpcode.CMP) {
+			insn.s = true;
+		} else {
+			insn.rd = rd;
+			write(insn, rd);
+		}
+	}
+
+	private static void thumbBranchExchange(ARMInstruction insn, int op, ARMOpcode opcode) {
+		insn.opcode = opcode;
+		insn.rm = ((op >>> 3) & 0b111) | (bit(op, 6) ? 8 : 0);
+		read(insn, insn.rm);
+		write(insn, 15);
+		if(opcode == ARMOpcode.BLX) {
+			write(insn, 14);
+		}
+	}
+
+	// base is -1 for Rn in bits 5-3, otherwise the implicit base register and Rd is in bits 10-8
+	private static void thumbLoadStoreImmediate(ARMInstruction insn, int op, ARMOpcode opcode, int base, int offset,
+			int size) {
+		insn.opcode = opcode;
+		if(base < 0) {
+			insn.rd = op & 0b111;
+			insn.rn = (op >>> 3) & 0b111;
+		} else {
+			insn.rd = (op >>> 8) & 0b111;
+			insn.rn = base;
+		}
+		read(insn, insn.rn);
+		insn.hasImmediate = true;
+		insn.immediate = offset;
+		transfer(insn, opcode.ordinal() < ARMOpcode.STR.ordinal(), size, false);
+	}
+
+	private static void thumbLoadStoreRegister(ARMInstruction insn, int op, ARMOpcode opcode, int size) {
+		insn.opcode = opcode;
+		insn.rd = op & 0b111;
+		insn.rn = (op >>> 3) & 0b111;
+		insn.rm = (op >>> 6) & 0b111;
+		read(insn, insn.rn);
+		read(insn, insn.rm);
+		transfer(insn, opcode.ordinal() < ARMOpcode.STR.ordinal(), size, false);
+	}
+
+	// ADD Rd, PC/SP, #imm
+	private static void thumbAddAddress(ARMInstruction insn, int op, int base) {
+		insn.opcode = ARMOpcode.ADD;
+		insn.rd = (op >>> 8) & 0b111;
+		insn.rn = base;
+		insn.hasImmediate = true;
+		insn.immediate = (op & 0xFF) * 4;
+		read(insn, base);
+		write(insn, insn.rd);
+	}
+
+	@SuppressWarnings("unused")
+	private static void thumbAdjustStack(ARMInstruction insn, int op, int pc) {
+		insn.opcode = bit(op, 7) ? ARMOpcode.SUB : ARMOpcode.ADD;
+		insn.rd = 13;
+		insn.rn = 13;
+		insn.hasImmediate = true;
+		insn.immediate = (op & 0x7F) * 4;
+		read(insn, 13);
+		write(insn, 13);
+	}
+
+	private static void thumbPushPop(ARMInstruction insn, int op, ARMOpcode opcode) {
+		boolean pop = opcode == ARMOpcode.POP;
+		insn.opcode = opcode;
+		insn.rn = 13;
+		insn.writeback = true;
+		insn.registerList = op & 0xFF;
+		if(bit(op, 8)) {
+			insn.registerList |= pop ? 1 << 15 : 1 << 14;
+		}
+		insn.access = pop ? Access.READ : Access.WRITE;
+		insn.accessSize = 4 * Integer.bitCount(insn.registerList);
+		read(insn, 13);
+		write(insn, 13);
+		if(pop) {
+			insn.writes |= insn.registerList;
+		} else {
+			insn.reads |= insn.registerList;
+		}
+	}
+
+	private static void thumbLoadStoreMultiple(ARMInstruction insn, int op, ARMOpcode opcode) {
+		insn.opcode = opcode;
+		insn.rn = (op >>> 8) & 0b111;
+		insn.writeback = true;
+		insn.registerList = op & 0xFF;
+		insn.access = opcode == ARMOpcode.LDM ? Access.READ : Access.WRITE;
+		insn.accessSize = 4 * Integer.bitCount(insn.registerList);
+		read(insn, insn.rn);
+		write(insn, insn.rn);
+		if(opcode == ARMOpcode.LDM) {
+			insn.writes |= insn.registerList;
+		} else {
+			insn.reads |= insn.registerList;
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static void thumbBkpt(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.BKPT;
+		insn.hasImmediate = true;
+		insn.immediate = op & 0xFF;
+	}
+
+	@SuppressWarnings("unused")
+	private static void thumbSwi(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.SWI;
+		insn.hasImmediate = true;
+		insn.immediate = op & 0xFF;
+	}
+
+	private static void thumbConditionalBranch(ARMInstruction insn, int op, int pc) {
+		// condition 0b1110 is undefined and treated as always
+		insn.opcode = ARMOpcode.B;
+		insn.cond = (op >>> 8) & 0xF;
+		insn.hasTarget = true;
+		insn.target = pc + ((op << 24) >> 23);
+		write(insn, 15);
+	}
+
+	private static void thumbBranch(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.B;
+		insn.hasTarget = true;
+		insn.target = pc + ((op << 21) >> 20);
+		write(insn, 15);
+	}
+
+	// first half of BL/BLX: LR = PC + (offset << 12)
+	@SuppressWarnings("unused")
+	private static void thumbBranchLinkHigh(ARMInstruction insn, int op, int pc) {
+		insn.opcode = ARMOpcode.BL_HI;
+		insn.hasImmediate = true;
+		insn.immediate = (op << 21) >> 9;
+		read(insn, 15);
+		write(insn, 14);
+	}
+
+	// second half of BL/BLX: the target depends on LR, so only the offset is known
+	private static void thumbBranchLink(ARMInstruction insn, int op, ARMOpcode opcode) {
+		insn.opcode = opcode;
+		insn.hasImmediate = true;
+		insn.immediate = (op & 0x7FF) << 1;
+		read(insn, 14);
+		write(insn, 14);
+		write(insn, 15);
+	}
+}
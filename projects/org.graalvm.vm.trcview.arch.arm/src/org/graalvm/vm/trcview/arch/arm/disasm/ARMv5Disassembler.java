@@ -10,13 +10,46 @@ import org.graalvm.vm.trcview.arch.arm.disasm.InstructionFormat.MultiplyDivide;
 import org.graalvm.vm.trcview.arch.arm.disasm.InstructionFormat.Thumb;
 import org.graalvm.vm.trcview.arch.arm.io.ARMCpuState;
 import org.graalvm.vm.trcview.arch.io.InstructionType;
+import org.graalvm.vm.trcview.disasm.Field;
 import org.graalvm.vm.util.BitTest;
-import org.graalvm.vm.util.HexFormatter;
 
 public class ARMv5Disassembler {
 	private static final InstructionFormat insnfmt = new InstructionFormat();
 	private static final Thumb tfmt = new Thumb();
 
+	// field layouts of the instruction classes; they never hold a value and only decode the opcode passed to
+	// them, so they can be shared by all threads
+	private static final DataProcessing dpfmt = new DataProcessing();
+	private static final LoadStore lsfmt = new LoadStore();
+	private static final MiscLoadStore mlsfmt = new MiscLoadStore();
+	private static final LoadStoreMultiple lsmfmt = new LoadStoreMultiple();
+	private static final MultiplyDivide mulfmt = new MultiplyDivide();
+	private static final Coprocessor cpfmt = new Coprocessor();
+	private static final ExceptionGenerating excfmt = new ExceptionGenerating();
+
+	private static final InstructionType[] TYPES = InstructionType.values();
+
+	// InstructionType ordinal for every Thumb opcode
+	private static final byte[] THUMB_TYPES = new byte[0x10000];
+	// disassembly handler for every combination of bits 15-6 of a Thumb opcode
+	private static final ThumbHandler[] THUMB_HANDLERS = new ThumbHandler[0x400];
+
+	private interface ThumbHandler {
+		void disassemble(int pc, int op, DisassemblyBuffer out);
+	}
+
+	static {
+		ARMInstruction insn = new ARMInstruction();
+		for(int op = 0; op < THUMB_TYPES.length; op++) {
+			// the type of a Thumb instruction does not depend on the flags
+			ARMv5Decoder.decodeThumb(0, op, insn);
+			THUMB_TYPES[op] = (byte) ARMv5Decoder.getType(insn, 0).ordinal();
+		}
+		for(int i = 0; i < THUMB_HANDLERS.length; i++) {
+			THUMB_HANDLERS[i] = getThumbHandler(i << 6);
+		}
+	}
+
 	private static final String[] DATAPROCESSING = {
 			"AND", "EOR", "SUB", "RSB",
 			"ADD", "ADC", "SBC", "RSC",
@@ -24,6 +57,8 @@ public class ARMv5Disassembler {
 			"ORR", "MOV", "BIC", "MVN"
 	};
 
+	private static final String[] SHIFTS = { "LSL", "LSR", "ASR", "ROR" };
+
 	public static boolean conditionPassed(int op, int cpsr) {
 		return conditionPassedOp(insnfmt.cond.get(op), cpsr);
 	}
@@ -98,149 +133,39 @@ public class ARMv5Disassembler {
 	}
 
 	public static InstructionType getTypeARM(int op, int cpsr) {
-		if(insnfmt.decodeBits2724.get(op) == 0b1111) {
-			// SWI
-			if(conditionPassed(insnfmt.cond.get(op), cpsr)) {
-				return InstructionType.SYSCALL;
-			} else {
-				return InstructionType.JCC;
-			}
-		} else if(insnfmt.cond.get(op) == 0b1110 && insnfmt.decodeBits2720.get(op) == 0b00010010 &&
-				insnfmt.decodeBits74.get(op) == 0b0111) {
-			// BKPT
-			return InstructionType.SYSCALL;
-		}
-		switch(insnfmt.decodeBits2725.get(op)) {
-		case 0b100:
-			if(!BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20)) {
-				// LDM (1)
-				// TODO: this might be a RET
-				if(BitTest.test(insnfmt.register_list.get(op), 1 << 15)) {
-					if(conditionPassed(op, cpsr)) {
-						return InstructionType.JMP_INDIRECT;
-					} else {
-						return InstructionType.JCC;
-					}
-				} else {
-					return InstructionType.OTHER;
-				}
-			} else if(BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20) && BitTest.test(op, 1 << 15)) {
-				// LDM (1)
-				// TODO: this might be a RET
-				if(conditionPassed(op, cpsr)) {
-					return InstructionType.JMP_INDIRECT;
-				} else {
-					return InstructionType.JCC;
-				}
-			}
-			break;
-		case 0b101:
-			if(insnfmt.cond.get(op) == 0b1111) {
-				// BLX (1)
-				return InstructionType.CALL;
-			} else {
-				// B, BL
-				boolean l = BitTest.test(op, 1 << 24);
-				if(l && conditionPassed(op, cpsr)) {
-					return InstructionType.CALL;
-				} else if(insnfmt.cond.get(op) == Condition.AL) {
-					return InstructionType.JMP;
-				} else {
-					return InstructionType.JCC;
-				}
-			}
-		}
-
-		switch(insnfmt.decodeBits2720.get(op)) {
-		case 0b00000100:
-		case 0b00000101:
-		case 0b00100100:
-		case 0b00100101:
-			// SUB{S}
-			if(insnfmt.Rd.get(op) == 15 && insnfmt.Rn.get(op) == 14) {
-				// maybe check for insnfmt.I.getBit(op)
-				// DataProcessing fmt = new DataProcessing(op);
-				// int rotate_imm = fmt.rotate_imm.get();
-				// int immed_8 = fmt.immed_8.get();
-				// int operand = Integer.rotateRight(immed_8, rotate_imm * 2);
-				// if(operand == 4) {
-				if(conditionPassed(op, cpsr)) {
-					return InstructionType.RTI;
-				} else {
-					return InstructionType.JCC;
-				}
-				// }
-			} else if(insnfmt.Rd.get(op) == 15) {
-				if(conditionPassed(op, cpsr)) {
-					return InstructionType.JMP_INDIRECT;
-				} else {
-					return InstructionType.JCC;
-				}
-			} else {
-				return InstructionType.OTHER;
-			}
-		case 0b00011010:
-		case 0b00011011:
-			// MOV{S}
-			if(insnfmt.Rd.get(op) == 15) {
-				DataProcessing fmt = new DataProcessing(op);
-				int shift = fmt.shift.get();
-				int shift_imm = fmt.shift_imm.get();
-				boolean bit4 = fmt.bit4.getBit();
-				if(conditionPassed(op, cpsr)) {
-					if(!bit4 && shift == 0 && shift_imm == 0 && fmt.Rm.get() == 14) {
-						return InstructionType.RET;
-					} else {
-						return InstructionType.JMP_INDIRECT;
-					}
-				} else {
-					return InstructionType.JCC;
-				}
-			} else {
-				return InstructionType.OTHER;
-			}
-		}
-
-		int decodebits = insnfmt.decodeBits74.get(op) | insnfmt.decodeBits2720.get(op) << 4;
-		switch(decodebits) {
-		case 0b00010010_0001: // BX
-		case 0b00010010_0010: // BXJ
-			if(conditionPassed(op, cpsr)) {
-				if(insnfmt.Rm.get(op) == 14) {
-					return InstructionType.RET;
-				} else if(insnfmt.cond.get(op) == Condition.AL) {
-					return InstructionType.JMP;
-				} else {
-					return InstructionType.JCC;
-				}
-			} else if(insnfmt.cond.get(op) == Condition.AL) {
-				return InstructionType.JMP;
-			} else {
-				return InstructionType.JCC;
-			}
-		case 0b00010010_0011: // BLX (2)
-			if(conditionPassed(op, cpsr)) {
-				return InstructionType.CALL;
-			} else {
-				return InstructionType.OTHER;
-			}
-		}
-
-		return InstructionType.OTHER;
+		ARMInstruction insn = new ARMInstruction();
+		ARMv5Decoder.decodeARM(0, op, insn);
+		return ARMv5Decoder.getType(insn, cpsr);
 	}
 
 	public static String[] disassemble(int pc, int cpsr, int op) {
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		disassemble(pc, cpsr, op, out);
+		return out.getComponents();
+	}
+
+	// Replaces the contents of out with the disassembly of op. This only reads static tables, so it can be used
+	// from many threads at once as long as every thread has its own buffer.
+	public static void disassemble(int pc, int cpsr, int op, DisassemblyBuffer out) {
 		if(Cpsr.T.getBit(cpsr)) {
-			return disassembleThumb(pc, op);
+			disassembleThumb(pc, op, out);
 		} else {
-			return disassembleARM(pc, op);
+			disassembleARM(pc, op, out);
 		}
 	}
 
 	public static String[] disassembleARM(int pc, int op) {
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		disassembleARM(pc, op, out);
+		return out.getComponents();
+	}
+
+	public static void disassembleARM(int pc, int op, DisassemblyBuffer out) {
+		out.clear();
 		if(op == 0xE1A00000) {
 			// MOV R0, R0
-			return new String[] { "NOP" };
+			out.next().append("NOP");
+			return;
 		}
 
 		if(insnfmt.cond.get(op) == 0b1111) {
@@ -249,7 +174,9 @@ public class ARMv5Disassembler {
 				if(insnfmt.decodeBits2220.get(op) == 0b101 && insnfmt.decodeBits2726.get(op) == 0b01 &&
 						BitTest.test(op, 1 << 24)) {
 					// PLD
-					return combine(new String[] { "PLD" }, loadStore(new LoadStore(op)));
+					out.next().append("PLD");
+					loadStore(out, op);
+					return;
 				}
 			}
 		}
@@ -259,86 +186,59 @@ public class ARMv5Disassembler {
 			case 0b1011:
 				if(BitTest.test(op, 1 << 20)) {
 					// LDRH
-					MiscLoadStore fmt = new MiscLoadStore(op);
-					return combine(new String[] {
-							"LDR" + Condition.getExtension(fmt.cond.get()) + "H",
-							r(fmt.Rd.get()) }, miscLoadStore(fmt));
+					miscLoadStore(out, "LDR", op, "H");
 				} else {
 					// STRH
-					MiscLoadStore fmt = new MiscLoadStore(op);
-					return combine(new String[] {
-							"STR" + Condition.getExtension(fmt.cond.get()) + "H",
-							r(fmt.Rd.get()) }, miscLoadStore(fmt));
+					miscLoadStore(out, "STR", op, "H");
 				}
+				return;
 			case 0b1101:
 				if(!BitTest.test(op, 1 << 20)) {
 					// LDRD
-					MiscLoadStore fmt = new MiscLoadStore(op);
-					return combine(new String[] {
-							"LDR" + Condition.getExtension(fmt.cond.get()) + "D",
-							r(fmt.Rd.get()) }, miscLoadStore(fmt));
+					miscLoadStore(out, "LDR", op, "D");
 				} else {
 					// LDRSB
-					MiscLoadStore fmt = new MiscLoadStore(op);
-					return combine(new String[] {
-							"LDR" + Condition.getExtension(fmt.cond.get()) + "SB",
-							r(fmt.Rd.get()) }, miscLoadStore(fmt));
+					miscLoadStore(out, "LDR", op, "SB");
 				}
+				return;
 			case 0b1111:
 				if(BitTest.test(op, 1 << 20)) {
 					// LDRSH
-					MiscLoadStore fmt = new MiscLoadStore(op);
-					return combine(new String[] {
-							"LDR" + Condition.getExtension(fmt.cond.get()) + "SH",
-							r(fmt.Rd.get()) }, miscLoadStore(fmt));
+					miscLoadStore(out, "LDR", op, "SH");
 				} else {
 					// STRD
-					MiscLoadStore fmt = new MiscLoadStore(op);
-					return combine(new String[] {
-							"STR" + Condition.getExtension(fmt.cond.get()) + "D",
-							r(fmt.Rd.get()) }, miscLoadStore(fmt));
+					miscLoadStore(out, "STR", op, "D");
 				}
+				return;
 			}
 			break;
-		case 0b100:
+		case 0b100: {
+			boolean w = lsmfmt.W.getBit(op);
 			if(!BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20)) {
 				// LDM (1)
-				LoadStoreMultiple fmt = new LoadStoreMultiple(op);
-				String w = fmt.W.getBit() ? "!" : "";
-				return new String[] {
-						"LDM" + Condition.getExtension(fmt.cond.get()) + loadStoreMultiple(fmt),
-						r(fmt.Rn.get()) + w, Register.list(fmt.register_list.get()) };
+				loadStoreMultiple(out, "LDM", op, w, false);
+				return;
 			} else if(insnfmt.decodeBits2220.get(op) == 0b101 && !BitTest.test(op, 1 << 15)) {
 				// LDM (2)
-				LoadStoreMultiple fmt = new LoadStoreMultiple(op);
-				return new String[] {
-						"LDM" + Condition.getExtension(fmt.cond.get()) + loadStoreMultiple(fmt),
-						r(fmt.Rn.get()), Register.list(fmt.register_list.get()) + "^" };
+				loadStoreMultiple(out, "LDM", op, false, true);
+				return;
 			} else if(BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20)) {
 				// LDM (3)
 				// previous version: if(BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20) &&
 				// BitTest.test(op, 1 << 15)) {
-				LoadStoreMultiple fmt = new LoadStoreMultiple(op);
-				String w = fmt.W.getBit() ? "!" : "";
-				return new String[] {
-						"LDM" + Condition.getExtension(fmt.cond.get()) + loadStoreMultiple(fmt),
-						r(fmt.Rn.get()) + w, Register.list(fmt.register_list.get()) + "^" };
+				loadStoreMultiple(out, "LDM", op, w, true);
+				return;
 			} else if(!BitTest.test(op, 1 << 22) && !BitTest.test(op, 1 << 20)) {
 				// STM (1)
-				LoadStoreMultiple fmt = new LoadStoreMultiple(op);
-				String w = fmt.W.getBit() ? "!" : "";
-				return new String[] {
-						"STM" + Condition.getExtension(fmt.cond.get()) + loadStoreMultiple(fmt),
-						r(fmt.Rn.get()) + w, Register.list(fmt.register_list.get()) };
+				loadStoreMultiple(out, "STM", op, w, false);
+				return;
 			} else if(BitTest.test(op, 1 << 22) && !BitTest.test(op, 1 << 20)) {
 				// STM (2)
-				LoadStoreMultiple fmt = new LoadStoreMultiple(op);
-				String w = fmt.W.getBit() ? "!" : ""; // weird
-				return new String[] {
-						"STM" + Condition.getExtension(fmt.cond.get()) + loadStoreMultiple(fmt),
-						r(fmt.Rn.get()) + w, Register.list(fmt.register_list.get()) + "^" };
+				loadStoreMultiple(out, "STM", op, w, true); // weird
+				return;
 			}
 			break;
+		}
 		case 0b101:
 			if(insnfmt.cond.get(op) == 0b1111) {
 				// BLX (1)
@@ -346,537 +246,427 @@ public class ARMv5Disassembler {
 				int imm = insnfmt.signed_immed_24.get(op);
 				int off = (imm << 2) + (h ? 2 : 0);
 				int dst = pc + off;
-				return new String[] { "BLX",
-						"0x" + HexFormatter.tohex(Integer.toUnsignedLong(dst)).toUpperCase() };
+				out.next().append("BLX");
+				out.next().append("0x").appendHex(Integer.toUnsignedLong(dst));
 			} else {
 				// B, BL
 				boolean l = BitTest.test(op, 1 << 24);
 				int imm = insnfmt.signed_immed_24.get(op);
 				int off = imm << 2;
 				int dst = pc + off;
-				return new String[] {
-						"B" + (l ? "L" : "") + Condition.getExtension(insnfmt.cond.get(op)),
-						"0x" + HexFormatter.tohex(Integer.toUnsignedLong(dst)).toUpperCase() };
+				mnemonic(out, l ? "BL" : "B", op, "");
+				out.next().append("0x").appendHex(Integer.toUnsignedLong(dst));
 			}
-		case 0b110:
-			if(BitTest.test(op, 1 << 20)) {
-				// LDC, LDC2
-				Coprocessor cp = new Coprocessor(op);
-				boolean l = cp.N.getBit();
-				int cond = cp.cond.get();
-				if(cond == 0b1111) {
-					return combine(new String[] { "LDC2" + (l ? "L" : ""), cp(cp.cp_num.get()),
-							cr(cp.CRd.get()) }, coprocessorOperand(cp));
-				} else {
-					return combine(new String[] {
-							"LDC" + Condition.getExtension(cond) + (l ? "L" : ""),
-							cp(cp.cp_num.get()), cr(cp.CRd.get()) },
-							coprocessorOperand(cp));
-				}
+			return;
+		case 0b110: {
+			// LDC, LDC2, STC, STC2
+			String name = BitTest.test(op, 1 << 20) ? "LDC" : "STC";
+			String l = cpfmt.N.getBit(op) ? "L" : "";
+			if(cpfmt.cond.get(op) == 0b1111) {
+				out.next().append(name).append('2').append(l);
 			} else {
-				// STC, STC2
-				Coprocessor cp = new Coprocessor(op);
-				boolean l = cp.N.getBit();
-				int cond = cp.cond.get();
-				if(cond == 0b1111) {
-					return combine(new String[] { "STC2" + (l ? "L" : ""), cp(cp.cp_num.get()),
-							cr(cp.CRd.get()) }, coprocessorOperand(cp));
-				} else {
-					return combine(new String[] {
-							"STC" + Condition.getExtension(cond) + (l ? "L" : ""),
-							cp(cp.cp_num.get()), cr(cp.CRd.get()) },
-							coprocessorOperand(cp));
-				}
+				mnemonic(out, name, op, l);
 			}
+			cp(out.next(), cpfmt.cp_num.get(op));
+			cr(out.next(), cpfmt.CRd.get(op));
+			coprocessorOperand(out, op);
+			return;
+		}
 		}
 
 		switch(insnfmt.decodeBits2724.get(op)) {
 		case 0b1110:
 			if(BitTest.test(op, 1 << 4)) {
-				Coprocessor cp = new Coprocessor(op);
-				if(!BitTest.test(op, 1 << 20)) {
-					// MCR, MCR2
-					if(cp.cond.get() == 0b1111) {
-						if(cp.opcode_2.get() != 0) {
-							return new String[] { "MCR2", cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_21.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()),
-									Integer.toString(cp.opcode_2.get()) };
-						} else {
-							return new String[] { "MCR2", cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_21.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()) };
-						}
-					} else {
-						if(cp.opcode_2.get() != 0) {
-							return new String[] {
-									"MCR" + Condition.getExtension(cp.cond.get()),
-									cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_21.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()),
-									Integer.toString(cp.opcode_2.get()) };
-						} else {
-							return new String[] {
-									"MCR" + Condition.getExtension(cp.cond.get()),
-									cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_21.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()) };
-						}
-					}
+				// MCR, MCR2, MRC, MRC2
+				boolean mrc = BitTest.test(op, 1 << 20);
+				String name = mrc ? "MRC" : "MCR";
+				if(cpfmt.cond.get(op) == 0b1111) {
+					out.next().append(name).append('2');
 				} else {
-					// MRC, MRC2
-					if(cp.cond.get() == 0b1111) {
-						if(cp.opcode_2.get() != 0) {
-							return new String[] { "MRC2", cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_1.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()),
-									Integer.toString(cp.opcode_2.get()) };
-						} else {
-							return new String[] { "MRC2", cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_1.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()) };
-						}
-					} else {
-						if(cp.opcode_2.get() != 0) {
-							return new String[] {
-									"MRC" + Condition.getExtension(cp.cond.get()),
-									cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_1.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()),
-									Integer.toString(cp.opcode_2.get()) };
-						} else {
-							return new String[] {
-									"MRC" + Condition.getExtension(cp.cond.get()),
-									cp(cp.cp_num.get()),
-									Integer.toString(cp.opcode_1.get()),
-									r(cp.Rd.get()), cr(cp.CRn.get()),
-									cr(cp.CRm.get()) };
-						}
-					}
+					mnemonic(out, name, op, "");
+				}
+				cp(out.next(), cpfmt.cp_num.get(op));
+				out.next().append(mrc ? cpfmt.opcode_1.get(op) : cpfmt.opcode_21.get(op));
+				r(out.next(), cpfmt.Rd.get(op));
+				cr(out.next(), cpfmt.CRn.get(op));
+				cr(out.next(), cpfmt.CRm.get(op));
+				if(cpfmt.opcode_2.get(op) != 0) {
+					out.next().append(cpfmt.opcode_2.get(op));
 				}
 			} else {
 				// CDP, CDP2
-				Coprocessor cp = new Coprocessor(op);
-				if(cp.cond.get() == 0b1111) {
-					return new String[] { "CDP2", cp(cp.cp_num.get()),
-							Integer.toString(cp.opcode_1.get()), cr(cp.CRd.get()),
-							cr(cp.CRn.get()), cr(cp.CRm.get()),
-							Integer.toString(cp.opcode_2.get()) };
+				if(cpfmt.cond.get(op) == 0b1111) {
+					out.next().append("CDP2");
 				} else {
-					return new String[] { "CDP" + Condition.getExtension(cp.cond.get()),
-							cp(cp.cp_num.get()),
-							Integer.toString(cp.opcode_1.get()), cr(cp.CRd.get()),
-							cr(cp.CRn.get()), cr(cp.CRm.get()),
-							Integer.toString(cp.opcode_2.get()) };
+					mnemonic(out, "CDP", op, "");
 				}
+				cp(out.next(), cpfmt.cp_num.get(op));
+				out.next().append(cpfmt.opcode_1.get(op));
+				cr(out.next(), cpfmt.CRd.get(op));
+				cr(out.next(), cpfmt.CRn.get(op));
+				cr(out.next(), cpfmt.CRm.get(op));
+				out.next().append(cpfmt.opcode_2.get(op));
 			}
+			return;
 		}
 
-		ExceptionGenerating exc = new ExceptionGenerating(op);
-		if(exc.decodeBits2724.get() == 0b1111) {
-			int imm = exc.immed_24.get();
-			return new String[] { "SWI" + Condition.getExtension(exc.cond.get()),
-					"#" + imm };
-		} else if(exc.cond.get() == 0b1110 && exc.decodeBits2720.get() == 0b00010010 &&
-				exc.decodeBits74.get() == 0b0111) {
-			int imm = exc.immed_h.get() << 4 | exc.immed_l.get();
-			return new String[] { "BKPT", "#" + imm };
+		if(excfmt.decodeBits2724.get(op) == 0b1111) {
+			mnemonic(out, "SWI", op, "");
+			out.next().append('#').append(excfmt.immed_24.get(op));
+			return;
+		} else if(excfmt.cond.get(op) == 0b1110 && excfmt.decodeBits2720.get(op) == 0b00010010 &&
+				excfmt.decodeBits74.get(op) == 0b0111) {
+			int imm = excfmt.immed_h.get(op) << 4 | excfmt.immed_l.get(op);
+			out.next().append("BKPT");
+			out.next().append('#').append(imm);
+			return;
 		}
 
 		int decodebits = insnfmt.decodeBits74.get(op) | insnfmt.decodeBits2720.get(op) << 4;
 		switch(decodebits) {
 		case 0b00010010_0001: // BX
-			return new String[] { "BX" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rm.get(op)) };
+			mnemonic(out, "BX", op, "");
+			r(out.next(), insnfmt.Rm.get(op));
+			return;
 		case 0b00010010_0010: // BXJ
-			return new String[] { "BXJ" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rm.get(op)) };
+			mnemonic(out, "BXJ", op, "");
+			r(out.next(), insnfmt.Rm.get(op));
+			return;
 		case 0b00010010_0011: // BLX (2)
-			return new String[] { "BLX" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rm.get(op)) };
+			mnemonic(out, "BLX", op, "");
+			r(out.next(), insnfmt.Rm.get(op));
+			return;
 		case 0b00010110_0001: // CLZ
-			return new String[] { "CLZ" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)) };
-		case 0b00000010_1001: { // MLA
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "MLA" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get(op)),
-					r(fmt.Rm.get(op)), r(fmt.Rs.get()), r(fmt.Rn.get(op)) };
-		}
-		case 0b00000011_1001: { // MLAS
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "MLA" + Condition.getExtension(insnfmt.cond.get(op)) + "S",
-					r(fmt.Rd.get(op)), r(fmt.Rm.get(op)), r(fmt.Rs.get()), r(fmt.Rn.get(op)) };
-		}
+			mnemonic(out, "CLZ", op, "");
+			r(out.next(), insnfmt.Rd.get(op));
+			r(out.next(), insnfmt.Rm.get(op));
+			return;
+		case 0b00000010_1001: // MLA
+			mnemonic(out, "MLA", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00000011_1001: // MLAS
+			mnemonic(out, "MLA", op, "S");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
 		case 0b00010000_0101: // QADD
-			return new String[] { "QADD" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)), r(insnfmt.Rn.get(op)) };
+			mnemonic(out, "QADD", op, "");
+			registers(out, op, insnfmt.Rd, insnfmt.Rm, insnfmt.Rn);
+			return;
 		case 0b00010100_0101: // QDADD
-			return new String[] { "QDADD" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)), r(insnfmt.Rn.get(op)) };
+			mnemonic(out, "QDADD", op, "");
+			registers(out, op, insnfmt.Rd, insnfmt.Rm, insnfmt.Rn);
+			return;
 		case 0b00010110_0101: // QDSUB
-			return new String[] { "QDSUB" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)), r(insnfmt.Rn.get(op)) };
+			mnemonic(out, "QDSUB", op, "");
+			registers(out, op, insnfmt.Rd, insnfmt.Rm, insnfmt.Rn);
+			return;
 		case 0b00010010_0101: // QSUB
-			return new String[] { "QSUB" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)), r(insnfmt.Rn.get(op)) };
-		case 0b00010000_1000: {
-			// SMLABB
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLABB" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()), r(fmt.Rn.get()) };
-		}
-		case 0b00010000_1010: {
-			// SMLATB
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLATB" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()), r(fmt.Rn.get()) };
-		}
-		case 0b00010000_1100: {
-			// SMLABT
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLABT" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()), r(fmt.Rn.get()) };
-		}
-		case 0b00010000_1110: {
-			// SMLATT
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLATT" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()), r(fmt.Rn.get()) };
-		}
-		case 0b00001110_1001: {
-			// SMLAL
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLAL" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00001111_1001: {
-			// SMLALS
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLAL" + Condition.getExtension(fmt.cond.get()) + "S", r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010100_1000: {
-			// SMLALBB
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLALBB" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010100_1010: {
-			// SMLALTB
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLALTB" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010100_1100: {
-			// SMLALBT
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLALBT" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010100_1110: {
-			// SMLALTT
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLALTT" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010010_1000: {
-			// SMLAWB
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLAWB" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()), r(fmt.Rn.get()) };
-		}
-		case 0b00010010_1100: {
-			// SMLAWT
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMLAWT" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()), r(fmt.Rn.get()) };
-		}
-		case 0b00010110_1000: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULBB" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010110_1010: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULTB" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010110_1100: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULBT" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010110_1110: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULTT" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00001100_1001: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULL" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00001101_1001: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULL" + Condition.getExtension(fmt.cond.get()) + "S", r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010010_1010: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULWB" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010010_1110: {
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "SMULWT" + Condition.getExtension(fmt.cond.get()), r(fmt.Rd.get()),
-					r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00010000_1001:
-			// SWP
-			return new String[] { "SWP" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)),
-					"[" + r(insnfmt.Rn.get(op)) + "]" };
-		case 0b00010100_1001:
-			// SWPB
-			return new String[] { "SWP" + Condition.getExtension(insnfmt.cond.get(op)) + "B",
-					r(insnfmt.Rd.get(op)), r(insnfmt.Rm.get(op)),
-					"[" + r(insnfmt.Rn.get(op)) + "]" };
-		case 0b00001010_1001: {
-			// UMLAL
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "UMLAL" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00001011_1001: {
-			// UMLALS
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "UMLAL" + Condition.getExtension(fmt.cond.get()) + "S", r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00001000_1001: {
-			// UMULL
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "UMULL" + Condition.getExtension(fmt.cond.get()), r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
-		case 0b00001001_1001: {
-			// UMULLS
-			MultiplyDivide fmt = new MultiplyDivide(op);
-			return new String[] { "UMULL" + Condition.getExtension(fmt.cond.get()) + "S", r(fmt.RdLo.get()),
-					r(fmt.RdHi.get()), r(fmt.Rm.get()), r(fmt.Rs.get()) };
-		}
+			mnemonic(out, "QSUB", op, "");
+			registers(out, op, insnfmt.Rd, insnfmt.Rm, insnfmt.Rn);
+			return;
+		case 0b00010000_1000: // SMLABB
+			mnemonic(out, "SMLABB", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00010000_1010: // SMLATB
+			mnemonic(out, "SMLATB", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00010000_1100: // SMLABT
+			mnemonic(out, "SMLABT", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00010000_1110: // SMLATT
+			mnemonic(out, "SMLATT", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00001110_1001: // SMLAL
+			mnemonic(out, "SMLAL", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00001111_1001: // SMLALS
+			mnemonic(out, "SMLAL", op, "S");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010100_1000: // SMLALBB
+			mnemonic(out, "SMLALBB", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010100_1010: // SMLALTB
+			mnemonic(out, "SMLALTB", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010100_1100: // SMLALBT
+			mnemonic(out, "SMLALBT", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010100_1110: // SMLALTT
+			mnemonic(out, "SMLALTT", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010010_1000: // SMLAWB
+			mnemonic(out, "SMLAWB", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00010010_1100: // SMLAWT
+			mnemonic(out, "SMLAWT", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs, mulfmt.Rn);
+			return;
+		case 0b00010110_1000: // SMULBB
+			mnemonic(out, "SMULBB", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010110_1010: // SMULTB
+			mnemonic(out, "SMULTB", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010110_1100: // SMULBT
+			mnemonic(out, "SMULBT", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010110_1110: // SMULTT
+			mnemonic(out, "SMULTT", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00001100_1001: // SMULL
+			mnemonic(out, "SMULL", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00001101_1001: // SMULLS
+			mnemonic(out, "SMULL", op, "S");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010010_1010: // SMULWB
+			mnemonic(out, "SMULWB", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010010_1110: // SMULWT
+			mnemonic(out, "SMULWT", op, "");
+			registers(out, op, mulfmt.Rd, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00010000_1001: // SWP
+			mnemonic(out, "SWP", op, "");
+			registers(out, op, insnfmt.Rd, insnfmt.Rm);
+			r(out.next().append('['), insnfmt.Rn.get(op)).append(']');
+			return;
+		case 0b00010100_1001: // SWPB
+			mnemonic(out, "SWP", op, "B");
+			registers(out, op, insnfmt.Rd, insnfmt.Rm);
+			r(out.next().append('['), insnfmt.Rn.get(op)).append(']');
+			return;
+		case 0b00001010_1001: // UMLAL
+			mnemonic(out, "UMLAL", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00001011_1001: // UMLALS
+			mnemonic(out, "UMLAL", op, "S");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00001000_1001: // UMULL
+			mnemonic(out, "UMULL", op, "");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
+		case 0b00001001_1001: // UMULLS
+			mnemonic(out, "UMULL", op, "S");
+			registers(out, op, mulfmt.RdLo, mulfmt.RdHi, mulfmt.Rm, mulfmt.Rs);
+			return;
 		}
 
 		switch(insnfmt.decodeBits2720.get(op)) {
-		case 0b00110010: { // MSR CPSR_<fields>, <imm>
-			int rotate_imm = insnfmt.rotate_imm.get(op);
-			int immed_8 = insnfmt.immed_8.get(op);
-			int operand = Integer.rotateRight(immed_8, rotate_imm * 2);
-			StringBuilder fields = new StringBuilder();
+		case 0b00110010: // MSR CPSR_<fields>, <imm>
+		case 0b00110110: // MSR SPSR_<fields>, <imm>
+		case 0b00010010: // MSR CPSR_<fields>, Rm
+		case 0b00010110: // MSR SPSR_<fields>, Rm
+			mnemonic(out, "MSR", op, "");
+			out.next().append(BitTest.test(op, 1 << 22) ? "SPSR_" : "CPSR_");
 			if(BitTest.test(op, 1 << 19)) {
-				fields.append('f');
+				out.append('f');
 			}
 			if(BitTest.test(op, 1 << 18)) {
-				fields.append('s');
+				out.append('s');
 			}
 			if(BitTest.test(op, 1 << 17)) {
-				fields.append('x');
+				out.append('x');
 			}
 			if(BitTest.test(op, 1 << 16)) {
-				fields.append('c');
-			}
-			return new String[] { "MSR" + Condition.getExtension(insnfmt.cond.get(op)), "CPSR_" + fields,
-					imm(operand) };
-		}
-		case 0b00110110: { // MSR SPSR_<fields>, <imm>
-			int rotate_imm = insnfmt.rotate_imm.get(op);
-			int immed_8 = insnfmt.immed_8.get(op);
-			int operand = Integer.rotateRight(immed_8, rotate_imm * 2);
-			StringBuilder fields = new StringBuilder();
-			if(BitTest.test(op, 1 << 19)) {
-				fields.append('f');
-			}
-			if(BitTest.test(op, 1 << 18)) {
-				fields.append('s');
-			}
-			if(BitTest.test(op, 1 << 17)) {
-				fields.append('x');
+				out.append('c');
 			}
-			if(BitTest.test(op, 1 << 16)) {
-				fields.append('c');
-			}
-			return new String[] { "MSR" + Condition.getExtension(insnfmt.cond.get(op)), "SPSR_" + fields,
-					imm(operand) };
-		}
-		case 0b00010010: { // MSR CPSR_<fields>, Rm
-			StringBuilder fields = new StringBuilder();
-			if(BitTest.test(op, 1 << 19)) {
-				fields.append('f');
-			}
-			if(BitTest.test(op, 1 << 18)) {
-				fields.append('s');
-			}
-			if(BitTest.test(op, 1 << 17)) {
-				fields.append('x');
-			}
-			if(BitTest.test(op, 1 << 16)) {
-				fields.append('c');
-			}
-			return new String[] { "MSR" + Condition.getExtension(insnfmt.cond.get(op)), "CPSR_" + fields,
-					r(insnfmt.Rm.get(op)) };
-		}
-		case 0b00010110: { // MSR SPSR_<fields>, Rm
-			StringBuilder fields = new StringBuilder();
-			if(BitTest.test(op, 1 << 19)) {
-				fields.append('f');
-			}
-			if(BitTest.test(op, 1 << 18)) {
-				fields.append('s');
-			}
-			if(BitTest.test(op, 1 << 17)) {
-				fields.append('x');
-			}
-			if(BitTest.test(op, 1 << 16)) {
-				fields.append('c');
+			if(BitTest.test(op, 1 << 25)) {
+				int rotate_imm = insnfmt.rotate_imm.get(op);
+				int immed_8 = insnfmt.immed_8.get(op);
+				imm(out.next(), Integer.rotateRight(immed_8, rotate_imm * 2));
+			} else {
+				r(out.next(), insnfmt.Rm.get(op));
 			}
-			return new String[] { "MSR" + Condition.getExtension(insnfmt.cond.get(op)), "SPSR_" + fields,
-					r(insnfmt.Rm.get(op)) };
-		}
+			return;
 		case 0b00010000: // MRS Rd, CPSR
-			return new String[] { "MRS" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), "CPSR" };
+			mnemonic(out, "MRS", op, "");
+			r(out.next(), insnfmt.Rd.get(op));
+			out.next().append("CPSR");
+			return;
 		case 0b00010100: // MRS Rd, SPSR
-			return new String[] { "MRS" + Condition.getExtension(insnfmt.cond.get(op)),
-					r(insnfmt.Rd.get(op)), "SPSR" };
-		case 0b11000100:
-			// MCRR, MCRR2
-			if(insnfmt.cond.get(op) == 0b1111) {
-				Coprocessor cp = new Coprocessor(op);
-				return new String[] { "MCRR2", cp(cp.cp_num.get()), Integer.toString(cp.opcode.get()),
-						r(cp.Rd.get()), r(cp.Rn.get()), cr(cp.CRm.get()) };
-			} else {
-				Coprocessor cp = new Coprocessor(op);
-				return new String[] { "MCRR" + Condition.getExtension(cp.cond.get()),
-						cp(cp.cp_num.get()), Integer.toString(cp.opcode.get()), r(cp.Rd.get()),
-						r(cp.Rn.get()), cr(cp.CRm.get()) };
-			}
-		case 0b11000101:
-			// MRRC, MRRC2
+			mnemonic(out, "MRS", op, "");
+			r(out.next(), insnfmt.Rd.get(op));
+			out.next().append("SPSR");
+			return;
+		case 0b11000100: // MCRR, MCRR2
+		case 0b11000101: { // MRRC, MRRC2
+			String name = BitTest.test(op, 1 << 20) ? "MRRC" : "MCRR";
 			if(insnfmt.cond.get(op) == 0b1111) {
-				Coprocessor cp = new Coprocessor(op);
-				return new String[] { "MRRC2", cp(cp.cp_num.get()), Integer.toString(cp.opcode.get()),
-						r(cp.Rd.get()), r(cp.Rn.get()), cr(cp.CRm.get()) };
+				out.next().append(name).append('2');
 			} else {
-				Coprocessor cp = new Coprocessor(op);
-				return new String[] { "MRRC" + Condition.getExtension(cp.cond.get()),
-						cp(cp.cp_num.get()), Integer.toString(cp.opcode.get()), r(cp.Rd.get()),
-						r(cp.Rn.get()), cr(cp.CRm.get()) };
+				mnemonic(out, name, op, "");
 			}
+			cp(out.next(), cpfmt.cp_num.get(op));
+			out.next().append(cpfmt.opcode.get(op));
+			r(out.next(), cpfmt.Rd.get(op));
+			r(out.next(), cpfmt.Rn.get(op));
+			cr(out.next(), cpfmt.CRm.get(op));
+			return;
+		}
 		case 0b00000000:
 		case 0b00000001:
 			switch(insnfmt.decodeBits74.get(op)) {
 			case 0b1001:
 				// MUL{S}
-				return new String[] {
-						"MUL" + Condition.getExtension(insnfmt.cond.get(op)) +
-								(insnfmt.S.getBit(op) ? "S" : ""),
-						r(insnfmt.Rd.get(op)), r(insnfmt.Rs.get(op)), r(insnfmt.Rm.get(op)) };
+				mnemonic(out, "MUL", op, insnfmt.S.getBit(op) ? "S" : "");
+				registers(out, op, insnfmt.Rd, insnfmt.Rs, insnfmt.Rm);
+				return;
 			}
 			break;
 		}
 
 		if(insnfmt.decodeBits2726.get(op) == 0) {
-			DataProcessing fmt = new DataProcessing(op);
-			int opcd = fmt.opcode.get();
-			String opcode = DATAPROCESSING[opcd];
-			String s = fmt.S.getBit() ? "S" : "";
-			String cond = Condition.getExtension(fmt.cond.get());
-			String[] shifterOperand = shifterOperandData(fmt);
+			int opcd = dpfmt.opcode.get(op);
+			String s = dpfmt.S.getBit(op) ? "S" : "";
 			if(opcd == 0b1111 || opcd == 0b1101) {
 				// MOV | MVN
-				if(opcd == 0b1111 && fmt.I.getBit()) {
+				if(opcd == 0b1111 && dpfmt.I.getBit(op)) {
 					// substitute MVN by MOV if possible
-					int rotate_imm = fmt.rotate_imm.get();
-					int immed_8 = fmt.immed_8.get();
+					int rotate_imm = dpfmt.rotate_imm.get(op);
+					int immed_8 = dpfmt.immed_8.get(op);
 					int operand = Integer.rotateRight(immed_8, rotate_imm * 2);
-					return new String[] { "MOV" + s + cond, r(fmt.Rd.get()), imm(~operand) };
+					out.next().append("MOV").append(s).append(Condition.getExtension(dpfmt.cond.get(op)));
+					r(out.next(), dpfmt.Rd.get(op));
+					imm(out.next(), ~operand);
 				} else {
-					return combine(new String[] { opcode + s + cond, r(fmt.Rd.get()) },
-							shifterOperand);
+					dataProcessing(out, op, s);
+					r(out.next(), dpfmt.Rd.get(op));
+					shifterOperand(out, op);
 				}
 			} else if(opcd == 0b1010 || opcd == 0b1011 || opcd == 0b1000 || opcd == 0b1011) {
 				// CMP | CMN | TST | TEQ
-				return combine(new String[] { opcode + cond, r(fmt.Rn.get()) }, shifterOperand);
+				dataProcessing(out, op, "");
+				r(out.next(), dpfmt.Rn.get(op));
+				shifterOperand(out, op);
 			} else {
-				return combine(new String[] { opcode + s + cond, r(fmt.Rd.get()), r(fmt.Rn.get()) },
-						shifterOperand);
+				dataProcessing(out, op, s);
+				r(out.next(), dpfmt.Rd.get(op));
+				r(out.next(), dpfmt.Rn.get(op));
+				shifterOperand(out, op);
 			}
+			return;
 		} else if(insnfmt.decodeBits2726.get(op) == 1) {
 			if(!BitTest.test(op, 1 << 24) && insnfmt.decodeBits2220.get(op) == 0b111) {
 				// LDRBT
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "LDRBT" + Condition.getExtension(fmt.cond.get()) + "BT",
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "LDRBT", op, "BT");
+				return;
 			} else if(!BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20)) {
 				// LDR
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "LDR" + Condition.getExtension(fmt.cond.get()),
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "LDR", op, "");
+				return;
 			} else if(BitTest.test(op, 1 << 22) && BitTest.test(op, 1 << 20)) {
 				// LDRB
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "LDR" + Condition.getExtension(fmt.cond.get()) + "B",
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "LDR", op, "B");
+				return;
 			} else if(!BitTest.test(op, 1 << 24) && insnfmt.decodeBits2220.get(op) == 0b011) {
 				// LDRT
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "LDR" + Condition.getExtension(fmt.cond.get()) + "T",
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "LDR", op, "T");
+				return;
 			} else if(!BitTest.test(op, 1 << 22) && !BitTest.test(op, 1 << 20)) {
 				// STR
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "STR" + Condition.getExtension(fmt.cond.get()),
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "STR", op, "");
+				return;
 			} else if(BitTest.test(op, 1 << 22) && !BitTest.test(op, 1 << 20)) {
 				// STRB
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "STR" + Condition.getExtension(fmt.cond.get()) + "B",
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "STR", op, "B");
+				return;
 			} else if(!BitTest.test(op, 1 << 24) && insnfmt.decodeBits2220.get(op) == 0b110) {
 				// STRBT
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "STR" + Condition.getExtension(fmt.cond.get()) + "BT",
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "STR", op, "BT");
+				return;
 			} else if(!BitTest.test(op, 1 << 24) && insnfmt.decodeBits2220.get(op) == 0b010) {
 				// STRT
-				LoadStore fmt = new LoadStore(op);
-				return combine(new String[] { "STR" + Condition.getExtension(fmt.cond.get()) + "T",
-						r(fmt.Rd.get()) }, loadStore(fmt));
+				loadStore(out, "STR", op, "T");
+				return;
 			}
 		}
 
-		return new String[] { "; unknown" };
+		out.next().append("; unknown");
+	}
+
+	// <name><cond><suffix>
+	private static void mnemonic(DisassemblyBuffer out, String name, int op, String suffix) {
+		out.next().append(name).append(Condition.getExtension(insnfmt.cond.get(op))).append(suffix);
+	}
+
+	private static void dataProcessing(DisassemblyBuffer out, int op, String s) {
+		out.next().append(DATAPROCESSING[dpfmt.opcode.get(op)]).append(s)
+				.append(Condition.getExtension(dpfmt.cond.get(op)));
+	}
+
+	private static void registers(DisassemblyBuffer out, int op, Field a, Field b) {
+		r(out.next(), a.get(op));
+		r(out.next(), b.get(op));
+	}
+
+	private static void registers(DisassemblyBuffer out, int op, Field a, Field b, Field c) {
+		registers(out, op, a, b);
+		r(out.next(), c.get(op));
+	}
+
+	private static void registers(DisassemblyBuffer out, int op, Field a, Field b, Field c, Field d) {
+		registers(out, op, a, b, c);
+		r(out.next(), d.get(op));
+	}
+
+	private static void loadStoreMultiple(DisassemblyBuffer out, String name, int op, boolean w, boolean s) {
+		mnemonic(out, name, op, loadStoreMultiple(op, true));
+		r(out.next(), lsmfmt.Rn.get(op));
+		if(w) {
+			out.append('!');
+		}
+		Register.list(out.next(), lsmfmt.register_list.get(op));
+		if(s) {
+			out.append('^');
+		}
 	}
 
 	public static String r(int r) {
 		return Register.getR(r);
 	}
 
+	public static DisassemblyBuffer r(DisassemblyBuffer out, int r) {
+		return out.append(Register.getR(r));
+	}
+
 	public static String cr(int r) {
 		return "c" + r;
 	}
 
+	public static DisassemblyBuffer cr(DisassemblyBuffer out, int r) {
+		return out.append('c').append(r);
+	}
+
 	public static String cp(int cp_num) {
 		return "p" + cp_num;
 	}
 
+	public static DisassemblyBuffer cp(DisassemblyBuffer out, int cp_num) {
+		return out.append('p').append(cp_num);
+	}
+
 	public static String[] combine(String[] a, String[] b) {
 		String[] result = new String[a.length + b.length];
 		System.arraycopy(a, 0, result, 0, a.length);
@@ -885,108 +675,126 @@ public class ARMv5Disassembler {
 	}
 
 	public static String imm(int operand) {
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		imm(out.next(), operand);
+		return out.toString();
+	}
+
+	public static DisassemblyBuffer imm(DisassemblyBuffer out, int operand) {
 		long op = Integer.toUnsignedLong(operand);
 		if(op < 10) {
-			return "#" + operand;
+			return out.append('#').append(op);
 		} else {
-			return "#0x" + HexFormatter.tohex(op).toUpperCase();
+			return out.append("#0x").appendHex(op);
 		}
 	}
 
 	public static String simm(int operand) {
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		simm(out.next(), operand);
+		return out.toString();
+	}
+
+	public static DisassemblyBuffer simm(DisassemblyBuffer out, int operand) {
 		long op = operand;
 		if(op < 0) {
 			op = -op;
 		}
 
-		String sign = operand < 0 ? "-" : "";
+		out.append('#');
+		if(operand < 0) {
+			out.append('-');
+		}
 		if(op < 10) {
-			return "#" + sign + op;
+			return out.append(op);
 		} else {
-			return "#" + sign + "0x" + HexFormatter.tohex(op).toUpperCase();
+			return out.append("0x").appendHex(op);
 		}
 	}
 
 	public static String[] shifterOperandData(DataProcessing fmt) {
-		boolean i = fmt.I.getBit();
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		shifterOperand(out, fmt.get());
+		return out.getComponents();
+	}
+
+	private static void shifterOperand(DisassemblyBuffer out, int op) {
+		boolean i = dpfmt.I.getBit(op);
 		if(i) {
-			int rotate_imm = fmt.rotate_imm.get();
-			int immed_8 = fmt.immed_8.get();
+			int rotate_imm = dpfmt.rotate_imm.get(op);
+			int immed_8 = dpfmt.immed_8.get(op);
 			int operand = Integer.rotateRight(immed_8, rotate_imm * 2);
-			return new String[] { imm(operand) };
+			imm(out.next(), operand);
+			return;
 		} else {
-			int shift = fmt.shift.get();
-			int shift_imm = fmt.shift_imm.get();
-			boolean bit4 = fmt.bit4.getBit();
+			int shift = dpfmt.shift.get(op);
+			int shift_imm = dpfmt.shift_imm.get(op);
+			boolean bit4 = dpfmt.bit4.getBit(op);
 			if(!bit4) {
+				r(out.next(), dpfmt.Rm.get(op));
 				if(shift == 0 && shift_imm == 0) {
-					return new String[] { r(fmt.Rm.get()) };
-				} else if(shift == 0) {
-					return new String[] { r(fmt.Rm.get()), "LSL #" + shift_imm };
-				} else if(shift == 1) {
-					return new String[] { r(fmt.Rm.get()), "LSR #" + shift_imm };
-				} else if(shift == 2) {
-					return new String[] { r(fmt.Rm.get()), "ASR #" + shift_imm };
-				} else if(shift == 3) {
-					if(shift_imm == 0) {
-						return new String[] { r(fmt.Rm.get()), "RRX" };
-					} else {
-						return new String[] { r(fmt.Rm.get()), "ROR #" + shift_imm };
-					}
-				}
-			} else {
-				if(shift == 0) {
-					return new String[] { r(fmt.Rm.get()), "LSL " + r(fmt.Rs.get()) };
-				} else if(shift == 1) {
-					return new String[] { r(fmt.Rm.get()), "LSR " + r(fmt.Rs.get()) };
-				} else if(shift == 2) {
-					return new String[] { r(fmt.Rm.get()), "ASR " + r(fmt.Rs.get()) };
-				} else if(shift == 2) {
-					return new String[] { r(fmt.Rm.get()), "ROR " + r(fmt.Rs.get()) };
+					return;
+				} else if(shift == 3 && shift_imm == 0) {
+					out.next().append("RRX");
+				} else {
+					out.next().append(SHIFTS[shift]).append(" #").append(shift_imm);
 				}
+				return;
+			} else if(shift != 3) {
+				// ROR by register is not decoded
+				r(out.next(), dpfmt.Rm.get(op));
+				r(out.next().append(SHIFTS[shift]).append(' '), dpfmt.Rs.get(op));
+				return;
 			}
 		}
-		return new String[] { "???" };
+		out.next().append("???");
 	}
 
 	public static String[] coprocessorOperand(Coprocessor fmt) {
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		coprocessorOperand(out, fmt.get());
+		return out.getComponents();
+	}
+
+	private static void coprocessorOperand(DisassemblyBuffer out, int op) {
 		// TODO
-		boolean p = fmt.P.getBit();
-		boolean w = fmt.W.getBit();
-		boolean u = fmt.U.getBit();
+		boolean p = cpfmt.P.getBit(op);
+		boolean w = cpfmt.W.getBit(op);
+		boolean u = cpfmt.U.getBit(op);
+		int rn = cpfmt.Rn.get(op);
 		if(p) {
-			int off = (u ? 1 : -1) * fmt.offset_8.get() * 4;
-			String offset = simm(off);
-			if(!w) {
-				// immediate offset
-				return new String[] { "[" + r(fmt.Rn.get()) + ", #" + offset + "]" };
-			} else {
-				// immediate pre-indexed
-				return new String[] { "[" + r(fmt.Rn.get()) + ", #" + offset + "]!" };
+			int off = (u ? 1 : -1) * cpfmt.offset_8.get(op) * 4;
+			// immediate offset / immediate pre-indexed
+			simm(r(out.next().append('['), rn).append(", #"), off).append(']');
+			if(w) {
+				out.append('!');
 			}
 		} else if(w) {
 			// immediate post-indexed
-			int off = (u ? 1 : -1) * fmt.offset_8.get() * 4;
-			String offset = simm(off);
-			return new String[] { "[" + r(fmt.Rn.get()) + "]", "#" + offset };
+			int off = (u ? 1 : -1) * cpfmt.offset_8.get(op) * 4;
+			r(out.next().append('['), rn).append(']');
+			simm(out.next().append('#'), off);
 		} else {
-			int option = fmt.option.get();
-			if(option != 0) {
-				return new String[] { "[" + r(fmt.Rn.get()) + "]" };
-			} else {
-				return new String[] { "[" + r(fmt.Rn.get()) + "]", "{" + option + "}" };
+			int option = cpfmt.option.get(op);
+			r(out.next().append('['), rn).append(']');
+			if(option == 0) {
+				out.next().append('{').append(option).append('}');
 			}
 		}
 	}
 
 	public static String loadStoreMultiple(LoadStoreMultiple fmt) {
-		return loadStoreMultiple(fmt, true);
+		return loadStoreMultiple(fmt.get(), true);
 	}
 
 	public static String loadStoreMultiple(LoadStoreMultiple fmt, boolean stack) {
-		boolean l = fmt.L.getBit();
-		boolean p = fmt.P.getBit();
-		boolean u = fmt.U.getBit();
+		return loadStoreMultiple(fmt.get(), stack);
+	}
+
+	private static String loadStoreMultiple(int op, boolean stack) {
+		boolean l = lsmfmt.L.getBit(op);
+		boolean p = lsmfmt.P.getBit(op);
+		boolean u = lsmfmt.U.getBit(op);
 		if(stack) {
 			int bits = (l ? 4 : 0) | (p ? 2 : 0) | (u ? 1 : 0);
 			switch(bits) {
@@ -1022,521 +830,532 @@ public class ARMv5Disassembler {
 		}
 	}
 
+	// <name><cond><suffix> Rd, <addressing mode>
+	private static void loadStore(DisassemblyBuffer out, String name, int op, String suffix) {
+		mnemonic(out, name, op, suffix);
+		r(out.next(), lsfmt.Rd.get(op));
+		loadStore(out, op);
+	}
+
 	public static String[] loadStore(LoadStore fmt) {
-		boolean p = fmt.P.getBit();
-		boolean w = fmt.W.getBit();
-		boolean u = fmt.U.getBit();
-		boolean bit25 = fmt.bit25.getBit();
-		int bit114 = fmt.bit114.get();
-		boolean bit4 = fmt.bit4.getBit();
-		if(!bit25 && p && !w) {
-			// immediate offset
-			String off = simm((u ? 1 : -1) * fmt.offset_12.get());
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + off + "]" };
-		} else if(bit25 && p && !w && bit114 == 0) {
-			// register offset
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + (u ? "+" : "-") + r(fmt.Rm.get()) + "]" };
-		} else if(bit25 && p && !w && !bit4) {
-			// scaled register offset
-			int imm = fmt.shift.get();
-			String last;
-			switch(imm) {
-			default:
-			case 0b00:
-				last = "LSL " + imm(fmt.shift_imm.get());
-				break;
-			case 0b01:
-				last = "LSR " + imm(fmt.shift_imm.get());
-				break;
-			case 0b10:
-				last = "ASR " + imm(fmt.shift_imm.get());
-				break;
-			case 0b11:
-				if(fmt.shift_imm.get() == 0) {
-					last = "RRX";
-				} else {
-					last = "ROR " + imm(fmt.shift_imm.get());
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		loadStore(out, fmt.get());
+		return out.getComponents();
+	}
+
+	private static void loadStore(DisassemblyBuffer out, int op) {
+		boolean p = lsfmt.P.getBit(op);
+		boolean w = lsfmt.W.getBit(op);
+		boolean u = lsfmt.U.getBit(op);
+		boolean bit25 = lsfmt.bit25.getBit(op);
+		int bit114 = lsfmt.bit114.get(op);
+		boolean bit4 = lsfmt.bit4.getBit(op);
+		int rn = lsfmt.Rn.get(op);
+		if(p && (!bit25 || bit114 == 0 || !bit4)) {
+			// immediate offset / register offset / scaled register offset and their pre-indexed forms
+			r(out.next().append('['), rn).append(", ");
+			if(!bit25) {
+				simm(out, (u ? 1 : -1) * lsfmt.offset_12.get(op));
+			} else {
+				r(out.append(u ? '+' : '-'), lsfmt.Rm.get(op));
+				if(bit114 != 0) {
+					shift(out.append(", "), op);
 				}
 			}
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + (u ? "+" : "-") + r(fmt.Rm.get()) + ", " +
-					last + "]" };
-		} else if(!bit25 && p && w) {
-			// immediate pre-indexed
-			String off = simm((u ? 1 : -1) * fmt.offset_12.get());
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + off + "]!" };
-		} else if(bit25 && p && w && bit114 == 0) {
-			// register pre-index
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + (u ? "+" : "-") + r(fmt.Rm.get()) + "]!" };
-		} else if(bit25 && p && w && !bit4) {
-			// scaled register offset
-			int imm = fmt.shift.get();
-			String last;
-			switch(imm) {
-			default:
-			case 0b00:
-				last = "LSL " + imm(fmt.shift_imm.get());
-				break;
-			case 0b01:
-				last = "LSR " + imm(fmt.shift_imm.get());
-				break;
-			case 0b10:
-				last = "ASR " + imm(fmt.shift_imm.get());
-				break;
-			case 0b11:
-				if(fmt.shift_imm.get() == 0) {
-					last = "RRX";
-				} else {
-					last = "ROR " + imm(fmt.shift_imm.get());
-				}
+			out.append(']');
+			if(w) {
+				out.append('!');
 			}
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + (u ? "+" : "-") + r(fmt.Rm.get()) + ", " +
-					last + "]!" };
-		} else if(!bit25 && !p && !w) {
-			// immediate post-indexed
-			String off = simm((u ? 1 : -1) * fmt.offset_12.get());
-			return new String[] { "[" + r(fmt.Rn.get()) + "]", off };
-		} else if(bit25 && !p && !w && bit114 == 0) {
-			// register post-indexed
-			return new String[] { "[" + r(fmt.Rn.get()) + "]", (u ? "+" : "-") + r(fmt.Rm.get()) };
-		} else if(bit25 && !p && !w && !bit4) {
-			// scaled register offset
-			int imm = fmt.shift.get();
-			String last;
-			switch(imm) {
-			default:
-			case 0b00:
-				last = "LSL " + imm(fmt.shift_imm.get());
-				break;
-			case 0b01:
-				last = "LSR " + imm(fmt.shift_imm.get());
-				break;
-			case 0b10:
-				last = "ASR " + imm(fmt.shift_imm.get());
-				break;
-			case 0b11:
-				if(fmt.shift_imm.get() == 0) {
-					last = "RRX";
-				} else {
-					last = "ROR " + imm(fmt.shift_imm.get());
+		} else if(!p && !w && (!bit25 || bit114 == 0 || !bit4)) {
+			// immediate post-indexed / register post-indexed / scaled register post-indexed
+			r(out.next().append('['), rn).append(']');
+			if(!bit25) {
+				simm(out.next(), (u ? 1 : -1) * lsfmt.offset_12.get(op));
+			} else {
+				r(out.next().append(u ? '+' : '-'), lsfmt.Rm.get(op));
+				if(bit114 != 0) {
+					shift(out.next(), op);
 				}
 			}
-			return new String[] { "[" + r(fmt.Rn.get()) + "]", (u ? "+" : "-") + r(fmt.Rm.get()), last };
+		} else {
+			out.next().append("; invalid addressing mode");
 		}
-		return new String[] { "; invalid addressing mode" };
+	}
+
+	private static void shift(DisassemblyBuffer out, int op) {
+		int shift_imm = lsfmt.shift_imm.get(op);
+		int shift = lsfmt.shift.get(op);
+		if(shift == 0b11 && shift_imm == 0) {
+			out.append("RRX");
+		} else {
+			imm(out.append(SHIFTS[shift]).append(' '), shift_imm);
+		}
+	}
+
+	// <name><cond><suffix> Rd, <addressing mode>
+	private static void miscLoadStore(DisassemblyBuffer out, String name, int op, String suffix) {
+		mnemonic(out, name, op, suffix);
+		r(out.next(), insnfmt.Rd.get(op));
+		miscLoadStore(out, op);
 	}
 
 	public static String[] miscLoadStore(MiscLoadStore fmt) {
-		boolean p = fmt.P.getBit();
-		boolean u = fmt.U.getBit();
-		boolean w = fmt.W.getBit();
-		boolean i = fmt.I.getBit();
-		if(p && i && !w) {
-			// immediate offset
-			int offset_8 = (fmt.immedH.get() << 4) | fmt.immedL.get();
-			if(offset_8 == 0) {
-				return new String[] { "[" + r(fmt.Rn.get()) + "]" };
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		miscLoadStore(out, fmt.get());
+		return out.getComponents();
+	}
+
+	private static void miscLoadStore(DisassemblyBuffer out, int op) {
+		boolean p = mlsfmt.P.getBit(op);
+		boolean u = mlsfmt.U.getBit(op);
+		boolean w = mlsfmt.W.getBit(op);
+		boolean i = mlsfmt.I.getBit(op);
+		int rn = mlsfmt.Rn.get(op);
+		int offset_8 = (mlsfmt.immedH.get(op) << 4) | mlsfmt.immedL.get(op);
+		if(p) {
+			// immediate offset / register offset and their pre-indexed forms
+			r(out.next().append('['), rn);
+			if(i && !w && offset_8 == 0) {
+				out.append(']');
+				return;
+			} else if(i) {
+				simm(out.append(", "), (u ? 1 : -1) * offset_8);
 			} else {
-				String off = simm((u ? 1 : -1) * offset_8);
-				return new String[] { "[" + r(fmt.Rn.get()) + ", " + off + "]" };
+				r(out.append(", ").append(u ? '+' : '-'), mlsfmt.Rm.get(op));
 			}
-		} else if(p && !i && !w) {
-			// register offset
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + (u ? "+" : "-") + r(fmt.Rm.get()) + "]" };
-		} else if(p && i && w) {
-			// immediate pre-indexed
-			int offset_8 = (fmt.immedH.get() << 4) | fmt.immedL.get();
-			String off = simm((u ? 1 : -1) * offset_8);
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + off + "]!" };
-		} else if(p && !i && w) {
-			// register pre-indexed
-			return new String[] { "[" + r(fmt.Rn.get()) + ", " + (u ? "+" : "-") + r(fmt.Rm.get()) + "]!" };
-		} else if(!p && i && !w) {
+			out.append(']');
+			if(w) {
+				out.append('!');
+			}
+		} else if(i && !w) {
 			// immediate post-indexed
-			int offset_8 = (fmt.immedH.get() << 4) | fmt.immedL.get();
-			String off = simm((u ? 1 : -1) * offset_8);
-			return new String[] { "[" + r(fmt.Rn.get()) + "]", off };
-		} else if(!p && !i && w) {
+			r(out.next().append('['), rn).append(']');
+			simm(out.next(), (u ? 1 : -1) * offset_8);
+		} else if(!i && w) {
 			// register post-indexed
-			return new String[] { "[" + r(fmt.Rn.get()) + "]", (u ? "+" : "-") + r(fmt.Rm.get()) };
+			r(out.next().append('['), rn).append(']');
+			r(out.next().append(u ? '+' : '-'), mlsfmt.Rm.get(op));
+		} else {
+			out.next().append("; invalid addressing mode");
 		}
-		return new String[] { "; invalid addressing mode" };
 	}
 
 	// THUMB MODE
 	public static InstructionType getTypeThumb(int op) {
-		switch(tfmt.opcode1510.get(op)) {
-		case 0b110100:
-		case 0b110101:
-		case 0b110110:
-		case 0b110111:
-			// B (1)
-			if(tfmt.cond.get(op) == Condition.AL) {
-				return InstructionType.JMP;
-			} else if(tfmt.cond.get(op) == 0b1111) {
-				return InstructionType.SYSCALL;
-			} else {
-				return InstructionType.JCC;
-			}
-		case 0b111000:
-		case 0b111001:
-			// B (2)
-			return InstructionType.JMP;
-		case 0b101111:
-			if(BitTest.test(op, 1 << 9) && !BitTest.test(op, 1 << 8)) {
-				return InstructionType.SYSCALL;
-			} else if(!BitTest.test(op, 1 << 9)) {
-				// POP
-				if(tfmt.R.getBit(op)) {
-					return InstructionType.RET;
-				}
-				return InstructionType.OTHER;
-			}
-			break;
-		case 0b111110:
-		case 0b111111:
-			// BL
-			return InstructionType.CALL;
-		case 0b111010:
-		case 0b111011:
-			// BLX
-			return InstructionType.CALL;
-		case 0b010001:
-			switch(tfmt.opcode97.get(op)) {
-			case 0b111:
-				// BLX (2)
-				return InstructionType.CALL;
-			case 0b110:
-				// BX
-				int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
-				if(rm == 14) {
-					// BX LR
-					return InstructionType.RET;
-				} else {
-					return InstructionType.JMP_INDIRECT;
-				}
-			}
-			break;
-		}
-		return InstructionType.OTHER;
+		return TYPES[THUMB_TYPES[op & 0xFFFF]];
 	}
 
 	public static String[] disassembleThumb(int pc, int op) {
-		switch(tfmt.opcode1510.get(op)) {
+		DisassemblyBuffer out = new DisassemblyBuffer();
+		disassembleThumb(pc, op, out);
+		return out.getComponents();
+	}
+
+	public static void disassembleThumb(int pc, int op, DisassemblyBuffer out) {
+		out.clear();
+		THUMB_HANDLERS[(op >>> 6) & 0x3FF].disassemble(pc, op, out);
+	}
+
+	// <name> Rd, Rn
+	private static void thumbRR(DisassemblyBuffer out, String name, int op) {
+		out.next().append(name);
+		r(out.next(), tfmt.Rd.get(op));
+		r(out.next(), tfmt.Rn.get(op));
+	}
+
+	// <name> Rd, Rm with the high register bits
+	private static void thumbHighRR(DisassemblyBuffer out, String name, int op) {
+		int rd = tfmt.Rd.get(op) | (tfmt.H1.getBit(op) ? 8 : 0);
+		int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
+		out.next().append(name);
+		r(out.next(), rd);
+		r(out.next(), rm);
+	}
+
+	// <name> Rd, [Rn, #imm]
+	private static void thumbImmOffset(DisassemblyBuffer out, String name, int op, int scale) {
+		out.next().append(name);
+		r(out.next(), tfmt.Rd.get(op));
+		imm(r(out.next().append('['), tfmt.Rn.get(op)).append(", "), tfmt.immed_5.get(op) * scale).append(']');
+	}
+
+	// <name> Rd, [Rn, Rm]
+	private static void thumbRegOffset(DisassemblyBuffer out, String name, int op) {
+		out.next().append(name);
+		r(out.next(), tfmt.Rd.get(op));
+		r(r(out.next().append('['), tfmt.Rn.get(op)).append(", "), tfmt.Rm.get(op)).append(']');
+	}
+
+	// <name> Rd, [<base>, #imm]
+	private static void thumbBaseOffset(DisassemblyBuffer out, String name, int op, String base) {
+		out.next().append(name);
+		r(out.next(), tfmt.Rd10.get(op));
+		imm(out.next().append('[').append(base).append(", "), tfmt.immed_8.get(op) * 4).append(']');
+	}
+
+	// <name> Rd, #imm
+	private static void thumbImm(DisassemblyBuffer out, String name, int op) {
+		out.next().append(name);
+		r(out.next(), tfmt.Rd10.get(op));
+		imm(out.next(), tfmt.immed_8.get(op));
+	}
+
+	// Every decision in here only depends on bits 15-6 of the opcode, so the result is the same for all
+	// opcodes with the same upper 10 bits.
+	private static ThumbHandler getThumbHandler(int key) {
+		switch(tfmt.opcode1510.get(key)) {
 		case 0b010000:
-			switch(tfmt.opcode96.get(op)) {
+			switch(tfmt.opcode96.get(key)) {
 			case 0b0000:
 				// AND
-				return new String[] { "AND", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "AND", op);
 			case 0b0101:
 				// ADC
-				return new String[] { "ADC", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "ADC", op);
 			case 0b0100:
 				// ASR (2)
-				return new String[] { "ASR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "ASR", op);
 			case 0b1110:
 				// BIC
-				return new String[] { "BIC", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "BIC", op);
 			case 0b1011:
 				// CMN
-				return new String[] { "CMN", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "CMN", op);
 			case 0b1010:
 				// CMP (2)
-				return new String[] { "CMP", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "CMP", op);
 			case 0b0001:
 				// EOR
-				return new String[] { "EOR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "EOR", op);
 			case 0b0010:
 				// LSL (2)
-				return new String[] { "LSL", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "LSL", op);
 			case 0b0011:
 				// LSR (2)
-				return new String[] { "LSR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "LSR", op);
 			case 0b1101:
 				// MUL
-				return new String[] { "MUL", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "MUL", op);
 			case 0b1111:
 				// MVN
-				return new String[] { "MVN", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "MVN", op);
 			case 0b1001:
 				// NEG
-				return new String[] { "NEG", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "NEG", op);
 			case 0b1100:
 				// ORR
-				return new String[] { "ORR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "ORR", op);
 			case 0b0111:
 				// ROR
-				return new String[] { "ROR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "ROR", op);
 			case 0b0110:
 				// SBC
-				return new String[] { "SBC", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+				return (pc, op, out) -> thumbRR(out, "SBC", op);
 			}
 			break;
 		case 0b000111:
-			if(!BitTest.test(op, 1 << 9)) {
+			if(!BitTest.test(key, 1 << 9)) {
 				// ADD (1)
-				return new String[] { "ADD", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-						imm(tfmt.immed_3.get(op)) };
+				return (pc, op, out) -> {
+					thumbRR(out, "ADD", op);
+					imm(out.next(), tfmt.immed_3.get(op));
+				};
 			} else {
-				switch(tfmt.opcode86.get(op)) {
+				switch(tfmt.opcode86.get(key)) {
 				case 0b000:
 					// MOV (2)
-					return new String[] { "MOV", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)) };
+					return (pc, op, out) -> thumbRR(out, "MOV", op);
 				case 0b100:
 				case 0b101:
 				case 0b110:
 				case 0b111:
 					// SUB (1)
-					return new String[] { "SUB", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-							imm(tfmt.immed_3.get(op)) };
+					return (pc, op, out) -> {
+						thumbRR(out, "SUB", op);
+						imm(out.next(), tfmt.immed_3.get(op));
+					};
 				}
 			}
 			break;
 		case 0b001100:
 		case 0b001101:
 			// ADD (2)
-			return new String[] { "ADD", r(tfmt.Rd10.get(op)), imm(tfmt.immed_8.get(op)) };
+			return (pc, op, out) -> thumbImm(out, "ADD", op);
 		case 0b000110:
-			if(!BitTest.test(op, 1 << 9)) {
+			if(!BitTest.test(key, 1 << 9)) {
 				// ADD (3)
-				return new String[] { "ADD", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-						r(tfmt.Rm.get(op)) };
+				return (pc, op, out) -> {
+					thumbRR(out, "ADD", op);
+					r(out.next(), tfmt.Rm.get(op));
+				};
 			} else {
 				// SUB (3)
-				return new String[] { "SUB", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-						r(tfmt.Rm.get(op)) };
+				return (pc, op, out) -> {
+					thumbRR(out, "SUB", op);
+					r(out.next(), tfmt.Rm.get(op));
+				};
 			}
 		case 0b010001:
-			switch(tfmt.opcode97.get(op)) {
+			switch(tfmt.opcode97.get(key)) {
 			case 0b000:
-			case 0b001: {
+			case 0b001:
 				// ADD (4)
-				int rd = tfmt.Rd.get(op) | (tfmt.H1.getBit(op) ? 8 : 0);
-				int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
-				return new String[] { "ADD", r(rd), r(rm) };
-			}
-			case 0b111: {
+				return (pc, op, out) -> thumbHighRR(out, "ADD", op);
+			case 0b111:
 				// BLX (2)
-				int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
-				return new String[] { "BLX", r(rm) };
-			}
-			case 0b110: {
+				return (pc, op, out) -> {
+					int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
+					out.next().append("BLX");
+					r(out.next(), rm);
+				};
+			case 0b110:
 				// BX
-				int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
-				return new String[] { "BX", r(rm) };
-			}
+				return (pc, op, out) -> {
+					int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
+					out.next().append("BX");
+					r(out.next(), rm);
+				};
 			case 0b010:
-			case 0b011: {
+			case 0b011:
 				// CMP (3)
-				int rd = tfmt.Rd.get(op) | (tfmt.H1.getBit(op) ? 8 : 0);
-				int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
-				return new String[] { "CMP", r(rd), r(rm) };
-			}
+				return (pc, op, out) -> thumbHighRR(out, "CMP", op);
 			case 0b100:
-			case 0b101: {
+			case 0b101:
 				// CPY / MOV (2)
-				int rd = tfmt.Rd.get(op) | (tfmt.H1.getBit(op) ? 8 : 0);
-				int rm = tfmt.Rn.get(op) | (tfmt.H2.getBit(op) ? 8 : 0);
-				return new String[] { "CPY", r(rd), r(rm) };
-			}
+				return (pc, op, out) -> thumbHighRR(out, "CPY", op);
 			}
 			break;
 		case 0b101000:
 		case 0b101001:
 			// ADD (5)
-			return new String[] { "ADD", r(tfmt.Rd10.get(op)), "PC", imm(tfmt.immed_8.get() * 4) };
+			return (pc, op, out) -> {
+				out.next().append("ADD");
+				r(out.next(), tfmt.Rd10.get(op));
+				out.next().append("PC");
+				imm(out.next(), tfmt.immed_8.get(op) * 4);
+			};
 		case 0b101010:
 		case 0b101011:
 			// ADD (6)
-			return new String[] { "ADD", r(tfmt.Rd10.get(op)), "SP", imm(tfmt.immed_8.get() * 4) };
+			return (pc, op, out) -> {
+				out.next().append("ADD");
+				r(out.next(), tfmt.Rd10.get(op));
+				out.next().append("SP");
+				imm(out.next(), tfmt.immed_8.get(op) * 4);
+			};
 		case 0b101100:
-			switch(tfmt.opcode97.get(op)) {
+			switch(tfmt.opcode97.get(key)) {
 			case 0b000:
 				// ADD (7)
-				return new String[] { "ADD", "SP", imm(tfmt.immed_7.get(op) * 4) };
+				return (pc, op, out) -> {
+					out.next().append("ADD");
+					out.next().append("SP");
+					imm(out.next(), tfmt.immed_7.get(op) * 4);
+				};
 			case 0b001:
 				// SUB (4)
-				return new String[] { "SUB", "SP", imm(tfmt.immed_7.get(op) * 4) };
+				return (pc, op, out) -> {
+					out.next().append("SUB");
+					out.next().append("SP");
+					imm(out.next(), tfmt.immed_7.get(op) * 4);
+				};
 			}
 			break;
 		case 0b000100:
 		case 0b000101:
 			// ASR (1)
-			return new String[] { "ASR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-					imm(tfmt.immed_5.get(op)) };
+			return (pc, op, out) -> {
+				thumbRR(out, "ASR", op);
+				imm(out.next(), tfmt.immed_5.get(op));
+			};
 		case 0b110100:
 		case 0b110101:
 		case 0b110110:
 		case 0b110111:
-			if(tfmt.cond.get(op) == 0b1111) {
+			if(tfmt.cond.get(key) == 0b1111) {
 				// SWI
-				return new String[] { "SWI", "#" + tfmt.immed_8.get(op) };
+				return (pc, op, out) -> {
+					out.next().append("SWI");
+					out.next().append('#').append(tfmt.immed_8.get(op));
+				};
 			} else {
 				// B (1)
-				return new String[] { "B" + Condition.getExtension(tfmt.cond.get(op)),
-						"0x" + HexFormatter
-								.tohex(Integer.toUnsignedLong(
-										pc + tfmt.offset_8.get(op) << 1))
-								.toUpperCase() };
+				return (pc, op, out) -> {
+					out.next().append('B').append(Condition.getExtension(tfmt.cond.get(op)));
+					out.next().append("0x").appendHex(Integer.toUnsignedLong(pc + tfmt.offset_8.get(op) << 1));
+				};
 			}
 		case 0b111000:
 		case 0b111001:
 			// B (2)
-			return new String[] { "B",
-					HexFormatter.tohex(Integer.toUnsignedLong(pc + tfmt.offset_11.get(op) << 1))
-							.toUpperCase() };
+			return (pc, op, out) -> {
+				out.next().append('B');
+				out.next().appendHex(Integer.toUnsignedLong(pc + tfmt.offset_11.get(op) << 1));
+			};
 		case 0b101111:
-			if(BitTest.test(op, 1 << 9) && !BitTest.test(op, 1 << 8)) {
+			if(BitTest.test(key, 1 << 9) && !BitTest.test(key, 1 << 8)) {
 				// BKPT
-				return new String[] { "BKPT", "#" + tfmt.immed_8.get(op) };
-			} else if(!BitTest.test(op, 1 << 9)) {
+				return (pc, op, out) -> {
+					out.next().append("BKPT");
+					out.next().append('#').append(tfmt.immed_8.get(op));
+				};
+			} else if(!BitTest.test(key, 1 << 9)) {
 				// POP
-				int register_list = tfmt.register_list.get(op);
-				if(tfmt.R.getBit(op)) {
-					// include PC
-					register_list |= 1 << 15;
-				}
-				return new String[] { "POP", Register.list(register_list) };
+				return (pc, op, out) -> {
+					int register_list = tfmt.register_list.get(op);
+					if(tfmt.R.getBit(op)) {
+						// include PC
+						register_list |= 1 << 15;
+					}
+					out.next().append("POP");
+					Register.list(out.next(), register_list);
+				};
 			}
 		case 0b111100:
 		case 0b111101:
 			// BL (1)
-			return new String[] { "BL(hi)", imm(pc + tfmt.offset_11.get(op) << 12) };
+			return (pc, op, out) -> {
+				out.next().append("BL(hi)");
+				imm(out.next(), pc + tfmt.offset_11.get(op) << 12);
+			};
 		case 0b111110:
 		case 0b111111:
 			// BL (2)
-			return new String[] { "BL(lo)", simm(tfmt.offset_11.get(op) << 1) };
+			return (pc, op, out) -> {
+				out.next().append("BL(lo)");
+				simm(out.next(), tfmt.offset_11.get(op) << 1);
+			};
 		case 0b111010:
 		case 0b111011:
 			// BLX (2)
-			return new String[] { "BLX(lo)", simm(tfmt.offset_11.get(op) << 1) };
+			return (pc, op, out) -> {
+				out.next().append("BLX(lo)");
+				simm(out.next(), tfmt.offset_11.get(op) << 1);
+			};
 		case 0b001010:
 		case 0b001011:
 			// CMP (1)
-			return new String[] { "CMP", r(tfmt.Rd10.get(op)), imm(tfmt.immed_8.get(op)) };
+			return (pc, op, out) -> thumbImm(out, "CMP", op);
 		case 0b110010:
 		case 0b110011:
 			// LDMIA
-			return new String[] { "LDMIA", r(tfmt.Rd10.get(op)) + "!",
-					Register.list(tfmt.register_list.get(op)) };
+			return (pc, op, out) -> {
+				out.next().append("LDMIA");
+				r(out.next(), tfmt.Rd10.get(op)).append('!');
+				Register.list(out.next(), tfmt.register_list.get(op));
+			};
 		case 0b011010:
 		case 0b011011:
 			// LDR (1)
-			return new String[] { "LDR", r(tfmt.Rd.get(op)),
-					"[" + r(tfmt.Rn.get(op)) + ", " + imm(tfmt.immed_5.get(op) * 4) + "]" };
+			return (pc, op, out) -> thumbImmOffset(out, "LDR", op, 4);
 		case 0b010110:
-			if(!BitTest.test(op, 1 << 9)) {
+			if(!BitTest.test(key, 1 << 9)) {
 				// LDR (2)
-				return new String[] { "LDR", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "LDR", op);
 			} else {
 				// LDRH (2)
-				return new String[] { "LDRH", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "LDRH", op);
 			}
 		case 0b010010:
 		case 0b010011:
 			// LDR (3)
-			return new String[] { "LDR", r(tfmt.Rd10.get(op)),
-					"[PC, " + imm(tfmt.immed_8.get(op) * 4) + "]" };
+			return (pc, op, out) -> thumbBaseOffset(out, "LDR", op, "PC");
 		case 0b100110:
 		case 0b100111:
 			// LDR (4)
-			return new String[] { "LDR", r(tfmt.Rd10.get(op)),
-					"[SP, " + imm(tfmt.immed_8.get(op) * 4) + "]" };
+			return (pc, op, out) -> thumbBaseOffset(out, "LDR", op, "SP");
 		case 0b011110:
 		case 0b011111:
 			// LDRB (1)
-			return new String[] { "LDRB", r(tfmt.Rd.get(op)),
-					"[" + r(tfmt.Rn.get(op)) + ", " + imm(tfmt.immed_5.get(op)) + "]" };
+			return (pc, op, out) -> thumbImmOffset(out, "LDRB", op, 1);
 		case 0b010111:
-			if(!BitTest.test(op, 1 << 9)) {
+			if(!BitTest.test(key, 1 << 9)) {
 				// LDRB (2)
-				return new String[] { "LDRB", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "LDRB", op);
 			} else {
 				// LDRSH
-				return new String[] { "LDRB", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "LDRB", op);
 			}
 		case 0b100010:
 		case 0b100011:
 			// LDRH (1)
-			return new String[] { "LDRH", r(tfmt.Rd.get(op)),
-					"[" + r(tfmt.Rn.get(op)) + ", " + imm(tfmt.immed_5.get(op) * 2) + "]" };
+			return (pc, op, out) -> thumbImmOffset(out, "LDRH", op, 2);
 		case 0b010101:
-			if(BitTest.test(op, 1 << 9)) {
+			if(BitTest.test(key, 1 << 9)) {
 				// LDRSB
-				return new String[] { "LDRSB", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "LDRSB", op);
 			} else {
 				// STRB (2)
-				return new String[] { "STRB", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "STRB", op);
 			}
 		case 0b000000:
 		case 0b000001:
 			// LSL (1)
-			return new String[] { "LSL", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-					imm(tfmt.immed_5.get(op)) };
+			return (pc, op, out) -> {
+				thumbRR(out, "LSL", op);
+				imm(out.next(), tfmt.immed_5.get(op));
+			};
 		case 0b000010:
 		case 0b000011:
 			// LSR (1)
-			return new String[] { "LSR", r(tfmt.Rd.get(op)), r(tfmt.Rn.get(op)),
-					imm(tfmt.immed_5.get(op)) };
+			return (pc, op, out) -> {
+				thumbRR(out, "LSR", op);
+				imm(out.next(), tfmt.immed_5.get(op));
+			};
 		case 0b001000:
 		case 0b001001:
 			// MOV (1)
-			return new String[] { "MOV", r(tfmt.Rd10.get(op)), imm(tfmt.immed_8.get(op)) };
+			return (pc, op, out) -> thumbImm(out, "MOV", op);
 		case 0b101101:
-			if(!BitTest.test(op, 1 << 9)) {
+			if(!BitTest.test(key, 1 << 9)) {
 				// PUSH
-				int register_list = tfmt.register_list.get(op);
-				if(tfmt.R.getBit(op)) {
-					register_list |= 1 << 14;
-				}
-				return new String[] { "PUSH", Register.list(register_list) };
+				return (pc, op, out) -> {
+					int register_list = tfmt.register_list.get(op);
+					if(tfmt.R.getBit(op)) {
+						register_list |= 1 << 14;
+					}
+					out.next().append("PUSH");
+					Register.list(out.next(), register_list);
+				};
 			}
 			break;
 		case 0b110000:
 		case 0b110001:
 			// STMIA
-			return new String[] { "STMIA", r(tfmt.Rd10.get(op)) + "!",
-					Register.list(tfmt.register_list.get(op)) };
+			return (pc, op, out) -> {
+				out.next().append("STMIA");
+				r(out.next(), tfmt.Rd10.get(op)).append('!');
+				Register.list(out.next(), tfmt.register_list.get(op));
+			};
 		case 0b011000:
 		case 0b011001:
 			// STR (1)
-			return new String[] { "STR", r(tfmt.Rd.get(op)),
-					"[" + r(tfmt.Rn.get(op)) + ", " + imm(tfmt.immed_5.get(op) * 4) + "]" };
+			return (pc, op, out) -> thumbImmOffset(out, "STR", op, 4);
 		case 0b010100:
-			if(!BitTest.test(op, 1 << 9)) {
+			if(!BitTest.test(key, 1 << 9)) {
 				// STR (2)
-				return new String[] { "STR", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "STR", op);
 			} else {
 				// STRH (2)
-				return new String[] { "STRH", r(tfmt.Rd.get(op)),
-						"[" + r(tfmt.Rn.get(op)) + ", " + r(tfmt.Rm.get(op)) + "]" };
+				return (pc, op, out) -> thumbRegOffset(out, "STRH", op);
 			}
 		case 0b100100:
 		case 0b100101:
 			// STR (3)
-			return new String[] { "STR", r(tfmt.Rd10.get(op)),
-					"[SP, " + imm(tfmt.immed_8.get(op) * 4) + "]" };
+			return (pc, op, out) -> thumbBaseOffset(out, "STR", op, "SP");
 		case 0b011100:
 		case 0b011101:
 			// STRB (1)
-			return new String[] { "STRB", r(tfmt.Rd.get(op)),
-					"[" + r(tfmt.Rn.get(op)) + ", " + imm(tfmt.immed_5.get(op)) + "]" };
+			return (pc, op, out) -> thumbImmOffset(out, "STRB", op, 1);
 		case 0b100000:
 		case 0b100001:
 			// STRH (1)
-			return new String[] { "STRH", r(tfmt.Rd.get(op)),
-					"[" + r(tfmt.Rn.get(op)) + ", " + imm(tfmt.immed_5.get(op) * 2) + "]" };
+			return (pc, op, out) -> thumbImmOffset(out, "STRH", op, 2);
 		case 0b001110:
 		case 0b001111:
 			// SUB (2)
-			return new String[] { "SUB", r(tfmt.Rd10.get(op)), imm(tfmt.immed_8.get(op)) };
+			return (pc, op, out) -> thumbImm(out, "SUB", op);
 		}
-		return new String[] { "; unknown" };
+		return (pc, op, out) -> out.next().append("; unknown");
 	}
 }
@@ -0,0 +1,127 @@
+package org.graalvm.vm.trcview.arch.arm.disasm;
+
+import java.util.Arrays;
+
+// Reusable output of the disassembler. The mnemonic and the operands are written one after another into a single
+// char array, so once the buffer has grown to fit the longest instruction, disassembling into it does not allocate.
+// A buffer must only be used by one thread at a time.
+public final class DisassemblyBuffer {
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private char[] chars = new char[64];
+	private int length = 0;
+	private int[] starts = new int[8];
+	private int count = 0;
+
+	public void clear() {
+		length = 0;
+		count = 0;
+	}
+
+	// starts the next component; the first one is the mnemonic
+	public DisassemblyBuffer next() {
+		if(count == starts.length) {
+			starts = Arrays.copyOf(starts, count * 2);
+		}
+		starts[count++] = length;
+		return this;
+	}
+
+	private void ensure(int n) {
+		if(length + n > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + n));
+		}
+	}
+
+	public DisassemblyBuffer append(char c) {
+		ensure(1);
+		chars[length++] = c;
+		return this;
+	}
+
+	public DisassemblyBuffer append(String s) {
+		int n = s.length();
+		ensure(n);
+		s.getChars(0, n, chars, length);
+		length += n;
+		return this;
+	}
+
+	public DisassemblyBuffer append(long value) {
+		ensure(20);
+		long v = value;
+		if(v < 0) {
+			chars[length++] = '-';
+		} else {
+			// digits are computed from the negative value, which also covers Long.MIN_VALUE
+			v = -v;
+		}
+		int start = length;
+		do {
+			chars[length++] = (char) ('0' - (v % 10));
+			v /= 10;
+		} while(v != 0);
+		for(int i = start, j = length - 1; i < j; i++, j--) {
+			char c = chars[i];
+			chars[i] = chars[j];
+			chars[j] = c;
+		}
+		return this;
+	}
+
+	// unsigned, upper case and without leading zeros
+	public DisassemblyBuffer appendHex(long value) {
+		ensure(16);
+		int digits = Math.max(1, (67 - Long.numberOfLeadingZeros(value)) / 4);
+		for(int i = digits - 1; i >= 0; i--) {
+			chars[length++] = HEX[(int) (value >>> (i * 4)) & 0xF];
+		}
+		return this;
+	}
+
+	int length() {
+		return length;
+	}
+
+	public int getComponentCount() {
+		return count;
+	}
+
+	private int end(int i) {
+		return i + 1 < count ? starts[i + 1] : length;
+	}
+
+	public String getComponent(int i) {
+		if(i < 0 || i >= count) {
+			throw new IndexOutOfBoundsException("component " + i + " out of range");
+		}
+		return new String(chars, starts[i], end(i) - starts[i]);
+	}
+
+	public String[] getComponents() {
+		String[] result = new String[count];
+		for(int i = 0; i < count; i++) {
+			result[i] = new String(chars, starts[i], end(i) - starts[i]);
+		}
+		return result;
+	}
+
+	// mnemonic, a tab and the operands separated by commas
+	public void appendTo(StringBuilder buf) {
+		for(int i = 0; i < count; i++) {
+			if(i == 1) {
+				buf.append('\t');
+			} else if(i > 1) {
+				buf.append(", ");
+			}
+			buf.append(chars, starts[i], end(i) - starts[i]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder(length + count * 2);
+		appendTo(buf);
+		return buf.toString();
+	}
+}
@@ -3,22 +3,27 @@ package org.graalvm.vm.trcview.arch.arm.disasm;
 import org.graalvm.vm.util.BitTest;
 
 public class Register {
+	private static final String[] NAMES = {
+			"R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7",
+			"R8", "R9", "R10", "R11", "R12", "SP", "LR", "PC"
+	};
+
 	public static String getR(int r) {
-		if(r == 15) {
-			return "PC";
-		} else if(r == 14) {
-			return "LR";
-		} else if(r == 13) {
-			return "SP";
-		} else if(r < 13 && r >= 0) {
-			return "R" + r;
+		if(r < 16 && r >= 0) {
+			return NAMES[r];
 		} else {
 			throw new IllegalArgumentException("invalid register " + r);
 		}
 	}
 
 	public static String list(int register_list) {
-		StringBuilder buf = new StringBuilder();
+		DisassemblyBuffer buf = new DisassemblyBuffer();
+		list(buf.next(), register_list);
+		return buf.toString();
+	}
+
+	public static void list(DisassemblyBuffer buf, int register_list) {
+		int length = buf.length();
 		buf.append('{');
 
 		boolean first = true;
@@ -67,8 +72,8 @@ public class Register {
 		}
 
 		assert start == -1;
-		assert buf.length() > 1;
+		assert buf.length() - length > 1;
 
-		return buf.append('}').toString();
+		buf.append('}');
 	}
 }
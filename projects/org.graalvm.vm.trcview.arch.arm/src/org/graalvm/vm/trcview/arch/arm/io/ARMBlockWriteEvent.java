@@ -0,0 +1,46 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+
+// Run of contiguous writes of the same width by one instruction, like the stores of an STM. The written bytes
+// are exposed as a dump, so the memory contents at every address of the block remain queryable; the individual
+// accesses can still be recovered from the access size.
+public class ARMBlockWriteEvent extends MemoryDumpEvent {
+	private final int accessSize;
+
+	public ARMBlockWriteEvent(int tid, long address, byte[] data, int accessSize) {
+		super(tid, address, data);
+		this.accessSize = accessSize;
+	}
+
+	public int getAccessSize() {
+		return accessSize;
+	}
+
+	public int getAccessCount() {
+		return getData().length / accessSize;
+	}
+
+	public long getAccessAddress(int i) {
+		return getAddress() + (long) i * accessSize;
+	}
+
+	public int getAccessValue(int i) {
+		byte[] data = getData();
+		int offset = i * accessSize;
+		int value = 0;
+		for(int n = 0; n < accessSize; n++) {
+			value |= Byte.toUnsignedInt(data[offset + n]) << (n * 8);
+		}
+		return value;
+	}
+
+	// byte written to address, or -1 if the block does not contain it
+	public int get(long address) {
+		long offset = address - getAddress();
+		if(offset < 0 || offset >= getData().length) {
+			return -1;
+		}
+		return Byte.toUnsignedInt(getData()[(int) offset]);
+	}
+}
@@ -0,0 +1,195 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+public class ARMCheckpoint {
+	private final long offset;
+	// the step record the checkpoint was taken after and what it was decoded against, to verify the checkpoint
+	private final long stepOffset;
+	private final long previousStep;
+	private final int previousPC;
+	private final long step;
+	private final int[] gpr;
+	private final int cpsr;
+	private final int code;
+	private final int tid;
+	private final int tidcnt;
+	private final boolean irq;
+	private final int irqSP;
+	private final Map<Integer, Integer> threads;
+
+	ARMCheckpoint(long offset, long stepOffset, long previousStep, int previousPC, ARMCpuState state, int tid,
+			int tidcnt, Map<Integer, Integer> threads, ARMCpuState irqState) {
+		this.offset = offset;
+		this.stepOffset = stepOffset;
+		this.previousStep = previousStep;
+		this.previousPC = previousPC;
+		this.step = state.getStep();
+		this.gpr = new int[16];
+		for(int i = 0; i < 16; i++) {
+			gpr[i] = state.getGPR(i);
+		}
+		this.cpsr = state.getCPSR();
+		this.code = state.getCode();
+		this.tid = tid;
+		this.tidcnt = tidcnt;
+		this.threads = new HashMap<>(threads);
+		if(irqState != null) {
+			irq = true;
+			irqSP = irqState.getGPR(13);
+		} else {
+			irq = false;
+			irqSP = 0;
+		}
+	}
+
+	private ARMCheckpoint(long offset, long stepOffset, long previousStep, int previousPC, long step, int[] gpr,
+			int cpsr, int code, int tid, int tidcnt, boolean irq, int irqSP, Map<Integer, Integer> threads) {
+		this.offset = offset;
+		this.stepOffset = stepOffset;
+		this.previousStep = previousStep;
+		this.previousPC = previousPC;
+		this.step = step;
+		this.gpr = gpr;
+		this.cpsr = cpsr;
+		this.code = code;
+		this.tid = tid;
+		this.tidcnt = tidcnt;
+		this.irq = irq;
+		this.irqSP = irqSP;
+		this.threads = threads;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public long getStepOffset() {
+		return stepOffset;
+	}
+
+	long getPreviousStep() {
+		return previousStep;
+	}
+
+	int getPreviousPC() {
+		return previousPC;
+	}
+
+	public long getStep() {
+		return step;
+	}
+
+	public int getGPR(int reg) {
+		return gpr[reg];
+	}
+
+	public int getCPSR() {
+		return cpsr;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public int getTid() {
+		return tid;
+	}
+
+	public int getThreadCount() {
+		return tidcnt;
+	}
+
+	public Map<Integer, Integer> getThreads() {
+		return Collections.unmodifiableMap(threads);
+	}
+
+	ARMCpuState getState() {
+		return new ARMCpuFullState(tid, gpr, cpsr, code, step);
+	}
+
+	// the state the step record at getStepOffset was decoded against, as far as that record depends on it
+	ARMCpuState getPreviousState() {
+		int[] r = gpr.clone();
+		r[15] = previousPC;
+		return new ARMCpuFullState(tid, r, cpsr, code, previousStep);
+	}
+
+	// whether the step decoded from the record at getStepOffset is the step of this checkpoint
+	boolean matches(ARMCpuState state) {
+		if(state.getStep() != step || state.getCode() != code || state.getCPSR() != cpsr) {
+			return false;
+		}
+		for(int i = 0; i < 16; i++) {
+			if(state.getGPR(i) != gpr[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	ARMCpuState getIRQState() {
+		if(irq) {
+			int[] r = new int[16];
+			r[13] = irqSP;
+			return new ARMCpuFullState(tid, r, 0, 0, 0);
+		} else {
+			return null;
+		}
+	}
+
+	public void write(WordOutputStream out) throws IOException {
+		out.write64bit(offset);
+		out.write64bit(stepOffset);
+		out.write64bit(previousStep);
+		out.write32bit(previousPC);
+		out.write64bit(step);
+		for(int i = 0; i < 16; i++) {
+			out.write32bit(gpr[i]);
+		}
+		out.write32bit(cpsr);
+		out.write32bit(code);
+		out.write32bit(tid);
+		out.write32bit(tidcnt);
+		out.write8bit((byte) (irq ? 1 : 0));
+		out.write32bit(irqSP);
+		out.write32bit(threads.size());
+		for(Map.Entry<Integer, Integer> entry : threads.entrySet()) {
+			out.write32bit(entry.getKey());
+			out.write32bit(entry.getValue());
+		}
+	}
+
+	public static ARMCheckpoint read(WordInputStream in) throws IOException {
+		long offset = in.read64bit();
+		long stepOffset = in.read64bit();
+		long previousStep = in.read64bit();
+		int previousPC = in.read32bit();
+		long step = in.read64bit();
+		int[] gpr = new int[16];
+		for(int i = 0; i < 16; i++) {
+			gpr[i] = in.read32bit();
+		}
+		int cpsr = in.read32bit();
+		int code = in.read32bit();
+		int tid = in.read32bit();
+		int tidcnt = in.read32bit();
+		boolean irq = in.read8bit() != 0;
+		int irqSP = in.read32bit();
+		int count = in.read32bit();
+		Map<Integer, Integer> threads = new HashMap<>();
+		for(int i = 0; i < count; i++) {
+			int thread = in.read32bit();
+			int id = in.read32bit();
+			threads.put(thread, id);
+		}
+		return new ARMCheckpoint(offset, stepOffset, previousStep, previousPC, step, gpr, cpsr, code, tid, tidcnt, irq,
+				irqSP, threads);
+	}
+}
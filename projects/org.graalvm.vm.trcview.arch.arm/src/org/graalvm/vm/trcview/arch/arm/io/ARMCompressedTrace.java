@@ -0,0 +1,362 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.graalvm.vm.util.io.LEInputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+
+// Block compressed container for raw traces, as written by ARMTraceCompressor:
+//
+//   header:  magic (8), version (4)
+//   blocks:  compressed size (4), raw size (4), deflate data; a compressed size of 0 ends the list
+//   table:   block count (4), per block: position (8), raw offset (8), compressed size (4), raw size (4),
+//            checkpoint flag (1), checkpoint
+//   footer:  table position (8), magic (8)
+//
+// Every block starts at a record boundary and, except for the first one, comes with the checkpoint of the
+// reader state at its start. Blocks can therefore be decompressed and decoded independently of each other.
+public class ARMCompressedTrace implements Closeable {
+	public static final long MAGIC = 0x315A4352544D5241L; // "ARMTRCZ1"
+	public static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 12;
+	private static final int FOOTER_SIZE = 16;
+
+	private final FileChannel channel;
+	private final long start;
+
+	private final long[] position;
+	private final long[] offset;
+	private final int[] compressedSize;
+	private final int[] size;
+	private final ARMCheckpoint[] checkpoints;
+	private final long rawSize;
+
+	public ARMCompressedTrace(Path path) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ));
+	}
+
+	public ARMCompressedTrace(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.start = channel.position();
+
+		long end = channel.size();
+		if(end - start < HEADER_SIZE + FOOTER_SIZE || !isCompressed(channel)) {
+			throw new IOException("not a compressed ARM trace");
+		}
+		ByteBuffer header = read(start + 8, 4);
+		int version = header.getInt();
+		if(version != VERSION) {
+			throw new IOException("unsupported container version " + version);
+		}
+
+		ByteBuffer footer = read(end - FOOTER_SIZE, FOOTER_SIZE);
+		long table = footer.getLong();
+		if(footer.getLong() != MAGIC) {
+			throw new IOException("truncated compressed trace");
+		}
+		long tableSize = end - FOOTER_SIZE - start - table;
+		if(table < HEADER_SIZE || tableSize < 4 || tableSize > Integer.MAX_VALUE) {
+			throw new IOException("invalid block table");
+		}
+
+		byte[] data = new byte[(int) tableSize];
+		read(start + table, data.length).get(data);
+		WordInputStream in = new LEInputStream(new ByteArrayInputStream(data));
+		int count = in.read32bit();
+		position = new long[count];
+		offset = new long[count];
+		compressedSize = new int[count];
+		size = new int[count];
+		checkpoints = new ARMCheckpoint[count];
+		long raw = 0;
+		for(int i = 0; i < count; i++) {
+			position[i] = in.read64bit();
+			offset[i] = in.read64bit();
+			compressedSize[i] = in.read32bit();
+			size[i] = in.read32bit();
+			if(in.read8bit() != 0) {
+				checkpoints[i] = ARMCheckpoint.read(in);
+			}
+			if(offset[i] != raw) {
+				throw new IOException("block " + i + " does not start at the end of the previous block");
+			}
+			raw += size[i];
+		}
+		rawSize = raw;
+	}
+
+	private ByteBuffer read(long pos, int length) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(length);
+		while(buf.hasRemaining()) {
+			if(channel.read(buf, pos + buf.position()) == -1) {
+				throw new EOFException();
+			}
+		}
+		buf.flip();
+		buf.order(ByteOrder.LITTLE_ENDIAN);
+		return buf;
+	}
+
+	// checks the magic at the current position of the channel without moving it
+	public static boolean isCompressed(FileChannel channel) throws IOException {
+		long pos = channel.position();
+		if(channel.size() - pos < 8) {
+			return false;
+		}
+		ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		while(buf.hasRemaining()) {
+			if(channel.read(buf, pos + buf.position()) == -1) {
+				return false;
+			}
+		}
+		buf.flip();
+		return buf.getLong() == MAGIC;
+	}
+
+	public static boolean isCompressed(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return isCompressed(channel);
+		}
+	}
+
+	// Returns a stream with the raw records of in, decompressing it block by block if it is a container. The
+	// magic is only checked on the first read, so this does not block.
+	public static InputStream decompress(InputStream in) {
+		return new SequentialInputStream(in);
+	}
+
+	public int getBlockCount() {
+		return position.length;
+	}
+
+	public long getBlockOffset(int block) {
+		return offset[block];
+	}
+
+	public int getBlockSize(int block) {
+		return size[block];
+	}
+
+	public int getCompressedBlockSize(int block) {
+		return compressedSize[block];
+	}
+
+	// reader state at the start of the block, null for the first block
+	public ARMCheckpoint getCheckpoint(int block) {
+		return checkpoints[block];
+	}
+
+	// size of the raw trace
+	public long getSize() {
+		return rawSize;
+	}
+
+	// returns the block which contains the given raw offset
+	public int find(long rawOffset) {
+		int lo = 0;
+		int hi = offset.length - 1;
+		int result = -1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if(offset[mid] <= rawOffset) {
+				result = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	// the block checkpoints serve as seek index, so compressed traces do not need a sidecar
+	public ARMTraceIndex getIndex() {
+		ARMTraceIndex index = new ARMTraceIndex(0, rawSize, 0);
+		for(ARMCheckpoint checkpoint : checkpoints) {
+			if(checkpoint != null) {
+				index.add(checkpoint);
+			}
+		}
+		return index;
+	}
+
+	// safe to call from multiple threads concurrently
+	public byte[] decompress(int block) throws IOException {
+		ByteBuffer compressed = read(start + position[block], compressedSize[block]);
+		byte[] data = new byte[size[block]];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed.array(), 0, compressedSize[block]);
+			int n = inflate(inflater, data);
+			if(n != data.length) {
+				throw new IOException("corrupted block " + block);
+			}
+		} finally {
+			inflater.end();
+		}
+		return data;
+	}
+
+	private static int inflate(Inflater inflater, byte[] data) throws IOException {
+		int n = 0;
+		try {
+			while(n < data.length && !inflater.finished()) {
+				int cnt = inflater.inflate(data, n, data.length - n);
+				if(cnt == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				n += cnt;
+			}
+		} catch(DataFormatException e) {
+			throw new IOException("corrupted block", e);
+		}
+		return n;
+	}
+
+	public BlockLEInputStream open() {
+		return new BlockLEInputStream(this);
+	}
+
+	// lookahead is the number of blocks decompressed in the background while reading
+	public BlockLEInputStream open(int lookahead) {
+		return new BlockLEInputStream(this, lookahead);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// Inflates the blocks in file order without the block table, for input which is not a file.
+	private static class SequentialInputStream extends InputStream {
+		private final InputStream in;
+		private final WordInputStream words;
+
+		private boolean init = false;
+		private boolean compressed = false;
+		private boolean end = false;
+
+		private byte[] buf = new byte[0];
+		private int length = 0;
+		private int pos = 0;
+
+		SequentialInputStream(InputStream in) {
+			this.in = in;
+			this.words = new LEInputStream(in);
+		}
+
+		private void init() throws IOException {
+			init = true;
+			byte[] magic = new byte[8];
+			int n = 0;
+			while(n < magic.length) {
+				int r = in.read(magic, n, magic.length - n);
+				if(r == -1) {
+					break;
+				}
+				n += r;
+			}
+			compressed = n == magic.length &&
+					ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getLong() == MAGIC;
+			if(compressed) {
+				int version = words.read32bit();
+				if(version != VERSION) {
+					throw new IOException("unsupported container version " + version);
+				}
+			} else {
+				// raw trace, hand out the bytes consumed by the check first
+				buf = magic;
+				length = n;
+			}
+		}
+
+		private boolean next() throws IOException {
+			if(end) {
+				return false;
+			}
+			int csize = words.read32bit();
+			if(csize == 0) {
+				// the block table follows, which is only needed for random access
+				end = true;
+				return false;
+			}
+			int rsize = words.read32bit();
+			byte[] data = new byte[csize];
+			int n = 0;
+			while(n < csize) {
+				int r = in.read(data, n, csize - n);
+				if(r == -1) {
+					throw new EOFException();
+				}
+				n += r;
+			}
+			if(buf.length != rsize) {
+				buf = new byte[rsize];
+			}
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(data);
+				if(inflate(inflater, buf) != rsize) {
+					throw new IOException("corrupted block");
+				}
+			} finally {
+				inflater.end();
+			}
+			length = rsize;
+			pos = 0;
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(!init) {
+				init();
+			}
+			if(pos == length) {
+				if(!compressed) {
+					return in.read();
+				} else if(!next()) {
+					return -1;
+				}
+			}
+			return Byte.toUnsignedInt(buf[pos++]);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(!init) {
+				init();
+			}
+			if(len == 0) {
+				return 0;
+			}
+			if(pos == length) {
+				if(!compressed) {
+					return in.read(b, off, len);
+				} else if(!next()) {
+					return -1;
+				}
+			}
+			int cnt = Math.min(len, length - pos);
+			System.arraycopy(buf, pos, b, off, cnt);
+			pos += cnt;
+			return cnt;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
@@ -1,53 +1,78 @@
 package org.graalvm.vm.trcview.arch.arm.io;
 
 import org.graalvm.vm.trcview.arch.arm.device.ARMDevices;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMInstruction;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMOpcode;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Decoder;
 import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
 import org.graalvm.vm.trcview.arch.arm.disasm.Cpsr;
 import org.graalvm.vm.trcview.arch.io.DeviceEvent;
+import org.graalvm.vm.util.BitTest;
 
 public class ARMContextSwitchEvent extends DeviceEvent {
+	// set by the reader once it decoded the first step after the switch, which follows the event itself; the
+	// pipelined reader sets them on the consumer thread if it had to publish the event before that
 	private int id;
 	private int address;
+	private boolean resolved;
 	private final boolean preempt;
 
 	public ARMContextSwitchEvent(int tid, boolean preempt) {
 		super(tid);
 		this.id = 0;
 		this.address = 0;
+		this.resolved = false;
 		this.preempt = preempt;
 	}
 
+	// an unresolved copy which the reader can resolve instead of this event
+	ARMContextSwitchEvent copy() {
+		return new ARMContextSwitchEvent(getTid(), preempt);
+	}
+
 	public static boolean isContextSwitch(ARMCpuState state) {
-		int cpsr = state.getCPSR();
+		ARMInstruction insn = new ARMInstruction();
+		ARMv5Decoder.decode(state, insn);
+		return isContextSwitch(insn, state.getCPSR());
+	}
+
+	// LDM Rn, {R0-LR}^ loading the user mode registers
+	public static boolean isContextSwitch(ARMInstruction insn, int cpsr) {
+		if(insn.getOpcode() != ARMOpcode.LDM || !insn.isS() || (insn.getRegisterList() & 0x7FFF) != 0x7FFF) {
+			return false;
+		}
 		int mode = Cpsr.M.get(cpsr);
 		if(mode == 0b10011) {
 			// in supervisor mode
-			int code = state.getCode();
-			if((code & 0b00001110011100001_111111111111111) == 0b00001000010100000_111111111111111) {
-				return ARMv5Disassembler.conditionPassed(code, cpsr);
-			} else {
+			if(insn.isWriteback() || BitTest.test(insn.getRegisterList(), 1 << 15)) {
 				return false;
 			}
+			return ARMv5Disassembler.conditionPassedOp(insn.getCondition(), cpsr);
 		} else if(mode == 0b10010) {
 			// in IRQ mode
-			int code = state.getCode();
-			if((code & 0b00001110010100000_111111111111111) == 0b00001000010100000_111111111111111) {
-				return ARMv5Disassembler.conditionPassed(code, cpsr);
-			} else {
-				return false;
-			}
+			return ARMv5Disassembler.conditionPassedOp(insn.getCondition(), cpsr);
 		} else {
 			return false;
 		}
 	}
 
 	public static boolean isContextSave(ARMCpuState state) {
-		int code = state.getCode();
-		if((code & 0b0000_11100101_0000_1111111111111111) == 0b0000100000000000_0111111111111111) {
-			return ARMv5Disassembler.conditionPassed(code, state.getCPSR());
-		} else if((code & 0b0000_11100101_0000_1111111111111100) == 0b0000100001000000_0111111111111100) {
+		ARMInstruction insn = new ARMInstruction();
+		ARMv5Decoder.decode(state, insn);
+		return isContextSave(insn, state.getCPSR());
+	}
+
+	// STM Rn, {R0-LR}
+	public static boolean isContextSave(ARMInstruction insn, int cpsr) {
+		if(insn.getOpcode() != ARMOpcode.STM) {
+			return false;
+		}
+		int list = insn.getRegisterList();
+		if(!insn.isS() && list == 0x7FFF) {
+			return ARMv5Disassembler.conditionPassedOp(insn.getCondition(), cpsr);
+		} else if(insn.isS() && (list & 0xFFFC) == 0x7FFC) {
 			// preemptive scheduler: saves R0-R1 separately
-			return ARMv5Disassembler.conditionPassed(code, state.getCPSR());
+			return ARMv5Disassembler.conditionPassedOp(insn.getCondition(), cpsr);
 		}
 		return false;
 	}
@@ -79,6 +104,19 @@ public class ARMContextSwitchEvent extends DeviceEvent {
 
 	void setThreadID(int id) {
 		this.id = id;
+		this.resolved = true;
+	}
+
+	int getThreadID() {
+		return id;
+	}
+
+	int getThreadAddress() {
+		return address;
+	}
+
+	boolean isResolved() {
+		return resolved;
 	}
 
 	void setThreadAddress(int address) {
@@ -2,6 +2,7 @@ package org.graalvm.vm.trcview.arch.arm.io;
 
 import java.io.IOException;
 
+import org.graalvm.vm.trcview.arch.arm.disasm.Cpsr;
 import org.graalvm.vm.util.BitTest;
 import org.graalvm.vm.util.io.WordInputStream;
 
@@ -9,6 +10,13 @@ public class ARMCpuDeltaState extends ARMCpuState {
 	private static final int MASK_CPSR = 1;
 	private static final int RMASK_PC = 1 << 15;
 
+	static final int COMPACT_CPSR = 1;
+	static final int COMPACT_STEP = 1 << 1;
+	static final int COMPACT_CODE32 = 1 << 2;
+	static final int COMPACT_PC = 1 << 3;
+	static final int COMPACT_RMASK8 = 1 << 4;
+	static final int COMPACT_RMASK16 = 1 << 5;
+
 	private final ARMCpuState lastState;
 	private final int cpsr;
 	private final short rmask;
@@ -31,36 +39,116 @@ public class ARMCpuDeltaState extends ARMCpuState {
 		short rmask = in.read16bit();
 		int code = in.read32bit();
 		long step = in.read64bit();
+		boolean writeCpsr = BitTest.test(mask, MASK_CPSR);
 		int cpsr;
-		if(BitTest.test(mask, MASK_CPSR)) {
+		if(writeCpsr) {
 			cpsr = in.read32bit();
 		} else {
 			cpsr = state.getCPSR();
 		}
+		return deltaState(in, state, writeCpsr, rmask, code, step, cpsr, false, 0);
+	}
+
+	// Reads a TYPE_STEP_COMPACT record. Fields which can be derived from the previous state are omitted: the
+	// step if it is the next one, the upper half of 16bit code words, and R15 if it only advanced to the next
+	// instruction.
+	public static ARMCpuState compactState(WordInputStream in, ARMCpuState state) throws IOException {
+		int flags = in.read8bit();
+		int rmask;
+		if(BitTest.test(flags, COMPACT_RMASK8)) {
+			rmask = in.read8bit();
+		} else if(BitTest.test(flags, COMPACT_RMASK16)) {
+			rmask = Short.toUnsignedInt(in.read16bit());
+		} else {
+			rmask = 0;
+		}
+		int code;
+		if(BitTest.test(flags, COMPACT_CODE32)) {
+			code = in.read32bit();
+		} else {
+			code = Short.toUnsignedInt(in.read16bit());
+		}
+		long step;
+		if(BitTest.test(flags, COMPACT_STEP)) {
+			step = state.getStep() + readVarLong(in);
+		} else {
+			step = state.getStep() + 1;
+		}
+		boolean writeCpsr = BitTest.test(flags, COMPACT_CPSR);
+		int cpsr;
+		if(writeCpsr) {
+			cpsr = in.read32bit();
+		} else {
+			cpsr = state.getCPSR();
+		}
+		boolean sequential = BitTest.test(flags, COMPACT_PC);
+		int pc = 0;
+		if(sequential) {
+			rmask |= RMASK_PC;
+			pc = state.getGPR(15) + getInstructionSize(cpsr);
+		}
+		return deltaState(in, state, writeCpsr, (short) rmask, code, step, cpsr, sequential, pc);
+	}
+
+	static int getInstructionSize(int cpsr) {
+		return Cpsr.T.getBit(cpsr) ? 2 : 4;
+	}
+
+	// zigzag encoded, 7 bits per byte
+	static long readVarLong(WordInputStream in) throws IOException {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			int b = in.read8bit();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return (value >>> 1) ^ -(value & 1);
+			}
+		}
+		throw new IOException("invalid varint");
+	}
 
+	// The register values follow in ascending order. If implicitPC is set, R15 is not read from the stream
+	// but set to pc.
+	private static ARMCpuState deltaState(WordInputStream in, ARMCpuState state, boolean writeCpsr, short rmask,
+			int code, long step, int cpsr, boolean implicitPC, int pc) throws IOException {
+		ARMCpuState result;
 		int count = Integer.bitCount(Short.toUnsignedInt(rmask));
 		if(count == 0) {
-			return new ARMCpuNullDeltaState(state, cpsr, code, step);
+			result = new ARMCpuNullDeltaState(state, cpsr, code, step);
 		} else if(count == 1) {
-			int value = in.read32bit();
-			if(BitTest.test(mask, RMASK_PC)) {
-				return new ARMCpuTinyDeltaState(state, value, cpsr, code, step);
+			if(BitTest.test(rmask, RMASK_PC)) {
+				int value = implicitPC ? pc : in.read32bit();
+				result = new ARMCpuTinyDeltaState(state, value, cpsr, code, step);
 			} else {
-				return new ARMCpuTinyTargetDeltaState(state, cpsr, code, step,
+				int value = in.read32bit();
+				result = new ARMCpuTinyTargetDeltaState(state, cpsr, code, step,
 						(byte) Integer.numberOfTrailingZeros(rmask), value);
 			}
 		} else if(count == 2 && BitTest.test(rmask, RMASK_PC)) {
 			int value = in.read32bit();
-			int pc = in.read32bit();
-			return new ARMCpuSmallDeltaState(state, pc, cpsr, code, step,
+			if(!implicitPC) {
+				pc = in.read32bit();
+			}
+			result = new ARMCpuSmallDeltaState(state, pc, cpsr, code, step,
 					(byte) Integer.numberOfTrailingZeros(rmask), value);
 		} else {
 			int[] data = new int[count];
-			for(int i = 0; i < data.length; i++) {
+			int n = implicitPC ? count - 1 : count;
+			for(int i = 0; i < n; i++) {
 				data[i] = in.read32bit();
 			}
-			return new ARMCpuDeltaState(state, cpsr, rmask, code, step, data);
+			if(implicitPC) {
+				data[n] = pc;
+			}
+			result = new ARMCpuDeltaState(state, cpsr, rmask, code, step, data);
 		}
+
+		if(writeCpsr) {
+			result.setChangedMask(Short.toUnsignedInt(rmask) | CHANGED_CPSR);
+		} else {
+			result.setChangedMask(Short.toUnsignedInt(rmask));
+		}
+		return result;
 	}
 
 	@Override
@@ -78,6 +166,16 @@ public class ARMCpuDeltaState extends ARMCpuState {
 		}
 	}
 
+	@Override
+	int getLocalRegisters() {
+		return Short.toUnsignedInt(rmask);
+	}
+
+	@Override
+	ARMCpuState getPrevious() {
+		return lastState;
+	}
+
 	@Override
 	public int getCPSR() {
 		return cpsr;
@@ -14,6 +14,7 @@ public class ARMCpuFullState extends ARMCpuState {
 		cpsr = state.getCPSR();
 		code = state.getCode();
 		step = state.getStep();
+		setChangedMask(state.getChangedMask());
 	}
 
 	protected ARMCpuFullState(ARMCpuState state, int tid) {
@@ -24,6 +25,15 @@ public class ARMCpuFullState extends ARMCpuState {
 		cpsr = state.getCPSR();
 		code = state.getCode();
 		step = state.getStep();
+		setChangedMask(state.getChangedMask());
+	}
+
+	ARMCpuFullState(int tid, int[] gpr, int cpsr, int code, long step) {
+		super(tid);
+		System.arraycopy(gpr, 0, r, 0, 16);
+		this.cpsr = cpsr;
+		this.code = code;
+		this.step = step;
 	}
 
 	@Override
@@ -19,6 +19,16 @@ public class ARMCpuNullDeltaState extends ARMCpuState {
 		return lastState.getGPR(reg);
 	}
 
+	@Override
+	int getLocalRegisters() {
+		return 0;
+	}
+
+	@Override
+	ARMCpuState getPrevious() {
+		return lastState;
+	}
+
 	@Override
 	public int getCPSR() {
 		return cpsr;
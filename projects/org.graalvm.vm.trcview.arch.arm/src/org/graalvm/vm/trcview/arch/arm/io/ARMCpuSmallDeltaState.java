@@ -31,6 +31,16 @@ public class ARMCpuSmallDeltaState extends ARMCpuState {
 		}
 	}
 
+	@Override
+	int getLocalRegisters() {
+		return 1 << 15 | 1 << id;
+	}
+
+	@Override
+	ARMCpuState getPrevious() {
+		return lastState;
+	}
+
 	@Override
 	public int getCPSR() {
 		return cpsr;
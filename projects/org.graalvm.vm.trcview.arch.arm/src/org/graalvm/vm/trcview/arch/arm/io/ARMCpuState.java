@@ -2,9 +2,15 @@ package org.graalvm.vm.trcview.arch.arm.io;
 
 import org.graalvm.vm.trcview.arch.arm.disasm.Cpsr;
 import org.graalvm.vm.trcview.arch.io.CpuState;
+import org.graalvm.vm.util.BitTest;
 import org.graalvm.vm.util.HexFormatter;
 
 public abstract class ARMCpuState extends ARMStepEvent implements CpuState {
+	public static final int CHANGED_CPSR = 1 << 16;
+
+	// states which were not decoded from a step record report everything as written
+	private int changed = 0xFFFF | CHANGED_CPSR;
+
 	protected ARMCpuState(int tid) {
 		super(tid);
 	}
@@ -17,6 +23,45 @@ public abstract class ARMCpuState extends ARMStepEvent implements CpuState {
 
 	public abstract int getCode();
 
+	// bits 0-15 are set for every register written by this step, CHANGED_CPSR is set if the step record
+	// carried a CPSR value
+	public int getChangedMask() {
+		return changed;
+	}
+
+	void setChangedMask(int mask) {
+		changed = mask;
+	}
+
+	public boolean isGPRChanged(int reg) {
+		return (getChangedMask() & (1 << reg)) != 0;
+	}
+
+	public boolean isCPSRChanged() {
+		return (getChangedMask() & CHANGED_CPSR) != 0;
+	}
+
+	// registers which are stored in this state instead of being looked up in a previous state
+	int getLocalRegisters() {
+		return 0xFFFF;
+	}
+
+	// state in which the registers that are not local are looked up
+	ARMCpuState getPrevious() {
+		return null;
+	}
+
+	// number of previous states a lookup of reg walks through
+	public int getLookupDepth(int reg) {
+		int depth = 0;
+		ARMCpuState state = this;
+		while(!BitTest.test(state.getLocalRegisters(), 1 << reg)) {
+			state = state.getPrevious();
+			depth++;
+		}
+		return depth;
+	}
+
 	@Override
 	public long getPC() {
 		long pc = Integer.toUnsignedLong(getGPR(15));
@@ -25,6 +25,16 @@ public class ARMCpuTinyDeltaState extends ARMCpuState {
 		}
 	}
 
+	@Override
+	int getLocalRegisters() {
+		return 1 << 15;
+	}
+
+	@Override
+	ARMCpuState getPrevious() {
+		return lastState;
+	}
+
 	@Override
 	public int getCPSR() {
 		return cpsr;
@@ -27,6 +27,16 @@ public class ARMCpuTinyTargetDeltaState extends ARMCpuState {
 		}
 	}
 
+	@Override
+	int getLocalRegisters() {
+		return 1 << id;
+	}
+
+	@Override
+	ARMCpuState getPrevious() {
+		return lastState;
+	}
+
 	@Override
 	public int getCPSR() {
 		return cpsr;
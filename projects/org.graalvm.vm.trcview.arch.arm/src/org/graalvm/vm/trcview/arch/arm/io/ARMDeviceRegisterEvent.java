@@ -36,6 +36,14 @@ public class ARMDeviceRegisterEvent extends DeviceRegisterEvent {
 		return dev;
 	}
 
+	public int getRegisterId() {
+		return reg;
+	}
+
+	public boolean isWrite() {
+		return write;
+	}
+
 	@Override
 	public List<RegisterValue> getValues() {
 		return Collections.singletonList(new RegisterValue(reg, Integer.toUnsignedLong(value)));
@@ -0,0 +1,106 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Content addressed store for the payload of memory dumps. Repeated dumps of the same region with the same
+// contents, like VRAM or palettes dumped every frame, share one array. Entries are only weakly referenced, so an
+// array is dropped from the store once no event uses it anymore. The shared arrays must not be modified.
+//
+// Dumps are matched by a 64 bit hash of their contents and compared in full before an array is shared; a dump
+// whose hash is taken by different contents is simply not shared.
+public class ARMDumpStore {
+	private final Map<Long, Entry> entries = new HashMap<>();
+	private final ReferenceQueue<byte[]> queue = new ReferenceQueue<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder sharedBytes = new LongAdder();
+
+	private static final class Entry extends WeakReference<byte[]> {
+		final long hash;
+
+		Entry(byte[] data, long hash, ReferenceQueue<byte[]> queue) {
+			super(data, queue);
+			this.hash = hash;
+		}
+	}
+
+	private static long hash(byte[] data, int length) {
+		// FNV-1a, seeded with the length
+		long h = 0xCBF29CE484222325L ^ length;
+		for(int i = 0; i < length; i++) {
+			h ^= data[i];
+			h *= 0x100000001B3L;
+		}
+		return h;
+	}
+
+	private void expunge() {
+		Entry entry;
+		while((entry = (Entry) queue.poll()) != null) {
+			// the slot may already hold a newer array with the same hash
+			entries.remove(entry.hash, entry);
+		}
+	}
+
+	private static boolean equals(byte[] data, byte[] buf, int length) {
+		if(data.length != length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(data[i] != buf[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private synchronized byte[] intern(byte[] buf, int length, long h, boolean copy) {
+		expunge();
+		Entry entry = entries.get(h);
+		byte[] data = entry != null ? entry.get() : null;
+		if(data != null && equals(data, buf, length)) {
+			hits.increment();
+			sharedBytes.add(length);
+			return data;
+		}
+		misses.increment();
+		byte[] result = copy ? Arrays.copyOf(buf, length) : buf;
+		if(data == null) {
+			entries.put(h, new Entry(result, h, queue));
+		}
+		return result;
+	}
+
+	// Returns an array with the first length bytes of buf. The caller may reuse buf afterwards.
+	public byte[] intern(byte[] buf, int length) {
+		return intern(buf, length, hash(buf, length), true);
+	}
+
+	// Returns data itself or an array with the same contents which is already in the store.
+	public byte[] intern(byte[] data) {
+		return intern(data, data.length, hash(data, data.length), false);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	// number of payload bytes which did not need an array of their own
+	public long getSharedBytes() {
+		return sharedBytes.sum();
+	}
+
+	public synchronized int size() {
+		expunge();
+		return entries.size();
+	}
+}
@@ -0,0 +1,161 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Selects the records ARMTraceReader turns into events. Rejected memory accesses and dumps are skipped in the
+// input without creating any objects. Steps are always decoded since every later step depends on them, and
+// device register events are still derived from rejected accesses to the I/O ports.
+//
+// The textual form used by -Dtrcview.arm.filter is a comma separated list of the record kinds reads, writes,
+// dumps and irq, address ranges like 4000000-4FFFFFF and thread ids like tid=1. Without any kind all kinds are
+// accepted; several ranges or threads accept a record if any of them matches.
+public class ARMEventFilter {
+	private static final int MEMORY = 1 << ARMTraceReader.TYPE_READ_8 | 1 << ARMTraceReader.TYPE_READ_16 |
+			1 << ARMTraceReader.TYPE_READ_32 | 1 << ARMTraceReader.TYPE_WRITE_8 |
+			1 << ARMTraceReader.TYPE_WRITE_16 | 1 << ARMTraceReader.TYPE_WRITE_32;
+	private static final int READS = 1 << ARMTraceReader.TYPE_READ_8 | 1 << ARMTraceReader.TYPE_READ_16 |
+			1 << ARMTraceReader.TYPE_READ_32;
+	private static final int WRITES = MEMORY & ~READS;
+	private static final int DUMPS = 1 << ARMTraceReader.TYPE_DUMP;
+	private static final int IRQS = 1 << ARMTraceReader.TYPE_IRQ;
+
+	private int records = MEMORY | DUMPS | IRQS;
+	// inclusive start/end pairs of unsigned addresses
+	private long[] ranges = null;
+	private BitSet threads = null;
+
+	public void setReads(boolean accept) {
+		set(READS, accept);
+	}
+
+	public void setWrites(boolean accept) {
+		set(WRITES, accept);
+	}
+
+	public void setDumps(boolean accept) {
+		set(DUMPS, accept);
+	}
+
+	public void setIRQs(boolean accept) {
+		set(IRQS, accept);
+	}
+
+	private void set(int mask, boolean accept) {
+		if(accept) {
+			records |= mask;
+		} else {
+			records &= ~mask;
+		}
+	}
+
+	// only accept memory accesses and dumps which touch one of the added ranges
+	public void addRange(int start, int end) {
+		long first = Integer.toUnsignedLong(start);
+		long last = Integer.toUnsignedLong(end);
+		if(first > last) {
+			throw new IllegalArgumentException("empty range");
+		}
+		if(ranges == null) {
+			ranges = new long[2];
+		} else {
+			ranges = Arrays.copyOf(ranges, ranges.length + 2);
+		}
+		ranges[ranges.length - 2] = first;
+		ranges[ranges.length - 1] = last;
+	}
+
+	// only accept records of the added threads; steps and thread switches are not affected
+	public void addThread(int tid) {
+		if(threads == null) {
+			threads = new BitSet();
+		}
+		threads.set(tid);
+	}
+
+	private boolean acceptThread(int tid) {
+		return threads == null || threads.get(tid);
+	}
+
+	private boolean acceptRange(long first, long last) {
+		if(ranges == null) {
+			return true;
+		}
+		for(int i = 0; i < ranges.length; i += 2) {
+			if(first <= ranges[i + 1] && last >= ranges[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean acceptMemory(int type, int tid, int address) {
+		if((records & (1 << type)) == 0 || !acceptThread(tid)) {
+			return false;
+		}
+		long addr = Integer.toUnsignedLong(address);
+		return acceptRange(addr, addr);
+	}
+
+	public boolean acceptDump(int tid, int address, int length) {
+		if((records & DUMPS) == 0 || !acceptThread(tid)) {
+			return false;
+		}
+		long addr = Integer.toUnsignedLong(address);
+		return acceptRange(addr, addr + Math.max(length, 1) - 1);
+	}
+
+	public boolean acceptIRQ(int tid) {
+		return (records & IRQS) != 0 && acceptThread(tid);
+	}
+
+	public boolean acceptDevice(int tid) {
+		return acceptThread(tid);
+	}
+
+	public static ARMEventFilter parse(String spec) {
+		ARMEventFilter filter = new ARMEventFilter();
+		int kinds = 0;
+		for(String token : spec.split(",")) {
+			String s = token.trim();
+			if(s.isEmpty()) {
+				continue;
+			}
+			switch(s) {
+			case "reads":
+				kinds |= READS;
+				break;
+			case "writes":
+				kinds |= WRITES;
+				break;
+			case "dumps":
+				kinds |= DUMPS;
+				break;
+			case "irq":
+				kinds |= IRQS;
+				break;
+			default:
+				try {
+					if(s.startsWith("tid=")) {
+						filter.addThread(Integer.parseInt(s.substring(4)));
+					} else {
+						int dash = s.indexOf('-');
+						if(dash == -1) {
+							int addr = Integer.parseUnsignedInt(s, 16);
+							filter.addRange(addr, addr);
+						} else {
+							filter.addRange(Integer.parseUnsignedInt(s.substring(0, dash), 16),
+									Integer.parseUnsignedInt(s.substring(dash + 1), 16));
+						}
+					}
+				} catch(NumberFormatException e) {
+					throw new IllegalArgumentException("invalid filter element: " + s);
+				}
+			}
+		}
+		if(kinds != 0) {
+			filter.records = kinds;
+		}
+		return filter;
+	}
+}
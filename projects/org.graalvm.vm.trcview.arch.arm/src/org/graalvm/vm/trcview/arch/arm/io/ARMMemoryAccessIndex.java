@@ -0,0 +1,149 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Associates memory accesses with the steps which performed them. Steps and accesses are numbered in trace order
+// starting with 0. For every step the index of its first access is stored, so the accesses of step i are the
+// range first(i)..first(i + 1) - 1; every access stores the number of its step together with size and direction.
+// Address and value of the accesses are kept in primitive columns, so no event objects are retained.
+//
+// Accesses which precede the first step belong to no step. The index is filled by ARMTraceReader and only
+// describes a trace which was read sequentially from the beginning.
+public class ARMMemoryAccessIndex {
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final int FLAG_SIZE = 0x07;
+	private static final int FLAG_WRITE = 0x08;
+	private static final int FLAG_BITS = 4;
+
+	// per step
+	private final LongColumn steps = new LongColumn();
+	private final LongColumn first = new LongColumn();
+
+	// per access; owner holds (step index + 1) << FLAG_BITS | flags
+	private final IntColumn addresses = new IntColumn();
+	private final IntColumn values = new IntColumn();
+	private final LongColumn owner = new LongColumn();
+
+	private static class IntColumn {
+		private final List<int[]> chunks = new ArrayList<>();
+		private long size = 0;
+
+		void add(int value) {
+			int i = (int) (size & CHUNK_MASK);
+			if(i == 0) {
+				chunks.add(new int[CHUNK_SIZE]);
+			}
+			chunks.get(chunks.size() - 1)[i] = value;
+			size++;
+		}
+
+		int get(long index) {
+			return chunks.get((int) (index >>> CHUNK_BITS))[(int) (index & CHUNK_MASK)];
+		}
+	}
+
+	private static class LongColumn {
+		private final List<long[]> chunks = new ArrayList<>();
+		private long size = 0;
+
+		void add(long value) {
+			int i = (int) (size & CHUNK_MASK);
+			if(i == 0) {
+				chunks.add(new long[CHUNK_SIZE]);
+			}
+			chunks.get(chunks.size() - 1)[i] = value;
+			size++;
+		}
+
+		long get(long index) {
+			return chunks.get((int) (index >>> CHUNK_BITS))[(int) (index & CHUNK_MASK)];
+		}
+	}
+
+	void addStep(long step) {
+		steps.add(step);
+		first.add(owner.size);
+	}
+
+	void addAccess(int address, int value, int size, boolean write) {
+		addresses.add(address);
+		values.add(value);
+		owner.add(steps.size << FLAG_BITS | size | (write ? FLAG_WRITE : 0));
+	}
+
+	public long getStepCount() {
+		return steps.size;
+	}
+
+	public long getAccessCount() {
+		return owner.size;
+	}
+
+	// step number of the step with index i
+	public long getStep(long i) {
+		return steps.get(i);
+	}
+
+	// index of the step with the given step number, or -1 if it is not in the index
+	public long getStepIndex(long step) {
+		long n = steps.size;
+		if(n == 0) {
+			return -1;
+		}
+		// step numbers are usually consecutive
+		long guess = step - steps.get(0);
+		if(guess >= 0 && guess < n && steps.get(guess) == step) {
+			return guess;
+		}
+		long lo = 0;
+		long hi = n - 1;
+		while(lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			long s = steps.get(mid);
+			if(s < step) {
+				lo = mid + 1;
+			} else if(s > step) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	// index of the first access of step i
+	public long getFirstAccess(long i) {
+		return first.get(i);
+	}
+
+	// number of accesses performed by step i
+	public int getStepAccessCount(long i) {
+		long end = i + 1 < steps.size ? first.get(i + 1) : owner.size;
+		return (int) (end - first.get(i));
+	}
+
+	// index of the step which performed access k, or -1 if the access precedes the first step
+	public long getAccessStep(long k) {
+		return (owner.get(k) >>> FLAG_BITS) - 1;
+	}
+
+	public int getAddress(long k) {
+		return addresses.get(k);
+	}
+
+	public int getValue(long k) {
+		return values.get(k);
+	}
+
+	public int getSize(long k) {
+		return (int) (owner.get(k) & FLAG_SIZE);
+	}
+
+	public boolean isWrite(long k) {
+		return (owner.get(k) & FLAG_WRITE) != 0;
+	}
+}
@@ -0,0 +1,238 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
+import org.graalvm.vm.trcview.arch.io.Event;
+
+// Decodes partitions between index checkpoints concurrently and returns their events in trace order. Every
+// partition starts from the full register state, tid and thread map of its checkpoint, so the delta chains
+// of different partitions never reference each other.
+public class ARMParallelTraceReader extends ArchTraceReader {
+	private static final int CHECKPOINTS_PER_PARTITION = 16;
+
+	private final ForkJoinPool pool;
+	private final FileChannel channel;
+	private final ARMCompressedTrace trace;
+	private final long start;
+	private final List<ARMCheckpoint> boundaries;
+	private final int lookahead;
+
+	private final ARMTraceReader sequential;
+	private ARMEventFilter filter = null;
+	private boolean coalesce = false;
+	private ARMDumpStore dumps = null;
+
+	private final Deque<ForkJoinTask<Partition>> tasks = new ArrayDeque<>();
+	private int nextPartition = 0;
+	private Partition current = null;
+	private int position = 0;
+	private long offset = 0;
+
+	private static class Partition {
+		final Event[] events;
+		final long[] offsets;
+
+		Partition(Event[] events, long[] offsets, int count) {
+			this.events = Arrays.copyOf(events, count);
+			this.offsets = offsets;
+		}
+	}
+
+	public ARMParallelTraceReader(Path path) throws IOException {
+		this(path, 0, ForkJoinPool.commonPool());
+	}
+
+	public ARMParallelTraceReader(Path path, long start, ForkJoinPool pool) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ).position(start), path, pool);
+	}
+
+	// the trace starts at the current position of the channel; its index is kept in the index cache
+	public ARMParallelTraceReader(FileChannel channel) throws IOException {
+		this(channel, null, ForkJoinPool.commonPool());
+	}
+
+	private ARMParallelTraceReader(FileChannel file, Path path, ForkJoinPool pool) throws IOException {
+		this.pool = pool;
+		this.start = file.position();
+		this.lookahead = 2 * pool.getParallelism();
+
+		ARMTraceIndex index;
+		ARMCompressedTrace compressed = null;
+		if(ARMCompressedTrace.isCompressed(file)) {
+			// every block of a compressed trace starts at a checkpoint
+			compressed = new ARMCompressedTrace(file);
+			index = compressed.getIndex();
+		} else {
+			Path indexPath;
+			if(path != null) {
+				indexPath = ARMTraceIndex.getPath(path);
+				index = ARMTraceIndex.load(indexPath, start, file.size(), ARMTraceIndex.getStamp(path));
+			} else {
+				long stamp = ARMTraceIndex.fingerprint(file, start);
+				indexPath = ARMTraceIndex.getCachePath(start, file.size(), stamp);
+				index = ARMTraceIndex.loadCached(start, file.size(), stamp);
+			}
+			if(index != null && !verify(file, start, index)) {
+				// the index belongs to another trace, the sequential pass below replaces it
+				Files.deleteIfExists(indexPath);
+				index = null;
+			}
+		}
+
+		if(index == null) {
+			// without checkpoints there is nothing to split on; decode sequentially and build the index
+			// so that the next load can be parallel
+			if(path != null) {
+				file.close();
+				sequential = new ARMTraceReader(path, start);
+			} else {
+				sequential = new ARMTraceReader(file);
+			}
+			channel = null;
+			trace = null;
+			boundaries = null;
+		} else {
+			sequential = null;
+			channel = file;
+			trace = compressed;
+			boundaries = new ArrayList<>();
+			boundaries.add(null);
+			for(int i = CHECKPOINTS_PER_PARTITION - 1; i < index.size(); i += CHECKPOINTS_PER_PARTITION) {
+				boundaries.add(index.get(i));
+			}
+		}
+	}
+
+	// checks the checkpoints partitions would start at
+	private static boolean verify(FileChannel file, long start, ARMTraceIndex index) throws IOException {
+		ARMTraceReader reader = new ARMTraceReader(new MappedLEInputStream(file, start));
+		for(int i = CHECKPOINTS_PER_PARTITION - 1; i < index.size(); i += CHECKPOINTS_PER_PARTITION) {
+			if(!reader.verify(index.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// number of partitions decoded concurrently, or 0 if the trace is decoded sequentially
+	public int getPartitionCount() {
+		return boundaries != null ? boundaries.size() : 0;
+	}
+
+	private Partition decode(int id) throws IOException {
+		ARMTraceReader reader;
+		if(trace != null) {
+			// partitions are already decompressed in parallel, no need for read-ahead within them
+			reader = new ARMTraceReader(trace.open(0));
+		} else {
+			reader = new ARMTraceReader(new MappedLEInputStream(channel, start));
+		}
+		ARMCheckpoint first = boundaries.get(id);
+		reader.setFilter(filter);
+		reader.setCoalesce(coalesce);
+		reader.setDumpStore(dumps);
+		if(first != null) {
+			reader.restore(first);
+		}
+		if(id + 1 < boundaries.size()) {
+			reader.setLimit(boundaries.get(id + 1).getOffset());
+		}
+
+		Event[] events = new Event[4096];
+		long[] offsets = new long[4096];
+		int count = 0;
+		int n;
+		while((n = reader.readBatch(events, offsets, count, events.length - count)) > 0) {
+			count += n;
+			if(count == events.length) {
+				events = Arrays.copyOf(events, events.length * 2);
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+		}
+		return new Partition(events, offsets, count);
+	}
+
+	// has to be set before the first event is read
+	public void setFilter(ARMEventFilter filter) {
+		this.filter = filter;
+		if(sequential != null) {
+			sequential.setFilter(filter);
+		}
+	}
+
+	public void setCoalesce(boolean coalesce) {
+		this.coalesce = coalesce;
+		if(sequential != null) {
+			sequential.setCoalesce(coalesce);
+		}
+	}
+
+	// the store is shared by all partitions
+	public void setDumpStore(ARMDumpStore dumps) {
+		this.dumps = dumps;
+		if(sequential != null) {
+			sequential.setDumpStore(dumps);
+		}
+	}
+
+	private void submit() {
+		while(tasks.size() < lookahead && nextPartition < boundaries.size()) {
+			int id = nextPartition++;
+			tasks.add(pool.submit(() -> decode(id)));
+		}
+	}
+
+	@Override
+	public Event read() throws IOException {
+		if(sequential != null) {
+			return sequential.read();
+		}
+
+		while(current == null || position == current.events.length) {
+			submit();
+			ForkJoinTask<Partition> task = tasks.poll();
+			if(task == null) {
+				channel.close();
+				return null;
+			}
+			try {
+				current = task.get();
+			} catch(InterruptedException e) {
+				throw new IOException("interrupted while decoding trace", e);
+			} catch(ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof IOException) {
+					throw (IOException) cause;
+				} else {
+					throw new IOException(cause);
+				}
+			}
+			position = 0;
+		}
+
+		offset = current.offsets[position];
+		return current.events[position++];
+	}
+
+	@Override
+	public long tell() {
+		if(sequential != null) {
+			return sequential.tell();
+		} else {
+			return offset;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
+import org.graalvm.vm.trcview.arch.io.Event;
+
+// Runs an ARMTraceReader on a separate decoder thread which hands finished events to the caller through a
+// lock-free ring. Stream input is additionally read ahead on an I/O thread, so reading, decoding and the
+// analysis which consumes the events all run concurrently.
+public class ARMPipelinedTraceReader extends ArchTraceReader implements Closeable {
+	private static final int RING_SIZE = 64 * 1024;
+	private static final int BATCH_SIZE = 1024;
+	// events held back at most while waiting for the thread of a context switch
+	private static final int MAX_HOLD = 16 * BATCH_SIZE;
+
+	private final Closeable source;
+	private final EventRing ring;
+	private final Decoder decoder;
+
+	public ARMPipelinedTraceReader(InputStream in) {
+		this(in, null, false, null);
+	}
+
+	// the options have to be known up front since decoding starts right away
+	public ARMPipelinedTraceReader(InputStream in, ARMEventFilter filter, boolean coalesce, ARMDumpStore dumps) {
+		this(new ReadAheadInputStream(in), filter, coalesce, dumps);
+	}
+
+	private ARMPipelinedTraceReader(ReadAheadInputStream in, ARMEventFilter filter, boolean coalesce,
+			ARMDumpStore dumps) {
+		this(configure(new ARMTraceReader(in), filter, coalesce, dumps), in);
+	}
+
+	public ARMPipelinedTraceReader(ARMTraceReader reader) {
+		this(reader, null);
+	}
+
+	private static ARMTraceReader configure(ARMTraceReader reader, ARMEventFilter filter, boolean coalesce,
+			ARMDumpStore dumps) {
+		reader.setFilter(filter);
+		reader.setCoalesce(coalesce);
+		reader.setDumpStore(dumps);
+		return reader;
+	}
+
+	private ARMPipelinedTraceReader(ARMTraceReader reader, Closeable source) {
+		if(reader.getStepStore() != null) {
+			// the decoder appends to the store while the consumer reads earlier steps from it
+			throw new IllegalArgumentException("cannot pipeline a reader with a step store");
+		}
+		this.source = source;
+		ring = new EventRing(RING_SIZE, this);
+		decoder = new Decoder(reader, ring, source);
+		Thread thread = new Thread(decoder, "trace decoder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// thread of a context switch which was published before it was known
+	private static class Resolution {
+		final ARMContextSwitchEvent event;
+		final int id;
+		final int address;
+		// applied once the consumer took more than this many events
+		final long position;
+
+		Resolution(ARMContextSwitchEvent event, ARMContextSwitchEvent resolved, long position) {
+			this.event = event;
+			this.id = resolved.getThreadID();
+			this.address = resolved.getThreadAddress();
+			this.position = position;
+		}
+	}
+
+	// Does not reference the ARMPipelinedTraceReader, so the ring is abandoned once the reader becomes unreachable
+	// without being closed, and the decoder stops.
+	private static class Decoder implements Runnable {
+		private final ARMTraceReader reader;
+		private final EventRing ring;
+		private final Closeable source;
+		private final Queue<Resolution> resolutions = new ConcurrentLinkedQueue<>();
+
+		// published context switch which the reader resolves through a copy
+		private ARMContextSwitchEvent detached = null;
+		private ARMContextSwitchEvent copy = null;
+		// number of events put into the ring
+		private long published = 0;
+
+		// written before the ring is finished
+		private volatile IOException error = null;
+
+		Decoder(ARMTraceReader reader, EventRing ring, Closeable source) {
+			this.reader = reader;
+			this.ring = ring;
+			this.source = source;
+		}
+
+		@Override
+		public void run() {
+			try {
+				Event[] events = new Event[BATCH_SIZE];
+				long[] offsets = new long[BATCH_SIZE];
+				int n;
+				while((n = reader.readBatch(events, offsets, 0, BATCH_SIZE)) > 0) {
+					// A context switch learns its thread only from a later step, so hold the batch back until that
+					// step was decoded; the consumer then never sees the event change. Some switches are resolved
+					// much later or never, those are published after MAX_HOLD events and resolved in read().
+					while(reader.isContextSwitchPending() && reader.getPendingContextSwitch() != copy &&
+							n < MAX_HOLD) {
+						if(n == events.length) {
+							events = Arrays.copyOf(events, n * 2);
+							offsets = Arrays.copyOf(offsets, n * 2);
+						}
+						int cnt = reader.readBatch(events, offsets, n, events.length - n);
+						if(cnt <= 0) {
+							break;
+						}
+						n += cnt;
+					}
+					if(detached != null) {
+						if(copy.isResolved()) {
+							resolutions.add(new Resolution(detached, copy, published));
+							detached = null;
+						} else if(reader.getPendingContextSwitch() != copy) {
+							// superseded by another switch, stays unresolved like in a sequential decode
+							detached = null;
+						}
+					}
+					if(detached == null && reader.isContextSwitchPending()) {
+						detached = reader.getPendingContextSwitch();
+						copy = reader.detachContextSwitch();
+					}
+					if(!ring.put(events, offsets, n)) {
+						// closed or abandoned by the consumer
+						if(source != null) {
+							source.close();
+						}
+						return;
+					}
+					published += n;
+				}
+			} catch(IOException e) {
+				error = e;
+			} catch(RuntimeException e) {
+				error = new IOException("error while decoding trace", e);
+			} finally {
+				ring.finish();
+			}
+		}
+	}
+
+	@Override
+	public Event read() throws IOException {
+		Event evt = ring.take();
+		// context switches published before their thread was known, resolved here so that only the consumer
+		// writes to events it already received
+		Resolution r;
+		while((r = decoder.resolutions.peek()) != null && r.position < ring.getTaken()) {
+			r.event.setThreadID(r.id);
+			r.event.setThreadAddress(r.address);
+			decoder.resolutions.poll();
+		}
+		if(evt == null && decoder.error != null) {
+			throw decoder.error;
+		}
+		return evt;
+	}
+
+	@Override
+	public long tell() {
+		return ring.getOffset();
+	}
+
+	@Override
+	public void close() throws IOException {
+		ring.close();
+		if(source != null) {
+			source.close();
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.graalvm.vm.trcview.arch.arm.io;
 
 import org.graalvm.vm.trcview.arch.arm.ARM;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMDisassemblyCache;
 import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
 import org.graalvm.vm.trcview.arch.arm.disasm.Cpsr;
 import org.graalvm.vm.trcview.arch.io.InstructionType;
@@ -9,14 +10,25 @@ import org.graalvm.vm.trcview.arch.io.StepFormat;
 import org.graalvm.vm.util.io.Endianess;
 
 public abstract class ARMStepEvent extends StepEvent {
-	private byte overrideType;
+	private static final InstructionType[] TYPES = InstructionType.values();
+
+	// ordinal + 1 of the instruction type, 0 if it was not determined yet
+	private byte type;
 
 	protected ARMStepEvent(int tid) {
 		super(tid);
 	}
 
-	void setTypeOverride(int override) {
-		overrideType = (byte) override;
+	void setType(InstructionType type) {
+		this.type = (byte) (type.ordinal() + 1);
+	}
+
+	int getTypeId() {
+		return type;
+	}
+
+	void setTypeId(int id) {
+		type = (byte) id;
 	}
 
 	@Override
@@ -34,17 +46,14 @@ public abstract class ARMStepEvent extends StepEvent {
 
 	@Override
 	public String[] getDisassemblyComponents() {
-		return ARMv5Disassembler.disassemble(getState().getGPR(15), getState().getCPSR(), getState().getCode());
+		ARMCpuState state = getState();
+		return ARMDisassemblyCache.getInstance().disassemble(state.getGPR(15), state.getCPSR(), state.getCode());
 	}
 
 	@Override
 	public String getMnemonic() {
-		String[] asm = getDisassemblyComponents();
-		if(asm != null) {
-			return asm[0];
-		} else {
-			return null;
-		}
+		ARMCpuState state = getState();
+		return ARMDisassemblyCache.getInstance().getMnemonic(state.getGPR(15), state.getCPSR(), state.getCode());
 	}
 
 	@Override
@@ -54,13 +63,11 @@ public abstract class ARMStepEvent extends StepEvent {
 
 	@Override
 	public InstructionType getType() {
-		if(overrideType == 1) {
-			return InstructionType.RET;
-		} else if(overrideType == 2) {
-			return InstructionType.OTHER;
-		} else {
-			return ARMv5Disassembler.getType(getState());
+		if(type == 0) {
+			// states which were not created by the trace reader
+			setType(ARMv5Disassembler.getType(getState()));
 		}
+		return TYPES[type - 1];
 	}
 
 	@Override
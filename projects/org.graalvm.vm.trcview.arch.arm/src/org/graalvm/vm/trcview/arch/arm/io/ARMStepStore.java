@@ -0,0 +1,302 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Packs decoded steps into off-heap columns. Each step stores its code, the mask of registers it wrote and a flags
+// byte (instruction type, CPSR write and which of the optional values follow); everything else goes to a value
+// column: the written registers, and the CPSR, tid and step number only where they differ from what follows
+// from the previous step. Every ROW_INTERVAL steps a full row with all of them is stored, so a lookup never has
+// to scan more than ROW_INTERVAL steps. That amounts to 7 bytes per step plus about 4 bytes per written register
+// and the rows, roughly 18 bytes per step for typical traces.
+//
+// Steps are addressed by their index. Views on a step are ARMStoredCpuState objects, which only hold the index.
+public class ARMStepStore {
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	public static final int ROW_INTERVAL = 32;
+
+	private static final int FLAG_TYPE = 0x0F;
+	private static final int FLAG_CPSR = 0x10;
+	// optional values stored after the registers, in this order
+	private static final int HAS_CPSR = 0x20;
+	private static final int HAS_TID = 0x40;
+	private static final int HAS_STEP = 0x80;
+
+	private final List<Chunk> chunks = new ArrayList<>();
+	private long size = 0;
+
+	// values of the last added step
+	private int lastCpsr;
+	private int lastTid;
+	private long lastStep;
+
+	private static class Chunk {
+		final ByteBuffer code = allocate(CHUNK_SIZE * 4);
+		final ByteBuffer written = allocate(CHUNK_SIZE * 2);
+		final ByteBuffer flags = allocate(CHUNK_SIZE);
+		final int[] rows = new int[CHUNK_SIZE / ROW_INTERVAL];
+
+		// most steps write the PC and at most one other register
+		ByteBuffer values = allocate(CHUNK_SIZE * 4 * 3);
+		int valueCount = 0;
+
+		void addValue(int value) {
+			if(valueCount * 4 == values.capacity()) {
+				resize(values.capacity() + values.capacity() / 2);
+			}
+			values.putInt(valueCount * 4, value);
+			valueCount++;
+		}
+
+		void resize(int capacity) {
+			ByteBuffer tmp = allocate(capacity);
+			values.position(0);
+			values.limit(valueCount * 4);
+			tmp.put(values);
+			tmp.clear();
+			values = tmp;
+		}
+
+		long getMemorySize() {
+			return code.capacity() + written.capacity() + flags.capacity() + rows.length * 4 + values.capacity();
+		}
+
+		int getMask(int i) {
+			if((i & (ROW_INTERVAL - 1)) == 0) {
+				return 0xFFFF;
+			} else {
+				return Short.toUnsignedInt(written.getShort(i * 2));
+			}
+		}
+
+		int getFlags(int i) {
+			return Byte.toUnsignedInt(flags.get(i));
+		}
+
+		// number of values stored for step i
+		int getCount(int i) {
+			int f = getFlags(i);
+			int count = Integer.bitCount(getMask(i));
+			if((f & HAS_CPSR) != 0) {
+				count++;
+			}
+			if((f & HAS_TID) != 0) {
+				count++;
+			}
+			if((f & HAS_STEP) != 0) {
+				count += 2;
+			}
+			return count;
+		}
+
+		// position of the optional value with the given flag of step i whose values start at off
+		int getPosition(int i, int off, int flag) {
+			int f = getFlags(i);
+			int pos = off + Integer.bitCount(getMask(i));
+			if(flag != HAS_CPSR && (f & HAS_CPSR) != 0) {
+				pos++;
+			}
+			if(flag == HAS_STEP && (f & HAS_TID) != 0) {
+				pos++;
+			}
+			return pos;
+		}
+
+		// value of the optional field with the given flag from the last step at or before i which stored it
+		int getOptional(int i, int flag) {
+			int row = i & ~(ROW_INTERVAL - 1);
+			int off = rows[row / ROW_INTERVAL];
+			int pos = 0;
+			for(int j = row; j <= i; j++) {
+				if((getFlags(j) & flag) != 0) {
+					pos = getPosition(j, off, flag);
+				}
+				off += getCount(j);
+			}
+			return values.getInt(pos * 4);
+		}
+	}
+
+	private static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+	}
+
+	// Appends the state and returns its index. Registers which are not in the changed mask of the state are
+	// taken from the previous step.
+	public long add(ARMCpuState state) {
+		int i = (int) (size & CHUNK_MASK);
+		Chunk chunk;
+		if(i == 0) {
+			if(!chunks.isEmpty()) {
+				// the last chunk is complete, drop the spare capacity of its values
+				Chunk last = chunks.get(chunks.size() - 1);
+				last.resize(last.valueCount * 4);
+			}
+			chunk = new Chunk();
+			chunks.add(chunk);
+		} else {
+			chunk = chunks.get(chunks.size() - 1);
+		}
+
+		int changed = state.getChangedMask();
+		int cpsr = state.getCPSR();
+		int tid = state.getTid();
+		long step = state.getStep();
+
+		int flags = state.getTypeId() & FLAG_TYPE;
+		if((changed & ARMCpuState.CHANGED_CPSR) != 0) {
+			flags |= FLAG_CPSR;
+		}
+		boolean row = i % ROW_INTERVAL == 0;
+		if(row) {
+			chunk.rows[i / ROW_INTERVAL] = chunk.valueCount;
+			flags |= HAS_CPSR | HAS_TID | HAS_STEP;
+		} else {
+			if(cpsr != lastCpsr) {
+				flags |= HAS_CPSR;
+			}
+			if(tid != lastTid) {
+				flags |= HAS_TID;
+			}
+			if(step != lastStep + 1) {
+				flags |= HAS_STEP;
+			}
+		}
+
+		chunk.code.putInt(i * 4, state.getCode());
+		chunk.written.putShort(i * 2, (short) changed);
+		chunk.flags.put(i, (byte) flags);
+		int mask = chunk.getMask(i);
+		for(int r = 0; r < 16; r++) {
+			if((mask & (1 << r)) != 0) {
+				chunk.addValue(state.getGPR(r));
+			}
+		}
+		if((flags & HAS_CPSR) != 0) {
+			chunk.addValue(cpsr);
+		}
+		if((flags & HAS_TID) != 0) {
+			chunk.addValue(tid);
+		}
+		if((flags & HAS_STEP) != 0) {
+			chunk.addValue((int) step);
+			chunk.addValue((int) (step >>> 32));
+		}
+
+		lastCpsr = cpsr;
+		lastTid = tid;
+		lastStep = step;
+		return size++;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	void check(long index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("step " + index + " out of range");
+		}
+	}
+
+	// returns a new view on the step with the given index
+	public ARMStoredCpuState get(long index) {
+		check(index);
+		return new ARMStoredCpuState(this, index);
+	}
+
+	public long getMemorySize() {
+		long result = 0;
+		for(Chunk chunk : chunks) {
+			result += chunk.getMemorySize();
+		}
+		return result;
+	}
+
+	private Chunk chunk(long index) {
+		return chunks.get((int) (index >>> CHUNK_BITS));
+	}
+
+	int getGPR(long index, int reg) {
+		Chunk chunk = chunk(index);
+		int i = (int) (index & CHUNK_MASK);
+		int bit = 1 << reg;
+		// the full row at the start of each interval ends the search
+		int row = i & ~(ROW_INTERVAL - 1);
+		int off = chunk.rows[row / ROW_INTERVAL];
+		int result = 0;
+		for(int j = row; j <= i; j++) {
+			int mask = chunk.getMask(j);
+			if((mask & bit) != 0) {
+				result = off + Integer.bitCount(mask & (bit - 1));
+			}
+			off += chunk.getCount(j);
+		}
+		return chunk.values.getInt(result * 4);
+	}
+
+	int getLookupDepth(long index, int reg) {
+		Chunk chunk = chunk(index);
+		int bit = 1 << reg;
+		int i = (int) (index & CHUNK_MASK);
+		int depth = 0;
+		while((chunk.getMask(i - depth) & bit) == 0) {
+			depth++;
+		}
+		return depth;
+	}
+
+	int getCPSR(long index) {
+		return chunk(index).getOptional((int) (index & CHUNK_MASK), HAS_CPSR);
+	}
+
+	int getCode(long index) {
+		return chunk(index).code.getInt((int) (index & CHUNK_MASK) * 4);
+	}
+
+	long getStep(long index) {
+		Chunk chunk = chunk(index);
+		int i = (int) (index & CHUNK_MASK);
+		int row = i & ~(ROW_INTERVAL - 1);
+		int off = chunk.rows[row / ROW_INTERVAL];
+		long step = 0;
+		for(int j = row; j <= i; j++) {
+			if((chunk.getFlags(j) & HAS_STEP) != 0) {
+				int pos = chunk.getPosition(j, off, HAS_STEP);
+				step = Integer.toUnsignedLong(chunk.values.getInt(pos * 4)) |
+						(long) chunk.values.getInt(pos * 4 + 4) << 32;
+			} else {
+				step++;
+			}
+			off += chunk.getCount(j);
+		}
+		return step;
+	}
+
+	int getTid(long index) {
+		return chunk(index).getOptional((int) (index & CHUNK_MASK), HAS_TID);
+	}
+
+	int getTypeId(long index) {
+		return chunk(index).flags.get((int) (index & CHUNK_MASK)) & FLAG_TYPE;
+	}
+
+	int getChangedMask(long index) {
+		Chunk chunk = chunk(index);
+		int i = (int) (index & CHUNK_MASK);
+		int mask = Short.toUnsignedInt(chunk.written.getShort(i * 2));
+		if((chunk.flags.get(i) & FLAG_CPSR) != 0) {
+			mask |= ARMCpuState.CHANGED_CPSR;
+		}
+		return mask;
+	}
+
+	int getRegisterMask(long index) {
+		return chunk(index).getMask((int) (index & CHUNK_MASK));
+	}
+}
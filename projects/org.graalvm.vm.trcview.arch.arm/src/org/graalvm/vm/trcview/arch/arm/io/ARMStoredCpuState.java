@@ -0,0 +1,70 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+// View on one step of an ARMStepStore. The reader returns a view per step; code which walks through the store
+// itself can move a single view from step to step with setIndex instead.
+public class ARMStoredCpuState extends ARMCpuState {
+	private final ARMStepStore store;
+	private long index;
+
+	ARMStoredCpuState(ARMStepStore store, long index) {
+		super(0);
+		this.store = store;
+		this.index = index;
+		setTypeId(store.getTypeId(index));
+	}
+
+	public long getIndex() {
+		return index;
+	}
+
+	public void setIndex(long index) {
+		store.check(index);
+		this.index = index;
+		setTypeId(store.getTypeId(index));
+	}
+
+	@Override
+	public int getTid() {
+		return store.getTid(index);
+	}
+
+	@Override
+	public int getChangedMask() {
+		return store.getChangedMask(index);
+	}
+
+	@Override
+	int getLocalRegisters() {
+		return store.getRegisterMask(index);
+	}
+
+	@Override
+	public int getLookupDepth(int reg) {
+		return store.getLookupDepth(index, reg);
+	}
+
+	@Override
+	public int getGPR(int reg) {
+		return store.getGPR(index, reg);
+	}
+
+	@Override
+	public int getCPSR() {
+		return store.getCPSR(index);
+	}
+
+	@Override
+	public int getSPSR() {
+		return 0;
+	}
+
+	@Override
+	public int getCode() {
+		return store.getCode(index);
+	}
+
+	@Override
+	public long getStep() {
+		return store.getStep(index);
+	}
+}
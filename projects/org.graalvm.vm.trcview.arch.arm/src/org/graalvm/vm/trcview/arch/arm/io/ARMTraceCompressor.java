@@ -0,0 +1,199 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Deflater;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.util.io.LEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+// Converts a raw trace into the block compressed container read by ARMCompressedTrace. The raw trace is decoded
+// once to find block boundaries where the reader state can be captured in a checkpoint; the blocks themselves
+// are compressed in parallel.
+public class ARMTraceCompressor {
+	public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	private int level = Deflater.DEFAULT_COMPRESSION;
+
+	private static class Block {
+		final long offset;
+		final int size;
+		final ARMCheckpoint checkpoint;
+		long position;
+		int compressedSize;
+
+		Block(long offset, int size, ARMCheckpoint checkpoint) {
+			this.offset = offset;
+			this.size = size;
+			this.checkpoint = checkpoint;
+		}
+	}
+
+	// minimum amount of raw data per block; blocks end at the first possible checkpoint after it
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	private byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(level);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			byte[] buf = new byte[data.length / 2 + 64];
+			int n = 0;
+			while(!deflater.finished()) {
+				if(n == buf.length) {
+					buf = Arrays.copyOf(buf, buf.length * 2);
+				}
+				n += deflater.deflate(buf, n, buf.length - n);
+			}
+			return Arrays.copyOf(buf, n);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] read(FileChannel channel, long offset, int size) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		while(buf.hasRemaining()) {
+			if(channel.read(buf, offset + buf.position()) == -1) {
+				throw new IOException("unexpected end of trace");
+			}
+		}
+		return buf.array();
+	}
+
+	private static byte[] join(ForkJoinTask<byte[]> task) throws IOException {
+		try {
+			return task.get();
+		} catch(InterruptedException e) {
+			throw new IOException("interrupted while compressing trace", e);
+		} catch(ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	public void compress(Path input, Path output) throws IOException {
+		if(ARMCompressedTrace.isCompressed(input)) {
+			throw new IOException("trace is already compressed");
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int inflight = 2 * pool.getParallelism();
+
+		try(FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+				OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output), 1024 * 1024)) {
+			WordOutputStream out = new LEOutputStream(stream);
+			out.write64bit(ARMCompressedTrace.MAGIC);
+			out.write32bit(ARMCompressedTrace.VERSION);
+			long position = ARMCompressedTrace.HEADER_SIZE;
+
+			List<Block> blocks = new ArrayList<>();
+			Deque<ForkJoinTask<byte[]>> tasks = new ArrayDeque<>();
+			int written = 0;
+
+			ARMTraceReader reader = new ARMTraceReader(new MappedLEInputStream(channel, 0));
+			long start = 0;
+			ARMCheckpoint checkpoint = null;
+			while(true) {
+				Event evt = reader.read();
+				long end = reader.tell();
+				boolean split = false;
+				if(evt == null) {
+					split = end > start;
+				} else if(evt instanceof ARMStepEvent && end - start >= blockSize) {
+					split = true;
+				}
+				ARMCheckpoint next = null;
+				if(split && evt != null) {
+					next = reader.getCheckpoint();
+					split = next != null;
+				}
+				if(split) {
+					if(end - start > Integer.MAX_VALUE) {
+						throw new IOException("no checkpoint found within 2GB at offset " + start);
+					}
+					Block block = new Block(start, (int) (end - start), checkpoint);
+					byte[] data = read(channel, start, block.size);
+					blocks.add(block);
+					tasks.add(pool.submit(() -> deflate(data)));
+					start = end;
+					checkpoint = next;
+				}
+
+				// write finished blocks in order, keeping a bounded number of blocks in memory
+				while(!tasks.isEmpty() && (tasks.size() > inflight || evt == null)) {
+					byte[] compressed = join(tasks.poll());
+					Block block = blocks.get(written++);
+					out.write32bit(compressed.length);
+					out.write32bit(block.size);
+					out.write(compressed, 0, compressed.length);
+					block.position = position + 8;
+					block.compressedSize = compressed.length;
+					position += 8 + compressed.length;
+				}
+
+				if(evt == null) {
+					break;
+				}
+			}
+
+			out.write32bit(0);
+			position += 4;
+
+			out.write32bit(blocks.size());
+			for(Block block : blocks) {
+				out.write64bit(block.position);
+				out.write64bit(block.offset);
+				out.write32bit(block.compressedSize);
+				out.write32bit(block.size);
+				if(block.checkpoint != null) {
+					out.write8bit((byte) 1);
+					block.checkpoint.write(out);
+				} else {
+					out.write8bit((byte) 0);
+				}
+			}
+			out.write64bit(position);
+			out.write64bit(ARMCompressedTrace.MAGIC);
+			out.flush();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2 || args.length > 4) {
+			System.out.println("Usage: ARMTraceCompressor input output [block size [level]]");
+			System.exit(1);
+		}
+
+		ARMTraceCompressor compressor = new ARMTraceCompressor();
+		if(args.length > 2) {
+			compressor.setBlockSize(Integer.parseInt(args[2]));
+		}
+		if(args.length > 3) {
+			compressor.setLevel(Integer.parseInt(args[3]));
+		}
+		compressor.compress(Paths.get(args[0]), Paths.get(args[1]));
+	}
+}
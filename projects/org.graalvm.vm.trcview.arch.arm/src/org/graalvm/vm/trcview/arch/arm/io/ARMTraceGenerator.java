@@ -0,0 +1,307 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+// Generates synthetic traces for benchmarks and tests. The output only depends on the seed and the configured
+// probabilities, so runs with the same parameters always produce the same file.
+public class ARMTraceGenerator {
+	private static final int MODE_IRQ = 0b10010;
+	private static final int MODE_SVC = 0b10011;
+	private static final int MODE_SYS = 0b11111;
+	private static final int MODE_MASK = 0b11111;
+	private static final int THUMB = 1 << 5;
+	private static final int FLAGS = 0xF0000000;
+
+	// STMIA R0, {R0-R14} and LDMIA R0, {R0-R14}^ as used by the scheduler
+	private static final int CONTEXT_SAVE = 0xE8807FFF;
+	private static final int CONTEXT_LOAD = 0xE8D07FFF;
+
+	private static final int IRQ_VECTOR = 0xFFFF0018;
+	private static final int IRQ_STACK = 0x0380FF80;
+	private static final int THREAD_STACKS = 0x02300000;
+
+	// address and access size of device registers known to ARMDevices
+	// @formatter:off
+	private static final int[][] DEVICE_REGISTERS = {
+			{ 0x4000000, 4 }, { 0x4000060, 4 }, { 0x4000064, 4 }, { 0x4000068, 4 }, { 0x400006C, 2 },
+			{ 0x4000204, 2 }, { 0x4000240, 1 }, { 0x4000241, 1 }, { 0x4000242, 1 }, { 0x4000243, 1 },
+			{ 0x4000244, 1 }, { 0x4000245, 1 }, { 0x4000246, 1 }, { 0x4000247, 1 }, { 0x4000248, 1 },
+			{ 0x4000249, 1 }, { 0x4000400, 4 }, { 0x4000540, 4 }, { 0x4000580, 4 }
+	};
+	// @formatter:on
+
+	private final Random rng;
+
+	// probabilities per step
+	private double modeSwitch = 0.01;
+	private double flagChange = 0.05;
+	private double memory = 0.3;
+	private double io = 0.002;
+	private double dump = 0.0005;
+	private double irq = 0.0002;
+	private double contextSwitch = 0.0001;
+
+	private int maxRegisters = 2;
+	private int threadCount = 4;
+	private boolean compact = false;
+
+	private ARMTraceWriter out;
+	private final int[] r = new int[16];
+	private int cpsr;
+	private int pc;
+	private long step;
+
+	private int thread;
+	private int irqSteps;
+	private int irqReturnCpsr;
+	private int irqReturnPC;
+	private int irqReturnSP;
+
+	public ARMTraceGenerator(long seed) {
+		rng = new Random(seed);
+	}
+
+	public void setModeSwitchProbability(double p) {
+		modeSwitch = p;
+	}
+
+	public void setFlagChangeProbability(double p) {
+		flagChange = p;
+	}
+
+	public void setMemoryProbability(double p) {
+		memory = p;
+	}
+
+	public void setIOProbability(double p) {
+		io = p;
+	}
+
+	public void setDumpProbability(double p) {
+		dump = p;
+	}
+
+	public void setIRQProbability(double p) {
+		irq = p;
+	}
+
+	public void setContextSwitchProbability(double p) {
+		contextSwitch = p;
+	}
+
+	public void setMaxRegisters(int n) {
+		maxRegisters = n;
+	}
+
+	public void setThreadCount(int n) {
+		threadCount = n;
+	}
+
+	public void setCompact(boolean compact) {
+		this.compact = compact;
+	}
+
+	public void generate(OutputStream stream, long steps) throws IOException {
+		out = new ARMTraceWriter(stream);
+		out.setCompact(compact);
+		cpsr = MODE_SYS;
+		pc = 0x02000000;
+		step = 0;
+		thread = 0;
+		irqSteps = 0;
+		for(int i = 0; i < 16; i++) {
+			r[i] = 0;
+		}
+		r[13] = getThreadStack(0);
+
+		while(step < steps) {
+			if(irqSteps > 0) {
+				if(--irqSteps == 0) {
+					cpsr = irqReturnCpsr;
+					pc = irqReturnPC;
+					r[13] = irqReturnSP;
+				}
+				instruction();
+			} else if(chance(irq)) {
+				out.writeIRQ();
+				irqReturnCpsr = cpsr;
+				irqReturnPC = pc;
+				irqReturnSP = r[13];
+				cpsr = (cpsr & ~(MODE_MASK | THUMB)) | MODE_IRQ;
+				pc = IRQ_VECTOR;
+				r[13] = IRQ_STACK;
+				irqSteps = 8 + rng.nextInt(32);
+				instruction();
+			} else if(!isThumb() && threadCount > 1 && step + 3 <= steps && chance(contextSwitch)) {
+				switchThread();
+			} else {
+				if(chance(modeSwitch)) {
+					// BX to the other instruction set
+					cpsr ^= THUMB;
+					pc &= ~3;
+				}
+				instruction();
+			}
+		}
+		out.flush();
+	}
+
+	private boolean chance(double p) {
+		return p > 0 && rng.nextDouble() < p;
+	}
+
+	private boolean isThumb() {
+		return (cpsr & THUMB) != 0;
+	}
+
+	private int getThreadStack(int id) {
+		return THREAD_STACKS + id * 0x1000;
+	}
+
+	private void emit(int code) throws IOException {
+		if(isThumb()) {
+			pc += 2;
+			r[15] = pc + 4;
+		} else {
+			pc += 4;
+			r[15] = pc + 8;
+		}
+		out.writeStep(code, step++, cpsr, r);
+	}
+
+	private void instruction() throws IOException {
+		int code;
+		if(isThumb()) {
+			code = rng.nextInt(0x10000);
+		} else {
+			// mostly unconditional instructions like in compiled code
+			int cond = rng.nextInt(8) == 0 ? rng.nextInt(15) : 0xE;
+			code = cond << 28 | (rng.nextInt() & 0x0FFFFFFF);
+		}
+
+		int writes = rng.nextInt(maxRegisters + 1);
+		for(int i = 0; i < writes; i++) {
+			int reg = rng.nextInt(15);
+			if(reg == 13) {
+				// stack operations keep SP close to its previous value
+				r[13] += rng.nextBoolean() ? 4 : -4;
+			} else {
+				r[reg] = rng.nextInt();
+			}
+		}
+		if(chance(flagChange)) {
+			cpsr = (cpsr & ~FLAGS) | (rng.nextInt() & FLAGS);
+		}
+		emit(code);
+
+		if(chance(memory)) {
+			int size = 1 << rng.nextInt(3);
+			int address = (0x02000000 + rng.nextInt(0x400000)) & ~(size - 1);
+			out.writeMemory(rng.nextBoolean(), size, address, rng.nextInt());
+		}
+		if(chance(io)) {
+			int[] reg = DEVICE_REGISTERS[rng.nextInt(DEVICE_REGISTERS.length)];
+			out.writeMemory(true, reg[1], reg[0], rng.nextInt());
+		}
+		if(chance(dump)) {
+			byte[] data = new byte[16 + rng.nextInt(241)];
+			rng.nextBytes(data);
+			out.writeDump(0x02000000 + rng.nextInt(0x100000) * 4, data);
+		}
+	}
+
+	private void switchThread() throws IOException {
+		// save the registers of the current thread in system mode
+		emit(CONTEXT_SAVE);
+
+		// load the registers of the next thread in supervisor mode
+		cpsr = (cpsr & ~MODE_MASK) | MODE_SVC;
+		emit(CONTEXT_LOAD);
+
+		thread = (thread + 1 + rng.nextInt(threadCount - 1)) % threadCount;
+		for(int i = 0; i < 13; i++) {
+			r[i] = rng.nextInt();
+		}
+		r[13] = getThreadStack(thread);
+		cpsr = (cpsr & ~MODE_MASK) | MODE_SYS;
+		pc = 0x02000000 + rng.nextInt(0x10000) * 4;
+		emit(0xE1A00000); // NOP
+	}
+
+	private static void usage() {
+		System.out.println("Usage: ARMTraceGenerator output steps [seed] [key=value...]");
+		System.out.println("Keys: modeswitch, flags, memory, io, dump, irq, switch (probabilities per step),");
+		System.out.println("      registers (max registers written per step), threads, compact (true/false)");
+		System.exit(1);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			usage();
+		}
+
+		Path path = Paths.get(args[0]);
+		long steps = Long.parseLong(args[1]);
+		long seed = 0;
+		int first = 2;
+		if(args.length > 2 && !args[2].contains("=")) {
+			seed = Long.parseLong(args[2]);
+			first = 3;
+		}
+
+		ARMTraceGenerator gen = new ARMTraceGenerator(seed);
+		for(int i = first; i < args.length; i++) {
+			int eq = args[i].indexOf('=');
+			if(eq == -1) {
+				usage();
+			}
+			String key = args[i].substring(0, eq);
+			String value = args[i].substring(eq + 1);
+			switch(key) {
+			case "modeswitch":
+				gen.setModeSwitchProbability(Double.parseDouble(value));
+				break;
+			case "flags":
+				gen.setFlagChangeProbability(Double.parseDouble(value));
+				break;
+			case "memory":
+				gen.setMemoryProbability(Double.parseDouble(value));
+				break;
+			case "io":
+				gen.setIOProbability(Double.parseDouble(value));
+				break;
+			case "dump":
+				gen.setDumpProbability(Double.parseDouble(value));
+				break;
+			case "irq":
+				gen.setIRQProbability(Double.parseDouble(value));
+				break;
+			case "switch":
+				gen.setContextSwitchProbability(Double.parseDouble(value));
+				break;
+			case "registers":
+				gen.setMaxRegisters(Integer.parseInt(value));
+				break;
+			case "threads":
+				gen.setThreadCount(Integer.parseInt(value));
+				break;
+			case "compact":
+				gen.setCompact(Boolean.parseBoolean(value));
+				break;
+			default:
+				System.out.println("Unknown key: " + key);
+				usage();
+			}
+		}
+
+		try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1024 * 1024)) {
+			gen.generate(out, steps);
+		}
+	}
+}
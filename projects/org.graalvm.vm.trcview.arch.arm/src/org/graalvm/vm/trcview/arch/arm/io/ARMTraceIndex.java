@@ -0,0 +1,222 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.vm.util.io.LEInputStream;
+import org.graalvm.vm.util.io.LEOutputStream;
+import org.graalvm.vm.util.io.WordInputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+public class ARMTraceIndex {
+	private static final long MAGIC = 0x5844494D5241L; // "ARMIDX"
+	private static final int VERSION = 2;
+
+	private static final int FINGERPRINT_SAMPLES = 16;
+	private static final int FINGERPRINT_SAMPLE_SIZE = 16 * 1024;
+
+	// number of indices kept in the index cache; the least recently used ones are deleted
+	public static final int MAX_CACHED = 64;
+
+	private final long start;
+	private final long size;
+	// identifies the version of the trace, see getStamp and fingerprint
+	private final long stamp;
+	private final List<ARMCheckpoint> checkpoints = new ArrayList<>();
+
+	public ARMTraceIndex(long start, long size, long stamp) {
+		this.start = start;
+		this.size = size;
+		this.stamp = stamp;
+	}
+
+	public static Path getPath(Path trace) {
+		return trace.resolveSibling(trace.getFileName() + ".idx");
+	}
+
+	// Location of the index of a trace which is only known as an open channel. Such indices are kept in
+	// -Dtrcview.arm.indexdir, by default below java.io.tmpdir, and named after the fingerprint of the trace.
+	// The fingerprint only samples the trace, so the checkpoints of a cached index are verified before use.
+	public static Path getCachePath(long start, long size, long stamp) {
+		return getCacheDirectory().resolve(String.format("%016x-%x-%x.idx", stamp, size, start));
+	}
+
+	public static Path getCacheDirectory() {
+		String dir = System.getProperty("trcview.arm.indexdir");
+		return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("java.io.tmpdir"), "trcview-arm");
+	}
+
+	// returns the cached index of the trace if there is one and marks it as recently used
+	public static ARMTraceIndex loadCached(long start, long size, long stamp) {
+		Path path = getCachePath(start, size, stamp);
+		ARMTraceIndex index = load(path, start, size, stamp);
+		if(index != null) {
+			try {
+				Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+			} catch(IOException e) {
+				// only affects which index is evicted first
+			}
+		}
+		return index;
+	}
+
+	// deletes the least recently used indices until at most MAX_CACHED are left
+	public static void prune() throws IOException {
+		Path dir = getCacheDirectory();
+		if(!Files.isDirectory(dir)) {
+			return;
+		}
+		Map<Path, FileTime> used = new HashMap<>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.idx")) {
+			for(Path file : files) {
+				used.put(file, Files.getLastModifiedTime(file));
+			}
+		}
+		List<Path> files = new ArrayList<>(used.keySet());
+		files.sort(Comparator.comparing(used::get));
+		for(int i = 0; i < files.size() - MAX_CACHED; i++) {
+			Files.deleteIfExists(files.get(i));
+		}
+	}
+
+	public static long getStamp(Path trace) throws IOException {
+		return Files.getLastModifiedTime(trace).toMillis();
+	}
+
+	// Hash over the size and samples spread across the trace, used as stamp where the modification time is not
+	// available. Appending to the trace or rewriting it changes the fingerprint.
+	public static long fingerprint(FileChannel channel, long start) throws IOException {
+		long length = channel.size() - start;
+		int samples = length > FINGERPRINT_SAMPLE_SIZE ? FINGERPRINT_SAMPLES : 1;
+		ByteBuffer buf = ByteBuffer.allocate(FINGERPRINT_SAMPLE_SIZE);
+		// FNV-1a, seeded with the length
+		long h = 0xCBF29CE484222325L ^ length;
+		for(int i = 0; i < samples; i++) {
+			// the first sample starts at the beginning of the trace and the last one ends at its end
+			long offset = samples == 1 ? 0 : (length - FINGERPRINT_SAMPLE_SIZE) * i / (samples - 1);
+			buf.clear();
+			// positional reads leave the position of the channel alone
+			while(buf.hasRemaining()) {
+				if(channel.read(buf, start + offset + buf.position()) < 0) {
+					break;
+				}
+			}
+			for(int n = 0; n < buf.position(); n++) {
+				h ^= buf.get(n);
+				h *= 0x100000001B3L;
+			}
+		}
+		return h;
+	}
+
+	public boolean matches(long traceStart, long traceSize, long traceStamp) {
+		return start == traceStart && size == traceSize && stamp == traceStamp;
+	}
+
+	// returns the index stored at path if it describes the given trace, otherwise null
+	public static ARMTraceIndex load(Path path, long traceStart, long traceSize, long traceStamp) {
+		if(!Files.exists(path)) {
+			return null;
+		}
+		try {
+			ARMTraceIndex index = read(path);
+			if(index.matches(traceStart, traceSize, traceStamp)) {
+				return index;
+			}
+		} catch(IOException e) {
+			// broken index, has to be rebuilt
+		}
+		return null;
+	}
+
+	// an empty index for the same trace
+	ARMTraceIndex clear() {
+		return new ARMTraceIndex(start, size, stamp);
+	}
+
+	void add(ARMCheckpoint checkpoint) {
+		checkpoints.add(checkpoint);
+	}
+
+	public int size() {
+		return checkpoints.size();
+	}
+
+	public ARMCheckpoint get(int i) {
+		return checkpoints.get(i);
+	}
+
+	public List<ARMCheckpoint> getCheckpoints() {
+		return Collections.unmodifiableList(checkpoints);
+	}
+
+	// returns the last checkpoint at or before the given step
+	public int find(long step) {
+		int lo = 0;
+		int hi = checkpoints.size() - 1;
+		int result = -1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if(checkpoints.get(mid).getStep() <= step) {
+				result = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	public void write(Path path) throws IOException {
+		try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+			WordOutputStream o = new LEOutputStream(out);
+			o.write64bit(MAGIC);
+			o.write32bit(VERSION);
+			o.write64bit(start);
+			o.write64bit(size);
+			o.write64bit(stamp);
+			o.write32bit(checkpoints.size());
+			for(ARMCheckpoint checkpoint : checkpoints) {
+				checkpoint.write(o);
+			}
+		}
+	}
+
+	public static ARMTraceIndex read(Path path) throws IOException {
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+			WordInputStream i = new LEInputStream(in);
+			if(i.read64bit() != MAGIC) {
+				throw new IOException("not an ARM trace index");
+			}
+			int version = i.read32bit();
+			if(version != VERSION) {
+				throw new IOException("unsupported index version " + version);
+			}
+			long start = i.read64bit();
+			long size = i.read64bit();
+			long stamp = i.read64bit();
+			ARMTraceIndex index = new ARMTraceIndex(start, size, stamp);
+			int count = i.read32bit();
+			for(int n = 0; n < count; n++) {
+				index.add(ARMCheckpoint.read(i));
+			}
+			return index;
+		}
+	}
+}
@@ -1,16 +1,23 @@
 package org.graalvm.vm.trcview.arch.arm.io;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.graalvm.vm.posix.api.mem.Mman;
 import org.graalvm.vm.trcview.arch.arm.device.ARMDevices;
-import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Disassembler;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMInstruction;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMOpcode;
+import org.graalvm.vm.trcview.arch.arm.disasm.ARMv5Decoder;
 import org.graalvm.vm.trcview.arch.arm.disasm.Cpsr;
-import org.graalvm.vm.trcview.arch.arm.disasm.InstructionFormat.Thumb;
 import org.graalvm.vm.trcview.arch.io.ArchTraceReader;
 import org.graalvm.vm.trcview.arch.io.Event;
 import org.graalvm.vm.trcview.arch.io.InstructionType;
@@ -37,10 +44,17 @@ public class ARMTraceReader extends ArchTraceReader {
 	public static final int TYPE_WRITE_32 = 7;
 	public static final int TYPE_DUMP = 8;
 	public static final int TYPE_IRQ = 9;
+	public static final int TYPE_STEP_COMPACT = 10;
 
-	private static final int STEP_LIMIT = 5_000;
+	// maximum number of delta states a register lookup has to walk through
+	public static final int MAX_CHAIN_DEPTH = 64;
+	// snapshots with more registers than this are materialized as full state
+	public static final int MAX_PARTIAL_REGISTERS = 8;
+	private static final int CHECKPOINT_INTERVAL = 5_000;
 
-	private final Thumb thumb = new Thumb();
+	// decoded instruction of the current step and scratch space for the previous one
+	private final ARMInstruction insn = new ARMInstruction();
+	private final ARMInstruction previous = new ARMInstruction();
 
 	private final WordInputStream in;
 	private ARMStepEvent lastStep;
@@ -48,7 +62,7 @@ public class ARMTraceReader extends ArchTraceReader {
 	private ARMContextSwitchEvent contextSwitch = null;
 	private boolean contextSwitchCommitted = false;
 	private MemoryEvent mem = null;
-	private long steps = 0;
+	private final int[] depth = new int[16];
 	private int init = 0;
 
 	private Map<Integer, Integer> threads = new HashMap<>();
@@ -57,11 +71,261 @@ public class ARMTraceReader extends ArchTraceReader {
 	private int tidcnt = 1;
 	private ARMCpuState lastIRQState;
 
+	private ARMTraceIndex index = null;
+	private Path indexPath = null;
+	// the index is kept in the index cache instead of next to the trace
+	private boolean cachedIndex = false;
+	private boolean indexing = false;
+	private long checkpointSteps = 0;
+	// start of the last step record and the step and PC it was decoded against, see ARMCheckpoint
+	private long stepOffset = 0;
+	private long previousStep = 0;
+	private int previousPC = 0;
+
+	private long limit = Long.MAX_VALUE;
+
+	private boolean bounded = true;
+
+	private ARMStepStore store = null;
+
+	private FollowInputStream follow = null;
+
+	private ARMEventFilter filter = null;
+
+	private boolean coalesce = false;
+
+	private ARMDumpStore dumps = null;
+
+	private ARMMemoryAccessIndex accesses = null;
+	private byte[] dumpBuffer = new byte[0];
+	// record read ahead while merging writes; the value and address are only valid for pendingAccess
+	private int pendingType = -1;
+	private boolean pendingAccess = false;
+	private int pendingValue;
+	private int pendingAddress;
+
 	public ARMTraceReader(InputStream in) {
-		this.in = new LEInputStream(in);
+		this(new LEInputStream(in));
+	}
+
+	public ARMTraceReader(FileChannel channel) throws IOException {
+		this(open(channel));
+		if(in instanceof BlockLEInputStream) {
+			index = ((BlockLEInputStream) in).getTrace().getIndex();
+		} else {
+			// the path of the trace is unknown, so the index is cached under the fingerprint of its contents
+			long start = channel.position();
+			long size = channel.size();
+			long stamp = ARMTraceIndex.fingerprint(channel, start);
+			useIndex(ARMTraceIndex.getCachePath(start, size, stamp), start, size, stamp, true);
+		}
+	}
+
+	public ARMTraceReader(ARMCompressedTrace trace) {
+		this(trace.open());
+		index = trace.getIndex();
+	}
+
+	public ARMTraceReader(WordInputStream in) {
+		this.in = in;
 		lastStep = null;
 	}
 
+	public ARMTraceReader(Path path) throws IOException {
+		this(path, 0);
+	}
+
+	// start is the offset of the first record, e.g. after a container header
+	public ARMTraceReader(Path path, long start) throws IOException {
+		this(open(FileChannel.open(path, StandardOpenOption.READ).position(start)));
+		if(in instanceof BlockLEInputStream) {
+			// compressed traces carry their own checkpoints
+			index = ((BlockLEInputStream) in).getTrace().getIndex();
+			return;
+		}
+		useIndex(ARMTraceIndex.getPath(path), start, Files.size(path), ARMTraceIndex.getStamp(path), false);
+	}
+
+	// reuses the index stored at path or builds it there while reading
+	private void useIndex(Path path, long start, long size, long stamp, boolean cached) {
+		indexPath = path;
+		cachedIndex = cached;
+		if(cached) {
+			index = ARMTraceIndex.loadCached(start, size, stamp);
+		} else {
+			index = ARMTraceIndex.load(path, start, size, stamp);
+		}
+		if(index == null) {
+			index = new ARMTraceIndex(start, size, stamp);
+			indexing = true;
+		}
+	}
+
+	private static WordInputStream open(FileChannel channel) throws IOException {
+		if(ARMCompressedTrace.isCompressed(channel)) {
+			return new ARMCompressedTrace(channel).open();
+		} else {
+			return new MappedLEInputStream(channel);
+		}
+	}
+
+	// Reads a trace which is still being written. read() blocks at the end of the file until more records arrive;
+	// once the stream is stopped, a record which was only partially written ends the trace.
+	public static ARMTraceReader follow(FollowInputStream in) {
+		ARMTraceReader reader = new ARMTraceReader(new BufferedInputStream(in));
+		reader.follow = in;
+		return reader;
+	}
+
+	// Keep decoded steps in an off-heap columnar store instead of a chain of state objects. Every step is then
+	// returned as its own ARMStoredCpuState, a flyweight which only holds the index of the step in the store.
+	public void setStepStore(ARMStepStore store) {
+		if(lastStep != null) {
+			throw new IllegalStateException("step store must be set before the first step");
+		}
+		this.store = store;
+	}
+
+	// keep the delta chains as they were decoded instead of limiting them to MAX_CHAIN_DEPTH; this saves the
+	// copied registers, but register lookups walk through arbitrarily many states
+	public void setBounded(boolean bounded) {
+		this.bounded = bounded;
+	}
+
+	// skip records rejected by the filter while decoding; null accepts everything
+	public void setFilter(ARMEventFilter filter) {
+		this.filter = filter;
+	}
+
+	public ARMEventFilter getFilter() {
+		return filter;
+	}
+
+	// merge contiguous writes of one instruction into ARMBlockWriteEvents
+	public void setCoalesce(boolean coalesce) {
+		this.coalesce = coalesce;
+	}
+
+	public boolean isCoalesce() {
+		return coalesce;
+	}
+
+	// share the payload of identical memory dumps through this store
+	public void setDumpStore(ARMDumpStore dumps) {
+		this.dumps = dumps;
+	}
+
+	public ARMDumpStore getDumpStore() {
+		return dumps;
+	}
+
+	// record which step performed which memory access while decoding
+	public void setMemoryAccessIndex(ARMMemoryAccessIndex accesses) {
+		if(lastStep != null) {
+			throw new IllegalStateException("memory access index must be set before the first step");
+		}
+		this.accesses = accesses;
+	}
+
+	public ARMMemoryAccessIndex getMemoryAccessIndex() {
+		return accesses;
+	}
+
+	public ARMStepStore getStepStore() {
+		return store;
+	}
+
+	// stop before the first record at or after this offset
+	void setLimit(long limit) {
+		this.limit = limit;
+	}
+
+	public ARMTraceIndex getIndex() {
+		return index;
+	}
+
+	private void checkpoint() {
+		if(checkpointSteps >= CHECKPOINT_INTERVAL) {
+			ARMCheckpoint checkpoint = getCheckpoint();
+			if(checkpoint != null) {
+				index.add(checkpoint);
+				checkpointSteps = 0;
+			}
+		}
+	}
+
+	// whether a context switch was emitted whose thread is not known yet
+	boolean isContextSwitchPending() {
+		return contextSwitch != null && contextSwitchCommitted;
+	}
+
+	ARMContextSwitchEvent getPendingContextSwitch() {
+		return isContextSwitchPending() ? contextSwitch : null;
+	}
+
+	// Lets the reader resolve a copy of the pending context switch instead of the emitted event, so that the event
+	// is not written to anymore once it was handed to another thread. Returns the copy.
+	ARMContextSwitchEvent detachContextSwitch() {
+		contextSwitch = contextSwitch.copy();
+		return contextSwitch;
+	}
+
+	// Captures the state needed to continue decoding at the current position. Only possible where no context
+	// switch is in flight, so that a reader restored from it does not depend on events emitted before it.
+	ARMCheckpoint getCheckpoint() {
+		if(contextSwitch != null || mem != null || lastStep == null) {
+			return null;
+		}
+		return new ARMCheckpoint(tell(), stepOffset, previousStep, previousPC, lastState, tid, tidcnt, threads,
+				lastIRQState);
+	}
+
+	// Checks that a checkpoint of a stored index belongs to this trace: the step record it was taken after has to
+	// decode to the step of the checkpoint. Moves the input, so the reader has to be restored or rewound after.
+	boolean verify(ARMCheckpoint checkpoint) {
+		try {
+			seekInput(checkpoint.getStepOffset());
+			ARMCpuState state;
+			switch(in.read8bit()) {
+			case TYPE_STEP9:
+				state = ARMCpuDeltaState.deltaState(in, checkpoint.getPreviousState());
+				break;
+			case TYPE_STEP_COMPACT:
+				state = ARMCpuDeltaState.compactState(in, checkpoint.getPreviousState());
+				break;
+			default:
+				return false;
+			}
+			return checkpoint.matches(state);
+		} catch(IOException | RuntimeException e) {
+			// outside of the trace or no valid record
+			return false;
+		}
+	}
+
+	// drops an index which does not belong to this trace; it is rebuilt by the next pass from the start
+	private void invalidateIndex() {
+		index = index.clear();
+		try {
+			Files.deleteIfExists(indexPath);
+		} catch(IOException e) {
+			// overwritten once the new index is complete
+		}
+	}
+
+	private void finishIndex() {
+		indexing = false;
+		try {
+			Files.createDirectories(indexPath.getParent());
+			index.write(indexPath);
+			if(cachedIndex) {
+				ARMTraceIndex.prune();
+			}
+		} catch(IOException e) {
+			// the sidecar is only a cache; ignore read-only directories and the like
+		}
+	}
+
 	private static MmapEvent mmap(int start, int end, String name) {
 		return new MmapEvent(0, Integer.toUnsignedLong(start), Integer.toUnsignedLong(end - start + 1),
 				Mman.PROT_READ | Mman.PROT_WRITE | Mman.PROT_EXEC,
@@ -77,8 +341,151 @@ public class ARMTraceReader extends ArchTraceReader {
 		return k(base, size * 1024);
 	}
 
+	public boolean isSeekable() {
+		return in instanceof MappedLEInputStream || in instanceof BlockLEInputStream;
+	}
+
+	private void seekInput(long offset) throws IOException {
+		if(in instanceof BlockLEInputStream) {
+			((BlockLEInputStream) in).seek(offset);
+		} else {
+			((MappedLEInputStream) in).seek(offset);
+		}
+	}
+
+	// Positions the reader at the first step with a step number >= step and returns it; all events before
+	// it are skipped. Subsequent calls to read continue right after the returned step.
+	public ARMStepEvent seek(long step) throws IOException {
+		if(!isSeekable()) {
+			throw new IOException("trace is not seekable");
+		} else if(store != null) {
+			throw new IOException("cannot seek while appending to a step store");
+		} else if(accesses != null) {
+			throw new IOException("cannot seek while building a memory access index");
+		}
+
+		// a partially built index would be incomplete after jumping around
+		indexing = false;
+		// the memory map and device definitions precede the first step
+		init = 16;
+
+		ARMCheckpoint checkpoint = null;
+		if(index != null) {
+			// decoding continues after the step of the checkpoint, so it has to precede the target
+			int id = index.find(step - 1);
+			if(id != -1) {
+				checkpoint = index.get(id);
+			}
+		}
+
+		// keep decoding forward if the target is ahead and no checkpoint is closer
+		long current = lastStep != null ? lastStep.getStep() : -1;
+		boolean forward = lastStep != null && current < step &&
+				(checkpoint == null || checkpoint.getStep() <= current);
+		if(!forward) {
+			// the checkpoints of a container are part of the trace, stored indices might describe another trace
+			if(checkpoint != null && indexPath != null && !verify(checkpoint)) {
+				invalidateIndex();
+				checkpoint = null;
+			}
+			if(checkpoint != null) {
+				restore(checkpoint);
+			} else {
+				rewind();
+				// decoding starts over, so the index can be built along the way
+				indexing = indexPath != null && index.size() == 0;
+			}
+		}
+
+		while(true) {
+			Event evt = next();
+			if(evt == null) {
+				return null;
+			} else if(evt instanceof ARMStepEvent && ((ARMStepEvent) evt).getStep() >= step) {
+				return (ARMStepEvent) evt;
+			}
+		}
+	}
+
+	void restore(ARMCheckpoint checkpoint) throws IOException {
+		seekInput(checkpoint.getOffset());
+		init = 16;
+		lastState = checkpoint.getState();
+		lastStep = lastState;
+		contextSwitch = null;
+		contextSwitchCommitted = false;
+		mem = null;
+		pendingType = -1;
+		pendingAccess = false;
+		Arrays.fill(depth, 0);
+		checkpointSteps = 0;
+		tid = checkpoint.getTid();
+		tidcnt = checkpoint.getThreadCount();
+		threads = new HashMap<>(checkpoint.getThreads());
+		lastIRQState = checkpoint.getIRQState();
+		stepOffset = checkpoint.getStepOffset();
+		previousStep = checkpoint.getPreviousStep();
+		previousPC = checkpoint.getPreviousPC();
+	}
+
+	private void rewind() throws IOException {
+		seekInput(0);
+		lastState = new ARMCpuZeroState(0);
+		lastStep = null;
+		contextSwitch = null;
+		contextSwitchCommitted = false;
+		mem = null;
+		pendingType = -1;
+		pendingAccess = false;
+		Arrays.fill(depth, 0);
+		checkpointSteps = 0;
+		tid = 0;
+		tidcnt = 1;
+		threads = new HashMap<>();
+		lastIRQState = null;
+	}
+
 	@Override
 	public Event read() throws IOException {
+		if(init < 16) {
+			return init();
+		} else {
+			return next();
+		}
+	}
+
+	// Decodes up to len events into events[off..off+len-1] and returns how many were decoded, or -1 at the end
+	// of the trace. If offsets is not null, it receives the value of tell() after each event.
+	public int readBatch(Event[] events, long[] offsets, int off, int len) throws IOException {
+		int n = 0;
+		while(init < 16 && n < len) {
+			if(offsets != null) {
+				offsets[off + n] = tell();
+			}
+			events[off + n++] = init();
+		}
+		while(n < len) {
+			Event evt = next();
+			if(evt == null) {
+				break;
+			}
+			if(offsets != null) {
+				offsets[off + n] = tell();
+			}
+			events[off + n++] = evt;
+		}
+		if(n == 0 && len > 0) {
+			return -1;
+		} else {
+			return n;
+		}
+	}
+
+	public int readBatch(Event[] events, int off, int len) throws IOException {
+		return readBatch(events, null, off, len);
+	}
+
+	private Event init() {
 		switch(init) {
 		case 0:
 			init++;
@@ -128,8 +535,141 @@ public class ARMTraceReader extends ArchTraceReader {
 		case 15:
 			init++;
 			return ARMDevices.createDevices();
+		default:
+			return null;
+		}
+	}
+
+	// Keeps the delta chain short: registers which were not written for MAX_CHAIN_DEPTH steps are copied
+	// into the new state, either as part of a wider delta state or as a full snapshot.
+	private ARMCpuState bound(ARMCpuState state, ARMCpuState previous) {
+		int local = state.getLocalRegisters();
+		int stale = 0;
+		for(int i = 0; i < 16; i++) {
+			if(BitTest.test(local, 1 << i)) {
+				depth[i] = 0;
+			} else if(++depth[i] > MAX_CHAIN_DEPTH) {
+				stale |= 1 << i;
+			}
+		}
+
+		if(stale == 0) {
+			return state;
+		}
+
+		int rmask = local | stale;
+		int count = Integer.bitCount(rmask);
+		if(count > MAX_PARTIAL_REGISTERS) {
+			Arrays.fill(depth, 0);
+			return new ARMCpuFullState(state);
+		}
+
+		int[] data = new int[count];
+		for(int i = 0, n = 0; i < 16; i++) {
+			if(BitTest.test(rmask, 1 << i)) {
+				data[n++] = state.getGPR(i);
+				depth[i] = 0;
+			}
+		}
+		ARMCpuState result = new ARMCpuDeltaState(previous, state.getCPSR(), (short) rmask, state.getCode(),
+				state.getStep(), data);
+		// copied registers were not written by this step
+		result.setChangedMask(state.getChangedMask());
+		return result;
+	}
+
+	private boolean isReturn() {
+		// detect POP R2; BX R2 in ARM9 BIOS code and interpret it as return
+		if(lastStep != null && insn.getOpcode() == ARMOpcode.BX && insn.isThumb() &&
+				Cpsr.T.getBit(lastStep.getState().getCPSR())) {
+			// was in Thumb mode, and still is in Thumb mode; if the previous instruction was a POP without PC
+			// which loaded the register of the BX, this is a return
+			ARMv5Decoder.decodeThumb(0, lastStep.getState().getCode(), previous);
+			int list = previous.getRegisterList();
+			return previous.getOpcode() == ARMOpcode.POP && !BitTest.test(list, 1 << 15) &&
+					BitTest.test(list, 1 << insn.getRm());
+		}
+		return false;
+	}
+
+	private void detectContextSwitch() {
+		if(ARMContextSwitchEvent.isContextSwitch(insn, lastState.getCPSR())) {
+			// ignore previous context switch; this is necessary for OS_RescheduleThreads followed
+			// by a reschedule IRQ
+			contextSwitch = new ARMContextSwitchEvent(0, Cpsr.M.get(lastState.getCPSR()) == 0b10010);
+			contextSwitchCommitted = false;
+		} else if(ARMContextSwitchEvent.isContextSave(insn, lastState.getCPSR())) {
+			// context save: store current thread ID for later matching
+			int thread = ARMContextSwitchEvent.getThreadID(lastState, lastIRQState);
+			threads.put(thread, tid);
+		} else if(contextSwitch != null && Cpsr.M.get(lastState.getCPSR()) != 0b10011 &&
+				Cpsr.M.get(lastState.getCPSR()) != 0b10010) {
+			// determine new thread id after context switch
+			int thread = ARMContextSwitchEvent.getThreadID(lastState);
+			if(threads.containsKey(thread)) {
+				tid = threads.get(thread);
+			} else {
+				tid = tidcnt++;
+				threads.put(thread, tid);
+			}
+			contextSwitch.setThreadID(tid);
+			contextSwitch.setThreadAddress(thread);
+			contextSwitch = null;
+		}
+	}
+
+	private ARMStepEvent step(boolean compact) throws IOException {
+		// the record type was already read
+		stepOffset = tell() - 1;
+		previousStep = lastState.getStep();
+		previousPC = lastState.getGPR(15);
+		checkpointSteps++;
+		ARMCpuState state;
+		if(compact) {
+			state = ARMCpuDeltaState.compactState(in, lastState);
+		} else {
+			state = ARMCpuDeltaState.deltaState(in, lastState);
+		}
+		if(store != null) {
+			// the store bounds lookups itself, the delta only lives until it is appended
+			lastState = state;
+		} else if(!bounded) {
+			lastState = state;
+		} else {
+			lastState = bound(state, lastState);
+		}
+
+		ARMv5Decoder.decode(lastState, insn);
+		InstructionType type;
+		if(isReturn()) {
+			type = InstructionType.RET;
+		} else {
+			type = ARMv5Decoder.getType(insn, lastState.getCPSR());
+			detectContextSwitch();
+
+			if(lastState.getTid() != tid) {
+				lastState = new ARMCpuFullState(lastState, tid);
+				Arrays.fill(depth, 0);
+				if(type == InstructionType.RET) {
+					// no RET after context switch
+					type = InstructionType.OTHER;
+				}
+			}
+		}
+		lastState.setType(type);
+
+		if(store != null) {
+			lastState = store.get(store.add(lastState));
 		}
 
+		lastStep = lastState;
+		if(accesses != null) {
+			accesses.addStep(lastStep.getStep());
+		}
+		return lastStep;
+	}
+
+	private Event next() throws IOException {
 		if(contextSwitch != null && !contextSwitchCommitted) {
 			contextSwitchCommitted = true;
 			return contextSwitch;
@@ -143,133 +683,269 @@ public class ARMTraceReader extends ArchTraceReader {
 			}
 		}
 
-		byte type;
-		try {
-			type = (byte) in.read8bit();
-		} catch(EOFException e) {
-			return null;
-		}
-		switch(type) {
-		case TYPE_STEP9:
-			steps++;
-			lastState = ARMCpuDeltaState.deltaState(in, lastState);
-			if(steps >= STEP_LIMIT) {
-				lastState = new ARMCpuFullState(lastState);
-				steps = 0;
-			}
-
-			// detect POP R2; BX R2 in ARM9 BIOS code and interpret it as return
-			if(lastStep != null && Cpsr.T.getBit(lastStep.getState().getCPSR()) &&
-					Cpsr.T.getBit(lastState.getCPSR())) {
-				// was in Thumb mode, and still is in Thumb mode
-				// now check if the last instruction was a POP and the current one is a BX
-				int code = lastState.getCode();
-				if((code & 0b1111111110000000) == 0b0100011100000000) {
-					// this is a BX, so let's get the register
-					int reg = thumb.Rn.get(code);
-					// now let's see if the previous instruction was a POP with this register
-					int lastCode = lastStep.getState().getCode();
-					if((lastCode & 0b1111111100000000) == 0b1011110000000000) {
-						// this was a POP without PC, now check the register
-						if(BitTest.test(lastCode, 1 << reg)) {
-							// yes, the register was POP'd
-							// override the instruction type to RET
-							lastStep = lastState;
-							lastStep.setTypeOverride(1);
-							return lastStep;
-						}
-					}
-				}
+		while(true) {
+			if(indexing) {
+				checkpoint();
 			}
 
-			// detect context switches
-			if(ARMContextSwitchEvent.isContextSwitch(lastState)) {
-				// ignore previous context switch; this is necessary for OS_RescheduleThreads followed
-				// by a reschedule IRQ
-				contextSwitch = new ARMContextSwitchEvent(0,
-						Cpsr.M.get(lastState.getCPSR()) == 0b10010);
-				contextSwitchCommitted = false;
-			} else if(ARMContextSwitchEvent.isContextSave(lastState)) {
-				// context save: store current thread ID for later matching
-				int thread = ARMContextSwitchEvent.getThreadID(lastState, lastIRQState);
-				threads.put(thread, tid);
-			} else if(contextSwitch != null && Cpsr.M.get(lastState.getCPSR()) != 0b10011 &&
-					Cpsr.M.get(lastState.getCPSR()) != 0b10010) {
-				// determine new thread id after context switch
-				int thread = ARMContextSwitchEvent.getThreadID(lastState);
-				if(threads.containsKey(thread)) {
-					tid = threads.get(thread);
-				} else {
-					tid = tidcnt++;
-					threads.put(thread, tid);
-				}
-				contextSwitch.setThreadID(tid);
-				contextSwitch.setThreadAddress(thread);
-				contextSwitch = null;
+			if(tell() >= limit) {
+				return null;
 			}
 
-			if(lastState.getTid() != tid) {
-				lastState = new ARMCpuFullState(lastState, tid);
-				if(ARMv5Disassembler.getType(lastState) == InstructionType.RET) {
-					// no RET after context switch
-					lastStep = lastState;
-					lastStep.setTypeOverride(2);
+			byte type;
+			try {
+				if(pendingType == -1) {
+					type = (byte) in.read8bit();
 				} else {
-					lastStep = lastState;
+					type = (byte) pendingType;
+					if(!pendingAccess) {
+						pendingType = -1;
+					}
 				}
-			} else {
-				lastStep = lastState;
-			}
-			return lastStep;
-		case TYPE_READ_8: {
-			byte value = (byte) in.read8bit();
-			long address = Integer.toUnsignedLong(in.read32bit());
-			return mem = new MemoryEventI8(false, tid, address, false, value);
-		}
-		case TYPE_READ_16: {
-			short value = in.read16bit();
-			long address = Integer.toUnsignedLong(in.read32bit());
-			return mem = new MemoryEventI16(false, tid, address, false, value);
-		}
-		case TYPE_READ_32: {
-			int value = in.read32bit();
-			long address = Integer.toUnsignedLong(in.read32bit());
-			return mem = new MemoryEventI32(false, tid, address, false, value);
-		}
-		case TYPE_WRITE_8: {
-			byte value = (byte) in.read8bit();
-			long address = Integer.toUnsignedLong(in.read32bit());
-			return mem = new MemoryEventI8(false, tid, address, true, value);
-		}
-		case TYPE_WRITE_16: {
-			short value = in.read16bit();
-			long address = Integer.toUnsignedLong(in.read32bit());
-			return mem = new MemoryEventI16(false, tid, address, true, value);
-		}
-		case TYPE_WRITE_32: {
-			int value = in.read32bit();
-			long address = Integer.toUnsignedLong(in.read32bit());
-			return mem = new MemoryEventI32(false, tid, address, true, value);
+			} catch(EOFException e) {
+				if(indexing) {
+					finishIndex();
+				}
+				return null;
+			}
+			try {
+				Event evt = record(type);
+				if(evt != null) {
+					return evt;
+				}
+			} catch(EOFException e) {
+				if(follow != null && follow.isStopped()) {
+					// the writer stopped in the middle of a record
+					return null;
+				}
+				throw e;
+			}
 		}
+	}
+
+	// returns null if the record was rejected by the filter
+	private Event record(byte type) throws IOException {
+		switch(type) {
+		case TYPE_STEP9:
+			return step(false);
+		case TYPE_STEP_COMPACT:
+			return step(true);
+		case TYPE_READ_8:
+		case TYPE_READ_16:
+		case TYPE_READ_32:
+		case TYPE_WRITE_8:
+		case TYPE_WRITE_16:
+		case TYPE_WRITE_32:
+			return memory(type);
 		case TYPE_DUMP: {
-			long address = Integer.toUnsignedLong(in.read32bit());
+			int address = in.read32bit();
+			if(filter != null || dumps != null) {
+				int length = in.read32bit();
+				if(filter != null && !filter.acceptDump(tid, address, length)) {
+					skip(length);
+					return null;
+				}
+				return new MemoryDumpEvent(tid, Integer.toUnsignedLong(address), readArray(length));
+			}
 			byte[] data = IO.readArray(in);
-			return new MemoryDumpEvent(tid, address, data);
+			return new MemoryDumpEvent(tid, Integer.toUnsignedLong(address), data);
 		}
 		case TYPE_IRQ: {
 			if(lastStep != null) {
 				lastIRQState = lastStep.getState();
 			}
+			if(filter != null && !filter.acceptIRQ(tid)) {
+				return null;
+			}
 			return new ARMExceptionEvent(tid, lastStep);
 		}
 		default:
-			throw new IOException("unknown record: " + HexFormatter.tohex(type, 8) +
-					" [position " + tell() + "]");
+			throw new IOException("unknown record: " + HexFormatter.tohex(type, 8) + " [position " + tell() + "]");
+		}
+	}
+
+	private static int getAccessSize(int type) {
+		switch(type) {
+		case TYPE_READ_8:
+		case TYPE_WRITE_8:
+			return 1;
+		case TYPE_READ_16:
+		case TYPE_WRITE_16:
+			return 2;
+		default:
+			return 4;
+		}
+	}
+
+	private Event memory(int type) throws IOException {
+		int size = getAccessSize(type);
+		int value;
+		int address;
+		if(pendingAccess) {
+			value = pendingValue;
+			address = pendingAddress;
+			pendingType = -1;
+			pendingAccess = false;
+		} else {
+			value = readValue(size);
+			address = in.read32bit();
+		}
+		boolean write = type >= TYPE_WRITE_8;
+		// the index records every access of a step, whether the filter turns it into an event or not
+		if(accesses != null) {
+			accesses.addAccess(address, value, size, write);
+		}
+		if(filter != null && !filter.acceptMemory(type, tid, address)) {
+			return device(address, value, write);
+		}
+		if(write && coalesce) {
+			Event block = coalesce(type, size, address, value);
+			if(block != null) {
+				return block;
+			}
+		}
+		long addr = Integer.toUnsignedLong(address);
+		switch(size) {
+		case 1:
+			return mem = new MemoryEventI8(false, tid, addr, write, (byte) value);
+		case 2:
+			return mem = new MemoryEventI16(false, tid, addr, write, (short) value);
+		default:
+			return mem = new MemoryEventI32(false, tid, addr, write, value);
+		}
+	}
+
+	private int readValue(int size) throws IOException {
+		switch(size) {
+		case 1:
+			return in.read8bit();
+		case 2:
+			return Short.toUnsignedInt(in.read16bit());
+		default:
+			return in.read32bit();
+		}
+	}
+
+	// Merges the writes of the same width to the following addresses which directly follow this one, i.e. which
+	// belong to the same instruction, into one block event. The first record which does not continue the run is
+	// kept as pending record. Returns null if there is nothing to merge. Accesses to the I/O ports are never
+	// merged since they produce device events.
+	private Event coalesce(int type, int size, int address, int value) throws IOException {
+		if((address >>> 24) == 0x04) {
+			return null;
+		}
+
+		byte[] data = null;
+		int length = 0;
+		int v = value;
+		while(true) {
+			if(data == null) {
+				data = new byte[16 * size];
+			} else if(length + size > data.length) {
+				data = Arrays.copyOf(data, data.length * 2);
+			}
+			for(int i = 0; i < size; i++) {
+				data[length++] = (byte) (v >>> (i * 8));
+			}
+
+			if(in.tell() >= limit) {
+				break;
+			}
+			try {
+				pendingType = in.read8bit();
+				if(pendingType != type) {
+					break;
+				}
+				pendingValue = readValue(size);
+				pendingAddress = in.read32bit();
+				pendingAccess = true;
+			} catch(EOFException e) {
+				if(pendingType != -1 && (follow == null || !follow.isStopped())) {
+					throw e;
+				}
+				// end of trace or a record which was only partially written
+				pendingType = -1;
+				pendingAccess = false;
+				break;
+			}
+			if(pendingAddress != address + length || (pendingAddress >>> 24) == 0x04 ||
+					(filter != null && !filter.acceptMemory(type, tid, pendingAddress))) {
+				break;
+			}
+			v = pendingValue;
+			if(accesses != null) {
+				accesses.addAccess(pendingAddress, v, size, true);
+			}
+			pendingType = -1;
+			pendingAccess = false;
+		}
+
+		if(length == size) {
+			return null;
+		}
+		return new ARMBlockWriteEvent(tid, Integer.toUnsignedLong(address), Arrays.copyOf(data, length), size);
+	}
+
+	// the device register event of a memory access which was rejected by the filter
+	private Event device(int address, int value, boolean write) {
+		if(!filter.acceptDevice(tid)) {
+			return null;
+		}
+		return ARMDevices.getEvent(tid, address, value, write);
+	}
+
+	// array payload after its length was already read, see IO.readArray
+	private byte[] readArray(int length) throws IOException {
+		if(length == -1) {
+			return null;
+		}
+		byte[] data;
+		if(dumps == null) {
+			data = new byte[length];
+		} else {
+			// read into the scratch buffer so that repeated dumps do not allocate at all
+			if(dumpBuffer.length < length) {
+				dumpBuffer = new byte[length];
+			}
+			data = dumpBuffer;
+		}
+		int n = 0;
+		while(n < length) {
+			int r = in.read(data, n, length - n);
+			if(r <= 0) {
+				throw new EOFException();
+			}
+			n += r;
+		}
+		if(dumps == null) {
+			return data;
+		} else {
+			return dumps.intern(data, length);
+		}
+	}
+
+	private void skip(int length) throws IOException {
+		long remaining = length == -1 ? 0 : Integer.toUnsignedLong(length);
+		while(remaining > 0) {
+			long n = in.skip(remaining);
+			if(n > 0) {
+				remaining -= n;
+			} else if(in.read() == -1) {
+				throw new EOFException();
+			} else {
+				remaining--;
+			}
 		}
 	}
 
 	@Override
 	public long tell() {
-		return in.tell();
+		if(pendingType == -1) {
+			return in.tell();
+		} else if(pendingAccess) {
+			return in.tell() - 5 - getAccessSize(pendingType);
+		} else {
+			return in.tell() - 1;
+		}
 	}
 }
@@ -0,0 +1,179 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+
+// Cuts a step range out of a trace. The first step of the slice is written with all registers and the CPSR,
+// so the slice does not depend on anything before it. Optionally, all memory contents known from accesses and
+// dumps before the range are written as dumps at the start of the slice.
+//
+// Thread ids are assigned again when the slice is read, starting with 0 for the thread the slice starts in.
+public class ARMTraceSlicer {
+	private static final int PAGE_SHIFT = 12;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private static final int MAX_DUMP_SIZE = 64 * 1024;
+
+	private boolean memory = false;
+	private final Map<Long, Page> pages = new HashMap<>();
+
+	private static class Page {
+		final byte[] data = new byte[PAGE_SIZE];
+		final long[] known = new long[PAGE_SIZE / 64];
+
+		void set(int offset, byte value) {
+			data[offset] = value;
+			known[offset >> 6] |= 1L << offset;
+		}
+
+		boolean isKnown(int offset) {
+			return (known[offset >> 6] & (1L << offset)) != 0;
+		}
+	}
+
+	// collect memory contents before the range; this requires reading the trace from the beginning
+	public void setMemory(boolean memory) {
+		this.memory = memory;
+	}
+
+	private void set(long address, byte value) {
+		long page = address >>> PAGE_SHIFT;
+		Page p = pages.get(page);
+		if(p == null) {
+			p = new Page();
+			pages.put(page, p);
+		}
+		p.set((int) (address & (PAGE_SIZE - 1)), value);
+	}
+
+	private void record(Event evt) {
+		if(evt instanceof MemoryEvent) {
+			MemoryEvent mem = (MemoryEvent) evt;
+			long value = mem.getValue();
+			int size = mem.getSize();
+			for(int i = 0; i < size; i++) {
+				int shift = mem.isBigEndian() ? (size - i - 1) * 8 : i * 8;
+				set(mem.getAddress() + i, (byte) (value >>> shift));
+			}
+		} else if(evt instanceof MemoryDumpEvent) {
+			MemoryDumpEvent dump = (MemoryDumpEvent) evt;
+			byte[] data = dump.getData();
+			for(int i = 0; i < data.length; i++) {
+				set(dump.getAddress() + i, data[i]);
+			}
+		}
+	}
+
+	private void writeMemory(ARMTraceWriter writer) throws IOException {
+		long[] addresses = pages.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+		byte[] buf = new byte[MAX_DUMP_SIZE];
+		int length = 0;
+		long start = 0;
+		for(long page : addresses) {
+			Page p = pages.get(page);
+			long base = page << PAGE_SHIFT;
+			for(int i = 0; i < PAGE_SIZE; i++) {
+				if(!p.isKnown(i)) {
+					continue;
+				}
+				long address = base + i;
+				if(length > 0 && (start + length != address || length == buf.length)) {
+					writer.writeDump((int) start, Arrays.copyOf(buf, length));
+					length = 0;
+				}
+				if(length == 0) {
+					start = address;
+				}
+				buf[length++] = p.data[i];
+			}
+		}
+		if(length > 0) {
+			writer.writeDump((int) start, Arrays.copyOf(buf, length));
+		}
+		pages.clear();
+	}
+
+	// Writes the steps first..last (inclusive) and the events belonging to them. Returns the number of steps
+	// written.
+	public long slice(ARMTraceReader reader, ARMTraceWriter writer, long first, long last) throws IOException {
+		ARMStepEvent start;
+		if(!memory && reader.isSeekable()) {
+			start = reader.seek(first);
+		} else {
+			Event evt;
+			while((evt = reader.read()) != null) {
+				if(evt instanceof ARMStepEvent && ((ARMStepEvent) evt).getStep() >= first) {
+					break;
+				} else if(memory) {
+					record(evt);
+				}
+			}
+			start = (ARMStepEvent) evt;
+		}
+
+		if(start == null || start.getStep() > last) {
+			writer.flush();
+			return 0;
+		}
+
+		if(memory) {
+			writeMemory(writer);
+		}
+		writer.writeFullStep(start.getState());
+
+		long steps = 1;
+		Event evt;
+		while((evt = reader.read()) != null) {
+			if(evt instanceof ARMStepEvent) {
+				if(((ARMStepEvent) evt).getStep() > last) {
+					break;
+				}
+				steps++;
+			}
+			writer.writeEvent(evt);
+		}
+		writer.flush();
+		return steps;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 4) {
+			System.out.println("Usage: ARMTraceSlicer input output first last [memory] [compact]");
+			System.exit(1);
+		}
+
+		ARMTraceSlicer slicer = new ARMTraceSlicer();
+		boolean compact = false;
+		for(int i = 4; i < args.length; i++) {
+			switch(args[i]) {
+			case "memory":
+				slicer.setMemory(true);
+				break;
+			case "compact":
+				compact = true;
+				break;
+			default:
+				System.out.println("Unknown option: " + args[i]);
+				System.exit(1);
+			}
+		}
+
+		ARMTraceReader reader = new ARMTraceReader(Paths.get(args[0]));
+		try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[1])),
+				1024 * 1024)) {
+			ARMTraceWriter writer = new ARMTraceWriter(out);
+			writer.setCompact(compact);
+			long steps = slicer.slice(reader, writer, Long.parseLong(args[2]), Long.parseLong(args[3]));
+			System.out.println("Wrote " + steps + " steps");
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+
+// Rewrites a trace with the other step record format. Steps keep exactly the register and CPSR writes of the
+// original, so both traces decode to the same sequence of states.
+public class ARMTraceTranscoder {
+	public static void transcode(ARMTraceReader reader, ARMTraceWriter writer) throws IOException {
+		Event evt;
+		while((evt = reader.read()) != null) {
+			writer.writeEvent(evt);
+		}
+		writer.flush();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals("compact") &&
+				!args[2].equals("full"))) {
+			System.out.println("Usage: ARMTraceTranscoder input output [compact|full]");
+			System.exit(1);
+		}
+
+		ARMTraceReader reader = new ARMTraceReader(Paths.get(args[0]));
+		try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[1])),
+				1024 * 1024)) {
+			ARMTraceWriter writer = new ARMTraceWriter(out);
+			writer.setCompact(args.length == 2 || args[2].equals("compact"));
+			transcode(reader, writer);
+		}
+	}
+}
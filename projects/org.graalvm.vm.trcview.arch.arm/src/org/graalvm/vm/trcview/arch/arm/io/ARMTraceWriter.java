@@ -0,0 +1,247 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import static org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState.COMPACT_CODE32;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState.COMPACT_CPSR;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState.COMPACT_PC;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState.COMPACT_RMASK16;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState.COMPACT_RMASK8;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMCpuDeltaState.COMPACT_STEP;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_DUMP;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_IRQ;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_READ_16;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_READ_32;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_READ_8;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_STEP9;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_STEP_COMPACT;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_WRITE_16;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_WRITE_32;
+import static org.graalvm.vm.trcview.arch.arm.io.ARMTraceReader.TYPE_WRITE_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+import org.graalvm.vm.trcview.arch.io.MemoryDumpEvent;
+import org.graalvm.vm.trcview.arch.io.MemoryEvent;
+import org.graalvm.vm.trcview.net.protocol.IO;
+import org.graalvm.vm.util.io.LEOutputStream;
+import org.graalvm.vm.util.io.WordOutputStream;
+
+// Writes records in the format read by ARMTraceReader. Steps only store the registers which differ from the
+// previously written step.
+public class ARMTraceWriter implements Closeable {
+	private static final int MASK_CPSR = 1;
+
+	private final WordOutputStream out;
+
+	private final int[] gpr = new int[16];
+	private int cpsr;
+	private long lastStep = 0;
+	private boolean first = true;
+	private boolean compact = false;
+
+	public ARMTraceWriter(OutputStream out) {
+		this(new LEOutputStream(out));
+	}
+
+	public ARMTraceWriter(WordOutputStream out) {
+		this.out = out;
+	}
+
+	// write steps as TYPE_STEP_COMPACT records instead of TYPE_STEP9
+	public void setCompact(boolean compact) {
+		this.compact = compact;
+	}
+
+	public void writeStep(int code, long step, int cpsr, int[] registers) throws IOException {
+		if(first) {
+			writeFullStep(code, step, cpsr, registers);
+			return;
+		}
+
+		int rmask = 0;
+		for(int i = 0; i < 16; i++) {
+			if(registers[i] != gpr[i]) {
+				rmask |= 1 << i;
+			}
+		}
+		write(code, step, cpsr, cpsr != this.cpsr, rmask, registers);
+	}
+
+	public void writeStep(ARMCpuState state) throws IOException {
+		writeStep(state.getCode(), state.getStep(), state.getCPSR(), getRegisters(state));
+	}
+
+	// stores all registers and the CPSR, so the step does not depend on anything written before
+	public void writeFullStep(int code, long step, int cpsr, int[] registers) throws IOException {
+		write(code, step, cpsr, true, 0xFFFF, registers);
+	}
+
+	public void writeFullStep(ARMCpuState state) throws IOException {
+		writeFullStep(state.getCode(), state.getStep(), state.getCPSR(), getRegisters(state));
+	}
+
+	// writes exactly the registers the step wrote when it was recorded, unlike writeStep which compares values
+	public void copyStep(ARMCpuState state) throws IOException {
+		int changed = state.getChangedMask();
+		write(state.getCode(), state.getStep(), state.getCPSR(), (changed & ARMCpuState.CHANGED_CPSR) != 0,
+				changed & 0xFFFF, getRegisters(state));
+	}
+
+	private static int[] getRegisters(ARMCpuState state) {
+		int[] registers = new int[16];
+		for(int i = 0; i < 16; i++) {
+			registers[i] = state.getGPR(i);
+		}
+		return registers;
+	}
+
+	private void write(int code, long step, int newCpsr, boolean writeCpsr, int rmask, int[] registers)
+			throws IOException {
+		if(compact) {
+			writeCompact(code, step, newCpsr, writeCpsr, rmask, registers);
+		} else {
+			out.write8bit((byte) TYPE_STEP9);
+			out.write8bit((byte) (writeCpsr ? MASK_CPSR : 0));
+			out.write16bit((short) rmask);
+			out.write32bit(code);
+			out.write64bit(step);
+			if(writeCpsr) {
+				out.write32bit(newCpsr);
+			}
+			for(int i = 0; i < 16; i++) {
+				if((rmask & (1 << i)) != 0) {
+					out.write32bit(registers[i]);
+				}
+			}
+		}
+		for(int i = 0; i < 16; i++) {
+			if((rmask & (1 << i)) != 0) {
+				gpr[i] = registers[i];
+			}
+		}
+		cpsr = newCpsr;
+		lastStep = step;
+		first = false;
+	}
+
+	// see ARMCpuDeltaState.compactState for the layout
+	private void writeCompact(int code, long step, int newCpsr, boolean writeCpsr, int rmask, int[] registers)
+			throws IOException {
+		int flags = 0;
+		int regs = rmask;
+		if((rmask & (1 << 15)) != 0 && registers[15] == gpr[15] + ARMCpuDeltaState.getInstructionSize(newCpsr)) {
+			flags |= COMPACT_PC;
+			regs &= ~(1 << 15);
+		}
+		if((regs & ~0xFF) != 0) {
+			flags |= COMPACT_RMASK16;
+		} else if(regs != 0) {
+			flags |= COMPACT_RMASK8;
+		}
+		if((code & 0xFFFF0000) != 0) {
+			flags |= COMPACT_CODE32;
+		}
+		long delta = step - lastStep;
+		if(delta != 1) {
+			flags |= COMPACT_STEP;
+		}
+		if(writeCpsr) {
+			flags |= COMPACT_CPSR;
+		}
+
+		out.write8bit((byte) TYPE_STEP_COMPACT);
+		out.write8bit((byte) flags);
+		if((flags & COMPACT_RMASK16) != 0) {
+			out.write16bit((short) regs);
+		} else if((flags & COMPACT_RMASK8) != 0) {
+			out.write8bit((byte) regs);
+		}
+		if((flags & COMPACT_CODE32) != 0) {
+			out.write32bit(code);
+		} else {
+			out.write16bit((short) code);
+		}
+		if((flags & COMPACT_STEP) != 0) {
+			writeVarLong(delta);
+		}
+		if(writeCpsr) {
+			out.write32bit(newCpsr);
+		}
+		for(int i = 0; i < 16; i++) {
+			if((regs & (1 << i)) != 0) {
+				out.write32bit(registers[i]);
+			}
+		}
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		long v = (value << 1) ^ (value >> 63);
+		while((v & ~0x7FL) != 0) {
+			out.write8bit((byte) (v | 0x80));
+			v >>>= 7;
+		}
+		out.write8bit((byte) v);
+	}
+
+	public void writeMemory(boolean write, int size, int address, int value) throws IOException {
+		switch(size) {
+		case 1:
+			out.write8bit((byte) (write ? TYPE_WRITE_8 : TYPE_READ_8));
+			out.write8bit((byte) value);
+			break;
+		case 2:
+			out.write8bit((byte) (write ? TYPE_WRITE_16 : TYPE_READ_16));
+			out.write16bit((short) value);
+			break;
+		case 4:
+			out.write8bit((byte) (write ? TYPE_WRITE_32 : TYPE_READ_32));
+			out.write32bit(value);
+			break;
+		default:
+			throw new IllegalArgumentException("invalid access size " + size);
+		}
+		out.write32bit(address);
+	}
+
+	public void writeDump(int address, byte[] data) throws IOException {
+		out.write8bit((byte) TYPE_DUMP);
+		out.write32bit(address);
+		IO.writeArray(out, data);
+	}
+
+	public void writeIRQ() throws IOException {
+		out.write8bit((byte) TYPE_IRQ);
+	}
+
+	// Writes the record an event decoded by ARMTraceReader came from. Events the reader derives itself, like
+	// the memory map, devices and context switches, are skipped.
+	public void writeEvent(Event evt) throws IOException {
+		if(evt instanceof ARMCpuState) {
+			copyStep((ARMCpuState) evt);
+		} else if(evt instanceof MemoryEvent) {
+			MemoryEvent mem = (MemoryEvent) evt;
+			writeMemory(mem.isWrite(), mem.getSize(), (int) mem.getAddress(), (int) mem.getValue());
+		} else if(evt instanceof ARMBlockWriteEvent) {
+			ARMBlockWriteEvent block = (ARMBlockWriteEvent) evt;
+			for(int i = 0; i < block.getAccessCount(); i++) {
+				writeMemory(true, block.getAccessSize(), (int) block.getAccessAddress(i), block.getAccessValue(i));
+			}
+		} else if(evt instanceof MemoryDumpEvent) {
+			MemoryDumpEvent dump = (MemoryDumpEvent) evt;
+			writeDump((int) dump.getAddress(), dump.getData());
+		} else if(evt instanceof ARMExceptionEvent) {
+			writeIRQ();
+		}
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,208 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.graalvm.vm.util.io.WordInputStream;
+
+// Seekable stream over the raw records of a compressed trace. While one block is read, the following blocks
+// are already decompressed on the common pool.
+public class BlockLEInputStream extends WordInputStream {
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final ARMCompressedTrace trace;
+	private final int lookahead;
+
+	private final Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+	private int nextBlock = 0;
+
+	private ByteBuffer buf = EMPTY;
+	private int block = -1;
+	private long base = 0;
+
+	public BlockLEInputStream(ARMCompressedTrace trace) {
+		this(trace, ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	public BlockLEInputStream(ARMCompressedTrace trace, int lookahead) {
+		super(null);
+		this.trace = trace;
+		this.lookahead = lookahead;
+	}
+
+	public ARMCompressedTrace getTrace() {
+		return trace;
+	}
+
+	private boolean load(int id) throws IOException {
+		if(id >= trace.getBlockCount()) {
+			buf = EMPTY;
+			block = trace.getBlockCount();
+			base = trace.getSize();
+			return false;
+		}
+
+		byte[] data;
+		if(id == nextBlock - pending.size() && !pending.isEmpty()) {
+			data = join(pending.poll());
+		} else {
+			// not the block which was prefetched, e.g. after a seek
+			cancel();
+			data = trace.decompress(id);
+			nextBlock = id + 1;
+		}
+
+		while(pending.size() < lookahead && nextBlock < trace.getBlockCount()) {
+			int next = nextBlock++;
+			pending.add(ForkJoinPool.commonPool().submit(() -> trace.decompress(next)));
+		}
+
+		buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		block = id;
+		base = trace.getBlockOffset(id);
+		return true;
+	}
+
+	private static byte[] join(ForkJoinTask<byte[]> task) throws IOException {
+		try {
+			return task.get();
+		} catch(InterruptedException e) {
+			throw new IOException("interrupted while decompressing trace", e);
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			} else {
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	private void cancel() {
+		for(ForkJoinTask<byte[]> task : pending) {
+			task.cancel(false);
+		}
+		pending.clear();
+	}
+
+	private boolean ensure() throws IOException {
+		if(buf.hasRemaining()) {
+			return true;
+		} else {
+			return load(block + 1);
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if(!ensure()) {
+			return -1;
+		}
+		return Byte.toUnsignedInt(buf.get());
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return 0;
+		}
+		int n = 0;
+		while(n < len) {
+			if(!ensure()) {
+				break;
+			}
+			int cnt = Math.min(len - n, buf.remaining());
+			buf.get(b, off + n, cnt);
+			n += cnt;
+		}
+		return n == 0 ? -1 : n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if(n <= 0) {
+			return 0;
+		}
+		long pos = tell();
+		long target = Math.min(pos + n, trace.getSize());
+		seek(target);
+		return target - pos;
+	}
+
+	@Override
+	public int available() {
+		long remaining = trace.getSize() - tell();
+		return (int) Math.min(remaining, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int read8bit() throws IOException {
+		if(!ensure()) {
+			throw new EOFException();
+		}
+		return Byte.toUnsignedInt(buf.get());
+	}
+
+	@Override
+	public short read16bit() throws IOException {
+		if(buf.remaining() >= 2) {
+			return buf.getShort();
+		} else {
+			// value crosses a block boundary
+			return (short) (read8bit() | read8bit() << 8);
+		}
+	}
+
+	@Override
+	public int read32bit() throws IOException {
+		if(buf.remaining() >= 4) {
+			return buf.getInt();
+		} else {
+			return Short.toUnsignedInt(read16bit()) | read16bit() << 16;
+		}
+	}
+
+	@Override
+	public long read64bit() throws IOException {
+		if(buf.remaining() >= 8) {
+			return buf.getLong();
+		} else {
+			return Integer.toUnsignedLong(read32bit()) | (long) read32bit() << 32;
+		}
+	}
+
+	public void seek(long offset) throws IOException {
+		if(offset < 0 || offset > trace.getSize()) {
+			throw new IOException("invalid offset " + offset);
+		}
+		if(block >= 0 && offset >= base && offset - base <= buf.limit()) {
+			buf.position((int) (offset - base));
+			return;
+		}
+		int id = trace.find(offset);
+		if(id == -1) {
+			// empty trace
+			load(0);
+		} else if(load(id)) {
+			buf.position((int) (offset - base));
+		}
+	}
+
+	@Override
+	public long tell() {
+		return base + buf.position();
+	}
+
+	@Override
+	public void close() throws IOException {
+		cancel();
+		trace.close();
+	}
+}
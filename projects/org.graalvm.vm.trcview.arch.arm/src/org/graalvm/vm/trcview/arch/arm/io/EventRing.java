@@ -0,0 +1,131 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.graalvm.vm.trcview.arch.io.Event;
+
+// Bounded single producer / single consumer ring of events and their trace offsets. Neither side takes a lock:
+// the producer publishes slots by advancing tail, the consumer releases them by advancing head.
+class EventRing {
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = 50_000;
+	// a producer waiting on a full ring backs off up to this, the consumer might not come back at all
+	private static final long MAX_PARK_NANOS = 10_000_000;
+
+	private final Event[] events;
+	private final long[] offsets;
+	private final int mask;
+
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	// producer side copy of head and consumer side copy of tail, to avoid reading the other counter on
+	// every operation
+	private long cachedHead = 0;
+	private long cachedTail = 0;
+
+	private long offset = 0;
+
+	private volatile boolean finished = false;
+	private volatile boolean closed = false;
+
+	// the ring counts as abandoned once the owner which consumes it is no longer reachable
+	private final WeakReference<Object> owner;
+
+	EventRing(int capacity, Object owner) {
+		if(Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two");
+		}
+		events = new Event[capacity];
+		offsets = new long[capacity];
+		mask = capacity - 1;
+		this.owner = new WeakReference<>(owner);
+	}
+
+	// publishes count events at once; returns false if the ring was closed or abandoned by the consumer
+	boolean put(Event[] batch, long[] batchOffsets, int count) {
+		int done = 0;
+		int spins = 0;
+		long park = PARK_NANOS;
+		while(done < count) {
+			long t = tail.get();
+			int free = (int) (events.length - (t - cachedHead));
+			if(free == 0) {
+				cachedHead = head.get();
+				free = (int) (events.length - (t - cachedHead));
+			}
+			if(free == 0) {
+				if(closed || owner.get() == null) {
+					return false;
+				}
+				if(++spins > SPINS) {
+					LockSupport.parkNanos(park);
+					park = Math.min(park * 2, MAX_PARK_NANOS);
+				}
+				continue;
+			}
+			spins = 0;
+			park = PARK_NANOS;
+			int n = Math.min(free, count - done);
+			for(int i = 0; i < n; i++) {
+				int idx = (int) ((t + i) & mask);
+				events[idx] = batch[done + i];
+				offsets[idx] = batchOffsets[done + i];
+			}
+			tail.lazySet(t + n);
+			done += n;
+		}
+		return true;
+	}
+
+	// called by the producer after its last put
+	void finish() {
+		finished = true;
+	}
+
+	// returns null once the ring is empty and the producer finished
+	Event take() {
+		long h = head.get();
+		int spins = 0;
+		while(h == cachedTail) {
+			cachedTail = tail.get();
+			if(h < cachedTail) {
+				break;
+			}
+			if(finished) {
+				// events published right before finishing are visible after reading the flag
+				cachedTail = tail.get();
+				if(h == cachedTail) {
+					return null;
+				}
+				break;
+			}
+			if(++spins > SPINS) {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+		int i = (int) (h & mask);
+		Event event = events[i];
+		offset = offsets[i];
+		events[i] = null;
+		head.lazySet(h + 1);
+		return event;
+	}
+
+	// number of events taken so far
+	long getTaken() {
+		return head.get();
+	}
+
+	// trace offset after the event returned by the last take
+	long getOffset() {
+		return offset;
+	}
+
+	// called by the consumer; a blocked producer gives up
+	void close() {
+		closed = true;
+	}
+}
@@ -0,0 +1,90 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads a file which is still being written. At the end of the file, reads wait for the file to grow instead of
+// returning EOF, until stop() is called or the file did not grow for the idle timeout.
+public class FollowInputStream extends InputStream {
+	private static final long POLL_INTERVAL = 100;
+
+	private final FileChannel channel;
+	private final long timeout;
+
+	private volatile boolean stopped = false;
+
+	// timeout is in milliseconds, 0 waits forever
+	public FollowInputStream(Path path, long timeout) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ), timeout);
+	}
+
+	public FollowInputStream(FileChannel channel, long timeout) {
+		this.channel = channel;
+		this.timeout = timeout;
+	}
+
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int n = read(b, 0, 1);
+		if(n == -1) {
+			return -1;
+		} else {
+			return Byte.toUnsignedInt(b[0]);
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return 0;
+		}
+		ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+		long idle = 0;
+		while(true) {
+			int n = channel.read(buf);
+			if(n > 0) {
+				return n;
+			}
+			if(stopped) {
+				// the writer may have appended data right before stop
+				n = channel.read(buf);
+				return n > 0 ? n : -1;
+			}
+			if(timeout > 0 && idle >= timeout) {
+				stopped = true;
+				continue;
+			}
+			try {
+				Thread.sleep(POLL_INTERVAL);
+			} catch(InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			idle += POLL_INTERVAL;
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(channel.size() - channel.position(), Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void close() throws IOException {
+		stopped = true;
+		channel.close();
+	}
+}
@@ -0,0 +1,170 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.graalvm.vm.util.io.WordInputStream;
+
+public class MappedLEInputStream extends WordInputStream {
+	// a single MappedByteBuffer cannot exceed 2GB, so the file is mapped in windows
+	private static final long WINDOW_SIZE = 256 * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final long start;
+	private final long size;
+	private final long windowSize;
+
+	private ByteBuffer buf;
+	private long base;
+
+	public MappedLEInputStream(FileChannel channel) throws IOException {
+		this(channel, channel.position());
+	}
+
+	public MappedLEInputStream(FileChannel channel, long start) throws IOException {
+		this(channel, start, WINDOW_SIZE);
+	}
+
+	public MappedLEInputStream(FileChannel channel, long start, long windowSize) throws IOException {
+		super(null);
+		if(windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("invalid window size " + windowSize);
+		}
+		this.channel = channel;
+		this.start = start;
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		map(start);
+	}
+
+	private boolean map(long position) throws IOException {
+		if(position >= size) {
+			buf = ByteBuffer.allocate(0);
+			base = size;
+			return false;
+		}
+		long len = Math.min(windowSize, size - position);
+		MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, position, len);
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		buf = mapped;
+		base = position;
+		return true;
+	}
+
+	private boolean ensure() throws IOException {
+		if(buf.hasRemaining()) {
+			return true;
+		} else {
+			return map(base + buf.position());
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if(!ensure()) {
+			return -1;
+		}
+		return Byte.toUnsignedInt(buf.get());
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return 0;
+		}
+		int n = 0;
+		while(n < len) {
+			if(!ensure()) {
+				break;
+			}
+			int cnt = Math.min(len - n, buf.remaining());
+			buf.get(b, off + n, cnt);
+			n += cnt;
+		}
+		return n == 0 ? -1 : n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if(n <= 0) {
+			return 0;
+		}
+		long pos = base + buf.position();
+		long target = Math.min(pos + n, size);
+		if(target - base <= buf.limit()) {
+			buf.position((int) (target - base));
+		} else {
+			map(target);
+		}
+		return target - pos;
+	}
+
+	@Override
+	public int available() {
+		long remaining = size - (base + buf.position());
+		return (int) Math.min(remaining, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int read8bit() throws IOException {
+		if(!ensure()) {
+			throw new EOFException();
+		}
+		return Byte.toUnsignedInt(buf.get());
+	}
+
+	@Override
+	public short read16bit() throws IOException {
+		if(buf.remaining() >= 2) {
+			return buf.getShort();
+		} else {
+			// value crosses a window boundary
+			return (short) (read8bit() | read8bit() << 8);
+		}
+	}
+
+	@Override
+	public int read32bit() throws IOException {
+		if(buf.remaining() >= 4) {
+			return buf.getInt();
+		} else {
+			return Short.toUnsignedInt(read16bit()) | read16bit() << 16;
+		}
+	}
+
+	@Override
+	public long read64bit() throws IOException {
+		if(buf.remaining() >= 8) {
+			return buf.getLong();
+		} else {
+			return Integer.toUnsignedLong(read32bit()) | (long) read32bit() << 32;
+		}
+	}
+
+	public void seek(long offset) throws IOException {
+		long target = start + offset;
+		if(target < start || target > size) {
+			throw new IOException("invalid offset " + offset);
+		}
+		if(target >= base && target - base <= buf.limit()) {
+			buf.position((int) (target - base));
+		} else {
+			map(target);
+		}
+	}
+
+	@Override
+	public long tell() {
+		return base + buf.position() - start;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,154 @@
+package org.graalvm.vm.trcview.arch.arm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Reads the underlying stream on a background thread into large buffers, so blocking I/O overlaps with
+// whatever the consumer of this stream does.
+public class ReadAheadInputStream extends InputStream {
+	private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+	private static final int BUFFER_COUNT = 4;
+
+	private static final Chunk EOF = new Chunk(new byte[0], 0);
+
+	private final InputStream in;
+	private final BlockingQueue<Chunk> full;
+	private final BlockingQueue<byte[]> free;
+	private final Thread thread;
+
+	private volatile boolean closed = false;
+	private IOException error = null;
+
+	private Chunk current = null;
+	private int position = 0;
+
+	private static class Chunk {
+		final byte[] data;
+		final int length;
+
+		Chunk(byte[] data, int length) {
+			this.data = data;
+			this.length = length;
+		}
+	}
+
+	public ReadAheadInputStream(InputStream in) {
+		this(in, BUFFER_SIZE, BUFFER_COUNT);
+	}
+
+	public ReadAheadInputStream(InputStream in, int bufferSize, int bufferCount) {
+		this.in = in;
+		full = new ArrayBlockingQueue<>(bufferCount + 1);
+		free = new ArrayBlockingQueue<>(bufferCount);
+		for(int i = 0; i < bufferCount; i++) {
+			free.add(new byte[bufferSize]);
+		}
+		thread = new Thread(this::fill, "trace read-ahead");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void fill() {
+		try {
+			while(!closed) {
+				byte[] buf = free.take();
+				int n = 0;
+				while(n < buf.length) {
+					int r = in.read(buf, n, buf.length - n);
+					if(r == -1) {
+						break;
+					}
+					n += r;
+				}
+				if(n > 0) {
+					full.put(new Chunk(buf, n));
+				}
+				if(n < buf.length) {
+					break;
+				}
+			}
+		} catch(InterruptedException e) {
+			// closed
+		} catch(IOException e) {
+			error = e;
+		} finally {
+			// the queue has one slot more than there are buffers, so this never blocks
+			full.offer(EOF);
+		}
+	}
+
+	private boolean next() throws IOException {
+		if(current == EOF) {
+			return false;
+		}
+		if(current != null) {
+			free.offer(current.data);
+		}
+		try {
+			current = full.take();
+		} catch(InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+		position = 0;
+		if(current == EOF) {
+			// error is written before EOF is queued
+			if(error != null) {
+				throw error;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if(current == null || position == current.length) {
+			if(!next()) {
+				return -1;
+			}
+		}
+		return Byte.toUnsignedInt(current.data[position++]);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return 0;
+		}
+		int n = 0;
+		while(n < len) {
+			if(current == null || position == current.length) {
+				if(n > 0 && full.isEmpty()) {
+					// do not wait for more data if something can be returned already
+					break;
+				}
+				if(!next()) {
+					break;
+				}
+			}
+			int cnt = Math.min(len - n, current.length - position);
+			System.arraycopy(current.data, position, b, off + n, cnt);
+			position += cnt;
+			n += cnt;
+		}
+		return n == 0 ? -1 : n;
+	}
+
+	@Override
+	public int available() {
+		if(current == null || current == EOF) {
+			return 0;
+		}
+		return current.length - position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		thread.interrupt();
+		in.close();
+	}
+}